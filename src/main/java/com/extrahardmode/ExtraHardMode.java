@@ -62,12 +62,21 @@ import com.extrahardmode.features.monsters.Vindicator;
 import com.extrahardmode.features.monsters.Witches;
 import com.extrahardmode.features.monsters.Zombies;
 import com.extrahardmode.metrics.ConfigPlotter;
+import com.extrahardmode.module.BarNotifier;
 import com.extrahardmode.module.BlockModule;
+import com.extrahardmode.module.BlockPipeline;
+import com.extrahardmode.module.CombatPipeline;
+import com.extrahardmode.module.CreeperLaunchAnimator;
 import com.extrahardmode.module.DataStoreModule;
+import com.extrahardmode.module.DragonFightController;
+import com.extrahardmode.module.EhmScheduler;
 import com.extrahardmode.module.ExplosionCompatStorage;
+import com.extrahardmode.module.ExplosionGovernor;
 import com.extrahardmode.module.MsgModule;
 import com.extrahardmode.module.MsgPersistModule;
 import com.extrahardmode.module.PlayerModule;
+import com.extrahardmode.module.SpawnPipeline;
+import com.extrahardmode.module.TimingsModule;
 import com.extrahardmode.module.UtilityModule;
 import com.extrahardmode.module.temporaryblock.TemporaryBlockHandler;
 import com.extrahardmode.placeholder.Placeholder;
@@ -123,14 +132,23 @@ public class ExtraHardMode extends JavaPlugin
 
         File rootFolder = new File(getDataFolder().getPath() + File.separator + "persistence" + File.separator);
         rootFolder.mkdirs();
-        registerModule(MsgPersistModule.class, new MsgPersistModule(this, rootFolder + File.separator + "messages_count.db"));
+        registerModule(TimingsModule.class, new TimingsModule(this, rootFolder));
+        registerModule(EhmScheduler.class, new EhmScheduler(this));
+        registerModule(MsgPersistModule.class, new MsgPersistModule(this, rootFolder));
 
+        registerModule(BarNotifier.class, new BarNotifier(this));
         registerModule(MsgModule.class, new MsgModule(this));
 
         registerModule(DataStoreModule.class, new DataStoreModule(this));
         registerModule(BlockModule.class, new BlockModule(this));
         registerModule(UtilityModule.class, new UtilityModule(this));
         registerModule(PlayerModule.class, new PlayerModule(this));
+        registerModule(ExplosionGovernor.class, new ExplosionGovernor(this));
+        registerModule(CreeperLaunchAnimator.class, new CreeperLaunchAnimator(this));
+        registerModule(DragonFightController.class, new DragonFightController(this));
+        registerModule(SpawnPipeline.class, new SpawnPipeline(this));
+        registerModule(CombatPipeline.class, new CombatPipeline(this));
+        registerModule(BlockPipeline.class, new BlockPipeline(this));
 
         //Register command
         getCommand("ehm").setExecutor(new Commander(this));
@@ -190,7 +208,7 @@ public class ExtraHardMode extends JavaPlugin
 
         // FEATURE: monsters spawn in the light under a configurable Y level
         MoreMonstersTask task = new MoreMonstersTask(this);
-        this.getServer().getScheduler().scheduleSyncRepeatingTask(this, task, 600L, 600L);
+        getModuleForClass(EhmScheduler.class).runTaskTimer("MoreMonsters", task, 600L, 600L);
 
         //Feature: check weight task if no swimming in armor active and feature active in at least one world
         boolean active = false;
@@ -198,17 +216,8 @@ public class ExtraHardMode extends JavaPlugin
             if (getModuleForClass(RootConfig.class).getBoolean(RootNode.NO_SWIMMING_IN_ARMOR, world.getName()))
                 active = true;
         if (active)
-            this.getServer().getScheduler().scheduleSyncRepeatingTask(this, new WeightCheckTask(this), 20L * 5, 20L * 5);
+            getModuleForClass(EhmScheduler.class).runTaskTimer("Water", new WeightCheckTask(this), 20L * 5, 20L * 5);
 
-        //Armor task
-        /*
-        active = false;
-        for (World world : getServer().getWorlds())
-            if (getModuleForClass(RootConfig.class).getBoolean(RootNode.ARMOR_SLOWDOWN_ENABLE, world.getName()))
-                active = true;
-        if (active)
-            this.getServer().getScheduler().scheduleSyncRepeatingTask(this, new ArmorWeightTask(this), 20L * 5, 20L * 3);
-        */
         //Metrics Plotter, this gets included by maven
         new ConfigPlotter(this, getModuleForClass(RootConfig.class));
 
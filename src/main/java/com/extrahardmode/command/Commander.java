@@ -42,6 +42,9 @@ public class Commander extends CommandHandler
         registerCommand("reload", new ReloadCommand());
         registerCommand("version", new VersionCommand());
         registerCommand("enabled", new EnabledCommand());
+        registerCommand("listeners", new ListenersCommand());
+        registerCommand("timings", new TimingsCommand());
+        registerCommand("tasks", new TasksCommand());
         registerCommand("debugtoggle", new DebugToggleCommand());
         registerCommand("debug", new DebugCommand());
     }
@@ -58,6 +61,9 @@ public class Commander extends CommandHandler
         {
             sender.sendMessage("    reload " + ChatColor.YELLOW + "- Reload the plugin");
             sender.sendMessage("    enabled [world]" + ChatColor.YELLOW + "- Is extrahardmode enabled");
+            sender.sendMessage("    listeners" + ChatColor.YELLOW + " - Show which listeners are active");
+            sender.sendMessage("    timings [reset|dump]" + ChatColor.YELLOW + " - Show what takes the most time");
+            sender.sendMessage("    tasks" + ChatColor.YELLOW + " - Show the scheduled tasks of each feature");
         }
         return true;
     }
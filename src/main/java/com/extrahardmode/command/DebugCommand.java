@@ -2,6 +2,8 @@ package com.extrahardmode.command;
 
 
 import com.extrahardmode.ExtraHardMode;
+import com.extrahardmode.module.EhmScheduler;
+import com.extrahardmode.module.ExplosionGovernor;
 import com.extrahardmode.service.ICommand;
 import com.extrahardmode.service.PermissionNode;
 import com.extrahardmode.task.RemoveExposedTorchesTask;
@@ -27,14 +29,19 @@ public class DebugCommand implements ICommand
                 {
                     if (args[0].equals("RemoveTorches"))
                     {
-                        plugin.getServer().getScheduler().runTask(plugin, new RemoveExposedTorchesTask(plugin, player.getLocation().getChunk(), true));
+                        plugin.getModuleForClass(EhmScheduler.class).runTask("Debug", new RemoveExposedTorchesTask(plugin, player.getLocation().getChunk(), true));
                         sender.sendMessage(ChatColor.GREEN + plugin.getTag() + "Removed Torches and Crops in the current chunk!");
+                    } else if (args[0].equals("Explosions"))
+                    {
+                        ExplosionGovernor governor = plugin.getModuleForClass(ExplosionGovernor.class);
+                        sender.sendMessage(String.format("%s%s Explosions queued: %d merged: %d deferred: %d detonated: %d pending: %d", ChatColor.GREEN, plugin.getTag(),
+                                governor.getQueuedCount(), governor.getMergedCount(), governor.getDeferredCount(), governor.getDetonatedCount(), governor.getPendingCount()));
                     }
                     return true;
                 } else
                 {
                     sender.sendMessage(ChatColor.RED + plugin.getTag() + " You need to specify what you want to debug!");
-                    sender.sendMessage(ChatColor.RED + plugin.getTag() + " Available methods \"RemoveTorches\"");
+                    sender.sendMessage(ChatColor.RED + plugin.getTag() + " Available methods \"RemoveTorches\", \"Explosions\"");
                 }
             } else
                 sender.sendMessage(ChatColor.RED + plugin.getTag() + "You need to be in game to use debugging functionality!");
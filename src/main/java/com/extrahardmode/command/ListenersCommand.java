@@ -0,0 +1,67 @@
+/*
+ * This file is part of
+ * ExtraHardMode Server Plugin for Minecraft
+ *
+ * Copyright (C) 2012 Ryan Hamshire
+ * Copyright (C) 2013 Diemex
+ *
+ * ExtraHardMode is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ExtraHardMode is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero Public License
+ * along with ExtraHardMode.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.extrahardmode.command;
+
+
+import com.extrahardmode.ExtraHardMode;
+import com.extrahardmode.service.ICommand;
+import com.extrahardmode.service.IModule;
+import com.extrahardmode.service.ListenerModule;
+import com.extrahardmode.service.PermissionNode;
+import org.bukkit.ChatColor;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+
+/**
+ * Lists which listeners are registered and which are skipped because their features are disabled in all worlds.
+ */
+public class ListenersCommand implements ICommand
+{
+
+    @Override
+    public boolean execute(ExtraHardMode plugin, CommandSender sender, Command command, String label, String[] args)
+    {
+        if (sender.hasPermission(PermissionNode.ADMIN.getNode()))
+        {
+            int active = 0, total = 0;
+            for (IModule module : plugin.getModules().values())
+            {
+                if (!(module instanceof ListenerModule))
+                    continue;
+                final ListenerModule listener = (ListenerModule) module;
+                total++;
+                if (listener.isRegistered())
+                {
+                    active++;
+                    sender.sendMessage(ChatColor.GREEN + "  " + listener.getClass().getSimpleName() + " - active");
+                } else
+                    sender.sendMessage(ChatColor.GRAY + "  " + listener.getClass().getSimpleName() + " - disabled in all worlds");
+            }
+            sender.sendMessage(ChatColor.GREEN + plugin.getTag() + " " + active + " of " + total + " listeners are registered");
+        } else
+        {
+            sender.sendMessage(ChatColor.RED + plugin.getTag() + " Lack permission: " + PermissionNode.ADMIN.getNode());
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,66 @@
+/*
+ * This file is part of
+ * ExtraHardMode Server Plugin for Minecraft
+ *
+ * Copyright (C) 2012 Ryan Hamshire
+ * Copyright (C) 2013 Diemex
+ *
+ * ExtraHardMode is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ExtraHardMode is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero Public License
+ * along with ExtraHardMode.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.extrahardmode.command;
+
+
+import com.extrahardmode.ExtraHardMode;
+import com.extrahardmode.module.EhmScheduler;
+import com.extrahardmode.service.ICommand;
+import com.extrahardmode.service.PermissionNode;
+import org.bukkit.ChatColor;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+
+import java.util.List;
+
+/**
+ * Shows how many tasks each feature scheduled and how many are still pending.
+ */
+public class TasksCommand implements ICommand
+{
+
+    @Override
+    public boolean execute(ExtraHardMode plugin, CommandSender sender, Command command, String label, String[] args)
+    {
+        if (sender.hasPermission(PermissionNode.ADMIN.getNode()))
+        {
+            EhmScheduler scheduler = plugin.getModuleForClass(EhmScheduler.class);
+            List<EhmScheduler.FeatureTasks> features = scheduler.getFeatures();
+            sender.sendMessage(ChatColor.GRAY + "===== " + ChatColor.RED + scheduler.getPendingCount() + " tasks pending" + ChatColor.GRAY + " =====");
+            sender.sendMessage(ChatColor.GRAY + "feature: pending, scheduled, executed, cancelled, dropped, total ms, max ms");
+            for (EhmScheduler.FeatureTasks stats : features)
+            {
+                sender.sendMessage(String.format("%s%s%s: %d, %d, %d, %d, %s%d%s, %.1f, %.1f", ChatColor.YELLOW, stats.getFeature(), ChatColor.WHITE,
+                        stats.getPending(), stats.getScheduled(), stats.getExecuted(), stats.getCancelled(),
+                        stats.getRejected() > 0 ? ChatColor.RED : ChatColor.WHITE, stats.getRejected(), ChatColor.WHITE,
+                        stats.getNanos() / 1e6, stats.getMaxNanos() / 1e6));
+            }
+            if (features.isEmpty())
+                sender.sendMessage(ChatColor.GRAY + "No tasks have been scheduled yet");
+        } else
+        {
+            sender.sendMessage(ChatColor.RED + plugin.getTag() + " Lack permission: " + PermissionNode.ADMIN.getNode());
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * This file is part of
+ * ExtraHardMode Server Plugin for Minecraft
+ *
+ * Copyright (C) 2012 Ryan Hamshire
+ * Copyright (C) 2013 Diemex
+ *
+ * ExtraHardMode is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ExtraHardMode is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero Public License
+ * along with ExtraHardMode.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.extrahardmode.command;
+
+
+import com.extrahardmode.ExtraHardMode;
+import com.extrahardmode.module.TimingsModule;
+import com.extrahardmode.service.ICommand;
+import com.extrahardmode.service.PermissionNode;
+import org.bukkit.ChatColor;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.logging.Level;
+
+/**
+ * Shows which of our handlers and tasks took the most time, resets the timings or dumps them to a file.
+ */
+public class TimingsCommand implements ICommand
+{
+    /**
+     * Handlers listed in chat
+     */
+    private static final int TOP = 10;
+
+
+    @Override
+    public boolean execute(ExtraHardMode plugin, CommandSender sender, Command command, String label, String[] args)
+    {
+        if (!sender.hasPermission(PermissionNode.ADMIN.getNode()))
+        {
+            sender.sendMessage(ChatColor.RED + plugin.getTag() + " Lack permission: " + PermissionNode.ADMIN.getNode());
+            return true;
+        }
+        TimingsModule timings = plugin.getModuleForClass(TimingsModule.class);
+        if (args.length > 0 && args[0].equalsIgnoreCase("reset"))
+        {
+            timings.reset();
+            sender.sendMessage(ChatColor.GREEN + plugin.getTag() + " Timings reset");
+        } else if (args.length > 0 && args[0].equalsIgnoreCase("dump"))
+        {
+            try
+            {
+                File file = timings.dump();
+                sender.sendMessage(ChatColor.GREEN + plugin.getTag() + " Timings written to " + file.getPath());
+            } catch (IOException e)
+            {
+                plugin.getLogger().log(Level.SEVERE, "Couldn't write the timings", e);
+                sender.sendMessage(ChatColor.RED + plugin.getTag() + " Couldn't write the timings: " + e.getMessage());
+            }
+        } else
+        {
+            final List<TimingsModule.Row> rows = timings.getRows();
+            final long seconds = (System.currentTimeMillis() - timings.getSince()) / 1000L;
+            sender.sendMessage(ChatColor.GRAY + "===== " + ChatColor.RED + "Timings of the last " + seconds + "s" + ChatColor.GRAY + " =====");
+            sender.sendMessage(ChatColor.GRAY + "handler [world]: calls, total ms, p50/p99/max µs");
+            for (int i = 0; i < rows.size() && i < TOP; i++)
+            {
+                TimingsModule.Row row = rows.get(i);
+                sender.sendMessage(String.format("%s%s %s[%s]%s: %d, %.1f, %d/%d/%d", ChatColor.YELLOW, row.getName(), ChatColor.GRAY, row.getWorld(), ChatColor.WHITE,
+                        row.getCount(), row.getTotal() / 1e6, row.getP50() / 1000L, row.getP99() / 1000L, row.getMax() / 1000L));
+            }
+            if (rows.isEmpty())
+                sender.sendMessage(ChatColor.GRAY + "Nothing has been recorded yet");
+            sender.sendMessage(ChatColor.GRAY + "/ehm timings reset|dump");
+        }
+        return true;
+    }
+}
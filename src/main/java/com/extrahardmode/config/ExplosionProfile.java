@@ -0,0 +1,80 @@
+/*
+ * This file is part of
+ * ExtraHardMode Server Plugin for Minecraft
+ *
+ * Copyright (C) 2012 Ryan Hamshire
+ * Copyright (C) 2013 Diemex
+ *
+ * ExtraHardMode is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ExtraHardMode is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero Public License
+ * along with ExtraHardMode.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.extrahardmode.config;
+
+
+/**
+ * The compiled parameters of one explosion: power, if it sets fire and if it damages the world.
+ * <p/>
+ * Immutable, the profiles are compiled once per world when the config is loaded
+ *
+ * @see ExplosionProfileTable
+ */
+public final class ExplosionProfile
+{
+    private final int power;
+
+    private final boolean fire;
+
+    private final boolean damageWorld;
+
+
+    public ExplosionProfile(int power, boolean fire, boolean damageWorld)
+    {
+        this.power = power;
+        this.fire = fire;
+        this.damageWorld = damageWorld;
+    }
+
+
+    /**
+     * Get the power
+     *
+     * @return power of the explosion
+     */
+    public int getPower()
+    {
+        return power;
+    }
+
+
+    /**
+     * Get if explosion should set fire
+     *
+     * @return if fire should be set
+     */
+    public boolean isFire()
+    {
+        return fire;
+    }
+
+
+    /**
+     * Get if the explosion should damage the world
+     *
+     * @return if explosion should damage the world
+     */
+    public boolean allowBlockDmg()
+    {
+        return damageWorld;
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * This file is part of
+ * ExtraHardMode Server Plugin for Minecraft
+ *
+ * Copyright (C) 2012 Ryan Hamshire
+ * Copyright (C) 2013 Diemex
+ *
+ * ExtraHardMode is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ExtraHardMode is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero Public License
+ * along with ExtraHardMode.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.extrahardmode.config;
+
+
+/**
+ * All ExplosionProfiles of one world indexed by ExplosionType and if the explosion is below or above the border
+ * ({@link RootNode#EXPLOSIONS_Y}). Creating an explosion only has to read from the table instead of looking up 3 nodes
+ * and the border.
+ */
+public final class ExplosionProfileTable
+{
+    /**
+     * Index for explosions at or below the border
+     */
+    private static final int BELOW = 0;
+
+    /**
+     * Index for explosions above the border
+     */
+    private static final int ABOVE = 1;
+
+    private final int border;
+
+    /**
+     * [ExplosionType.ordinal()][BELOW/ABOVE]
+     */
+    private final ExplosionProfile[][] profiles;
+
+
+    private ExplosionProfileTable(int border, ExplosionProfile[][] profiles)
+    {
+        this.border = border;
+        this.profiles = profiles;
+    }
+
+
+    /**
+     * Get the profile of an explosion
+     *
+     * @param type type of the explosion
+     * @param y    y-level of the explosion
+     *
+     * @return profile holding power, fire and world damage
+     */
+    public ExplosionProfile get(ExplosionType type, double y)
+    {
+        return profiles[type.ordinal()][y <= border ? BELOW : ABOVE];
+    }
+
+
+    /**
+     * Get the y-level which separates the below and above settings
+     *
+     * @return border y
+     */
+    public int getBorder()
+    {
+        return border;
+    }
+
+
+    /**
+     * Read all explosion settings of a world from the config
+     *
+     * @param CFG   config to read from
+     * @param world name of the world
+     *
+     * @return the compiled table
+     */
+    public static ExplosionProfileTable compile(RootConfig CFG, String world)
+    {
+        ExplosionProfile[][] profiles = new ExplosionProfile[ExplosionType.values().length][2];
+        for (ExplosionType type : ExplosionType.values())
+        {
+            ExplosionProfile below, above;
+            switch (type)
+            {
+                case CREEPER:
+                    below = read(CFG, world, RootNode.EXPLOSIONS_CREEPERS_BELOW_POWER, RootNode.EXPLOSIONS_CREEPERS_BELOW_FIRE, RootNode.EXPLOSIONS_CREEPERS_BELOW_WORLD_GRIEF);
+                    above = read(CFG, world, RootNode.EXPLOSIONS_CREEPERS_ABOVE_POWER, RootNode.EXPLOSIONS_CREEPERS_ABOVE_FIRE, RootNode.EXPLOSIONS_CREEPERS_ABOVE_WORLD_GRIEF);
+                    break;
+                case CREEPER_CHARGED:
+                    below = read(CFG, world, RootNode.EXPLOSIONS_CHARGED_CREEPERS_BELOW_POWER, RootNode.EXPLOSIONS_CHARGED_CREEPERS_BELOW_FIRE, RootNode.EXPLOSIONS_CHARGED_CREEPERS_BELOW_WORLD_GRIEF);
+                    above = read(CFG, world, RootNode.EXPLOSIONS_CHARGED_CREEPERS_ABOVE_POWER, RootNode.EXPLOSIONS_CHARGED_CREEPERS_ABOVE_FIRE, RootNode.EXPLOSIONS_CHARGED_CREEPERS_ABOVE_WORLD_GRIEF);
+                    break;
+                case TNT:
+                    below = read(CFG, world, RootNode.EXPLOSIONS_TNT_BELOW_POWER, RootNode.EXPLOSIONS_TNT_BELOW_FIRE, RootNode.EXPLOSIONS_TNT_BELOW_WORLD_GRIEF);
+                    above = read(CFG, world, RootNode.EXPLOSIONS_TNT_ABOVE_POWER, RootNode.EXPLOSIONS_TNT_ABOVE_FIRE, RootNode.EXPLOSIONS_TNT_ABOVE_WORLD_GRIEF);
+                    break;
+                case OVERWORLD_BLAZE:
+                    below = read(CFG, world, RootNode.EXPLOSIONS_BLAZE_BELOW_POWER, RootNode.EXPLOSIONS_BLAZE_BELOW_FIRE, RootNode.EXPLOSIONS_BLAZE_BELOW_WORLD_GRIEF);
+                    above = read(CFG, world, RootNode.EXPLOSIONS_BLAZE_ABOVE_POWER, RootNode.EXPLOSIONS_BLAZE_ABOVE_FIRE, RootNode.EXPLOSIONS_BLAZE_ABOVE_WORLD_GRIEF);
+                    break;
+                case GHAST_FIREBALL:
+                    below = read(CFG, world, RootNode.EXPLOSIONS_GHAST_BELOW_POWER, RootNode.EXPLOSIONS_GHAST_BELOW_FIRE, RootNode.EXPLOSIONS_GHAST_BELOW_WORLD_GRIEF);
+                    above = read(CFG, world, RootNode.EXPLOSIONS_GHAST_ABOVE_POWER, RootNode.EXPLOSIONS_GHAST_ABOVE_FIRE, RootNode.EXPLOSIONS_GHAST_ABOVE_WORLD_GRIEF);
+                    break;
+                default: //not configurable
+                    below = new ExplosionProfile(type.getPowerB(), type.isFireB(), type.allowBlockDmgB());
+                    above = new ExplosionProfile(type.getPowerA(), type.isFireA(), type.allowBlockDmgA());
+            }
+            profiles[type.ordinal()][BELOW] = below;
+            profiles[type.ordinal()][ABOVE] = above;
+        }
+        return new ExplosionProfileTable(CFG.getInt(RootNode.EXPLOSIONS_Y, world), profiles);
+    }
+
+
+    private static ExplosionProfile read(RootConfig CFG, String world, RootNode power, RootNode fire, RootNode worldGrief)
+    {
+        return new ExplosionProfile(CFG.getInt(power, world), CFG.getBoolean(fire, world), CFG.getBoolean(worldGrief, world));
+    }
+}
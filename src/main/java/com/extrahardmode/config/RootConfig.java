@@ -41,6 +41,12 @@ import java.util.Map;
  */
 public class RootConfig extends MultiWorldConfig
 {
+    /**
+     * Explosion settings compiled per world
+     */
+    private final Map<String, ExplosionProfileTable> explosionProfiles = new HashMap<String, ExplosionProfileTable>();
+
+
     /**
      * Constructor
      */
@@ -129,6 +135,30 @@ public class RootConfig extends MultiWorldConfig
 
         if (mainEhmConfig.printComments())
             YamlCommentWriter.write(mainEhmConfig.getConfigFile(), comments);
+
+        //Compile after everything has been loaded
+        explosionProfiles.clear();
+        for (String world : getEnabledWorlds())
+            explosionProfiles.put(world, ExplosionProfileTable.compile(this, world));
+    }
+
+
+    /**
+     * Get the compiled explosion settings for a world
+     *
+     * @param world name of the world
+     *
+     * @return table of ExplosionProfiles, worlds which aren't configured are compiled on first access
+     */
+    public ExplosionProfileTable getExplosionProfiles(String world)
+    {
+        ExplosionProfileTable table = explosionProfiles.get(world);
+        if (table == null)
+        {
+            table = ExplosionProfileTable.compile(this, world);
+            explosionProfiles.put(world, table);
+        }
+        return table;
     }
 
 
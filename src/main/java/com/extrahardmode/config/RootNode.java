@@ -59,6 +59,11 @@ public enum RootNode implements ConfigNode
      * Whether debug messages should be printed to console
      */
     DEBUG("Debug", VarType.BOOLEAN, false, "Whether debug messages should be printed to console."),
+    /**
+     * Where to store how often tutorial messages have been shown
+     */
+    MSG_COUNT_STORAGE("Message Count Storage", VarType.STRING, "sqlite",
+            "Where to store how often tutorial messages have been shown: sqlite, file or memory"),
 
     /**
      * #############
@@ -786,6 +791,16 @@ public enum RootNode implements ConfigNode
      */
     ALTERNATIVE_FIREBALL("EnderDragon.Alternative Minions", VarType.BOOLEAN, false,
             "More diverse mobs are summoned (blazes, zombies, and skeletons). Harder Battle must be set to true, or this option has no effect."),
+    /**
+     * Max fireballs queued against one player, 0 for no limit
+     */
+    ENDER_DRAGON_MAX_PENDING_ATTACKS("EnderDragon.Max Pending Fireballs", VarType.INTEGER, SubType.NATURAL_NUMBER, 0,
+            "Max fireballs queued against one player, every hit on the dragon queues 5 more. 0 for no limit."),
+    /**
+     * Max fireballs the dragon fires per second, 0 for no limit
+     */
+    ENDER_DRAGON_MAX_ATTACKS_PER_SECOND("EnderDragon.Max Fireballs Per Second", VarType.INTEGER, SubType.NATURAL_NUMBER, 0,
+            "Max fireballs the dragon fires per second, further fireballs are delayed. 0 for no limit."),
     /**
      * whether server wide messages will broadcast player victories and defeats
      */
@@ -938,6 +953,11 @@ public enum RootNode implements ConfigNode
      * How far the blocks spread
      */
     EXPLOSIONS_FLYING_BLOCKS_SPREAD_VEL("Explosions.Physics.Spread Velocity", VarType.DOUBLE, 3.0),
+    /**
+     * Max blocks that fly per explosion
+     */
+    EXPLOSIONS_FLYING_BLOCKS_MAX("Explosions.Physics.Max Flying Blocks Per Explosion", VarType.INTEGER, SubType.NATURAL_NUMBER, 40,
+            "Caps the amount of flying blocks for big explosions, every flying block is an entity"),
     /**
      * In what radius the flying blocks shouldnt be placed
      */
@@ -950,6 +970,24 @@ public enum RootNode implements ConfigNode
     EXPLOSIONS_Y("Explosions.Border Y", VarType.INTEGER, SubType.NATURAL_NUMBER, 55,
             "Determines where your surface is located. You can have seperate settings for the surface and caves."),
 
+    /**
+     * Merge and rate limit our own explosions
+     */
+    EXPLOSIONS_GOVERNOR_ENABLE("Explosions.Governor.Enable", VarType.BOOLEAN, true,
+            "Explosions caused by ehm (multiple tnt explosions, creepers...) which overlap in the same tick",
+            "are merged into one bigger explosion and only a limited amount explodes per chunk and tick.",
+            "Protects the server from lagging when huge amounts of tnt go off."),
+    /**
+     * How many explosions per chunk and tick, additional explosions are delayed to the next tick
+     */
+    EXPLOSIONS_GOVERNOR_CHUNK_BUDGET("Explosions.Governor.Max Explosions Per Chunk Per Tick", VarType.INTEGER, SubType.NATURAL_NUMBER, Disable.ONE, 4,
+            "Explosions exceeding this are delayed to the next tick."),
+    /**
+     * Max power of a merged explosion
+     */
+    EXPLOSIONS_GOVERNOR_MAX_POWER("Explosions.Governor.Max Merged Power", VarType.INTEGER, SubType.NATURAL_NUMBER, 8,
+            "Merged explosions won't get more powerful than this. 4 = default tnt"),
+
     //WHEN ADDING NEW EXPLOSIONTYPES YOU HAVE TO ADD THE NODES TO EXPLOSIONTYPE AND ALSO UPDATE THE EXPLOSIONTASK
     /**
      * CREEPER Enable this custom explosion
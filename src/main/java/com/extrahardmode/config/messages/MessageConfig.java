@@ -35,6 +35,9 @@ import org.bukkit.configuration.file.YamlConfiguration;
 
 import java.io.*;
 import java.nio.charset.Charset;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.logging.Level;
 
 /** Configuration handler for the messages.yml file. */
@@ -46,6 +49,15 @@ public class MessageConfig extends ModularConfig
     /** Configuration object reference. */
     private final YamlConfiguration config;
 
+    /** Messages compiled on load, colors are already translated */
+    private final Map<MessageNode, MessageTemplate> templates = new EnumMap<MessageNode, MessageTemplate>(MessageNode.class);
+
+    /** Category of every message and of the nodes holding the categories */
+    private final Map<MessageNode, MsgCategory> categories = new EnumMap<MessageNode, MsgCategory>(MessageNode.class);
+
+    /** How often a message will be displayed, only set for messages */
+    private final Map<MessageNode, Integer> msgCounts = new EnumMap<MessageNode, Integer>(MessageNode.class);
+
 
     /**
      * Constructor.
@@ -73,6 +85,9 @@ public class MessageConfig extends ModularConfig
     public void closing()
     {
         OPTIONS.clear();
+        templates.clear();
+        categories.clear();
+        msgCounts.clear();
         //reload();
         //save();
     }
@@ -185,6 +200,7 @@ public class MessageConfig extends ModularConfig
             config.load(file);
             loadSettings(config);
             boundsCheck();
+            compile();
         } catch (FileNotFoundException e)
         {
             plugin.getLogger().log(Level.SEVERE, "File messages.yml not found.", e);
@@ -250,29 +266,60 @@ public class MessageConfig extends ModularConfig
 
 
     /**
-     * Match the value of the node to the MsgCategory, also gets the mode of a given message if found
+     * Compile the messages and resolve the category of every message, so nothing has to be looked up when sending
+     */
+    private void compile()
+    {
+        templates.clear();
+        categories.clear();
+        msgCounts.clear();
+        Map<String, MessageNode> byName = new HashMap<String, MessageNode>();
+        for (MessageNode node : MessageNode.values())
+            byName.put(node.name(), node);
+        for (MessageNode node : MessageNode.values())
+        {
+            if (node.isCategoryNode())
+            {
+                Object obj = OPTIONS.get(node);
+                MsgCategory cat = obj instanceof MsgCategory ? (MsgCategory) obj : node.getDefaultCategory();
+                categories.put(node, cat);
+                //Every message has a node with the message and an accompanying node holding the type of message
+                MessageNode msgNode = node.name().endsWith("_MODE") ? byName.get(node.name().substring(0, node.name().length() - "_MODE".length())) : null;
+                if (msgNode != null)
+                {
+                    categories.put(msgNode, cat);
+                    msgCounts.put(msgNode, countFor(cat));
+                }
+            } else if (node.getVarType() == ConfigNode.VarType.STRING && OPTIONS.get(node) instanceof String)
+                templates.put(node, MessageTemplate.compile(getString(node)));
+        }
+    }
+
+
+    /**
+     * Get the compiled message
+     *
+     * @param node message
+     *
+     * @return the message or an empty template if the node doesn't hold a message
+     */
+    public MessageTemplate getTemplate(MessageNode node)
+    {
+        MessageTemplate template = templates.get(node);
+        return template != null ? template : MessageTemplate.EMPTY;
+    }
+
+
+    /**
+     * Get the MsgCategory of a message, also gets the mode of a node holding the mode
      *
      * @param node node to check
      *
-     * @return the {@link com.extrahardmode.config.messages.MsgCategory} enum value of the node or null if the enum name of the node doesn't end with _MODE or value of the node is not found.
+     * @return the {@link com.extrahardmode.config.messages.MsgCategory} of the node or null if the node doesn't have a mode.
      */
     public MsgCategory getCat(MessageNode node)
     {
-        MessageNode modeNode = null;
-        Object obj = null;
-        try
-        {
-            modeNode = MessageNode.valueOf(!node.name().endsWith("_MODE") ? node.name() + "_MODE" : node.name());
-        } catch (IllegalArgumentException ignored)
-        {
-        } finally
-        {
-            //if (!node.name().endsWith("_MODE"))
-            //Validate.notNull(modeNode, "There is no MODE node set for " + node.name());
-            if (modeNode != null)
-                obj = OPTIONS.get(modeNode);
-        }
-        return obj instanceof MsgCategory ? (MsgCategory) obj : null;
+        return categories.get(node);
     }
 
 
@@ -283,18 +330,21 @@ public class MessageConfig extends ModularConfig
      */
     public int getMsgCount(MessageNode node)
     {
-        switch (getCat(node))
+        Integer count = msgCounts.get(node);
+        return count != null ? count : -1;
+    }
+
+
+    private static int countFor(MsgCategory category)
+    {
+        switch (category)
         {
             case TUTORIAL:
                 return 3;
-            case NOTIFICATION:
-                return -1;
-            case BROADCAST:
-                return -1;
             case ONE_TIME:
                 return 1;
             default:
-                throw new UnsupportedOperationException("Not Implemented MsgCategory");
+                return -1;
         }
     }
 
@@ -57,6 +57,10 @@ public enum MessageNode implements ConfigNode
      * Display messages from extrahardmode in the scoreboard instead of spamming the chat?
      */
     SB_MSG_NOTIFICATION_TEXT_CLR("Display Messages In Scoreboard.Notification.Textcolor", VarType.COLOR, "YELLOW"),
+    /**
+     * Where to show the popup: scoreboard, actionbar or bossbar
+     */
+    SB_MSG_NOTIFICATION_STYLE("Display Messages In Scoreboard.Notification.Style", VarType.STRING, "scoreboard"),
 
     /**
      * Display messages from extrahardmode in the scoreboard instead of spamming the chat?
@@ -70,6 +74,10 @@ public enum MessageNode implements ConfigNode
      * Display messages from extrahardmode in the scoreboard instead of spamming the chat?
      */
     SB_MSG_TUTORIAL_TEXT_CLR("Display Messages In Scoreboard.Tutorial.Textcolor", VarType.COLOR, "RED"),
+    /**
+     * Where to show the popup: scoreboard, actionbar or bossbar
+     */
+    SB_MSG_TUTORIAL_STYLE("Display Messages In Scoreboard.Tutorial.Style", VarType.STRING, "scoreboard"),
 
     /**
      * Display messages from extrahardmode in the scoreboard instead of spamming the chat?
@@ -83,6 +91,10 @@ public enum MessageNode implements ConfigNode
      * Display messages from extrahardmode in the scoreboard instead of spamming the chat?
      */
     SB_MSG_BROADCAST_TEXT_CLR("Display Messages In Scoreboard.Broadcast.Textcolor", VarType.COLOR, "GREEN"),
+    /**
+     * Where to show the popup: scoreboard, actionbar or bossbar
+     */
+    SB_MSG_BROADCAST_STYLE("Display Messages In Scoreboard.Broadcast.Style", VarType.STRING, "scoreboard"),
 
 
     //Mode-Nodes have to be have the exact same name + _MODE
@@ -0,0 +1,157 @@
+/*
+ * This file is part of
+ * ExtraHardMode Server Plugin for Minecraft
+ *
+ * Copyright (C) 2012 Ryan Hamshire
+ * Copyright (C) 2013 Diemex
+ *
+ * ExtraHardMode is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ExtraHardMode is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero Public License
+ * along with ExtraHardMode.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.extrahardmode.config.messages;
+
+
+import com.extrahardmode.service.FindAndReplace;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A message compiled once when the config is loaded.
+ * <p/>
+ * The text is split at the variables it contains, so filling in the variables is a single pass over the parts without
+ * searching the text again. Variables that aren't filled in are output as they were written.
+ *
+ * @author Max
+ */
+public final class MessageTemplate
+{
+    /** A template without any text */
+    public static final MessageTemplate EMPTY = new MessageTemplate(new String[]{""}, new String[0]);
+
+    /** All names of all variables, longest first so $PLAYERS isn't matched as $PLAYER */
+    private static final String[] VAR_NAMES;
+
+    static
+    {
+        List<String> names = new ArrayList<String>();
+        for (MessageNode.Variables variable : MessageNode.Variables.values())
+            names.addAll(Arrays.asList(variable.getVarNames()));
+        VAR_NAMES = names.toArray(new String[names.size()]);
+        Arrays.sort(VAR_NAMES, new Comparator<String>()
+        {
+            @Override
+            public int compare(String a, String b)
+            {
+                return b.length() - a.length();
+            }
+        });
+    }
+
+    /** Text between the variables, always one more than there are variables */
+    private final String[] parts;
+
+    /** The variables as written in the message */
+    private final String[] variables;
+
+    /** Length of the text without variables */
+    private final int length;
+
+
+    private MessageTemplate(String[] parts, String[] variables)
+    {
+        this.parts = parts;
+        this.variables = variables;
+        int length = 0;
+        for (String part : parts)
+            length += part.length();
+        this.length = length;
+    }
+
+
+    /**
+     * Split a message at its variables
+     *
+     * @param text message, colors should already be translated
+     *
+     * @return the compiled message
+     */
+    public static MessageTemplate compile(String text)
+    {
+        if (text == null || text.isEmpty())
+            return EMPTY;
+        List<String> parts = new ArrayList<String>();
+        List<String> variables = new ArrayList<String>();
+        int start = 0;
+        for (int i = 0; i < text.length(); i++)
+            for (String name : VAR_NAMES)
+                if (text.startsWith(name, i))
+                {
+                    parts.add(text.substring(start, i));
+                    variables.add(name);
+                    i += name.length() - 1;
+                    start = i + 1;
+                    break;
+                }
+        parts.add(text.substring(start));
+        return new MessageTemplate(parts.toArray(new String[parts.size()]), variables.toArray(new String[variables.size()]));
+    }
+
+
+    /**
+     * @return true if there is nothing to display
+     */
+    public boolean isEmpty()
+    {
+        return variables.length == 0 && length == 0;
+    }
+
+
+    /**
+     * Fill in the variables
+     *
+     * @param fars values for the variables
+     *
+     * @return the message to display
+     */
+    public String render(FindAndReplace... fars)
+    {
+        if (variables.length == 0)
+            return parts[0];
+        StringBuilder builder = new StringBuilder(length + 16 * variables.length);
+        for (int i = 0; i < variables.length; i++)
+        {
+            builder.append(parts[i]);
+            String value = variables[i];
+            for (FindAndReplace far : fars)
+                if (far.replaces(variables[i]))
+                {
+                    value = far.getReplaceWith();
+                    break;
+                }
+            builder.append(value);
+        }
+        builder.append(parts[variables.length]);
+        return builder.toString();
+    }
+
+
+    @Override
+    public String toString()
+    {
+        return render();
+    }
+}
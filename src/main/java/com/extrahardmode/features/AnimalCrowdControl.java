@@ -4,8 +4,14 @@ import com.extrahardmode.ExtraHardMode;
 import com.extrahardmode.config.RootConfig;
 import com.extrahardmode.config.RootNode;
 import com.extrahardmode.config.messages.MessageNode;
+import com.extrahardmode.module.CombatContext;
+import com.extrahardmode.module.CombatPipeline;
+import com.extrahardmode.module.EhmScheduler;
 import com.extrahardmode.module.MsgModule;
+import com.extrahardmode.module.SpawnPipeline;
+import com.extrahardmode.service.DeathRule;
 import com.extrahardmode.service.ListenerModule;
+import com.extrahardmode.service.SpawnRule;
 import java.util.List;
 import org.bukkit.Particle;
 import org.bukkit.World;
@@ -14,11 +20,11 @@ import org.bukkit.entity.Entity;
 import org.bukkit.entity.EntityType;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.entity.CreatureSpawnEvent;
 import org.bukkit.event.entity.EntityDeathEvent;
 import org.bukkit.event.player.PlayerInteractEntityEvent;
 import org.bukkit.metadata.FixedMetadataValue;
-import org.bukkit.scheduler.BukkitRunnable;
 import org.bukkit.util.Vector;
 
 /**
@@ -40,6 +46,44 @@ public class AnimalCrowdControl extends ListenerModule {
         super.starting();
         CFG = plugin.getModuleForClass(RootConfig.class);
         messenger = plugin.getModuleForClass(MsgModule.class);
+        plugin.getModuleForClass(SpawnPipeline.class).register(this, "onAnimalOverCrowd", EventPriority.NORMAL, true, new SpawnRule.Factory() {
+            @Override
+            public SpawnRule forWorld(String world) {
+                //First check if config allow this feature
+                if (!CFG.getBoolean(RootNode.ANIMAL_OVERCROWD_CONTROL, world)) return null;
+                final int threshold = CFG.getInt(RootNode.ANIMAL_OVERCROWD_THRESHOLD, world);
+                return new SpawnRule() {
+                    @Override
+                    public void onSpawn(CreatureSpawnEvent event) {
+                        onAnimalOverCrowd(event, threshold);
+                    }
+                };
+            }
+        }, SpawnPipeline.typesOf(Animals.class));
+        plugin.getModuleForClass(CombatPipeline.class).registerDeath(this, "onAnimalDeath", new DeathRule.Factory() {
+            @Override
+            public DeathRule forWorld(String world) {
+                if (!CFG.getBoolean(RootNode.ANIMAL_OVERCROWD_CONTROL, world)) return null;
+                return new DeathRule() {
+                    @Override
+                    public void onDeath(EntityDeathEvent event, CombatContext context) {
+                        onAnimalDeath(event);
+                    }
+                };
+            }
+        }, SpawnPipeline.typesOf(Animals.class));
+    }
+
+    @Override
+    public void closing() {
+        super.closing();
+        plugin.getModuleForClass(SpawnPipeline.class).unregister(this);
+        plugin.getModuleForClass(CombatPipeline.class).unregister(this);
+    }
+
+    @Override
+    protected RootNode[] getGatingNodes() {
+        return new RootNode[]{RootNode.ANIMAL_OVERCROWD_CONTROL};
     }
 
     private boolean isEntityAnimal(Entity a) {
@@ -69,8 +113,7 @@ public class AnimalCrowdControl extends ListenerModule {
      *
      * Check if overcrowded if so slowly kill farm animals
      */
-    @EventHandler(ignoreCancelled = true)
-    public void onAnimalOverCrowd(CreatureSpawnEvent event) {
+    private void onAnimalOverCrowd(CreatureSpawnEvent event, final int threshold) {
         final Entity e = event.getEntity();
 
         //If entity is not an animal, we don't care
@@ -78,12 +121,6 @@ public class AnimalCrowdControl extends ListenerModule {
 
         final World world = e.getWorld();
 
-        final boolean animalOverCrowdControl = CFG.getBoolean(RootNode.ANIMAL_OVERCROWD_CONTROL, world.getName());
-        final int threshold = CFG.getInt(RootNode.ANIMAL_OVERCROWD_THRESHOLD, world.getName());
-
-        //First check if config allow this feature
-        if (!animalOverCrowdControl) return;
-        
         //Just to check if animal is part of a Pet Plugin assuming spawned pet have nametags already given
         if(e.getCustomName() != null) return;
 
@@ -109,7 +146,7 @@ public class AnimalCrowdControl extends ListenerModule {
              * animal is far enough from other animals or animal is dead
              */
             animal.setMetadata("hasRunnable", new FixedMetadataValue(this.plugin, true));
-            new BukkitRunnable() {
+            int taskId = plugin.getModuleForClass(EhmScheduler.class).runTaskTimer("AnimalCrowdControl", new EhmScheduler.RepeatingTask() {
 
                 int dizziness = 0;
                 int maxDizziness = 7; //basically max seconds before getting damaged
@@ -141,7 +178,9 @@ public class AnimalCrowdControl extends ListenerModule {
                     }
                     dizziness++;
                 }
-            }.runTaskTimer(this.plugin, 20, 20);
+            }, 20, 20);
+            if (taskId == -1) //too many claustrophobic animals already
+                animal.removeMetadata("hasRunnable", plugin);
         }
     }
 
@@ -171,19 +210,11 @@ public class AnimalCrowdControl extends ListenerModule {
      *
      * remove drops and exp from death cause not by player
      */
-    @EventHandler(ignoreCancelled = true)
-    public void onAnimalDeath(EntityDeathEvent event) {
+    private void onAnimalDeath(EntityDeathEvent event) {
         //If the entity is not an animal, we don't care
         if (!isEntityAnimal(event.getEntity())) return;
 
-        Animals animal = (Animals)event.getEntity();
-        World world = animal.getWorld();
-
-        final boolean animalOverCrowdControl = CFG.getBoolean(RootNode.ANIMAL_OVERCROWD_CONTROL, world.getName());
-
-        if (animalOverCrowdControl && animal.hasMetadata("isClaustrophobic")
-                && isEntityAnimal(animal)) {
-
+        if (event.getEntity().hasMetadata("isClaustrophobic")) {
             event.getDrops().clear();
         }
     }
@@ -26,11 +26,21 @@ import com.extrahardmode.ExtraHardMode;
 import com.extrahardmode.config.RootConfig;
 import com.extrahardmode.config.RootNode;
 import com.extrahardmode.config.messages.MessageNode;
+import com.extrahardmode.module.BlockContext;
 import com.extrahardmode.module.BlockModule;
+import com.extrahardmode.module.BlockPipeline;
+import com.extrahardmode.module.CombatContext;
+import com.extrahardmode.module.CombatPipeline;
+import com.extrahardmode.module.EhmScheduler;
 import com.extrahardmode.module.MsgModule;
 import com.extrahardmode.module.PlayerModule;
+import com.extrahardmode.module.SpawnPipeline;
+import com.extrahardmode.service.BlockBreakRule;
+import com.extrahardmode.service.BlockPlaceRule;
+import com.extrahardmode.service.DeathRule;
 import com.extrahardmode.service.Feature;
 import com.extrahardmode.service.ListenerModule;
+import com.extrahardmode.service.SpawnRule;
 import com.extrahardmode.task.EvaporateWaterTask;
 import org.bukkit.DyeColor;
 import org.bukkit.Material;
@@ -78,6 +88,169 @@ public class AntiFarming extends ListenerModule
         CFG = plugin.getModuleForClass(RootConfig.class);
         playerModule = plugin.getModuleForClass(PlayerModule.class);
         blockModule = plugin.getModuleForClass(BlockModule.class);
+        //Breed Sheep spawn white
+        plugin.getModuleForClass(SpawnPipeline.class).register(this, "onSheepSpawn", EventPriority.LOW, true, new SpawnRule.Factory()
+        {
+            @Override
+            public SpawnRule forWorld(String world)
+            {
+                if (!CFG.getBoolean(RootNode.SHEEP_REGROW_WHITE_WOOL, world))
+                    return null;
+                return new SpawnRule()
+                {
+                    @Override
+                    public void onSpawn(CreatureSpawnEvent event)
+                    {
+                        onSheepSpawn(event);
+                    }
+                };
+            }
+        }, EntityType.SHEEP);
+        //Squids only spawn in oceans
+        plugin.getModuleForClass(SpawnPipeline.class).register(this, "onSquidSpawn", EventPriority.LOW, true, new SpawnRule.Factory()
+        {
+            @Override
+            public SpawnRule forWorld(String world)
+            {
+                if (!CFG.getBoolean(RootNode.SQUID_ONLY_SPAWN_IN_OCEAN, world))
+                    return null;
+                return new SpawnRule()
+                {
+                    @Override
+                    public void onSpawn(CreatureSpawnEvent event)
+                    {
+                        onSquidSpawn(event);
+                    }
+                };
+            }
+        }, EntityType.SQUID);
+        plugin.getModuleForClass(CombatPipeline.class).registerDeath(this, "onAnimalDeath", new DeathRule.Factory()
+        {
+            @Override
+            public DeathRule forWorld(String world)
+            {
+                if (!CFG.getBoolean(RootNode.ANIMAL_EXP_NERF, world))
+                    return null;
+                return new DeathRule()
+                {
+                    @Override
+                    public void onDeath(EntityDeathEvent event, CombatContext context)
+                    {
+                        // FEATURE: animals don't drop experience (because they're easy to "farm")
+                        event.setDroppedExp(0);
+                    }
+                };
+            }
+        }, SpawnPipeline.typesOf(Animals.class));
+        plugin.getModuleForClass(CombatPipeline.class).registerDeath(this, "onGolemDeath", new DeathRule.Factory()
+        {
+            @Override
+            public DeathRule forWorld(String world)
+            {
+                if (!CFG.getBoolean(RootNode.IRON_GOLEM_NERF, world))
+                    return null;
+                return new DeathRule()
+                {
+                    @Override
+                    public void onDeath(EntityDeathEvent event, CombatContext context)
+                    {
+                        event.getDrops().clear();
+                    }
+                };
+            }
+        }, EntityType.IRON_GOLEM);
+        //No nether wart farming, broken nether wart always drops exactly 1 nether wart
+        plugin.getModuleForClass(BlockPipeline.class).registerBreak(this, "onNetherWartBreak", EventPriority.MONITOR, true, new BlockBreakRule.Factory()
+        {
+            @Override
+            public BlockBreakRule forWorld(String world)
+            {
+                if (!CFG.getBoolean(RootNode.NO_FARMING_NETHER_WART, world))
+                    return null;
+                return new BlockBreakRule()
+                {
+                    @Override
+                    public void onBreak(BlockBreakEvent event, BlockContext context)
+                    {
+                        if (context.getMaterial() == Material.NETHER_WART && !context.bypasses(Feature.ANTIFARMING))
+                        {
+                            context.getBlock().getDrops().clear();
+                            context.getBlock().getDrops().add(new ItemStack(Material.NETHER_WART));
+                        }
+                    }
+                };
+            }
+        });
+        //No farming/placing nether wart
+        plugin.getModuleForClass(BlockPipeline.class).registerPlace(this, "onNetherWartPlace", EventPriority.LOWEST, true, new BlockPlaceRule.Factory()
+        {
+            @Override
+            public BlockPlaceRule forWorld(String world)
+            {
+                if (!CFG.getBoolean(RootNode.NO_FARMING_NETHER_WART, world))
+                    return null;
+                return new BlockPlaceRule()
+                {
+                    @Override
+                    public void onPlace(BlockPlaceEvent event, BlockContext context)
+                    {
+                        if (context.getMaterial() == Material.NETHER_WART && !context.bypasses(Feature.ANTIFARMING))
+                            event.setCancelled(true);
+                    }
+                };
+            }
+        });
+        //No kelp or seagrass in marked water
+        plugin.getModuleForClass(BlockPipeline.class).registerPlace(this, "onPlaceKelpOrSeaGrass", EventPriority.NORMAL, true, new BlockPlaceRule.Factory()
+        {
+            @Override
+            public BlockPlaceRule forWorld(String world)
+            {
+                return new BlockPlaceRule()
+                {
+                    @Override
+                    public void onPlace(BlockPlaceEvent event, BlockContext context)
+                    {
+                        if ((context.getMaterial() == Material.KELP || context.getMaterial() == Material.SEAGRASS)
+                                && blockModule.isMarked(context.getBlock()))
+                            event.setCancelled(true);
+                    }
+                };
+            }
+        });
+    }
+
+
+    @Override
+    public void closing()
+    {
+        super.closing();
+        plugin.getModuleForClass(SpawnPipeline.class).unregister(this);
+        plugin.getModuleForClass(CombatPipeline.class).unregister(this);
+        plugin.getModuleForClass(BlockPipeline.class).unregister(this);
+    }
+
+
+    private void onSheepSpawn(CreatureSpawnEvent event)
+    {
+        if (event.getSpawnReason() == CreatureSpawnEvent.SpawnReason.BREEDING)
+            ((Sheep) event.getEntity()).setColor(DyeColor.WHITE);
+    }
+
+
+    private void onSquidSpawn(CreatureSpawnEvent event)
+    {
+        if (event.getSpawnReason() == CreatureSpawnEvent.SpawnReason.NATURAL)
+        {
+            switch (event.getEntity().getLocation().getBlock().getBiome())
+            {
+                case DEEP_OCEAN:
+                case OCEAN:
+                    return;
+                default:
+                    event.setCancelled(true);
+            }
+        }
     }
 
 
@@ -117,57 +290,6 @@ public class AntiFarming extends ListenerModule
     }
 
 
-    /**
-     * When a player breaks a block...
-     * <p/>
-     * no netherwart farming
-     */
-    @EventHandler(ignoreCancelled = true, priority = EventPriority.MONITOR)
-    public void onBlockBreak(BlockBreakEvent breakEvent)
-    {
-        Player player = breakEvent.getPlayer();
-        Block block = breakEvent.getBlock();
-        World world = block.getWorld();
-
-        final boolean noFarmingNetherWart = CFG.getBoolean(RootNode.NO_FARMING_NETHER_WART, world.getName());
-        final boolean playerBypasses = playerModule.playerBypasses(player, Feature.ANTIFARMING);
-
-        // FEATURE: no nether wart farming (always drops exactly 1 nether wart when broken)
-        if (!playerBypasses && noFarmingNetherWart)
-        {
-            if (block.getType() == Material.NETHER_WART)
-            {
-                block.getDrops().clear();
-                block.getDrops().add(new ItemStack(Material.NETHER_WART));
-            }
-        }
-    }
-
-
-    /**
-     * When a player places a block...
-     * <p/>
-     * no farming nether wart
-     */
-    @EventHandler(ignoreCancelled = true, priority = EventPriority.LOWEST)
-    public void onBlockPlace(BlockPlaceEvent placeEvent)
-    {
-        Player player = placeEvent.getPlayer();
-        Block block = placeEvent.getBlock();
-        World world = block.getWorld();
-
-        final boolean noFarmingNetherWart = CFG.getBoolean(RootNode.NO_FARMING_NETHER_WART, world.getName());
-        final boolean playerBypasses = playerModule.playerBypasses(player, Feature.ANTIFARMING);
-
-        // FEATURE: no farming/placing nether wart
-        if (!playerBypasses && noFarmingNetherWart && block.getType() == Material.NETHER_WART)
-        {
-            placeEvent.setCancelled(true);
-            return;
-        }
-    }
-
-
     /**
      * When a block grows...
      * <p/>
@@ -244,7 +366,7 @@ public class AntiFarming extends ListenerModule
                 // plan to evaporate the water next tick
                 Block block = event.getVelocity().toLocation(world).getBlock();
                 EvaporateWaterTask task = new EvaporateWaterTask(block, plugin);
-                plugin.getServer().getScheduler().scheduleSyncDelayedTask(plugin, task, 1L);
+                plugin.getModuleForClass(EhmScheduler.class).runTaskLater("AntiFarming", task, 1L);
             }
         }
     }
@@ -272,84 +394,6 @@ public class AntiFarming extends ListenerModule
     }
 
 
-    @EventHandler(ignoreCancelled = true, priority = EventPriority.LOW)
-    public void onEntitySpawn(CreatureSpawnEvent event)
-    {
-        LivingEntity entity = event.getEntity();
-        CreatureSpawnEvent.SpawnReason reason = event.getSpawnReason();
-        World world = event.getLocation().getWorld();
-
-        final boolean sheepRegrowWhiteEnabled = CFG.getBoolean(RootNode.SHEEP_REGROW_WHITE_WOOL, world.getName());
-
-        //Breed Sheep spawn white
-        if (sheepRegrowWhiteEnabled && entity.getType() == EntityType.SHEEP)
-        {
-            Sheep sheep = (Sheep) entity;
-            if (reason.equals(CreatureSpawnEvent.SpawnReason.BREEDING))
-            {
-                sheep.setColor(DyeColor.WHITE);
-                return;
-            }
-        }
-    }
-
-
-    @EventHandler(ignoreCancelled = true, priority = EventPriority.LOW)
-    public void onSquidSpawn(CreatureSpawnEvent event)
-    {
-        LivingEntity entity = event.getEntity();
-        CreatureSpawnEvent.SpawnReason reason = event.getSpawnReason();
-        World world = event.getLocation().getWorld();
-
-        final boolean restrictedSquidSpawns = CFG.getBoolean(RootNode.SQUID_ONLY_SPAWN_IN_OCEAN, world.getName());
-
-        if (restrictedSquidSpawns && entity.getType() == EntityType.SQUID && reason.equals(CreatureSpawnEvent.SpawnReason.NATURAL))
-        {
-            switch (entity.getLocation().getBlock().getBiome())
-            {
-                case DEEP_OCEAN:
-                case OCEAN:
-                    return;
-                default:
-                    event.setCancelled(true);
-            }
-        }
-    }
-
-
-    @EventHandler
-    public void onEntityDeath(EntityDeathEvent event)
-    {
-        LivingEntity entity = event.getEntity();
-        World world = entity.getWorld();
-
-        final boolean animalExpNerfEnabled = CFG.getBoolean(RootNode.ANIMAL_EXP_NERF, world.getName());
-
-        // FEATURE: animals don't drop experience (because they're easy to "farm")
-        if (animalExpNerfEnabled && entity instanceof Animals)
-        {
-            event.setDroppedExp(0);
-        }
-    }
-
-
-    /**
-     * When an Iron Golem dies
-     */
-    @EventHandler
-    public void onGolemDeath(EntityDeathEvent event)
-    {
-        Entity entity = event.getEntity();
-
-        final boolean golemNerf = CFG.getBoolean(RootNode.IRON_GOLEM_NERF, entity.getWorld().getName());
-
-        if (event.getEntity() instanceof IronGolem && golemNerf)
-        {
-            event.getDrops().clear();
-        }
-    }
-
-
     /**
      * when a player crafts something...
      *
@@ -406,7 +450,7 @@ public class AntiFarming extends ListenerModule
             Block block = event.getBlock();
             blockModule.mark(block);
             EvaporateWaterTask task = new EvaporateWaterTask(block, plugin);
-            plugin.getServer().getScheduler().scheduleSyncDelayedTask(plugin, task, 10L);
+            plugin.getModuleForClass(EhmScheduler.class).runTaskLater("AntiFarming", task, 10L);
         }
     }
 
@@ -425,7 +469,7 @@ public class AntiFarming extends ListenerModule
             event.setCancelled(true);
             final Player player = event.getPlayer();
             //Bucket displays as full, derpy inventories, run next tick
-            plugin.getServer().getScheduler().runTask(plugin, new Runnable()
+            plugin.getModuleForClass(EhmScheduler.class).runTask("AntiFarming", new Runnable()
             {
                 @Override
                 public void run()
@@ -436,18 +480,4 @@ public class AntiFarming extends ListenerModule
             });
         }
     }
-
-    /**
-     * When a player place kelp or seagrass in marked water.
-     * 
-     * @param event Event that occurred.
-     */
-    @EventHandler(ignoreCancelled = true)
-    public void onPlaceKelpOrSeaGrass(BlockPlaceEvent event) {
-        Block placedBlock = event.getBlockPlaced();
-        if ((placedBlock.getType() == Material.KELP || placedBlock.getType() == Material.SEAGRASS)
-                && blockModule.isMarked(placedBlock)) {
-            event.setCancelled(true);
-        }
-    }
 }
@@ -26,18 +26,22 @@ import com.extrahardmode.ExtraHardMode;
 import com.extrahardmode.config.RootConfig;
 import com.extrahardmode.config.RootNode;
 import com.extrahardmode.module.BlockModule;
+import com.extrahardmode.module.CombatContext;
+import com.extrahardmode.module.CombatPipeline;
 import com.extrahardmode.module.EntityHelper;
+import com.extrahardmode.module.SpawnPipeline;
+import com.extrahardmode.service.DamageRule;
+import com.extrahardmode.service.DeathRule;
 import com.extrahardmode.service.ListenerModule;
+import com.extrahardmode.service.SpawnRule;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
 import org.bukkit.entity.*;
-import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.entity.CreatureSpawnEvent;
-import org.bukkit.event.entity.EntityDamageByEntityEvent;
 import org.bukkit.event.entity.EntityDamageEvent;
 import org.bukkit.event.entity.EntityDeathEvent;
 
@@ -79,6 +83,73 @@ public class AntiGrinder extends ListenerModule
         super.starting();
         CFG = plugin.getModuleForClass(RootConfig.class);
         blockModule = plugin.getModuleForClass(BlockModule.class);
+        plugin.getModuleForClass(SpawnPipeline.class).register(this, "onEntitySpawn", EventPriority.LOW, false, new SpawnRule.Factory()
+        {
+            @Override
+            public SpawnRule forWorld(String world)
+            {
+                if (!CFG.getBoolean(RootNode.INHIBIT_MONSTER_GRINDERS, world))
+                    return null;
+                return new SpawnRule()
+                {
+                    @Override
+                    public void onSpawn(CreatureSpawnEvent event)
+                    {
+                        onEntitySpawn(event);
+                    }
+                };
+            }
+        }, SpawnPipeline.typesOf(Monster.class));
+        plugin.getModuleForClass(CombatPipeline.class).registerDeath(this, "onEntityDeath", new DeathRule.Factory()
+        {
+            @Override
+            public DeathRule forWorld(String world)
+            {
+                if (!CFG.getBoolean(RootNode.INHIBIT_MONSTER_GRINDERS, world))
+                    return null;
+                return new DeathRule()
+                {
+                    @Override
+                    public void onDeath(EntityDeathEvent event, CombatContext context)
+                    {
+                        onEntityDeath(event);
+                    }
+                };
+            }
+        }, SpawnPipeline.typesOf(Monster.class));
+        plugin.getModuleForClass(CombatPipeline.class).registerDamage(this, "onEntityDamage", EventPriority.LOWEST, true, new DamageRule.Factory()
+        {
+            @Override
+            public DamageRule forWorld(String world)
+            {
+                if (!CFG.getBoolean(RootNode.INHIBIT_MONSTER_GRINDERS, world))
+                    return null;
+                return new DamageRule()
+                {
+                    @Override
+                    public void onDamage(EntityDamageEvent event, CombatContext context)
+                    {
+                        onEntityDamage(event, context);
+                    }
+                };
+            }
+        }, CombatPipeline.ALL_CAUSES, SpawnPipeline.typesOf(LivingEntity.class));
+    }
+
+
+    @Override
+    public void closing()
+    {
+        super.closing();
+        plugin.getModuleForClass(SpawnPipeline.class).unregister(this);
+        plugin.getModuleForClass(CombatPipeline.class).unregister(this);
+    }
+
+
+    @Override
+    protected RootNode[] getGatingNodes()
+    {
+        return new RootNode[]{RootNode.INHIBIT_MONSTER_GRINDERS};
     }
 
 
@@ -87,7 +158,6 @@ public class AntiGrinder extends ListenerModule
      *
      * @return true succeeded and false if cancelled or marked lootless
      */
-    @EventHandler(priority = EventPriority.LOW)
     public boolean onEntitySpawn(CreatureSpawnEvent event)
     {
         Location location = event.getLocation();
@@ -153,7 +223,6 @@ public class AntiGrinder extends ListenerModule
      *
      * @return true if drops loot, false if loot was blocked
      */
-    @EventHandler
     public boolean onEntityDeath(EntityDeathEvent event)
     {
         LivingEntity entity = event.getEntity();
@@ -290,35 +359,24 @@ public class AntiGrinder extends ListenerModule
 
 
     /**
-     * When an entity takes damage
+     * When a LivingEntity takes damage
      * <p/>
      * check if the damage is environmental or from a player
      */
-    @EventHandler(ignoreCancelled = true, priority = EventPriority.LOWEST)
-    public void onEntityDamage(EntityDamageEvent event)
+    private void onEntityDamage(EntityDamageEvent event, CombatContext context)
     {
-        Entity entity = event.getEntity();
-        World world = entity.getWorld();
-
-        final boolean inhibitMonsterGrindersEnabled = CFG.getBoolean(RootNode.INHIBIT_MONSTER_GRINDERS, world.getName());
+        LivingEntity entity = (LivingEntity) context.getVictim();
 
         // FEATURE: monsters which take environmental damage don't drop loot or experience (monster grinder inhibitor)
-        if (inhibitMonsterGrindersEnabled && entity instanceof LivingEntity)
+        EntityDamageEvent.DamageCause damageCause = context.getCause();
+        if (damageCause != EntityDamageEvent.DamageCause.ENTITY_ATTACK && damageCause != EntityDamageEvent.DamageCause.PROJECTILE && damageCause != EntityDamageEvent.DamageCause.BLOCK_EXPLOSION)
         {
-            EntityDamageEvent.DamageCause damageCause = event.getCause();
-            if (damageCause != EntityDamageEvent.DamageCause.ENTITY_ATTACK && damageCause != EntityDamageEvent.DamageCause.PROJECTILE && damageCause != EntityDamageEvent.DamageCause.BLOCK_EXPLOSION)
-            {
-                EntityHelper.addEnvironmentalDamage(plugin, (LivingEntity) entity, event.getDamage());
-            }
-            //Prevent people from using dogs to grind monsters
-            else if (event instanceof EntityDamageByEntityEvent)
-            {
-                EntityDamageByEntityEvent byEntityEvent = (EntityDamageByEntityEvent) event;
-                if (byEntityEvent.getDamager() instanceof Wolf)
-                {
-                    EntityHelper.addEnvironmentalDamage(plugin, (LivingEntity) entity, event.getDamage());
-                }
-            }
+            EntityHelper.addEnvironmentalDamage(plugin, entity, event.getDamage());
+        }
+        //Prevent people from using dogs to grind monsters
+        else if (context.getDamager() instanceof Wolf)
+        {
+            EntityHelper.addEnvironmentalDamage(plugin, entity, event.getDamage());
         }
     }
 
@@ -28,7 +28,10 @@ import com.extrahardmode.config.RootConfig;
 import com.extrahardmode.config.RootNode;
 import com.extrahardmode.events.fakeevents.FakeEntityExplodeEvent;
 import com.extrahardmode.module.BlockModule;
-import com.extrahardmode.module.UtilityModule;
+import com.extrahardmode.module.CombinedBlast;
+import com.extrahardmode.module.EhmScheduler;
+import com.extrahardmode.module.ExplosionGovernor;
+import com.extrahardmode.module.FlyingDebrisTracker;
 import com.extrahardmode.service.ListenerModule;
 import com.extrahardmode.task.CreateExplosionTask;
 import org.apache.commons.lang.Validate;
@@ -46,9 +49,8 @@ import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.entity.EntityChangeBlockEvent;
 import org.bukkit.event.entity.EntityExplodeEvent;
-import org.bukkit.metadata.FixedMetadataValue;
+import org.bukkit.util.Vector;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
@@ -60,7 +62,26 @@ public class Explosions extends ListenerModule
 
     private BlockModule blockModule;
 
-    private final String tag = "extrahardmode.explosion.fallingblock";
+    /**
+     * Blocks which are flying because of an explosion
+     */
+    private final FlyingDebrisTracker debrisTracker = new FlyingDebrisTracker();
+
+    /**
+     * Multiple tnt explosions of the tnt explosion currently being processed, entities are damaged once the event is
+     * done
+     */
+    private CombinedBlast pendingBlast = null;
+
+    /**
+     * The event the pending blast belongs to
+     */
+    private EntityExplodeEvent pendingBlastEvent = null;
+
+    /**
+     * We cancelled the event of the pending blast because the tnt shouldn't damage the world
+     */
+    private boolean pendingBlastCancelledByUs = false;
 
 
     //     ___ ___  _  _ ___ _____ ___ _   _  ___ _____ ___  ___
@@ -88,6 +109,14 @@ public class Explosions extends ListenerModule
     }
 
 
+    @Override
+    public void closing()
+    {
+        super.closing();
+        debrisTracker.clear();
+    }
+
+
     /**
      * Regular listener:
      * Bigger (custom) explosions
@@ -112,26 +141,26 @@ public class Explosions extends ListenerModule
         final boolean customTntExplosion = CFG.getBoolean(RootNode.EXPLOSIONS_TNT_ENABLE, world.getName());
         final boolean multipleExplosions = CFG.getBoolean(RootNode.BETTER_TNT, world.getName());
         //cancel explosion if no worldDamage should be done
-        final boolean tntWorldDamage = event.getLocation().getBlockY() > CFG.getInt(RootNode.EXPLOSIONS_Y, world.getName())
-                ? CFG.getBoolean(RootNode.EXPLOSIONS_TNT_ABOVE_WORLD_GRIEF, world.getName())
-                : CFG.getBoolean(RootNode.EXPLOSIONS_TNT_BELOW_WORLD_GRIEF, world.getName());
+        final boolean tntWorldDamage = CFG.getExplosionProfiles(world.getName()).get(ExplosionType.TNT, event.getLocation().getBlockY()).allowBlockDmg();
 
         // TNT
         if (sourceEntity instanceof TNTPrimed)
         {
             if (customTntExplosion && event.blockList().size() > 0 && (flyOtherPlugins || event.getYield() == 0.25)) //getYield value of 0.25 somewhat ensures this is a vanilla TNT explosion.
             {
+                //multiple explosions have already been added to this event and will also handle the custom size
                 if (!multipleExplosions)
                 {
                     CreateExplosionTask explosionTask = new CreateExplosionTask(plugin, location, ExplosionType.TNT, sourceEntity);
-                    plugin.getServer().getScheduler().scheduleSyncDelayedTask(plugin, explosionTask, 1L);
-                } else //multiple explosions will also handle the custom size
-                {
-                    multipleExplosions(location, sourceEntity, ExplosionType.TNT);
+                    plugin.getModuleForClass(EhmScheduler.class).runTaskLater("Explosions", explosionTask, 1L);
                 }
 
                 if (!tntWorldDamage && CFG.isEnabledIn(world.getName()))
+                {
                     event.setCancelled(true);
+                    if (event == pendingBlastEvent)
+                        pendingBlastCancelledByUs = true;
+                }
             }
         }
 
@@ -144,14 +173,64 @@ public class Explosions extends ListenerModule
                 if (fireball.getShooter() instanceof Ghast)
                 {
                     event.setCancelled(true);
-                    // same as vanilla TNT, plus fire
-                    new CreateExplosionTask(plugin, sourceEntity.getLocation(), ExplosionType.GHAST_FIREBALL, sourceEntity).run();
+                    // same as vanilla TNT, plus fire, in the same tick as the vanilla explosion would have been
+                    plugin.getModuleForClass(ExplosionGovernor.class).detonate(sourceEntity.getLocation(), ExplosionType.GHAST_FIREBALL, sourceEntity);
                 }
             }
         }
     }
 
 
+    /**
+     * Better tnt: multiple explosions around the tnt for a more natural looking crater.
+     * <p/>
+     * The blocks of all explosions are added to this event before protection plugins get to see it, so they can remove
+     * protected blocks from the merged blocklist like they would with any other explosion.
+     */
+    @EventHandler(ignoreCancelled = true, priority = EventPriority.LOWEST)
+    public void onBetterTnt(EntityExplodeEvent event)
+    {
+        if (event instanceof FakeEntityExplodeEvent || !(event.getEntity() instanceof TNTPrimed))
+            return;
+
+        final String worldName = event.getLocation().getWorld().getName();
+        if (!CFG.getBoolean(RootNode.BETTER_TNT, worldName) || !CFG.getBoolean(RootNode.EXPLOSIONS_TNT_ENABLE, worldName))
+            return;
+        final boolean flyOtherPlugins = CFG.getBoolean(RootNode.EXPLOSIONS_FYLING_BLOCKS_ENABLE_OTHER, worldName);
+        if (event.blockList().size() == 0 || !(flyOtherPlugins || event.getYield() == 0.25)) //getYield value of 0.25 somewhat ensures this is a vanilla TNT explosion.
+            return;
+
+        //same decision as the cancelling of tnt which shouldn't damage the world in regularExplosions
+        final boolean worldDamage = CFG.getExplosionProfiles(worldName).get(ExplosionType.TNT, event.getLocation().getBlockY()).allowBlockDmg();
+        CombinedBlast blast = multipleExplosions(event.getEntity().getLocation(), ExplosionType.TNT, worldDamage);
+        if (blast.isWorldDamage())
+            blast.addBlocksTo(event.blockList(), plugin.getRandom());
+        pendingBlast = blast;
+        pendingBlastEvent = event;
+        pendingBlastCancelledByUs = false;
+    }
+
+
+    /**
+     * Better tnt: damage entities once all plugins have processed the explosion
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onBetterTntDone(EntityExplodeEvent event)
+    {
+        if (pendingBlast == null || pendingBlastEvent != event)
+            return;
+        final CombinedBlast blast = pendingBlast;
+        final boolean cancelledByUs = pendingBlastCancelledByUs;
+        pendingBlast = null;
+        pendingBlastEvent = null;
+        pendingBlastCancelledByUs = false;
+        //We cancel the event ourselves if the tnt shouldn't damage the world, entities still take damage in that case.
+        //If another plugin cancelled it, e.g. a protected region, nothing gets damaged.
+        if (!event.isCancelled() || cancelledByUs)
+            blast.damageEntities(event.getEntity());
+    }
+
+
     /**
      * This gets called late so we know the explosion has been allowed
      *
@@ -175,11 +254,12 @@ public class Explosions extends ListenerModule
         final int flyPercentage = CFG.getInt(RootNode.EXPLOSIONS_FLYING_BLOCKS_PERCENTAGE, worldName);
         final double upVel = CFG.getDouble(RootNode.EXPLOSIONS_FLYING_BLOCKS_UP_VEL, worldName);
         final double spreadVel = CFG.getDouble(RootNode.EXPLOSIONS_FLYING_BLOCKS_SPREAD_VEL, worldName);
+        final int maxFlyingBlocks = CFG.getInt(RootNode.EXPLOSIONS_FLYING_BLOCKS_MAX, worldName);
 
         // PHYSICS
         if (flyingBlocks && (flyOtherPlugins || sourceEntity != null))
         {
-            applyExplosionPhysics(blocks, location, flyPercentage, upVel, spreadVel);
+            applyExplosionPhysics(blocks, location, flyPercentage, maxFlyingBlocks, upVel, spreadVel);
 
             if (CFG.getBoolean(RootNode.MORE_FALLING_BLOCKS_ENABLE, worldName))
             {
@@ -271,37 +351,31 @@ public class Explosions extends ListenerModule
     @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true) //so we are last and if a block protection plugin cancelled the event we know it
     public void handleLandedBlocksFromPhysics(EntityChangeBlockEvent event)
     {
-        final int distance = (int) Math.pow(CFG.getInt(RootNode.EXPLOSIONS_FLYING_BLOCKS_AUTOREMOVE_RADIUS, event.getBlock().getWorld().getName()), 2);
-        if (event.getEntity() instanceof FallingBlock)
+        //Only our flying blocks are tracked, this gets called for every falling sand etc.
+        final FlyingDebrisTracker.Origin origin = debrisTracker.remove(event.getEntity().getEntityId());
+        if (origin == null || !(event.getEntity() instanceof FallingBlock))
+            return;
+
+        final Block block = event.getBlock();
+        final FallingBlock fallBaby = (FallingBlock) event.getEntity();
+        final int radius = CFG.getInt(RootNode.EXPLOSIONS_FLYING_BLOCKS_AUTOREMOVE_RADIUS, block.getWorld().getName());
+        //Compare the distance to the original explosion, dont place block if the block landed far away (dont make landscape ugly)
+        if (origin.distanceSquared(block) > radius * radius)
         {
-            Block block = event.getBlock();
-            FallingBlock fallBaby = (FallingBlock) event.getEntity();
-            if (fallBaby.hasMetadata(tag))
-            {
-                Object obj = fallBaby.getMetadata(tag).size() > 0 ? fallBaby.getMetadata(tag).get(0).value() : null;
-                if (obj instanceof Location)
-                {
-                    Location loc = (Location) obj;
-                    //Compare the distance to the original explosion, dont place block if the block landed far away (dont make landscape ugly)
-                    if (event.getBlock().getLocation().distanceSquared(loc) > distance)
-                    {
-                        event.setCancelled(true);
-                        fallBaby.remove();
-                    }
-                    //If close place the block as if the player broke it first: stone -> cobble, gras -> dirt etc.
-                    else
-                    {
-                        Material type = BlockModule.getDroppedMaterial(fallBaby.getBlockData().getMaterial());
-                        if (type.isBlock() && type == fallBaby.getBlockData().getMaterial()) //preserve blockdata. See issue #69 //Alternatively could block#setType in second condition
-                            return;
-                        else if (type.isBlock())
-                            block.setType(type);
-                        else //if block doesnt drop something that can be placed again... thin glass, redstone ore
-                            block.setType(Material.AIR);
-                        event.setCancelled(true);
-                    }
-                }
-            }
+            event.setCancelled(true);
+            fallBaby.remove();
+        }
+        //If close place the block as if the player broke it first: stone -> cobble, gras -> dirt etc.
+        else
+        {
+            Material type = BlockModule.getDroppedMaterial(fallBaby.getBlockData().getMaterial());
+            if (type.isBlock() && type == fallBaby.getBlockData().getMaterial()) //preserve blockdata. See issue #69 //Alternatively could block#setType in second condition
+                return;
+            else if (type.isBlock())
+                block.setType(type);
+            else //if block doesnt drop something that can be placed again... thin glass, redstone ore
+                block.setType(Material.AIR);
+            event.setCancelled(true);
         }
     }
 
@@ -351,34 +425,34 @@ public class Explosions extends ListenerModule
 
 
     /**
-     * Creates 4 additional explosions around a location to make the shape of the crater random and more natural
+     * Creates 4 additional explosions around a location to make the shape of the crater random and more natural.
+     * <p/>
+     * The explosions are combined into one blast, so the blocks are only computed once and entities only damaged once.
      *
      * @param location      center location to create explosions
-     * @param sourceEntity  entity that caused the explosion
      * @param explosionType type determines the size of the explosion
+     * @param worldDamage   if the explosions destroy blocks
+     *
+     * @return the combined blast of all explosions
      */
-    public void multipleExplosions(Location location, Entity sourceEntity, ExplosionType explosionType)
+    public CombinedBlast multipleExplosions(Location location, ExplosionType explosionType, boolean worldDamage)
     {
         // create more explosions nearby
         long serverTime = location.getWorld().getFullTime();
         int random1 = (int) (serverTime + location.getBlockZ()) % 8;
         int random2 = (int) (serverTime + location.getBlockX()) % 8;
 
+        //every explosion is offset from the previous one
+        Location current = location.clone();
         Location[] locations = new Location[]
                 {
-                        location.add(random1, 1, random2),
-                        location.add(-random2, 0, random1 / 2),
-                        location.add(-random1 / 2, -1, -random2),
-                        location.add(random1 / 2, 0, -random2 / 2)
+                        current.add(random1, 1, random2).clone(),
+                        current.add(-random2, 0, random1 / 2).clone(),
+                        current.add(-random1 / 2, -1, -random2).clone(),
+                        current.add(random1 / 2, 0, -random2 / 2).clone()
                 };
 
-        final int explosionsNum = locations.length;
-
-        for (int i = 0; i < explosionsNum; i++)
-        {
-            CreateExplosionTask task = new CreateExplosionTask(plugin, locations[i], explosionType, sourceEntity);
-            plugin.getServer().getScheduler().scheduleSyncDelayedTask(plugin, task, 3L * (i + 1));
-        }
+        return new CombinedBlast(locations, explosionType, CFG.getExplosionProfiles(location.getWorld().getName()), worldDamage);
     }
 
 
@@ -403,43 +477,39 @@ public class Explosions extends ListenerModule
     /**
      * Make blocks fly
      *
-     * @param blocks        list of blocks
-     * @param center        center from which to spread blocks out
-     * @param flyPercentage percentage of blocks affected
-     * @param upVel         how fast to propel upwards
-     * @param spreadVel     how fast to propel on horizontal axis
+     * @param blocks          list of blocks
+     * @param center          center from which to spread blocks out
+     * @param flyPercentage   percentage of blocks affected
+     * @param maxFlyingBlocks max amount of blocks that fly for this explosion
+     * @param upVel           how fast to propel upwards
+     * @param spreadVel       how fast to propel on horizontal axis
      */
-    public void applyExplosionPhysics(Collection<Block> blocks, final Location center, final int flyPercentage, final double upVel, final double spreadVel)
+    public void applyExplosionPhysics(Collection<Block> blocks, final Location center, final int flyPercentage, final int maxFlyingBlocks, final double upVel, final double spreadVel)
     {
-        final List<FallingBlock> fallingBlockList = new ArrayList<FallingBlock>();
+        if (blocks.isEmpty())
+            return;
+        final boolean dropItem = CFG.getBoolean(RootNode.MORE_FALLING_BLOCKS_DROP_ITEM, center.getWorld().getName());
+        int flying = 0;
         for (Block block : blocks)
         {
+            if (flying >= maxFlyingBlocks)
+                break;
             if (block.getType().isSolid())
             {
                 //Only a few of the blocks fly as an effect
                 if (plugin.random(flyPercentage))
                 {
-                    FallingBlock fall = block.getLocation().getWorld().spawnFallingBlock(block.getLocation(), block.getBlockData());
-                    fall.setMetadata(tag, new FixedMetadataValue(plugin, block.getLocation())); //decide on the distance if block should be placed
-                    //fall.setMetadata("drops", new FixedMetadataValue(plugin, block.getDrops()));
-                    fall.setDropItem(CFG.getBoolean(RootNode.MORE_FALLING_BLOCKS_DROP_ITEM, block.getWorld().getName()));
-                    UtilityModule.moveUp(fall, upVel);
-                    //block.setType(Material.AIR);
-                    fallingBlockList.add(fall);
+                    FallingBlock fall = block.getWorld().spawnFallingBlock(block.getLocation(), block.getBlockData());
+                    fall.setDropItem(dropItem);
+                    //Propel away from the center, the upwards velocity lifts the blocks over the rim of the crater
+                    Vector away = fall.getLocation().toVector().subtract(center.toVector());
+                    Vector velocity = away.lengthSquared() > 0 ? away.normalize().multiply(spreadVel) : new Vector();
+                    fall.setVelocity(velocity.setY(velocity.getY() + upVel / 2));
+                    //decide on the distance if block should be placed
+                    debrisTracker.track(fall, block);
+                    flying++;
                 }
             }
         }
-
-        plugin.getServer().getScheduler().runTaskLater(plugin, new Runnable()
-        {
-            @Override
-            public void run()
-            {
-                for (FallingBlock fall : fallingBlockList)
-                {
-                    UtilityModule.moveAway(fall, center, spreadVel);
-                }
-            }
-        }, 2L);
     }
-}
\ No newline at end of file
+}
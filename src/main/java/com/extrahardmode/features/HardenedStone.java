@@ -27,10 +27,13 @@ import com.extrahardmode.config.RootConfig;
 import com.extrahardmode.config.RootNode;
 import com.extrahardmode.config.messages.MessageNode;
 import com.extrahardmode.events.EhmHardenedStoneEvent;
+import com.extrahardmode.module.BlockContext;
 import com.extrahardmode.module.BlockModule;
+import com.extrahardmode.module.BlockPipeline;
 import com.extrahardmode.module.MsgModule;
-import com.extrahardmode.module.PlayerModule;
 import com.extrahardmode.module.UtilityModule;
+import com.extrahardmode.service.BlockBreakRule;
+import com.extrahardmode.service.BlockPlaceRule;
 import com.extrahardmode.service.Feature;
 import com.extrahardmode.service.ListenerModule;
 import com.extrahardmode.service.PermissionNode;
@@ -69,8 +72,6 @@ public class HardenedStone extends ListenerModule
 
     private BlockModule blockModule;
 
-    private PlayerModule playerModule;
-
 
     public HardenedStone(ExtraHardMode plugin)
     {
@@ -85,33 +86,67 @@ public class HardenedStone extends ListenerModule
         CFG = plugin.getModuleForClass(RootConfig.class);
         messenger = plugin.getModuleForClass(MsgModule.class);
         blockModule = plugin.getModuleForClass(BlockModule.class);
-        playerModule = plugin.getModuleForClass(PlayerModule.class);
+        plugin.getModuleForClass(BlockPipeline.class).registerBreak(this, "onBlockBreak", EventPriority.NORMAL, true, new BlockBreakRule.Factory()
+        {
+            @Override
+            public BlockBreakRule forWorld(String world)
+            {
+                if (!CFG.getBoolean(RootNode.SUPER_HARD_STONE, world) && !CFG.getBoolean(RootNode.SUPER_HARD_STONE_PHYSICS, world))
+                    return null;
+                final Map<Material, Integer> toolDurabilityMap = new HashMap<>();
+                final Map<Material, Integer> toolUnbreakingMap = new HashMap<>();
+                if (!parseTools(CFG.getStringList(RootNode.SUPER_HARD_STONE_TOOLS, world), toolDurabilityMap, toolUnbreakingMap))
+                    return null;
+                return new StoneBreakRule(world, toolDurabilityMap, toolUnbreakingMap);
+            }
+        });
+        plugin.getModuleForClass(BlockPipeline.class).registerPlace(this, "onBlockPlace", EventPriority.LOWEST, true, new BlockPlaceRule.Factory()
+        {
+            @Override
+            public BlockPlaceRule forWorld(String world)
+            {
+                if (!CFG.getBoolean(RootNode.SUPER_HARD_STONE, world) || !CFG.getBoolean(RootNode.SUPER_HARD_STONE_BLOCK_ORE_PLACEMENT, world))
+                    return null;
+                final List<Material> oreBlocks = CFG.getStringListAsMaterialList(RootNode.SUPER_HARD_STONE_ORE_BLOCKS, world);
+                final BlockRelationsList stoneBlocks = CFG.getBlockRelationList(RootNode.SUPER_HARD_STONE_STONE_BLOCKS, world);
+                return new BlockPlaceRule()
+                {
+                    @Override
+                    public void onPlace(BlockPlaceEvent event, BlockContext context)
+                    {
+                        onBlockPlace(event, context, oreBlocks, stoneBlocks);
+                    }
+                };
+            }
+        });
     }
 
 
-    /**
-     * When a player breaks stone
-     */
-    @EventHandler(ignoreCancelled = true)
-    public void onBlockBreak(BlockBreakEvent event)
+    @Override
+    public void closing()
     {
-        Block block = event.getBlock();
-        World world = block.getWorld();
-        Player player = event.getPlayer();
+        super.closing();
+        plugin.getModuleForClass(BlockPipeline.class).unregister(this);
+    }
 
-        final boolean hardStoneEnabled = CFG.getBoolean(RootNode.SUPER_HARD_STONE, world.getName());
-        final boolean hardStonePhysix = CFG.getBoolean(RootNode.SUPER_HARD_STONE_PHYSICS, world.getName());
-        final boolean applyPhysics = CFG.getBoolean(RootNode.SUPER_HARD_STONE_PHYSICS_APPLY, world.getName());
-        final boolean playerBypasses = playerModule.playerBypasses(player, Feature.HARDENEDSTONE);
 
-        final List<String> tools = CFG.getStringList(RootNode.SUPER_HARD_STONE_TOOLS, world.getName());
-        final List<Material> physicsBlocks = CFG.getStringListAsMaterialList(RootNode.SUPER_HARD_STONE_ORE_BLOCKS, world.getName());
-        final BlockRelationsList stoneBlocks = CFG.getBlockRelationList(RootNode.SUPER_HARD_STONE_STONE_BLOCKS, world.getName());
-        final List<Material> hardBlocks = CFG.getStringListAsMaterialList(RootNode.SUPER_HARD_BLOCKS, world.getName());
+    @Override
+    protected RootNode[] getGatingNodes()
+    {
+        return new RootNode[]{
+                RootNode.SUPER_HARD_STONE,
+                RootNode.SUPER_HARD_STONE_PHYSICS
+        };
+    }
 
-        final Map<Material, Integer> toolDurabilityMap = new HashMap<>();
-        final Map<Material, Integer> toolUnbreakingMap = new HashMap<>();
 
+    /**
+     * Parse the tools which can break hardened stone, entries are MATERIAL@durability[@unbreaking]
+     *
+     * @return false if the config node is not properly formatted
+     */
+    private boolean parseTools(List<String> tools, Map<Material, Integer> toolDurabilityMap, Map<Material, Integer> toolUnbreakingMap)
+    {
         try
         {
             for (String tool : tools)
@@ -136,60 +171,104 @@ public class HardenedStone extends ListenerModule
         catch (Throwable rock)
         {
             plugin.getLogger().severe("Mining.Inhibit Tunneling config node is not properly formatted. Should be MATERIAL@durability in blocks e.g. IRON_PICKAXE@32 for each entry.");
-            return;
+            return false;
         }
+        return true;
+    }
+
+
+    /**
+     * When a player breaks stone, the settings and tools of the world are parsed once when the rule is created
+     */
+    private class StoneBreakRule implements BlockBreakRule
+    {
+        private final boolean hardStoneEnabled;
+        private final boolean hardStonePhysix;
+        private final boolean applyPhysics;
+
+        private final List<Material> physicsBlocks;
+        private final BlockRelationsList stoneBlocks;
+        private final List<Material> hardBlocks;
 
-        // FEATURE: stone breaks tools much quicker
-        if (hardStoneEnabled && hardBlocks.contains(block.getType()) && !playerBypasses)
+        private final Map<Material, Integer> toolDurabilityMap;
+        private final Map<Material, Integer> toolUnbreakingMap;
+
+
+        private StoneBreakRule(String world, Map<Material, Integer> toolDurabilityMap, Map<Material, Integer> toolUnbreakingMap)
         {
-            ItemStack inHandStack = player.getInventory().getItemInMainHand();
+            hardStoneEnabled = CFG.getBoolean(RootNode.SUPER_HARD_STONE, world);
+            hardStonePhysix = CFG.getBoolean(RootNode.SUPER_HARD_STONE_PHYSICS, world);
+            applyPhysics = CFG.getBoolean(RootNode.SUPER_HARD_STONE_PHYSICS_APPLY, world);
+            physicsBlocks = CFG.getStringListAsMaterialList(RootNode.SUPER_HARD_STONE_ORE_BLOCKS, world);
+            stoneBlocks = CFG.getBlockRelationList(RootNode.SUPER_HARD_STONE_STONE_BLOCKS, world);
+            hardBlocks = CFG.getStringListAsMaterialList(RootNode.SUPER_HARD_BLOCKS, world);
+            this.toolDurabilityMap = toolDurabilityMap;
+            this.toolUnbreakingMap = toolUnbreakingMap;
+        }
 
-            if (inHandStack.getType() != Material.AIR)
-            {
-                Material tool = inHandStack.getType();
-                int blocks = 0;
-                Integer toolSettings = toolDurabilityMap.get(tool);
 
-                if (toolUnbreakingMap.containsKey(tool) && inHandStack.containsEnchantment(Enchantment.DURABILITY))
-                    toolSettings *= toolUnbreakingMap.get(tool);
+        @Override
+        public void onBreak(BlockBreakEvent event, BlockContext context)
+        {
+            Block block = context.getBlock();
+            Player player = context.getPlayer();
+            if (player == null) //called by another plugin, there is no tool to damage
+                return;
 
-                if (toolSettings != null)
-                    blocks = toolSettings;
+            final boolean playerBypasses = context.bypasses(Feature.HARDENEDSTONE);
 
-                EhmHardenedStoneEvent hardEvent = new EhmHardenedStoneEvent(player, inHandStack, blocks);
+            // FEATURE: stone breaks tools much quicker
+            if (hardStoneEnabled && hardBlocks.contains(context.getMaterial()) && !playerBypasses)
+            {
+                ItemStack inHandStack = player.getInventory().getItemInMainHand();
 
-                if (toolSettings != null)
+                if (inHandStack.getType() != Material.AIR)
                 {
-                    /* Broadcast an Event for other Plugins to change if the tool can break stone and the amount of blocks */
-                    plugin.getServer().getPluginManager().callEvent(hardEvent);
+                    Material tool = inHandStack.getType();
+                    int blocks = 0;
+                    Integer toolSettings = toolDurabilityMap.get(tool);
+
+                    if (toolUnbreakingMap.containsKey(tool) && inHandStack.containsEnchantment(Enchantment.DURABILITY))
+                        toolSettings *= toolUnbreakingMap.get(tool);
 
-                    // otherwise, drastically reduce tool durability when breaking stone
-                    if (hardEvent.getNumOfBlocks() > 0)
+                    if (toolSettings != null)
+                        blocks = toolSettings;
+
+                    EhmHardenedStoneEvent hardEvent = new EhmHardenedStoneEvent(player, inHandStack, blocks);
+
+                    if (toolSettings != null)
                     {
-                        player.getInventory().setItemInMainHand(UtilityModule.damage(hardEvent.getTool(), hardEvent.getNumOfBlocks()));                        
+                        /* Broadcast an Event for other Plugins to change if the tool can break stone and the amount of blocks */
+                        plugin.getServer().getPluginManager().callEvent(hardEvent);
+
+                        // otherwise, drastically reduce tool durability when breaking stone
+                        if (hardEvent.getNumOfBlocks() > 0)
+                        {
+                            player.getInventory().setItemInMainHand(UtilityModule.damage(hardEvent.getTool(), hardEvent.getNumOfBlocks()));                        
+                        }
+                    }
+                    if (hardEvent.getNumOfBlocks() == 0)
+                    {
+                        messenger.send(player, MessageNode.STONE_MINING_HELP, PermissionNode.SILENT_STONE_MINING_HELP);
+                        event.setCancelled(true);
+                        return;
                     }
-                }
-                if (hardEvent.getNumOfBlocks() == 0)
-                {
-                    messenger.send(player, MessageNode.STONE_MINING_HELP, PermissionNode.SILENT_STONE_MINING_HELP);
-                    event.setCancelled(true);
-                    return;
                 }
             }
-        }
 
-        // when ore is broken, it softens adjacent stone important to ensure players can reach the ore they break
-        if (hardStonePhysix && physicsBlocks.contains(block.getType()))
-        {
-            for (BlockFace face : blockModule.getTouchingFaces())
+            // when ore is broken, it softens adjacent stone important to ensure players can reach the ore they break
+            if (hardStonePhysix && physicsBlocks.contains(context.getMaterial()))
             {
-                Block adjacentBlock = block.getRelative(face);
-               
-                if (stoneBlocks.contains(adjacentBlock))
+                for (BlockFace face : blockModule.getTouchingFaces())
                 {
-                    adjacentBlock.setType(stoneBlocks.get(adjacentBlock));
-                    if (applyPhysics)
-                        blockModule.applyPhysics(adjacentBlock, true);
+                    Block adjacentBlock = block.getRelative(face);
+               
+                    if (stoneBlocks.contains(adjacentBlock))
+                    {
+                        adjacentBlock.setType(stoneBlocks.get(adjacentBlock));
+                        if (applyPhysics)
+                            blockModule.applyPhysics(adjacentBlock, true);
+                    }
                 }
             }
         }
@@ -199,20 +278,15 @@ public class HardenedStone extends ListenerModule
     /**
      * FIX: prevent players from placing ore as an exploit to work around the hardened stone rule
      */
-    @EventHandler(ignoreCancelled = true, priority = EventPriority.LOWEST)
-    public void onBlockPlace(BlockPlaceEvent placeEvent)
+    private void onBlockPlace(BlockPlaceEvent placeEvent, BlockContext context, List<Material> oreBlocks, BlockRelationsList stoneBlocks)
     {
-        Player player = placeEvent.getPlayer();
-        Block block = placeEvent.getBlock();
-        World world = block.getWorld();
-
-        final boolean playerBypasses = playerModule.playerBypasses(player, Feature.HARDENEDSTONE);
-        final boolean hardstoneEnabled = CFG.getBoolean(RootNode.SUPER_HARD_STONE, world.getName());
-        final boolean blockOrePlacement = CFG.getBoolean(RootNode.SUPER_HARD_STONE_BLOCK_ORE_PLACEMENT, world.getName());
-        final List<Material> oreBlocks = CFG.getStringListAsMaterialList(RootNode.SUPER_HARD_STONE_ORE_BLOCKS, world.getName());
-        final BlockRelationsList stoneBlocks = CFG.getBlockRelationList(RootNode.SUPER_HARD_STONE_STONE_BLOCKS, world.getName());
+        Player player = context.getPlayer();
+        Block block = context.getBlock();
+        //Nothing to limit if another plugin called the event without a player
+        if (player == null)
+            return;
 
-        if (hardstoneEnabled && blockOrePlacement && !playerBypasses && oreBlocks.contains(block.getType()))
+        if (!context.bypasses(Feature.HARDENEDSTONE) && oreBlocks.contains(context.getMaterial()))
         {
             ArrayList<Block> adjacentBlocks = new ArrayList<Block>();
             for (BlockFace face : blockModule.getTouchingFaces())
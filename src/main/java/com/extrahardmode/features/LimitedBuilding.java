@@ -26,18 +26,18 @@ import com.extrahardmode.ExtraHardMode;
 import com.extrahardmode.config.RootConfig;
 import com.extrahardmode.config.RootNode;
 import com.extrahardmode.config.messages.MessageNode;
+import com.extrahardmode.module.BlockContext;
 import com.extrahardmode.module.BlockModule;
+import com.extrahardmode.module.BlockPipeline;
 import com.extrahardmode.module.MsgModule;
-import com.extrahardmode.module.PlayerModule;
+import com.extrahardmode.service.BlockPlaceRule;
 import com.extrahardmode.service.Feature;
 import com.extrahardmode.service.ListenerModule;
 import com.extrahardmode.service.PermissionNode;
 import org.bukkit.Material;
-import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.block.BlockPlaceEvent;
 
@@ -52,8 +52,6 @@ public class LimitedBuilding extends ListenerModule
 
     private MsgModule messenger;
 
-    private PlayerModule playerModule;
-
 
     public LimitedBuilding(ExtraHardMode plugin)
     {
@@ -67,7 +65,39 @@ public class LimitedBuilding extends ListenerModule
         super.starting();
         CFG = plugin.getModuleForClass(RootConfig.class);
         messenger = plugin.getModuleForClass(MsgModule.class);
-        playerModule = plugin.getModuleForClass(PlayerModule.class);
+        plugin.getModuleForClass(BlockPipeline.class).registerPlace(this, "onBlockPlace", EventPriority.LOWEST, true, new BlockPlaceRule.Factory()
+        {
+            @Override
+            public BlockPlaceRule forWorld(String world)
+            {
+                if (!CFG.getBoolean(RootNode.LIMITED_BLOCK_PLACEMENT, world))
+                    return null;
+                return new BlockPlaceRule()
+                {
+                    @Override
+                    public void onPlace(BlockPlaceEvent event, BlockContext context)
+                    {
+                        if (!context.bypasses(Feature.LIMITED_BUILDING))
+                            onBlockPlace(event, context);
+                    }
+                };
+            }
+        });
+    }
+
+
+    @Override
+    public void closing()
+    {
+        super.closing();
+        plugin.getModuleForClass(BlockPipeline.class).unregister(this);
+    }
+
+
+    @Override
+    protected RootNode[] getGatingNodes()
+    {
+        return new RootNode[]{RootNode.LIMITED_BLOCK_PLACEMENT};
     }
 
 
@@ -75,63 +105,58 @@ public class LimitedBuilding extends ListenerModule
      * FEATURE: players can't place blocks from weird angles (using shift to hover over in the air beyond the edge of
      * solid ground) or directly beneath themselves, for that matter
      */
-    @EventHandler(ignoreCancelled = true, priority = EventPriority.LOWEST)
-    public void onBlockPlace(BlockPlaceEvent placeEvent)
+    private void onBlockPlace(BlockPlaceEvent placeEvent, BlockContext context)
     {
-        Player player = placeEvent.getPlayer();
-        Block block = placeEvent.getBlock();
-        World world = block.getWorld();
-
-        final boolean limitedBlockPlacement = CFG.getBoolean(RootNode.LIMITED_BLOCK_PLACEMENT, world.getName());
-        final boolean playerBypasses = playerModule.playerBypasses(player, Feature.LIMITED_BUILDING);
-
-        if (!playerBypasses && limitedBlockPlacement)
+        Player player = context.getPlayer();
+        Block block = context.getBlock();
+        //Nothing to limit if another plugin called the event without a player
+        if (player == null)
+            return;
+
+        //When a Player stands on a halfslab the block beneath him is not the halfslab it's the block below the halfslab
+        Block playerBlock = context.getWorld().getBlockAt(context.getPlayerBlockX(), (int) Math.ceil(context.getPlayerY()), context.getPlayerBlockZ());
+        Block underBlock = playerBlock.getRelative(BlockFace.DOWN);
+        Block against = placeEvent.getBlockAgainst();
+
+        //Blocks directly below player
+        if (block.getX() == playerBlock.getX()
+                && block.getZ() == playerBlock.getZ()
+                && block.getY() < playerBlock.getY())
         {
-            //When a Player stands on a halfslab the block beneath him is not the halfslab it's the block below the halfslab
-            Block playerBlock = world.getBlockAt(player.getLocation().getBlockX(), (int) Math.ceil(player.getLocation().getY()), player.getLocation().getBlockZ());
-            Block underBlock = playerBlock.getRelative(BlockFace.DOWN);
-            Block against = placeEvent.getBlockAgainst();
-
-            //Blocks directly below player
-            if (block.getX() == playerBlock.getX()
-                    && block.getZ() == playerBlock.getZ()
-                    && block.getY() < playerBlock.getY())
-            {
-                //TODO EhmLimitedBuildingEvent Case.BENEATH_PLAYER
-                messenger.send(player, MessageNode.REALISTIC_BUILDING_BENEATH, PermissionNode.SILENT_REALISTIC_BUILDING);
-                placeEvent.setCancelled(true);
-            }
+            //TODO EhmLimitedBuildingEvent Case.BENEATH_PLAYER
+            messenger.send(player, MessageNode.REALISTIC_BUILDING_BENEATH, PermissionNode.SILENT_REALISTIC_BUILDING);
+            placeEvent.setCancelled(true);
+        }
 
-            // if standing directly over lava, prevent placement
-            else if ((underBlock.getType() == Material.AIR || underBlock.getType() == Material.LAVA)
-                    && !(playerBlock.getType().name().contains("STEP") && playerBlock.getType().name().contains("STAIRS"))
-                    && block.getRelative(BlockFace.DOWN).getType() == Material.AIR)
-            {
-                //TODO EhmLimitedBuildingEvent Case.PLAYER_ABOVE_UNSAFE_LOC
-                messenger.send(player, MessageNode.REALISTIC_BUILDING, PermissionNode.SILENT_REALISTIC_BUILDING);
-                placeEvent.setCancelled(true);
-            } else if (BlockModule.isOffAxis(playerBlock, block, against))
-            {
-                messenger.send(player, MessageNode.REALISTIC_BUILDING, PermissionNode.SILENT_REALISTIC_BUILDING);
-                placeEvent.setCancelled(true);
-            }
+        // if standing directly over lava, prevent placement
+        else if ((underBlock.getType() == Material.AIR || underBlock.getType() == Material.LAVA)
+                && !(playerBlock.getType().name().contains("STEP") && playerBlock.getType().name().contains("STAIRS"))
+                && block.getRelative(BlockFace.DOWN).getType() == Material.AIR)
+        {
+            //TODO EhmLimitedBuildingEvent Case.PLAYER_ABOVE_UNSAFE_LOC
+            messenger.send(player, MessageNode.REALISTIC_BUILDING, PermissionNode.SILENT_REALISTIC_BUILDING);
+            placeEvent.setCancelled(true);
+        } else if (BlockModule.isOffAxis(playerBlock, block, against))
+        {
+            messenger.send(player, MessageNode.REALISTIC_BUILDING, PermissionNode.SILENT_REALISTIC_BUILDING);
+            placeEvent.setCancelled(true);
+        }
 
-            /* Fences and glasspanes are half placed as vertical half blocks allowing the player to build in the air */
-            //Block placing of blocks on the side of the block on which the player is currently standing
-            else if ((against.getX() == playerBlock.getX() && against.getZ() == playerBlock.getZ()) && (against.getX() != block.getX() || against.getZ() != block.getZ()))
-            {
-                messenger.send(player, MessageNode.REALISTIC_BUILDING, PermissionNode.SILENT_REALISTIC_BUILDING);
-                placeEvent.setCancelled(true);
-            }
-            //FIX: Jump Pillar Exploit
-            //We just want to block crouching over a block and placing blocks in the adjacent column while jumping
-            else if (underBlock.getType() == Material.AIR && block.getY() <= underBlock.getY() && block.getX() - underBlock.getX() <= 1 && block.getZ() - underBlock.getZ() <= 1 &&
-                    (underBlock.getRelative(BlockFace.EAST).getType() == Material.AIR && underBlock.getRelative(BlockFace.NORTH).getType() == Material.AIR &&
-                            underBlock.getRelative(BlockFace.SOUTH).getType() == Material.AIR && underBlock.getRelative(BlockFace.WEST).getType() == Material.AIR))
-            {
-                messenger.send(player, MessageNode.REALISTIC_BUILDING_BENEATH, PermissionNode.SILENT_REALISTIC_BUILDING);
-                placeEvent.setCancelled(true);
-            }
+        /* Fences and glasspanes are half placed as vertical half blocks allowing the player to build in the air */
+        //Block placing of blocks on the side of the block on which the player is currently standing
+        else if ((against.getX() == playerBlock.getX() && against.getZ() == playerBlock.getZ()) && (against.getX() != block.getX() || against.getZ() != block.getZ()))
+        {
+            messenger.send(player, MessageNode.REALISTIC_BUILDING, PermissionNode.SILENT_REALISTIC_BUILDING);
+            placeEvent.setCancelled(true);
+        }
+        //FIX: Jump Pillar Exploit
+        //We just want to block crouching over a block and placing blocks in the adjacent column while jumping
+        else if (underBlock.getType() == Material.AIR && block.getY() <= underBlock.getY() && block.getX() - underBlock.getX() <= 1 && block.getZ() - underBlock.getZ() <= 1 &&
+                (underBlock.getRelative(BlockFace.EAST).getType() == Material.AIR && underBlock.getRelative(BlockFace.NORTH).getType() == Material.AIR &&
+                        underBlock.getRelative(BlockFace.SOUTH).getType() == Material.AIR && underBlock.getRelative(BlockFace.WEST).getType() == Material.AIR))
+        {
+            messenger.send(player, MessageNode.REALISTIC_BUILDING_BENEATH, PermissionNode.SILENT_REALISTIC_BUILDING);
+            placeEvent.setCancelled(true);
         }
     }
 }
@@ -4,6 +4,7 @@ package com.extrahardmode.features;
 import com.extrahardmode.ExtraHardMode;
 import com.extrahardmode.config.RootConfig;
 import com.extrahardmode.config.RootNode;
+import com.extrahardmode.module.EhmScheduler;
 import com.extrahardmode.module.PlayerModule;
 import com.extrahardmode.module.UtilityModule;
 import com.extrahardmode.service.Feature;
@@ -126,7 +127,7 @@ public class MoreTnt extends ListenerModule
                             int amountBefore = PlayerModule.countInvItem(inv, Material.TNT);
                             //Add the missing tnt 1 tick later, we count what has been added by shiftclicking and multiply it
                             UtilityModule.AddExtraItemsLater task = new UtilityModule.AddExtraItemsLater(inv, amountBefore, Material.TNT, multiplier - 1);
-                            plugin.getServer().getScheduler().scheduleSyncDelayedTask(plugin, task, 1L);
+                            plugin.getModuleForClass(EhmScheduler.class).runTaskLater("MoreTnt", task, 1L);
                         }
                         break;
                 }
@@ -26,9 +26,12 @@ import com.extrahardmode.ExtraHardMode;
 import com.extrahardmode.compatibility.CompatHandler;
 import com.extrahardmode.config.RootConfig;
 import com.extrahardmode.config.RootNode;
+import com.extrahardmode.module.BlockContext;
 import com.extrahardmode.module.BlockModule;
+import com.extrahardmode.module.BlockPipeline;
 import com.extrahardmode.module.EntityHelper;
-import com.extrahardmode.module.PlayerModule;
+import com.extrahardmode.service.BlockBreakRule;
+import com.extrahardmode.service.BlockPlaceRule;
 import com.extrahardmode.service.Feature;
 import com.extrahardmode.service.ListenerModule;
 import org.bukkit.Material;
@@ -54,8 +57,6 @@ public class Physics extends ListenerModule
 
     private BlockModule blockModule;
 
-    private PlayerModule playerModule;
-
 
     public Physics(ExtraHardMode plugin)
     {
@@ -69,32 +70,55 @@ public class Physics extends ListenerModule
         super.starting();
         CFG = plugin.getModuleForClass(RootConfig.class);
         blockModule = plugin.getModuleForClass(BlockModule.class);
-        playerModule = plugin.getModuleForClass(PlayerModule.class);
+        //When a player places a block check the surrounding blocks for gravity, HIGH so this gets called after the building limitations
+        plugin.getModuleForClass(BlockPipeline.class).registerPlace(this, "onBlockPlace", EventPriority.HIGH, true, new BlockPlaceRule.Factory()
+        {
+            @Override
+            public BlockPlaceRule forWorld(String world)
+            {
+                if (!CFG.getBoolean(RootNode.MORE_FALLING_BLOCKS_ENABLE, world))
+                    return null;
+                return new BlockPlaceRule()
+                {
+                    @Override
+                    public void onPlace(BlockPlaceEvent event, BlockContext context)
+                    {
+                        if (!context.bypasses(Feature.MORE_FALLING_BLOCKS))
+                        {
+                            //TODO EhmPhysicCheckEvent
+                            blockModule.physicsCheck(context.getBlock(), 10, true, 0);
+                        }
+                    }
+                };
+            }
+        });
+        plugin.getModuleForClass(BlockPipeline.class).registerBreak(this, "onBlockBreak", EventPriority.MONITOR, true, new BlockBreakRule.Factory()
+        {
+            @Override
+            public BlockBreakRule forWorld(String world)
+            {
+                final boolean moreFallingBlocksEnabled = CFG.getBoolean(RootNode.MORE_FALLING_BLOCKS_ENABLE, world);
+                final int netherRackFirePercent = CFG.getInt(RootNode.BROKEN_NETHERRACK_CATCHES_FIRE_PERCENT, world);
+                if (!moreFallingBlocksEnabled && netherRackFirePercent <= 0)
+                    return null;
+                return new BlockBreakRule()
+                {
+                    @Override
+                    public void onBreak(BlockBreakEvent event, BlockContext context)
+                    {
+                        onBlockBreak(event, context, moreFallingBlocksEnabled, netherRackFirePercent);
+                    }
+                };
+            }
+        });
     }
 
 
-    /**
-     * When a player places a block...
-     * <p/>
-     * Check the surrounding blocks for gravity
-     *
-     * @param placeEvent - Event that occurred
-     */
-    @EventHandler(ignoreCancelled = true, priority = EventPriority.HIGH/*so this gets called after the building limitations*/)
-    public void onBlockPlace(BlockPlaceEvent placeEvent)
+    @Override
+    public void closing()
     {
-        Player player = placeEvent.getPlayer();
-        Block block = placeEvent.getBlock();
-        World world = block.getWorld();
-
-        final boolean physixEnabled = CFG.getBoolean(RootNode.MORE_FALLING_BLOCKS_ENABLE, world.getName());
-        final boolean playerBypasses = playerModule.playerBypasses(player, Feature.MORE_FALLING_BLOCKS);
-
-        if (physixEnabled && !playerBypasses)
-        {
-            //TODO EhmPhysicCheckEvent
-            blockModule.physicsCheck(block, 10, true, 0);
-        }
+        super.closing();
+        plugin.getModuleForClass(BlockPipeline.class).unregister(this);
     }
 
 
@@ -105,16 +129,11 @@ public class Physics extends ListenerModule
      *
      * @param breakEvent - Event that occurred.
      */
-    @EventHandler(ignoreCancelled = true, priority = EventPriority.MONITOR)
-    public void onBlockBreak(BlockBreakEvent breakEvent)
+    private void onBlockBreak(BlockBreakEvent breakEvent, BlockContext context, boolean moreFallingBlocksEnabled, int netherRackFirePercent)
     {
-        Block block = breakEvent.getBlock();
-        World world = block.getWorld();
-        Player player = breakEvent.getPlayer();
+        Block block = context.getBlock();
 
-        final boolean moreFallingBlocksEnabled = CFG.getBoolean(RootNode.MORE_FALLING_BLOCKS_ENABLE, world.getName());
-        final int netherRackFirePercent = CFG.getInt(RootNode.BROKEN_NETHERRACK_CATCHES_FIRE_PERCENT, world.getName());
-        final boolean playerBypasses = playerModule.playerBypasses(player, Feature.MORE_FALLING_BLOCKS);
+        final boolean playerBypasses = context.bypasses(Feature.MORE_FALLING_BLOCKS);
 
 
         // FEATURE: more falling blocks
@@ -125,7 +144,7 @@ public class Physics extends ListenerModule
         }
 
         // FEATURE: breaking netherrack may start a fire
-        if (netherRackFirePercent > 0 && block.getType() == Material.NETHERRACK && !playerBypasses)
+        if (netherRackFirePercent > 0 && context.getMaterial() == Material.NETHERRACK && !playerBypasses)
         {
             Block underBlock = block.getRelative(BlockFace.DOWN);
             if (underBlock.getType() == Material.NETHERRACK && plugin.random(netherRackFirePercent))
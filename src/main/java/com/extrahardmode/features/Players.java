@@ -27,9 +27,14 @@ import com.extrahardmode.config.RootConfig;
 import com.extrahardmode.config.RootNode;
 import com.extrahardmode.events.EhmPlayerExtinguishFireEvent;
 import com.extrahardmode.events.EhmPlayerInventoryLossEvent;
+import com.extrahardmode.module.CombatContext;
+import com.extrahardmode.module.CombatPipeline;
 import com.extrahardmode.module.DataStoreModule;
+import com.extrahardmode.module.EhmScheduler;
 import com.extrahardmode.module.PlayerData;
 import com.extrahardmode.module.PlayerModule;
+import com.extrahardmode.service.DamageRule;
+import com.extrahardmode.service.DeathRule;
 import com.extrahardmode.service.Feature;
 import com.extrahardmode.service.ListenerModule;
 import com.extrahardmode.service.config.customtypes.PotionEffectHolder;
@@ -38,22 +43,26 @@ import com.extrahardmode.task.SetPlayerHealthAndFoodTask;
 import org.bukkit.Material;
 import org.bukkit.World;
 import org.bukkit.block.Block;
-import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
 import org.bukkit.entity.Horse;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.block.Action;
+import org.bukkit.event.block.BlockDispenseArmorEvent;
 import org.bukkit.event.entity.EntityDamageEvent;
+import org.bukkit.event.entity.EntityDeathEvent;
 import org.bukkit.event.entity.PlayerDeathEvent;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
+import org.bukkit.event.inventory.InventoryType;
 import org.bukkit.event.player.*;
 import org.bukkit.inventory.ItemStack;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.EnumSet;
 import java.util.List;
-import java.util.Map;
 
 
 /**
@@ -70,8 +79,6 @@ public class Players extends ListenerModule
 
     private boolean isArmorWeightEnabled = false;
 
-    private Map<Player, Integer> armorCheckingPlayers = new HashMap<Player, Integer>();
-
 
     /**
      * Constructor
@@ -88,6 +95,7 @@ public class Players extends ListenerModule
         super.starting();
         CFG = plugin.getModuleForClass(RootConfig.class);
         playerModule = plugin.getModuleForClass(PlayerModule.class);
+        isArmorWeightEnabled = false;
         for (World world : plugin.getServer().getWorlds())
             if (CFG.getBoolean(RootNode.ARMOR_SLOWDOWN_ENABLE, world.getName()))
             {
@@ -95,26 +103,135 @@ public class Players extends ListenerModule
                 break;
             }
         //In case the plugin is reloaded...
-        if (isArmorWeightEnabled && plugin.getServer().getOnlinePlayers().size() > 0)
-        {
+        if (isArmorWeightEnabled)
             for (Player player : plugin.getServer().getOnlinePlayers())
-                armorCheckingPlayers.put(player, plugin.getServer().getScheduler().scheduleSyncRepeatingTask(plugin, new ArmorWeightTask(plugin, player), 20L * 5, 20L * 3));
-        }
+                ArmorWeightTask.schedule(plugin, player);
+        plugin.getModuleForClass(CombatPipeline.class).registerDeath(this, "onPlayerDeath", new DeathRule.Factory()
+        {
+            @Override
+            public DeathRule forWorld(String world)
+            {
+                if (!CFG.getBoolean(RootNode.PLAYER_DEATH_ITEMS_FORFEIT_ENABLE, world))
+                    return null;
+                return new DeathRule()
+                {
+                    @Override
+                    public void onDeath(EntityDeathEvent event, CombatContext context)
+                    {
+                        onPlayerDeath((PlayerDeathEvent) event);
+                    }
+                };
+            }
+        }, EntityType.PLAYER);
+        plugin.getModuleForClass(CombatPipeline.class).registerDamage(this, "onPlayerDamage", EventPriority.HIGHEST, true, new DamageRule.Factory()
+        {
+            @Override
+            public DamageRule forWorld(String world)
+            {
+                if (!CFG.getBoolean(RootNode.ENHANCED_ENVIRONMENTAL_DAMAGE, world))
+                    return null;
+                return new DamageRule()
+                {
+                    @Override
+                    public void onDamage(EntityDamageEvent event, CombatContext context)
+                    {
+                        onPlayerDamage(event, context);
+                    }
+                };
+            }
+        }, EnumSet.of(EntityDamageEvent.DamageCause.BLOCK_EXPLOSION, EntityDamageEvent.DamageCause.ENTITY_EXPLOSION, EntityDamageEvent.DamageCause.FALL,
+                EntityDamageEvent.DamageCause.SUFFOCATION, EntityDamageEvent.DamageCause.LAVA, EntityDamageEvent.DamageCause.FIRE_TICK, EntityDamageEvent.DamageCause.DROWNING,
+                EntityDamageEvent.DamageCause.STARVATION), EntityType.PLAYER);
+    }
+
+
+    @Override
+    public void closing()
+    {
+        super.closing();
+        plugin.getModuleForClass(CombatPipeline.class).unregister(this);
     }
 
     /**
-     * Armor weight task
-     * Using a runnable per-player instead of one runnable to iterate through all players
-     * allows us to be somewhat more compatible with other plugins that change player speed,
+     * Armor weight
+     * The walkspeed is only recalculated when the armor of a player changes instead of polling it,
+     * this also allows us to be somewhat more compatible with other plugins that change player speed,
      * by not constantly setting the player's walkspeed when not necessary.
      */
     @EventHandler
     void onPlayerJoin(PlayerJoinEvent event)
     {
         if (isArmorWeightEnabled)
-            armorCheckingPlayers.put(event.getPlayer(), plugin.getServer().getScheduler().scheduleSyncRepeatingTask(plugin, new ArmorWeightTask(plugin, event.getPlayer()), 20L * 5, 20L * 3));
+            ArmorWeightTask.schedule(plugin, event.getPlayer());
+    }
+
+
+    /**
+     * Armor weight: armor put on or taken off in the inventory
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    void onArmorClick(InventoryClickEvent event)
+    {
+        if (!isArmorWeightEnabled || !(event.getWhoClicked() instanceof Player))
+            return;
+        ItemStack current = event.getCurrentItem();
+        //shift clicking armor equips it, swapping with the hotbar into an armor slot is covered by the slot type
+        if (event.getSlotType() == InventoryType.SlotType.ARMOR || (event.isShiftClick() && current != null && PlayerModule.isArmor(current.getType())))
+            ArmorWeightTask.schedule(plugin, (Player) event.getWhoClicked());
+    }
+
+
+    /**
+     * Armor weight: armor dragged onto an armor slot
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    void onArmorDrag(InventoryDragEvent event)
+    {
+        if (!isArmorWeightEnabled || !(event.getWhoClicked() instanceof Player))
+            return;
+        for (int rawSlot : event.getRawSlots())
+            if (event.getView().getSlotType(rawSlot) == InventoryType.SlotType.ARMOR)
+            {
+                ArmorWeightTask.schedule(plugin, (Player) event.getWhoClicked());
+                return;
+            }
+    }
+
+
+    /**
+     * Armor weight: armor equipped by right clicking it
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    void onArmorEquip(PlayerInteractEvent event)
+    {
+        if (isArmorWeightEnabled && event.getItem() != null && PlayerModule.isArmor(event.getItem().getType())
+                && (event.getAction() == Action.RIGHT_CLICK_AIR || event.getAction() == Action.RIGHT_CLICK_BLOCK))
+            ArmorWeightTask.schedule(plugin, event.getPlayer());
+    }
+
+
+    /**
+     * Armor weight: armor equipped by a dispenser
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    void onArmorDispense(BlockDispenseArmorEvent event)
+    {
+        if (isArmorWeightEnabled && event.getTargetEntity() instanceof Player)
+            ArmorWeightTask.schedule(plugin, (Player) event.getTargetEntity());
+    }
+
+
+    /**
+     * Armor weight: a piece of armor broke
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    void onArmorBreak(PlayerItemBreakEvent event)
+    {
+        if (isArmorWeightEnabled && PlayerModule.isArmor(event.getBrokenItem().getType()))
+            ArmorWeightTask.schedule(plugin, event.getPlayer());
     }
 
+
     /**
      * Fix #55 (not resetting player speed when entering a EHM-disabled world)
      */
@@ -125,6 +242,8 @@ public class Players extends ListenerModule
         if (CFG.getBoolean(RootNode.ARMOR_SLOWDOWN_ENABLE, event.getFrom().getName()))
             if (!CFG.getBoolean(RootNode.ARMOR_SLOWDOWN_ENABLE, player.getWorld().getName()))
                 player.setWalkSpeed(0.2f);
+        if (isArmorWeightEnabled)
+            ArmorWeightTask.schedule(plugin, player);
     }
 
 
@@ -150,24 +269,24 @@ public class Players extends ListenerModule
         {
             //TODO HIGH EhmPlayerRespawnEvent
             SetPlayerHealthAndFoodTask task = new SetPlayerHealthAndFoodTask(player, (int) player.getMaxHealth() * respawnHealthPercentage / 100, respawnFood);
-            plugin.getServer().getScheduler().scheduleSyncDelayedTask(plugin, task, 10L); // half-second delay
+            plugin.getModuleForClass(EhmScheduler.class).runTaskLater("Players", task, 10L); // half-second delay
         }
         // FEATURE: players can't swim when they're carrying a lot of weight, reset the cached value
         PlayerData playerData = plugin.getModuleForClass(DataStoreModule.class).getPlayerData(player.getName());
         playerData.cachedWeightStatus = -1.0F;
+        if (isArmorWeightEnabled)
+            ArmorWeightTask.schedule(plugin, player);
     }
 
 
     /**
      * When a Player dies he looses a percentage of his inventory
      */
-    @EventHandler
-    public void onEntityDeath(PlayerDeathEvent event)
+    private void onPlayerDeath(PlayerDeathEvent event)
     {
         Player player = event.getEntity();
         World world = player.getWorld();
 
-        final boolean enableItemLoss = CFG.getBoolean(RootNode.PLAYER_DEATH_ITEMS_FORFEIT_ENABLE, world.getName());
         final int deathLossPercent = CFG.getInt(RootNode.PLAYER_DEATH_ITEM_STACKS_FORFEIT_PERCENT, world.getName());
         final boolean playerBypasses = playerModule.playerBypasses(player, Feature.DEATH_INV_LOSS);
 
@@ -177,7 +296,7 @@ public class Players extends ListenerModule
         final boolean destroyTools = CFG.getBoolean(RootNode.PLAYER_DEATH_TOOLS_KEEP_DAMAGED, world.getName());
 
         // FEATURE: some portion of player inventory is permanently lost on death
-        if (!playerBypasses && enableItemLoss)
+        if (!playerBypasses)
         {
             List<ItemStack> drops = event.getDrops();
             List<ItemStack> removedDrops = new ArrayList<ItemStack>();
@@ -229,78 +348,45 @@ public class Players extends ListenerModule
     /**
      * Environmental effects when player is damaged
      */
-    @EventHandler(ignoreCancelled = true, priority = EventPriority.HIGHEST)//so we know if the event got cancelled
-    public void onEntityDamage(EntityDamageEvent event)
+    private void onPlayerDamage(EntityDamageEvent event, CombatContext context)
     {
-        Entity entity = event.getEntity();
-        World world = entity.getWorld();
+        Player player = (Player) context.getVictim();
+        final String world = context.getWorld();
 
-        if (entity instanceof Player)
-        {
-            Player player = (Player) entity;
-            final boolean enhancedEnvironmentalDmg = CFG.getBoolean(RootNode.ENHANCED_ENVIRONMENTAL_DAMAGE, world.getName());
-            final boolean playerBypasses = playerModule.playerBypasses(player, Feature.ENVIRONMENTAL_EFFECTS);
+        // FEATURE: extra damage and effects from environmental damage
+        if (playerModule.playerBypasses(player, Feature.ENVIRONMENTAL_EFFECTS))
+            return;
 
-            // FEATURE: extra damage and effects from environmental damage
-            if (enhancedEnvironmentalDmg && !playerBypasses)
-            {
-                EntityDamageEvent.DamageCause cause = event.getCause();
-
-                switch (cause)
-                {
-                    case BLOCK_EXPLOSION:
-                    case ENTITY_EXPLOSION:
-                        //TODO EhmPlayerEnvironmentalDamageEvent for each type
-                        if (event.getDamage() > 2)
-                            applyEffectOnDmg(event, CFG.getPotionEffect(RootNode.ENHANCED_DMG_EXPLOSION, world.getName()), CFG.getDouble(RootNode.ENHANCED_DMG_EXPLOSION_MULT, world.getName()));
-                        break;
-                    case FALL:
-                        applyEffectOnDmg(event, CFG.getPotionEffect(RootNode.ENHANCED_DMG_FALL, world.getName()), CFG.getDouble(RootNode.ENHANCED_DMG_FALL_MULT, world.getName()));
-//                        player.addPotionEffect(new PotionEffect(PotionEffectType.SLOW, (int) (20 * event.getDamage()), 4));
-//                        event.setDamage(event.getDamage() * 2);
-                        break;
-                    case SUFFOCATION:
-                        if (player.getVehicle() instanceof Horse)  //Reduced because you can easily glitch into blocks
-                            applyEffectOnDmg(event, CFG.getPotionEffect(RootNode.ENHANCED_DMG_SUFFOCATION, world.getName()), CFG.getDouble(RootNode.ENHANCED_DMG_SUFFOCATION_MULT, world.getName()) / 2);
-                        else
-                            applyEffectOnDmg(event, CFG.getPotionEffect(RootNode.ENHANCED_DMG_SUFFOCATION, world.getName()), CFG.getDouble(RootNode.ENHANCED_DMG_SUFFOCATION_MULT, world.getName()));
-//                        event.setDamage(event.getDamage() * 5);
-                        break;
-                    case LAVA:
-                        applyEffectOnDmg(event, CFG.getPotionEffect(RootNode.ENHANCED_DMG_LAVA, world.getName()), CFG.getDouble(RootNode.ENHANCED_DMG_LAVA_MULT, world.getName()));
-//                        event.setDamage(event.getDamage() * 2);
-                        break;
-                    case FIRE_TICK:
-                        applyEffectOnDmg(event, CFG.getPotionEffect(RootNode.ENHANCED_DMG_BURN, world.getName()), CFG.getDouble(RootNode.ENHANCED_DMG_BURN_MULT, world.getName()));
-//                        player.addPotionEffect(new PotionEffect(PotionEffectType.BLINDNESS, 20, 1));
-                        break;
-                    case DROWNING:
-                        applyEffectOnDmg(event, CFG.getPotionEffect(RootNode.ENHANCED_DMG_DROWNING, world.getName()), CFG.getDouble(RootNode.ENHANCED_DMG_DROWNING_MULT, world.getName()));
-                        break;
-                    case STARVATION:
-                        applyEffectOnDmg(event, CFG.getPotionEffect(RootNode.ENHANCED_DMG_STARVATION, world.getName()), CFG.getDouble(RootNode.ENHANCED_DMG_STARVATION_MULT, world.getName()));
-                        break;
-
-                    case CONTACT:
-                    case CUSTOM:
-                    case ENTITY_ATTACK:
-                    case FALLING_BLOCK:
-                    case FIRE:
-                    case LIGHTNING:
-                    case MAGIC:
-                    case MELTING:
-                    case POISON:
-                    case PROJECTILE:
-                    case SUICIDE:
-                    case THORNS:
-                    case VOID:
-                    case WITHER:
-                        break;
-                }
-            }
+        switch (context.getCause())
+        {
+            case BLOCK_EXPLOSION:
+            case ENTITY_EXPLOSION:
+                //TODO EhmPlayerEnvironmentalDamageEvent for each type
+                if (event.getDamage() > 2)
+                    applyEffectOnDmg(event, CFG.getPotionEffect(RootNode.ENHANCED_DMG_EXPLOSION, world), CFG.getDouble(RootNode.ENHANCED_DMG_EXPLOSION_MULT, world));
+                break;
+            case FALL:
+                applyEffectOnDmg(event, CFG.getPotionEffect(RootNode.ENHANCED_DMG_FALL, world), CFG.getDouble(RootNode.ENHANCED_DMG_FALL_MULT, world));
+                break;
+            case SUFFOCATION:
+                if (player.getVehicle() instanceof Horse)  //Reduced because you can easily glitch into blocks
+                    applyEffectOnDmg(event, CFG.getPotionEffect(RootNode.ENHANCED_DMG_SUFFOCATION, world), CFG.getDouble(RootNode.ENHANCED_DMG_SUFFOCATION_MULT, world) / 2);
+                else
+                    applyEffectOnDmg(event, CFG.getPotionEffect(RootNode.ENHANCED_DMG_SUFFOCATION, world), CFG.getDouble(RootNode.ENHANCED_DMG_SUFFOCATION_MULT, world));
+                break;
+            case LAVA:
+                applyEffectOnDmg(event, CFG.getPotionEffect(RootNode.ENHANCED_DMG_LAVA, world), CFG.getDouble(RootNode.ENHANCED_DMG_LAVA_MULT, world));
+                break;
+            case FIRE_TICK:
+                applyEffectOnDmg(event, CFG.getPotionEffect(RootNode.ENHANCED_DMG_BURN, world), CFG.getDouble(RootNode.ENHANCED_DMG_BURN_MULT, world));
+                break;
+            case DROWNING:
+                applyEffectOnDmg(event, CFG.getPotionEffect(RootNode.ENHANCED_DMG_DROWNING, world), CFG.getDouble(RootNode.ENHANCED_DMG_DROWNING_MULT, world));
+                break;
+            case STARVATION:
+                applyEffectOnDmg(event, CFG.getPotionEffect(RootNode.ENHANCED_DMG_STARVATION, world), CFG.getDouble(RootNode.ENHANCED_DMG_STARVATION_MULT, world));
+                break;
         }
-
-
     }
 
 
@@ -347,55 +433,9 @@ public class Players extends ListenerModule
     }
 
 
-//    //Prevent sprint jumping as a workaround for slower armor
-//    @EventHandler(priority = EventPriority.LOWEST)
-//    void onPlayerMove(PlayerMoveEvent event)
-//    {
-//        Player player = event.getPlayer();
-//        if (!CFG.getBoolean(RootNode.ARMOR_SLOWDOWN_ENABLE, player.getWorld().getName()))
-//            return;
-//        final int slowdownPercent = CFG.getInt(RootNode.ARMOR_JUMP_SLOWDOWN_PERCENT, player.getWorld().getName());
-//        final float armorPoints = PlayerModule.getArmorPoints(player);
-//        if (player.getGameMode() != GameMode.CREATIVE && event.getTo().getY() > event.getFrom().getY())
-//        {
-//            Block block, control;
-//            Vector dir = player.getVelocity();
-//            float armorPointsNorm = armorPoints / 0.8F;
-//            float factor = (1 - armorPointsNorm * (slowdownPercent / 100F)) / 5; //for every jump 5 move events are called
-//            dir.multiply(new Vector(factor, 1, factor));
-//            block = player.getLocation().getBlock();
-//            control = player.getLocation().getBlock().getRelative(BlockFace.UP, 2);
-//            if (block.getType() == Material.AIR && control.getType() == Material.AIR)// && !mapGet(player.getUniqueId(), false))
-//            {
-////                mJumpingPl.put(player.getUniqueId(), true);
-//                event.getPlayer().setVelocity(dir);
-//                player.sendMessage("=");
-//            }
-//        }
-////        if (event.getTo().getY() < event.getFrom().getY())
-////           mJumpingPl.put(player.getUniqueId(), false);
-//    }
-//
-//
-//    Map<UUID, Boolean> mJumpingPl = new HashMap<UUID, Boolean>();
-//
-//
-//    private boolean mapGet(UUID key, boolean defaultVal)
-//    {
-//        Boolean ret = mJumpingPl.get(key);
-//        return ret != null ? ret : defaultVal;
-//    }
-//
-
-
     @EventHandler
     public void onPlayerDisconnect(PlayerQuitEvent event)
     {
         event.getPlayer().setWalkSpeed(0.2F);
-        if (isArmorWeightEnabled)
-        {
-            int cancelId = armorCheckingPlayers.get(event.getPlayer());
-            plugin.getServer().getScheduler().cancelTask(cancelId);
-        }
     }
 }
@@ -25,19 +25,18 @@ package com.extrahardmode.features;
 import com.extrahardmode.ExtraHardMode;
 import com.extrahardmode.config.RootConfig;
 import com.extrahardmode.config.RootNode;
+import com.extrahardmode.module.BlockContext;
 import com.extrahardmode.module.BlockModule;
-import com.extrahardmode.module.PlayerModule;
-import com.extrahardmode.service.Feature;
+import com.extrahardmode.module.BlockPipeline;
+import com.extrahardmode.module.EhmScheduler;
+import com.extrahardmode.service.BlockBreakRule;
 import com.extrahardmode.service.ListenerModule;
 import com.extrahardmode.task.FallingLogsTask;
 
 import org.bukkit.Material;
 import org.bukkit.Tag;
-import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
-import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.block.BlockBreakEvent;
 
@@ -60,11 +59,6 @@ public class RealisticChopping extends ListenerModule
      */
     private BlockModule blockModule;
 
-    /**
-     * Permissions etc.
-     */
-    private PlayerModule playerModule;
-
 
     /**
      * Constructor
@@ -81,73 +75,94 @@ public class RealisticChopping extends ListenerModule
         super.starting();
         CFG = plugin.getModuleForClass(RootConfig.class);
         blockModule = plugin.getModuleForClass(BlockModule.class);
-        playerModule = plugin.getModuleForClass(PlayerModule.class);
+        plugin.getModuleForClass(BlockPipeline.class).registerBreak(this, "onLogBreak", EventPriority.MONITOR, true, new BlockBreakRule.Factory()
+        {
+            @Override
+            public BlockBreakRule forWorld(String world)
+            {
+                if (!CFG.getBoolean(RootNode.BETTER_TREE_CHOPPING, world))
+                    return null;
+                return new BlockBreakRule()
+                {
+                    @Override
+                    public void onBreak(BlockBreakEvent event, BlockContext context)
+                    {
+                        if (context.hasTrait(BlockContext.LOG))
+                            onLogBreak(context);
+                    }
+                };
+            }
+        });
+    }
+
+
+    @Override
+    public void closing()
+    {
+        super.closing();
+        plugin.getModuleForClass(BlockPipeline.class).unregister(this);
+    }
+
+
+    @Override
+    protected RootNode[] getGatingNodes()
+    {
+        return new RootNode[]{RootNode.BETTER_TREE_CHOPPING};
     }
 
 
     /**
-     * When a player breaks a block...
-     *
-     * @param breakEvent - Event that occurred.
+     * When a player breaks a log...
      */
-    @EventHandler(ignoreCancelled = true, priority = EventPriority.MONITOR)
-    public void onBlockBreak(BlockBreakEvent breakEvent)
+    private void onLogBreak(BlockContext context)
     {
-        Block block = breakEvent.getBlock();
-        World world = block.getWorld();
-        Player player = breakEvent.getPlayer();
+        Block block = context.getBlock();
 
-        final boolean betterTreeChoppingEnabled = CFG.getBoolean(RootNode.BETTER_TREE_CHOPPING, world.getName());
-        final boolean playerHasBypass = playerModule.playerBypasses(player, Feature.REALISTIC_CHOPPING);
-      
         // FEATURE: trees chop more naturally
-        if (Tag.LOGS.isTagged(block.getType()) && betterTreeChoppingEnabled)
+        //Are there any leaves above the log? -> tree
+        boolean isTree = false;
+        for (int i = 1; i < 30; i++)
         {
-            //Are there any leaves above the log? -> tree
-            boolean isTree = false;
-            for (int i = 1; i < 30; i++)
+            Material upType = block.getRelative(BlockFace.UP, i).getType();
+            //skip to next iteration
+            //if something other than log/air this is most likely part of a building
+            if (Tag.LEAVES.isTagged(upType) || Tag.LOGS.isTagged(upType) || upType.isAir()) 
             {
-                Material upType = block.getRelative(BlockFace.UP, i).getType();
-                //skip to next iteration
-                //if something other than log/air this is most likely part of a building
-                if (Tag.LEAVES.isTagged(upType) || Tag.LOGS.isTagged(upType) || upType.isAir()) 
-                {
-                    isTree = true;
-                    break;
-                }
-                else {
-                	break;
-                }
+                isTree = true;
+                break;
             }
+            else {
+            	break;
+            }
+        }
 
-            if (isTree)
+        if (isTree)
+        {
+            Block aboveLog = block.getRelative(BlockFace.UP);
+            for (int limit = 0; limit < 30; limit++)
             {
-                Block aboveLog = block.getRelative(BlockFace.UP);
-                for (int limit = 0; limit < 30; limit++)
+                Material aboveLogType = aboveLog.getType();//can air fall?
+                //we reached something that is not part of a tree or leaves
+                if (aboveLogType == Material.AIR)
                 {
-                    Material aboveLogType = aboveLog.getType();//can air fall?
-                    //we reached something that is not part of a tree or leaves
-                    if (aboveLogType == Material.AIR)
+                    List<Block> logs = new LinkedList<Block>(Arrays.asList(blockModule.getBlocksInArea(aboveLog.getLocation(), 3, 5, Tag.LOGS)));
+                    for (Block log : logs)
                     {
-                        List<Block> logs = new LinkedList<Block>(Arrays.asList(blockModule.getBlocksInArea(aboveLog.getLocation(), 3, 5, Tag.LOGS)));
-                        for (Block log : logs)
-                        {
-                            //TODO EhmRealisticChoppingLooseLogEvent
-                            //check 2 blocks down for logs to see if it it's a stem
-                            if (!Tag.LOGS.isTagged(log.getRelative(BlockFace.DOWN).getType()))
-                                plugin.getServer().getScheduler().runTaskLater(plugin, new FallingLogsTask(plugin, log), plugin.getRandom().nextInt(50/*so they don't fall at once*/));
-                        }
+                        //TODO EhmRealisticChoppingLooseLogEvent
+                        //check 2 blocks down for logs to see if it it's a stem
+                        if (!Tag.LOGS.isTagged(log.getRelative(BlockFace.DOWN).getType()))
+                            plugin.getModuleForClass(EhmScheduler.class).runTaskLater("RealisticChopping", new FallingLogsTask(plugin, log), plugin.getRandom().nextInt(50/*so they don't fall at once*/));
                     }
-                    else if (Tag.LOGS.isTagged(aboveLogType))
-                    {
-                        blockModule.applyPhysics(aboveLog, false);
-                    }
-                    else
-                    {
-                        break;
-                    }
-                    aboveLog = aboveLog.getRelative(BlockFace.UP);
                 }
+                else if (Tag.LOGS.isTagged(aboveLogType))
+                {
+                    blockModule.applyPhysics(aboveLog, false);
+                }
+                else
+                {
+                    break;
+                }
+                aboveLog = aboveLog.getRelative(BlockFace.UP);
             }
         }
     }
@@ -23,12 +23,14 @@ package com.extrahardmode.features;
 
 
 import com.extrahardmode.ExtraHardMode;
-import com.extrahardmode.LooseTags;
 import com.extrahardmode.config.RootConfig;
 import com.extrahardmode.config.RootNode;
 import com.extrahardmode.config.messages.MessageNode;
+import com.extrahardmode.module.BlockContext;
+import com.extrahardmode.module.BlockPipeline;
+import com.extrahardmode.module.EhmScheduler;
 import com.extrahardmode.module.MsgModule;
-import com.extrahardmode.module.PlayerModule;
+import com.extrahardmode.service.BlockPlaceRule;
 import com.extrahardmode.service.Feature;
 import com.extrahardmode.service.ListenerModule;
 import com.extrahardmode.service.PermissionNode;
@@ -47,6 +49,9 @@ import org.bukkit.event.EventPriority;
 import org.bukkit.event.block.BlockPlaceEvent;
 import org.bukkit.event.weather.WeatherChangeEvent;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Torches
  * <p/>
@@ -58,7 +63,10 @@ public class Torches extends ListenerModule
 
     private MsgModule messenger;
 
-    private PlayerModule playerModule;
+    /**
+     * Running rain sweeps by world name
+     */
+    private final Map<String, RainSweep> rainSweeps = new HashMap<String, RainSweep>();
 
 
     public Torches(ExtraHardMode plugin)
@@ -73,7 +81,47 @@ public class Torches extends ListenerModule
         super.starting();
         CFG = plugin.getModuleForClass(RootConfig.class);
         messenger = plugin.getModuleForClass(MsgModule.class);
-        playerModule = plugin.getModuleForClass(PlayerModule.class);
+        plugin.getModuleForClass(BlockPipeline.class).registerPlace(this, "onBlockPlace", EventPriority.LOW, true, new BlockPlaceRule.Factory()
+        {
+            @Override
+            public BlockPlaceRule forWorld(String world)
+            {
+                final boolean limitedTorchPlacement = CFG.getBoolean(RootNode.LIMITED_TORCH_PLACEMENT, world);
+                final boolean soundFizzEnabled = CFG.getBoolean(RootNode.SOUNDS_TORCH_FIZZ, world);
+                final int torchMinY = CFG.getInt(RootNode.STANDARD_TORCH_MIN_Y, world);
+                if (torchMinY <= 0 && !limitedTorchPlacement)
+                    return null;
+                return new BlockPlaceRule()
+                {
+                    @Override
+                    public void onPlace(BlockPlaceEvent event, BlockContext context)
+                    {
+                        onBlockPlace(event, context, limitedTorchPlacement, soundFizzEnabled, torchMinY);
+                    }
+                };
+            }
+        });
+    }
+
+
+    @Override
+    public void closing()
+    {
+        super.closing();
+        plugin.getModuleForClass(BlockPipeline.class).unregister(this);
+    }
+
+
+    @Override
+    protected RootNode[] getGatingNodes()
+    {
+        return new RootNode[]{
+                RootNode.LIMITED_TORCH_PLACEMENT,
+                RootNode.STANDARD_TORCH_MIN_Y,
+                RootNode.RAIN_BREAKS_TORCHES,
+                RootNode.RAIN_EXTINGUISHES_CAMPFIRES,
+                RootNode.SNOW_BREAKS_CROPS
+        };
     }
 
 
@@ -82,26 +130,22 @@ public class Torches extends ListenerModule
      * <p/>
      * players can't attach torches to loose blocks like sand/dirt
      */
-    @EventHandler(ignoreCancelled = true, priority = EventPriority.LOW)
-    public void onBlockPlace(BlockPlaceEvent placeEvent)
+    private void onBlockPlace(BlockPlaceEvent placeEvent, BlockContext context, boolean limitedTorchPlacement, boolean soundFizzEnabled, int torchMinY)
     {
-        Player player = placeEvent.getPlayer();
-        Block block = placeEvent.getBlock();
-        Material blockType = null; //cached only if either feature is enabled. Helps minimize extra calls to this semi-expensive(?) method
-        World world = block.getWorld();
+        Player player = context.getPlayer();
+        Block block = context.getBlock();
+        //Nothing to limit if another plugin called the event without a player
+        if (player == null)
+            return;
 
-        final boolean limitedTorchPlacement = CFG.getBoolean(RootNode.LIMITED_TORCH_PLACEMENT, world.getName());
-        final boolean soundFizzEnabled = CFG.getBoolean(RootNode.SOUNDS_TORCH_FIZZ, world.getName());
-        final int torchMinY = CFG.getInt(RootNode.STANDARD_TORCH_MIN_Y, world.getName());
-        final boolean playerBypasses = playerModule.playerBypasses(player, Feature.TORCHES);
+        final boolean playerBypasses = context.bypasses(Feature.TORCHES);
 
         // FEATURE: no standard torches, jack o lanterns, or fire on top of netherrack near diamond level
         if (torchMinY > 0 && !playerBypasses)
         {
-            if (world.getEnvironment() == World.Environment.NORMAL && block.getY() < torchMinY)
+            if (context.getEnvironment() == World.Environment.NORMAL && block.getY() < torchMinY)
             {
-                blockType = block.getType();
-                switch (blockType)
+                switch (context.getMaterial())
                 {
                     case FIRE:
                         if (block.getRelative(BlockFace.DOWN).getType() != Material.NETHERRACK)
@@ -119,10 +163,7 @@ public class Torches extends ListenerModule
         // FEATURE: players can't attach torches to common "soft" blocks
         if (limitedTorchPlacement && !playerBypasses)
         {
-            if (blockType == null)
-                blockType = block.getType();
-
-            if (LooseTags.TORCH.isTagged(blockType))
+            if (context.hasTrait(BlockContext.TORCH))
             {
 
                 BlockData blockData = block.getBlockData();
@@ -177,18 +218,57 @@ public class Torches extends ListenerModule
                 Chunk[] chunks = world.getLoadedChunks();
                 if (chunks.length > 0)
                 {
-                    int i;
-                    int startOffset = plugin.getRandom().nextInt(chunks.length);
-                    for (i = 0; i < chunks.length; i++)
-                    {
-                        Chunk chunk = chunks[(startOffset + i) % chunks.length];
+                    RainSweep previous = rainSweeps.remove(world.getName());
+                    if (previous != null)
+                        previous.cancel();
 
-                        RemoveExposedTorchesTask task = new RemoveExposedTorchesTask(plugin, chunk);
-                        plugin.getServer().getScheduler().scheduleSyncDelayedTask(plugin, task, i * 100L);
+                    // one task which works through the chunks, one chunk every 5 seconds
+                    RainSweep sweep = new RainSweep(world.getName(), chunks, plugin.getRandom().nextInt(chunks.length));
+                    if (plugin.getModuleForClass(EhmScheduler.class).runTaskTimer("Torches", sweep, 0L, 100L) != -1)
+                    {
+                        rainSweeps.put(world.getName(), sweep);
+                        plugin.debug(world, "Scheduled a sweep over " + chunks.length + " chunks.");
                     }
-                    plugin.debug(world, "Scheduled " + i + " tasks.");
                 }
             }
         }
     }
+
+
+    /**
+     * Removes the exposed torches of one chunk per run, starting at a random chunk
+     */
+    private class RainSweep extends EhmScheduler.RepeatingTask
+    {
+        private final String world;
+
+        private final Chunk[] chunks;
+
+        private final int startOffset;
+
+        private int done = 0;
+
+
+        private RainSweep(String world, Chunk[] chunks, int startOffset)
+        {
+            this.world = world;
+            this.chunks = chunks;
+            this.startOffset = startOffset;
+        }
+
+
+        @Override
+        public void run()
+        {
+            if (done >= chunks.length)
+            {
+                cancel();
+                if (rainSweeps.get(world) == this)
+                    rainSweeps.remove(world);
+                return;
+            }
+            Chunk chunk = chunks[(startOffset + done++) % chunks.length];
+            new RemoveExposedTorchesTask(plugin, chunk).run();
+        }
+    }
 }
@@ -7,8 +7,11 @@ import com.extrahardmode.config.RootNode;
 import com.extrahardmode.config.messages.MessageNode;
 import com.extrahardmode.config.messages.MsgCategory;
 import com.extrahardmode.events.*;
-import com.extrahardmode.module.BlockModule;
+import com.extrahardmode.module.BlockContext;
+import com.extrahardmode.module.BlockPipeline;
+import com.extrahardmode.module.EhmScheduler;
 import com.extrahardmode.module.MsgModule;
+import com.extrahardmode.service.BlockPlaceRule;
 import com.extrahardmode.service.FindAndReplace;
 import com.extrahardmode.service.ListenerModule;
 import com.extrahardmode.task.WeightCheckTask;
@@ -19,6 +22,7 @@ import org.bukkit.block.BlockFace;
 import org.bukkit.entity.Creeper;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.block.BlockPlaceEvent;
 import org.bukkit.event.entity.EntityTargetEvent;
 import org.bukkit.event.inventory.InventoryClickEvent;
@@ -36,11 +40,35 @@ import java.util.List;
  */
 public class Tutorial extends ListenerModule
 {
+    /**
+     * Messages displayed when a mob targets a player
+     */
+    private static final MessageNode[] TARGET_MESSAGES = {
+            MessageNode.CHARGED_CREEPER_TARGET, MessageNode.BLAZE_TARGET_NORMAL, MessageNode.BLAZE_TARGET_NETHER,
+            MessageNode.GHAST_TARGET, MessageNode.PIGZOMBIE_TARGET, MessageNode.PIGZOMBIE_TARGET_WART,
+            MessageNode.MAGMACUBE_TARGET, MessageNode.ENDERMAN_GENERAL, MessageNode.ZOMBIE_SLOW_PLAYERS};
+
+    /**
+     * Messages displayed when planting
+     */
+    private static final MessageNode[] FARMING_MESSAGES = {
+            MessageNode.ANTIFARMING_NO_LIGHT, MessageNode.ANTIFARMING_UNWATERD, MessageNode.ANTIFARMING_DESSERT_WARNING};
+
+    /**
+     * All other messages the handlers here display
+     */
+    private static final MessageNode[] OTHER_MESSAGES = {
+            MessageNode.ZOMBIE_RESPAWN, MessageNode.NETHER_WARNING, MessageNode.CREEPER_DROP_TNT, MessageNode.SKELETON_DEFLECT,
+            MessageNode.BUCKET_FILL, MessageNode.EXTINGUISH_FIRE};
+
     private MsgModule messenger;
 
-    private RootConfig CFG;
+    /**
+     * All our messages are covered by the exhausted flag of the player, so the handlers can bail out on the flag alone
+     */
+    private boolean flagCoversAll;
 
-    private BlockModule blockModule;
+    private RootConfig CFG;
 
 
     public Tutorial(ExtraHardMode plugin)
@@ -55,7 +83,46 @@ public class Tutorial extends ListenerModule
         super.starting();
         messenger = plugin.getModuleForClass(MsgModule.class);
         CFG = plugin.getModuleForClass(RootConfig.class);
-        blockModule = plugin.getModuleForClass(BlockModule.class);
+        flagCoversAll = true;
+        for (MessageNode[] nodes : new MessageNode[][]{TARGET_MESSAGES, FARMING_MESSAGES, OTHER_MESSAGES})
+            for (MessageNode node : nodes)
+                flagCoversAll &= messenger.isCoveredByAllExhausted(node);
+        plugin.getModuleForClass(BlockPipeline.class).registerPlace(this, "onBlockPlace", EventPriority.NORMAL, false, new BlockPlaceRule.Factory()
+        {
+            @Override
+            public BlockPlaceRule forWorld(String world)
+            {
+                if (!CFG.getBoolean(RootNode.WEAK_FOOD_CROPS, world))
+                    return null;
+                return new BlockPlaceRule()
+                {
+                    @Override
+                    public void onPlace(BlockPlaceEvent event, BlockContext context)
+                    {
+                        final Player player = context.getPlayer();
+                        if (player != null && !isDone(player) && !messenger.isExhausted(player, FARMING_MESSAGES))
+                            onBlockPlace(context);
+                    }
+                };
+            }
+        });
+    }
+
+
+    @Override
+    public void closing()
+    {
+        super.closing();
+        plugin.getModuleForClass(BlockPipeline.class).unregister(this);
+    }
+
+
+    /**
+     * Has the player seen all of our messages, checked first by every handler
+     */
+    private boolean isDone(Player player)
+    {
+        return flagCoversAll && messenger.isAllExhausted(player);
     }
 
 
@@ -63,6 +130,8 @@ public class Tutorial extends ListenerModule
      * When an Entity targets another Entity
      * <p/>
      * Display some warnings to a Player when he is targetted by a dangerous mob
+     * <p/>
+     * Fires constantly, players who have seen all the warnings are skipped before anything is looked up
      */
     @EventHandler
     public void onEntityTarget(EntityTargetEvent event)
@@ -70,13 +139,16 @@ public class Tutorial extends ListenerModule
         if (event.getTarget() instanceof Player)
         {
             final Player player = (Player) event.getTarget();
+            if (isDone(player) || messenger.isExhausted(player, TARGET_MESSAGES))
+                return;
             final World world = player.getWorld();
 
             switch (event.getEntity().getType())
             {
                 case CREEPER:
                 {
-                    if (CFG.getBoolean(RootNode.CHARGED_CREEPERS_EXPLODE_ON_HIT, world.getName()) && CFG.getInt(RootNode.CHARGED_CREEPER_SPAWN_PERCENT, world.getName()) > 0)
+                    if (!messenger.isExhausted(player, MessageNode.CHARGED_CREEPER_TARGET)
+                            && CFG.getBoolean(RootNode.CHARGED_CREEPERS_EXPLODE_ON_HIT, world.getName()) && CFG.getInt(RootNode.CHARGED_CREEPER_SPAWN_PERCENT, world.getName()) > 0)
                     {
                         Creeper creeper = (Creeper) event.getEntity();
                         if (creeper.isPowered())
@@ -89,11 +161,13 @@ public class Tutorial extends ListenerModule
                     switch (world.getEnvironment())
                     {
                         case NORMAL:
-                            if (CFG.getBoolean(RootNode.BLAZES_EXPLODE_ON_DEATH, world.getName()))
+                            if (!messenger.isExhausted(player, MessageNode.BLAZE_TARGET_NORMAL)
+                                    && CFG.getBoolean(RootNode.BLAZES_EXPLODE_ON_DEATH, world.getName()))
                                 messenger.send(player, MessageNode.BLAZE_TARGET_NORMAL);
                             break;
                         case NETHER:
-                            if (CFG.getInt(RootNode.BONUS_NETHER_BLAZE_SPAWN_PERCENT, world.getName()) > 0)
+                            if (!messenger.isExhausted(player, MessageNode.BLAZE_TARGET_NETHER)
+                                    && CFG.getInt(RootNode.BONUS_NETHER_BLAZE_SPAWN_PERCENT, world.getName()) > 0)
                                 messenger.send(player, MessageNode.BLAZE_TARGET_NETHER);
                             break;
                     }
@@ -101,16 +175,19 @@ public class Tutorial extends ListenerModule
                 }
                 case GHAST:
                 {
-                    if (CFG.getInt(RootNode.GHASTS_DEFLECT_ARROWS, world.getName()) > 0)
+                    if (!messenger.isExhausted(player, MessageNode.GHAST_TARGET)
+                            && CFG.getInt(RootNode.GHASTS_DEFLECT_ARROWS, world.getName()) > 0)
                         messenger.send(player, MessageNode.GHAST_TARGET);
                     break;
                 }
                 case ZOMBIFIED_PIGLIN:
                 {
-                    if (CFG.getBoolean(RootNode.ALWAYS_ANGRY_PIG_ZOMBIES, world.getName()))
+                    if (!messenger.isExhausted(player, MessageNode.PIGZOMBIE_TARGET)
+                            && CFG.getBoolean(RootNode.ALWAYS_ANGRY_PIG_ZOMBIES, world.getName()))
                         messenger.send(player, MessageNode.PIGZOMBIE_TARGET);
-                    if (CFG.getInt(RootNode.NETHER_PIGS_DROP_WART, world.getName()) > 0)
-                        plugin.getServer().getScheduler().runTaskLater(plugin, new Runnable()
+                    if (!messenger.isExhausted(player, MessageNode.PIGZOMBIE_TARGET_WART)
+                            && CFG.getInt(RootNode.NETHER_PIGS_DROP_WART, world.getName()) > 0)
+                        plugin.getModuleForClass(EhmScheduler.class).runTaskLater("Tutorial", new Runnable()
                         {
                             @Override
                             public void run()
@@ -122,7 +199,8 @@ public class Tutorial extends ListenerModule
                 }
                 case MAGMA_CUBE:
                 {
-                    if (CFG.getBoolean(RootNode.MAGMA_CUBES_BECOME_BLAZES_ON_DAMAGE, world.getName()))
+                    if (!messenger.isExhausted(player, MessageNode.MAGMACUBE_TARGET)
+                            && CFG.getBoolean(RootNode.MAGMA_CUBES_BECOME_BLAZES_ON_DAMAGE, world.getName()))
                         messenger.send(player, MessageNode.MAGMACUBE_TARGET);
                     break;
                 }
@@ -143,13 +221,15 @@ public class Tutorial extends ListenerModule
                 }
                 case ENDERMAN:
                 {
-                    if (CFG.getBoolean(RootNode.IMPROVED_ENDERMAN_TELEPORTATION, world.getName()))
+                    if (!messenger.isExhausted(player, MessageNode.ENDERMAN_GENERAL)
+                            && CFG.getBoolean(RootNode.IMPROVED_ENDERMAN_TELEPORTATION, world.getName()))
                         messenger.send(player, MessageNode.ENDERMAN_GENERAL);
                     break;
                 }
                 case ZOMBIE:
                 {
-                    if (CFG.getBoolean(RootNode.ZOMBIES_DEBILITATE_PLAYERS, world.getName()))
+                    if (!messenger.isExhausted(player, MessageNode.ZOMBIE_SLOW_PLAYERS)
+                            && CFG.getBoolean(RootNode.ZOMBIES_DEBILITATE_PLAYERS, world.getName()))
                         messenger.send(player, MessageNode.ZOMBIE_SLOW_PLAYERS);
                     break;
                 }
@@ -165,7 +245,7 @@ public class Tutorial extends ListenerModule
     public void onZombieRespawn(EhmZombieRespawnEvent event)
     {
         final Player player = event.getPlayer();
-        if (player != null)
+        if (player != null && !isDone(player))
         {
             messenger.send(player, MessageNode.ZOMBIE_RESPAWN);
         }
@@ -178,7 +258,8 @@ public class Tutorial extends ListenerModule
     @EventHandler
     public void onPlayerChangeWorld(PlayerChangedWorldEvent event)
     {
-        if (Arrays.asList(CFG.getEnabledWorlds()).contains(event.getPlayer().getWorld().getName()))
+        if (!isDone(event.getPlayer()) && !messenger.isExhausted(event.getPlayer(), MessageNode.NETHER_WARNING)
+                && Arrays.asList(CFG.getEnabledWorlds()).contains(event.getPlayer().getWorld().getName()))
         {
             final Player player = event.getPlayer();
             if (player.getWorld().getEnvironment() == World.Environment.NETHER)
@@ -196,7 +277,7 @@ public class Tutorial extends ListenerModule
     public void onCreeperDropTnt(EhmCreeperDropTntEvent event)
     {
         final Player player = event.getPlayer();
-        if (player != null)
+        if (player != null && !isDone(player))
         {
             messenger.send(player, MessageNode.CREEPER_DROP_TNT);
         }
@@ -209,7 +290,7 @@ public class Tutorial extends ListenerModule
     @EventHandler(ignoreCancelled = true)
     public void onSkeletonDeflect(EhmSkeletonDeflectEvent event)
     {
-        if (event.getShooter() != null)
+        if (event.getShooter() != null && !isDone(event.getShooter()))
         {
             final Player player = event.getShooter();
             messenger.send(player, MessageNode.SKELETON_DEFLECT);
@@ -223,7 +304,8 @@ public class Tutorial extends ListenerModule
     @EventHandler
     public void onPlayerFillBucket(PlayerBucketFillEvent event)
     {
-        if (CFG.getBoolean(RootNode.DONT_MOVE_WATER_SOURCE_BLOCKS, event.getPlayer().getWorld().getName()))
+        if (!isDone(event.getPlayer()) && !messenger.isExhausted(event.getPlayer(), MessageNode.BUCKET_FILL)
+                && CFG.getBoolean(RootNode.DONT_MOVE_WATER_SOURCE_BLOCKS, event.getPlayer().getWorld().getName()))
         {
             final Player player = event.getPlayer();
             messenger.send(player, MessageNode.BUCKET_FILL);
@@ -234,49 +316,45 @@ public class Tutorial extends ListenerModule
     /**
      * Messages when planting with antifarming
      */
-    @EventHandler
-    public void onBlockPlace(BlockPlaceEvent event)
+    private void onBlockPlace(BlockContext context)
     {
-        if (CFG.getBoolean(RootNode.WEAK_FOOD_CROPS, event.getBlock().getWorld().getName()))
+        final Player player = context.getPlayer();
+        final Block block = context.getBlock();
+        //Too dark
+        if (context.getMaterial() == Material.FARMLAND)
         {
-            final Player player = event.getPlayer();
-            final Block block = event.getBlock();
-            //Too dark
-            if (block.getType() == Material.FARMLAND)
+            Block above = block.getRelative(BlockFace.UP);
+            if (above.getLightFromSky() < 10)
             {
-                Block above = block.getRelative(BlockFace.UP);
-                if (above.getLightFromSky() < 10)
-                {
-                    messenger.send(player, MessageNode.ANTIFARMING_NO_LIGHT);
-                }
+                messenger.send(player, MessageNode.ANTIFARMING_NO_LIGHT);
             }
+        }
 
-            Block below = block.getRelative(BlockFace.DOWN);
+        Block below = block.getRelative(BlockFace.DOWN);
 
-            //Unwatered
-            if (blockModule.isPlant(block.getType()) && below.getState().getData().getData() == (byte) 0)
-            {
-                messenger.send(player, MessageNode.ANTIFARMING_UNWATERD);
-            }
+        //Unwatered
+        if (context.hasTrait(BlockContext.PLANT) && below.getState().getData().getData() == (byte) 0)
+        {
+            messenger.send(player, MessageNode.ANTIFARMING_UNWATERD);
+        }
 
-            //Warn players before they build big farms in the desert
-            if (block.getType() == Material.DIRT)
+        //Warn players before they build big farms in the desert
+        if (context.getMaterial() == Material.DIRT)
+        {
+            try
             {
-                try
+                switch (block.getBiome())
                 {
-                    switch (block.getBiome())
+                    case DESERT:
+                    case DESERT_HILLS:
                     {
-                        case DESERT:
-                        case DESERT_HILLS:
-                        {
-                            messenger.send(player, MessageNode.ANTIFARMING_DESSERT_WARNING);
-                            break;
-                        }
+                        messenger.send(player, MessageNode.ANTIFARMING_DESSERT_WARNING);
+                        break;
                     }
                 }
-                catch (IllegalArgumentException e) {} //ignore custom biomes
-
             }
+            catch (IllegalArgumentException e) {} //ignore custom biomes
+
         }
     }
 
@@ -287,7 +365,8 @@ public class Tutorial extends ListenerModule
     @EventHandler
     public void onExtinguishFire(EhmPlayerExtinguishFireEvent event)
     {
-        messenger.send(event.getPlayer(), MessageNode.EXTINGUISH_FIRE);
+        if (!isDone(event.getPlayer()))
+            messenger.send(event.getPlayer(), MessageNode.EXTINGUISH_FIRE);
     }
 
 
@@ -47,20 +47,70 @@ import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.event.player.PlayerDropItemEvent;
 import org.bukkit.event.player.PlayerMoveEvent;
 import org.bukkit.event.player.PlayerPickupItemEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.util.Vector;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
 
 /**
  * Swimming in water will pull you down if you are carrying too much
  */
 public class Water extends ListenerModule
 {
+    /**
+     * Velocity at which players are pulled down under water and on top of water
+     */
+    private static final float NORMAL_DROWN_VEL = -0.5F, OVERWATER_DROWN_VEL = -0.7F;
+
+    /**
+     * Blocks next to the player which are checked for flowing water when detecting water elevators
+     */
+    private static final BlockFace[] WATERFALL_FACES = {
+            BlockFace.WEST,
+            BlockFace.NORTH_WEST,
+            BlockFace.NORTH,
+            BlockFace.NORTH_EAST,
+            BlockFace.EAST,
+            BlockFace.SOUTH_EAST,
+            BlockFace.SOUTH,
+            BlockFace.SOUTH_WEST};
+
     private RootConfig CFG;
 
     private MsgModule messenger;
 
     private PlayerModule playerModule;
 
+    /**
+     * Swimming settings by world name, read once per world
+     */
+    private final Map<String, SwimSettings> settings = new HashMap<String, SwimSettings>();
+
+    /**
+     * The water around the block each player was last seen moving up from
+     */
+    private final Map<UUID, SwimState> states = new HashMap<UUID, SwimState>();
+
+
+    /**
+     * Dependency Injection Constructor
+     *
+     * @param plugin       plugin instance
+     * @param CFG          instantiated RootConfig
+     * @param playerModule PlayerModule
+     * @param messenger    MsgModule
+     */
+    public Water(ExtraHardMode plugin, RootConfig CFG, PlayerModule playerModule, MsgModule messenger)
+    {
+        super(plugin);
+        this.CFG = CFG;
+        this.playerModule = playerModule;
+        this.messenger = messenger;
+    }
+
 
     public Water(ExtraHardMode plugin)
     {
@@ -75,96 +125,116 @@ public class Water extends ListenerModule
         CFG = plugin.getModuleForClass(RootConfig.class);
         messenger = plugin.getModuleForClass(MsgModule.class);
         playerModule = plugin.getModuleForClass(PlayerModule.class);
+        settings.clear();
+        states.clear();
+    }
+
+
+    @Override
+    public void closing()
+    {
+        super.closing();
+        settings.clear();
+        states.clear();
     }
 
 
     /**
      * when a player moves...
+     * <p/>
+     * This is called for every step and every turn of the head, so we only look at moves up and only look at the blocks
+     * around the player when he moved into another block.
      *
      * @param event - Event that occurred.
      */
     @EventHandler(priority = EventPriority.NORMAL)
     void onPlayerMove(PlayerMoveEvent event)
     {
-        Player player = event.getPlayer();
-        World world = player.getWorld();
-        Location from = event.getFrom();
-        Location to = event.getTo();
-        Block fromBlock = from.getBlock();
-        Block toBlock = to.getBlock();
+        final Location from = event.getFrom();
+        final Location to = event.getTo();
 
-        final boolean noSwimingInArmor = CFG.getBoolean(RootNode.NO_SWIMMING_IN_ARMOR, world.getName());
-        final boolean playerBypasses = playerModule.playerBypasses(player, Feature.MONSTER_GLYDIA);
-        final boolean blockWaterElevators = CFG.getBoolean(RootNode.NO_SWIMMING_IN_ARMOR_BLOCK_ELEVATORS, world.getName());
+        // only care about moving up
+        if (to == null || to.getY() <= from.getY())
+            return;
 
-        final float maxWeight = (float) CFG.getDouble(RootNode.NO_SWIMMING_IN_ARMOR_MAX_POINTS, world.getName());
-        final float armorPoints = (float) CFG.getDouble(RootNode.NO_SWIMMING_IN_ARMOR_ARMOR_POINTS, world.getName());
-        final float inventoryPoints = (float) CFG.getDouble(RootNode.NO_SWIMMING_IN_ARMOR_INV_POINTS, world.getName());
-        final float toolPoints = (float) CFG.getDouble(RootNode.NO_SWIMMING_IN_ARMOR_TOOL_POINTS, world.getName());
+        // FEATURE: no swimming while heavy, only enabled worlds, players without bypass permission and not in creative
+        final SwimSettings swim = getSettings(from.getWorld());
+        if (swim == null)
+            return;
 
-        final int drowningRate = CFG.getInt(RootNode.NO_SWIMMING_IN_ARMOR_DROWN_RATE, world.getName());
-        final int overEncumbranceExtra = CFG.getInt(RootNode.NO_SWIMMING_IN_ARMOR_ENCUMBRANCE_EXTRA, world.getName());
+        Player player = event.getPlayer();
+        SwimState state = states.get(player.getUniqueId());
+        if (state == null)
+        {
+            state = new SwimState();
+            states.put(player.getUniqueId(), state);
+        }
+        if (!state.isAt(from))
+            state.update(from);
 
-        final float normalDrownVel = -0.5F;
-        final float overwaterDrownVel = -0.7F;
+        final boolean sameBlock = from.getBlockX() == to.getBlockX() && from.getBlockY() == to.getBlockY() && from.getBlockZ() == to.getBlockZ();
+        // only when in water
+        final boolean inWater = state.deepWater && (sameBlock || to.getBlock().getType() == Material.WATER);
+        if (!inWater && !(swim.blockWaterElevators && state.waterNear))
+            return;
+        if (playerModule.playerBypasses(player, Feature.MONSTER_GLYDIA))
+            return;
 
-        // FEATURE: no swimming while heavy, only enabled worlds, players without bypass permission and not in creative
-        if (noSwimingInArmor && !playerBypasses)
+        PlayerData playerData = plugin.getModuleForClass(DataStoreModule.class).getPlayerData(player.getName());
+        if (inWater)
         {
-            // only care about moving up
-            if (to.getY() > from.getY())
+            // if no cached value, calculate
+            if (playerData.cachedWeightStatus <= 0)
             {
-                PlayerData playerData = plugin.getModuleForClass(DataStoreModule.class).getPlayerData(player.getName());
-                // only when in water
-                Block underFromBlock = fromBlock.getRelative(BlockFace.DOWN);
-                if (fromBlock.getType() == Material.WATER && toBlock.getType() == Material.WATER && underFromBlock.getType() == Material.WATER && underFromBlock.getRelative(BlockFace.DOWN).getType() == Material.WATER)
-                {
-                    // if no cached value, calculate
-                    if (playerData.cachedWeightStatus <= 0)
-                    {
-                        playerData.cachedWeightStatus = PlayerModule.inventoryWeight(player, armorPoints, inventoryPoints, toolPoints);
-                    }
-                    // if too heavy let player feel the weight by pulling them down, if in boat can always swim
-                    if (playerData.cachedWeightStatus > maxWeight && !player.isInsideVehicle())
-                    {
-                        drown(player, drowningRate, overEncumbranceExtra, playerData.cachedWeightStatus, maxWeight, normalDrownVel, overwaterDrownVel);
-                    }
-                }
-                //when you swim up waterfalls and basically are flying with only a tip of your body in water
-                else if (blockWaterElevators && !playerModule.isPlayerOnLadder(player) && !player.isInsideVehicle() && !player.isFlying())
-                {
-                    if (playerData.cachedWeightStatus <= 0)
-                    {
-                        playerData.cachedWeightStatus = PlayerModule.inventoryWeight(player, armorPoints, inventoryPoints, toolPoints);
-                    } else if (playerData.cachedWeightStatus > maxWeight)
-                    {
-                        //Detect waterfalls
-                        BlockFace[] faces = {
-                                BlockFace.WEST,
-                                BlockFace.NORTH_WEST,
-                                BlockFace.NORTH,
-                                BlockFace.NORTH_EAST,
-                                BlockFace.EAST,
-                                BlockFace.SOUTH_EAST,
-                                BlockFace.SOUTH,
-                                BlockFace.SOUTH_WEST};
-                        Location loc = player.getLocation();
-                        boolean isWaterNear = false;
-                        for (BlockFace face : faces)
-                        {
-                            Material nearType = loc.getBlock().getRelative(face).getType();
-                            if (nearType.equals(Material.WATER))
-                                isWaterNear = true;
-                        }
-                        if (isWaterNear)
-                            drown(player, drowningRate, overEncumbranceExtra, playerData.cachedWeightStatus, maxWeight, normalDrownVel + 0.3F, normalDrownVel + 0.3F); //the water flowing down pulls you down
-                    }
-                }
+                playerData.cachedWeightStatus = PlayerModule.inventoryWeight(player, swim.armorPoints, swim.inventoryPoints, swim.toolPoints);
+            }
+            // if too heavy let player feel the weight by pulling them down, if in boat can always swim
+            if (playerData.cachedWeightStatus > swim.maxWeight && !player.isInsideVehicle())
+            {
+                drown(player, swim.drowningRate, swim.overEncumbranceExtra, playerData.cachedWeightStatus, swim.maxWeight, NORMAL_DROWN_VEL, OVERWATER_DROWN_VEL);
+            }
+        }
+        //when you swim up waterfalls and basically are flying with only a tip of your body in water
+        else if (!playerModule.isPlayerOnLadder(player) && !player.isInsideVehicle() && !player.isFlying())
+        {
+            if (playerData.cachedWeightStatus <= 0)
+            {
+                playerData.cachedWeightStatus = PlayerModule.inventoryWeight(player, swim.armorPoints, swim.inventoryPoints, swim.toolPoints);
+            } else if (playerData.cachedWeightStatus > swim.maxWeight)
+            {
+                drown(player, swim.drowningRate, swim.overEncumbranceExtra, playerData.cachedWeightStatus, swim.maxWeight, NORMAL_DROWN_VEL + 0.3F, NORMAL_DROWN_VEL + 0.3F); //the water flowing down pulls you down
             }
         }
     }
 
 
+    /**
+     * Get the swimming settings of a world
+     *
+     * @return settings or null if swimming in armor is allowed in the world
+     */
+    private SwimSettings getSettings(World world)
+    {
+        SwimSettings swim = settings.get(world.getName());
+        if (swim == null)
+        {
+            swim = CFG.getBoolean(RootNode.NO_SWIMMING_IN_ARMOR, world.getName()) ? new SwimSettings(CFG, world.getName()) : SwimSettings.DISABLED;
+            settings.put(world.getName(), swim);
+        }
+        return swim != SwimSettings.DISABLED ? swim : null;
+    }
+
+
+    /**
+     * Forget the water around a player who left
+     */
+    @EventHandler
+    void onPlayerQuit(PlayerQuitEvent event)
+    {
+        states.remove(event.getPlayer().getUniqueId());
+    }
+
+
     /**
      * Drowns the player at the given rate
      */
@@ -243,4 +313,85 @@ public class Water extends ListenerModule
             playerData.cachedWeightStatus = -1.0F;
         }
     }
+
+
+    /**
+     * The settings of one world
+     */
+    private static class SwimSettings
+    {
+        private static final SwimSettings DISABLED = new SwimSettings();
+
+        private final boolean blockWaterElevators;
+        private final float maxWeight, armorPoints, inventoryPoints, toolPoints;
+        private final int drowningRate, overEncumbranceExtra;
+
+
+        private SwimSettings()
+        {
+            blockWaterElevators = false;
+            maxWeight = armorPoints = inventoryPoints = toolPoints = 0;
+            drowningRate = overEncumbranceExtra = 0;
+        }
+
+
+        private SwimSettings(RootConfig CFG, String world)
+        {
+            blockWaterElevators = CFG.getBoolean(RootNode.NO_SWIMMING_IN_ARMOR_BLOCK_ELEVATORS, world);
+            maxWeight = (float) CFG.getDouble(RootNode.NO_SWIMMING_IN_ARMOR_MAX_POINTS, world);
+            armorPoints = (float) CFG.getDouble(RootNode.NO_SWIMMING_IN_ARMOR_ARMOR_POINTS, world);
+            inventoryPoints = (float) CFG.getDouble(RootNode.NO_SWIMMING_IN_ARMOR_INV_POINTS, world);
+            toolPoints = (float) CFG.getDouble(RootNode.NO_SWIMMING_IN_ARMOR_TOOL_POINTS, world);
+            drowningRate = CFG.getInt(RootNode.NO_SWIMMING_IN_ARMOR_DROWN_RATE, world);
+            overEncumbranceExtra = CFG.getInt(RootNode.NO_SWIMMING_IN_ARMOR_ENCUMBRANCE_EXTRA, world);
+        }
+    }
+
+
+    /**
+     * The water around the block a player was last in, only looked at again when he moves into another block
+     */
+    private static class SwimState
+    {
+        private World world;
+        private int x, y, z;
+
+        /**
+         * The block and the two blocks below are water
+         */
+        private boolean deepWater;
+
+        /**
+         * There is water next to the block
+         */
+        private boolean waterNear;
+
+
+        private boolean isAt(Location loc)
+        {
+            return loc.getWorld() == world && loc.getBlockX() == x && loc.getBlockY() == y && loc.getBlockZ() == z;
+        }
+
+
+        private void update(Location loc)
+        {
+            world = loc.getWorld();
+            x = loc.getBlockX();
+            y = loc.getBlockY();
+            z = loc.getBlockZ();
+
+            final Block block = loc.getBlock();
+            final Block below = block.getRelative(BlockFace.DOWN);
+            deepWater = block.getType() == Material.WATER && below.getType() == Material.WATER && below.getRelative(BlockFace.DOWN).getType() == Material.WATER;
+            waterNear = false;
+            for (BlockFace face : WATERFALL_FACES)
+            {
+                if (block.getRelative(face).getType() == Material.WATER)
+                {
+                    waterNear = true;
+                    break;
+                }
+            }
+        }
+    }
 }
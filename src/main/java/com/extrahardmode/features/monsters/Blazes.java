@@ -26,16 +26,21 @@ import com.extrahardmode.ExtraHardMode;
 import com.extrahardmode.config.ExplosionType;
 import com.extrahardmode.config.RootConfig;
 import com.extrahardmode.config.RootNode;
+import com.extrahardmode.module.CombatContext;
+import com.extrahardmode.module.CombatPipeline;
 import com.extrahardmode.module.EntityHelper;
+import com.extrahardmode.module.ExplosionGovernor;
+import com.extrahardmode.module.SpawnPipeline;
+import com.extrahardmode.service.DamageRule;
+import com.extrahardmode.service.DeathRule;
 import com.extrahardmode.service.ListenerModule;
-import com.extrahardmode.task.CreateExplosionTask;
+import com.extrahardmode.service.SpawnRule;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
 import org.bukkit.entity.*;
-import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.entity.CreatureSpawnEvent;
 import org.bukkit.event.entity.EntityDamageEvent;
@@ -67,33 +72,124 @@ public class Blazes extends ListenerModule
     {
         super.starting();
         CFG = plugin.getModuleForClass(RootConfig.class);
+        plugin.getModuleForClass(SpawnPipeline.class).register(this, "onNetherSpawn", EventPriority.LOW, true, new SpawnRule.Factory()
+        {
+            @Override
+            public SpawnRule forWorld(String world)
+            {
+                final int bonusNetherBlazeSpawnPercent = CFG.getInt(RootNode.BONUS_NETHER_BLAZE_SPAWN_PERCENT, world);
+                if (bonusNetherBlazeSpawnPercent <= 0)
+                    return null;
+                return new SpawnRule()
+                {
+                    @Override
+                    public void onSpawn(CreatureSpawnEvent event)
+                    {
+                        onNetherSpawn(event, bonusNetherBlazeSpawnPercent);
+                    }
+                };
+            }
+        }, EntityType.ZOMBIFIED_PIGLIN);
+        plugin.getModuleForClass(SpawnPipeline.class).register(this, "onBedrockSpawn", EventPriority.LOW, true, new SpawnRule.Factory()
+        {
+            @Override
+            public SpawnRule forWorld(String world)
+            {
+                final int nearBedrockSpawnPercent = CFG.getInt(RootNode.NEAR_BEDROCK_BLAZE_SPAWN_PERCENT, world);
+                if (nearBedrockSpawnPercent <= 0)
+                    return null;
+                return new SpawnRule()
+                {
+                    @Override
+                    public void onSpawn(CreatureSpawnEvent event)
+                    {
+                        onBedrockSpawn(event, nearBedrockSpawnPercent);
+                    }
+                };
+            }
+        }, EntityType.SKELETON);
+        plugin.getModuleForClass(CombatPipeline.class).registerDeath(this, "onBlazeDeath", new DeathRule.Factory()
+        {
+            @Override
+            public DeathRule forWorld(String world)
+            {
+                final boolean bonusLoot = CFG.getBoolean(RootNode.BLAZES_DROP_BONUS_LOOT, world);
+                final boolean blockDrops = CFG.getBoolean(RootNode.BLAZES_BLOCK_DROPS_OVERWORLD, world);
+                final boolean blazesExplodeOnDeath = CFG.getBoolean(RootNode.BLAZES_EXPLODE_ON_DEATH, world);
+                final int blazeSplitPercent = CFG.getInt(RootNode.NETHER_BLAZES_SPLIT_ON_DEATH_PERCENT, world);
+                if (!bonusLoot && !blockDrops && !blazesExplodeOnDeath && blazeSplitPercent <= 0)
+                    return null;
+                return new DeathRule()
+                {
+                    @Override
+                    public void onDeath(EntityDeathEvent event, CombatContext context)
+                    {
+                        onBlazeDeath(event, bonusLoot, blockDrops, blazesExplodeOnDeath, blazeSplitPercent);
+                    }
+                };
+            }
+        }, EntityType.BLAZE);
+        plugin.getModuleForClass(CombatPipeline.class).registerDamage(this, "onMagmaCubeDamage", EventPriority.LOWEST, true, new DamageRule.Factory()
+        {
+            @Override
+            public DamageRule forWorld(String world)
+            {
+                if (!CFG.getBoolean(RootNode.MAGMA_CUBES_BECOME_BLAZES_ON_DAMAGE, world))
+                    return null;
+                return new DamageRule()
+                {
+                    @Override
+                    public void onDamage(EntityDamageEvent event, CombatContext context)
+                    {
+                        onMagmaCubeDamage(context.getVictim());
+                    }
+                };
+            }
+        }, CombatPipeline.ALL_CAUSES, EntityType.MAGMA_CUBE);
+        plugin.getModuleForClass(CombatPipeline.class).registerDamage(this, "onBlazeDamage", EventPriority.LOWEST, true, new DamageRule.Factory()
+        {
+            @Override
+            public DamageRule forWorld(String world)
+            {
+                if (!CFG.getBoolean(RootNode.BLAZES_DROP_FIRE_ON_DAMAGE, world))
+                    return null;
+                return new DamageRule()
+                {
+                    @Override
+                    public void onDamage(EntityDamageEvent event, CombatContext context)
+                    {
+                        onBlazeDamage((Blaze) context.getVictim());
+                    }
+                };
+            }
+        }, CombatPipeline.ALL_CAUSES, EntityType.BLAZE);
+    }
+
+
+    @Override
+    public void closing()
+    {
+        super.closing();
+        plugin.getModuleForClass(SpawnPipeline.class).unregister(this);
+        plugin.getModuleForClass(CombatPipeline.class).unregister(this);
     }
 
 
     /**
-     * When an Entity spawns,
+     * When a Pigman spawns in the Nether,
      * <p/>
-     * handles all the extra spawns for Blazes in the OverWorld and Nether
+     * sometimes spawn a Blaze instead
      */
-    @EventHandler(ignoreCancelled = true, priority = EventPriority.LOW)
-    public void onEntitySpawn(CreatureSpawnEvent event)
+    private void onNetherSpawn(CreatureSpawnEvent event, int bonusNetherBlazeSpawnPercent)
     {
         Location location = event.getLocation();
-        World world = location.getWorld();
-
-        final int bonusNetherBlazeSpawnPercent = CFG.getInt(RootNode.BONUS_NETHER_BLAZE_SPAWN_PERCENT, world.getName());
-        final int nearBedrockSpawnPercent = CFG.getInt(RootNode.NEAR_BEDROCK_BLAZE_SPAWN_PERCENT, world.getName());
-
-        LivingEntity entity = event.getEntity();
-        EntityType entityType = entity.getType();
 
         // FEATURE: more blazes in nether
-        if (entityType == EntityType.ZOMBIFIED_PIGLIN && world.getEnvironment() == World.Environment.NETHER)
+        if (location.getWorld().getEnvironment() == World.Environment.NETHER)
         {
             if (plugin.random(bonusNetherBlazeSpawnPercent))
             {
                 event.setCancelled(true);
-                entityType = EntityType.BLAZE;
 
                 // FEATURE: magma cubes spawn with blazes
                 if (plugin.random(bonusNetherBlazeSpawnPercent))
@@ -101,19 +197,29 @@ public class Blazes extends ListenerModule
                     MagmaCube cube = (MagmaCube) (EntityHelper.spawn(location, EntityType.MAGMA_CUBE));
                     cube.setSize(1);
                 }
-                EntityHelper.spawn(location, entityType);
+                EntityHelper.spawn(location, EntityType.BLAZE);
                 //TODO EhmBlazeSpawnEvent (Nether)
             }
         }
+    }
+
+
+    /**
+     * When a Skeleton spawns near bedrock,
+     * <p/>
+     * sometimes spawn a Blaze instead
+     */
+    private void onBedrockSpawn(CreatureSpawnEvent event, int nearBedrockSpawnPercent)
+    {
+        Location location = event.getLocation();
 
         // FEATURE: blazes near bedrock
-        if (entityType == EntityType.SKELETON && world.getEnvironment() == World.Environment.NORMAL && location.getBlockY() < -60 && !EntityHelper.isMarkedAsOurs(entity))
+        if (location.getWorld().getEnvironment() == World.Environment.NORMAL && location.getBlockY() < -60 && !EntityHelper.isMarkedAsOurs(event.getEntity()))
         {
             if (plugin.random(nearBedrockSpawnPercent))
             {
                 event.setCancelled(true);
-                entityType = EntityType.BLAZE;
-                EntityHelper.spawn(location, entityType);
+                EntityHelper.spawn(location, EntityType.BLAZE);
                 //TODO EhmBlazeSpawnEvent (OverWorld)
             }
         }
@@ -125,19 +231,13 @@ public class Blazes extends ListenerModule
      * <p/>
      * exlode in OverWorld , multiply in the Nether
      */
-    @EventHandler
-    public void onEntityDeath(EntityDeathEvent event)
+    private void onBlazeDeath(EntityDeathEvent event, boolean bonusLoot, boolean blockDrops, boolean blazesExplodeOnDeath, int blazeSplitPercent)
     {
         LivingEntity entity = event.getEntity();
         World world = entity.getWorld();
 
-        final boolean bonusLoot = CFG.getBoolean(RootNode.BLAZES_DROP_BONUS_LOOT, world.getName());
-        final boolean blockDrops = CFG.getBoolean(RootNode.BLAZES_BLOCK_DROPS_OVERWORLD, world.getName());
-        final boolean blazesExplodeOnDeath = CFG.getBoolean(RootNode.BLAZES_EXPLODE_ON_DEATH, world.getName());
-        int blazeSplitPercent = CFG.getInt(RootNode.NETHER_BLAZES_SPLIT_ON_DEATH_PERCENT, world.getName());
-
         // FEATURE: nether blazes drop extra loot (glowstone and gunpowder)
-        if (entity instanceof Blaze && !EntityHelper.isLootLess(entity))
+        if (!EntityHelper.isLootLess(entity))
         {
             if (world.getEnvironment() == World.Environment.NETHER)
             {
@@ -159,12 +259,12 @@ public class Blazes extends ListenerModule
         }
 
         // FEATURE: blazes explode on death in normal world
-        if (blazesExplodeOnDeath && entity instanceof Blaze && world.getEnvironment() == World.Environment.NORMAL)
+        if (blazesExplodeOnDeath && world.getEnvironment() == World.Environment.NORMAL)
         {
             //Label explosion as creeper
             Creeper creeper = world.spawn(entity.getLocation(), Creeper.class);
             creeper.remove();
-            new CreateExplosionTask(plugin, entity.getLocation(), ExplosionType.OVERWORLD_BLAZE, creeper).run(); // equal to a TNT blast, sets fires
+            plugin.getModuleForClass(ExplosionGovernor.class).detonate(entity.getLocation(), ExplosionType.OVERWORLD_BLAZE, creeper); // equal to a TNT blast, sets fires
             // fire a fireball straight up in normal worlds
             Fireball fireball = (Fireball) world.spawnEntity(entity.getLocation(), EntityType.FIREBALL);
             fireball.setDirection(new Vector(0, 10, 0));
@@ -173,7 +273,7 @@ public class Blazes extends ListenerModule
         }
 
         // FEATURE: nether blazes may multiply on death
-        if (blazeSplitPercent > 0 && world.getEnvironment() == World.Environment.NETHER && entity instanceof Blaze)
+        if (blazeSplitPercent > 0 && world.getEnvironment() == World.Environment.NETHER)
         {
             //Blazes which have split already are less likely to split
             int respawnCount = entity.getMetadata("extrahardmode.blaze.splitcount").size() > 0 ? entity.getMetadata("extrahardmode.blaze.splitcount").get(0).asInt() : 0;
@@ -203,60 +303,53 @@ public class Blazes extends ListenerModule
 
 
     /**
-     * When an Entity takes damage
+     * When a MagmaCube takes damage
      * <p/>
-     * Magmacubes turn into blazes , Blazes drop fire when hit ,
+     * Magmacubes turn into blazes
      */
-    @EventHandler(ignoreCancelled = true, priority = EventPriority.LOWEST)
-    public void onEntityDamage(EntityDamageEvent event)
+    private void onMagmaCubeDamage(Entity entity)
     {
-        Entity entity = event.getEntity();
-        EntityType entityType = entity.getType();
-        World world = entity.getWorld();
-
-        final boolean magmacubesBlazeOnDmg = CFG.getBoolean(RootNode.MAGMA_CUBES_BECOME_BLAZES_ON_DAMAGE, world.getName());
-        final boolean blazeFireOnDmg = CFG.getBoolean(RootNode.BLAZES_DROP_FIRE_ON_DAMAGE, world.getName());
-
         // FEATURE: magma cubes become blazes when they take damage
-        if (magmacubesBlazeOnDmg && entityType == EntityType.MAGMA_CUBE && !entity.isDead() && !EntityHelper.hasFlagIgnore(entity))
+        if (!entity.isDead() && !EntityHelper.hasFlagIgnore(entity))
         {
             //Magmacube gets replaced by blaze
             entity.remove();
             EntityHelper.spawn(entity.getLocation().add(0.0, 2.0, 0.0), EntityType.BLAZE); // replace with blaze
 
             //Explosion labeled as fireball
-            Fireball ball = world.spawn(entity.getLocation(), Fireball.class);
+            Fireball ball = entity.getWorld().spawn(entity.getLocation(), Fireball.class);
             ball.remove();
-            new CreateExplosionTask(plugin, entity.getLocation(), ExplosionType.MAGMACUBE_FIRE, ball).run(); // fiery explosion for effect
+            plugin.getModuleForClass(ExplosionGovernor.class).detonate(entity.getLocation(), ExplosionType.MAGMACUBE_FIRE, ball); // fiery explosion for effect
             //TODO EhmMagmaCubeExplodeEvent
         }
+    }
 
+
+    /**
+     * When a Blaze takes damage
+     * <p/>
+     * Blazes drop fire when hit
+     */
+    private void onBlazeDamage(Blaze blaze)
+    {
         // FEATURE: blazes drop fire on hit, also in nether
-        if (blazeFireOnDmg)
+        if (blaze.getHealth() > blaze.getMaxHealth() / 2)
         {
-            if (entityType == EntityType.BLAZE)
-            {
-                Blaze blaze = (Blaze) entity;
-
-                if (blaze.getHealth() > blaze.getMaxHealth() / 2)
-                {
 
-                    Block block = entity.getLocation().getBlock();
+            Block block = blaze.getLocation().getBlock();
 
-                    Block underBlock = block.getRelative(BlockFace.DOWN);
-                    for (int i = 0; i < 50; i++)
-                    {
-                        if (underBlock.getType() == Material.AIR)
-                        {
-                            underBlock = underBlock.getRelative(BlockFace.DOWN);
-                        } else break;
-                    }
-                    block = underBlock.getRelative(BlockFace.UP);
-                    if (block.getType() == Material.AIR && underBlock.getType() != Material.AIR && !underBlock.isLiquid() && underBlock.getY() > 0)
-                    {
-                        block.setType(Material.FIRE);
-                    }
-                }
+            Block underBlock = block.getRelative(BlockFace.DOWN);
+            for (int i = 0; i < 50; i++)
+            {
+                if (underBlock.getType() == Material.AIR)
+                {
+                    underBlock = underBlock.getRelative(BlockFace.DOWN);
+                } else break;
+            }
+            block = underBlock.getRelative(BlockFace.UP);
+            if (block.getType() == Material.AIR && underBlock.getType() != Material.AIR && !underBlock.isLiquid() && underBlock.getY() > 0)
+            {
+                block.setType(Material.FIRE);
             }
         }
     }
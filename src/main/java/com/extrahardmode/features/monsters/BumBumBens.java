@@ -28,12 +28,18 @@ import com.extrahardmode.config.RootConfig;
 import com.extrahardmode.config.RootNode;
 import com.extrahardmode.events.EhmCreeperDropTntEvent;
 import com.extrahardmode.events.fakeevents.FakeEntityExplodeEvent;
+import com.extrahardmode.module.CombatContext;
+import com.extrahardmode.module.CombatPipeline;
+import com.extrahardmode.module.CreeperLaunchAnimator;
 import com.extrahardmode.module.EntityHelper;
+import com.extrahardmode.module.ExplosionGovernor;
 import com.extrahardmode.module.PlayerModule;
+import com.extrahardmode.module.SpawnPipeline;
+import com.extrahardmode.service.DamageRule;
+import com.extrahardmode.service.DeathRule;
 import com.extrahardmode.service.Feature;
 import com.extrahardmode.service.ListenerModule;
-import com.extrahardmode.task.CoolCreeperExplosion;
-import com.extrahardmode.task.CreateExplosionTask;
+import com.extrahardmode.service.SpawnRule;
 import org.bukkit.Effect;
 import org.bukkit.World;
 import org.bukkit.entity.*;
@@ -66,6 +72,73 @@ public class BumBumBens extends ListenerModule
         super.starting();
         CFG = plugin.getModuleForClass(RootConfig.class);
         playerModule = plugin.getModuleForClass(PlayerModule.class);
+        plugin.getModuleForClass(SpawnPipeline.class).register(this, "onEntitySpawn", EventPriority.LOW, true, new SpawnRule.Factory()
+        {
+            @Override
+            public SpawnRule forWorld(String world)
+            {
+                final int chargedSpawnPercent = CFG.getInt(RootNode.CHARGED_CREEPER_SPAWN_PERCENT, world);
+                if (chargedSpawnPercent <= 0)
+                    return null;
+                return new SpawnRule()
+                {
+                    @Override
+                    public void onSpawn(CreatureSpawnEvent event)
+                    {
+                        onEntitySpawn(event, chargedSpawnPercent);
+                    }
+                };
+            }
+        }, EntityType.CREEPER);
+        plugin.getModuleForClass(CombatPipeline.class).registerDeath(this, "onCreeperDeath", new DeathRule.Factory()
+        {
+            @Override
+            public DeathRule forWorld(String world)
+            {
+                final int creeperDropTNTPercent = CFG.getInt(RootNode.CREEPERS_DROP_TNT_ON_DEATH_PERCENT, world);
+                final int creeperDropTntMaxY = CFG.getInt(RootNode.CREEPERS_DROP_TNT_ON_DEATH_MAX_Y, world);
+                final boolean creeperSound = CFG.getBoolean(RootNode.SOUND_CREEPER_TNT, world);
+                if (creeperDropTNTPercent <= 0)
+                    return null;
+                return new DeathRule()
+                {
+                    @Override
+                    public void onDeath(EntityDeathEvent event, CombatContext context)
+                    {
+                        onCreeperDeath(event, creeperDropTNTPercent, creeperDropTntMaxY, creeperSound);
+                    }
+                };
+            }
+        }, EntityType.CREEPER);
+        plugin.getModuleForClass(CombatPipeline.class).registerDamage(this, "onCreeperDamage", EventPriority.LOWEST, true, new DamageRule.Factory()
+        {
+            @Override
+            public DamageRule forWorld(String world)
+            {
+                final boolean chargedExplodeOnHit = CFG.getBoolean(RootNode.CHARGED_CREEPERS_EXPLODE_ON_HIT, world);
+                final boolean flamingCreepersExplode = CFG.getBoolean(RootNode.FLAMING_CREEPERS_EXPLODE, world);
+                final boolean customCharged = CFG.getBoolean(RootNode.EXPLOSIONS_CHARGED_CREEPERS_ENABLE, world);
+                if (!chargedExplodeOnHit && !flamingCreepersExplode)
+                    return null;
+                return new DamageRule()
+                {
+                    @Override
+                    public void onDamage(EntityDamageEvent event, CombatContext context)
+                    {
+                        onCreeperDamage(event, context, chargedExplodeOnHit, flamingCreepersExplode, customCharged);
+                    }
+                };
+            }
+        }, CombatPipeline.ALL_CAUSES, EntityType.CREEPER);
+    }
+
+
+    @Override
+    public void closing()
+    {
+        super.closing();
+        plugin.getModuleForClass(SpawnPipeline.class).unregister(this);
+        plugin.getModuleForClass(CombatPipeline.class).unregister(this);
     }
 
 
@@ -74,124 +147,71 @@ public class BumBumBens extends ListenerModule
      * <p/>
      * naturally spawning Charged Creepers
      */
-    @EventHandler(ignoreCancelled = true, priority = EventPriority.LOW)
-    public void onEntitySpawn(CreatureSpawnEvent event)
+    private void onEntitySpawn(CreatureSpawnEvent event, int chargedSpawnPercent)
     {
         LivingEntity entity = event.getEntity();
         if (EntityHelper.isMarkedAsOurs(entity))
             return;
-        EntityType entityType = entity.getType();
-        World world = entity.getWorld();
-
-        final int chargedSpawnPercent = CFG.getInt(RootNode.CHARGED_CREEPER_SPAWN_PERCENT, world.getName());
 
         // FEATURE: charged creeper spawns
-        if (entityType == EntityType.CREEPER)
+        if (plugin.random(chargedSpawnPercent))
         {
-            if (plugin.random(chargedSpawnPercent))
-            {
-                ((Creeper) entity).setPowered(true);
-            }
+            ((Creeper) entity).setPowered(true);
         }
     }
 
 
     /**
-     * When an Entity dies
+     * When a Creeper dies
      * <p/>
      * Creepers may drop tnt
      */
-    @EventHandler
-    public void onEntityDeath(EntityDeathEvent event)
+    private void onCreeperDeath(EntityDeathEvent event, int creeperDropTNTPercent, int creeperDropTntMaxY, boolean creeperSound)
     {
         LivingEntity entity = event.getEntity();
         World world = entity.getWorld();
 
-        final int creeperDropTNTPercent = CFG.getInt(RootNode.CREEPERS_DROP_TNT_ON_DEATH_PERCENT, world.getName());
-        final int creeperDropTntMaxY = CFG.getInt(RootNode.CREEPERS_DROP_TNT_ON_DEATH_MAX_Y, world.getName());
-        final boolean creeperSound = CFG.getBoolean(RootNode.SOUND_CREEPER_TNT, world.getName());
-
         // FEATURE: creepers may drop activated TNT when they die
-        if (creeperDropTNTPercent > 0)
+        if (plugin.random(creeperDropTNTPercent) && creeperDropTntMaxY > entity.getLocation().getBlockY())
         {
-            if (entity.getType() == EntityType.CREEPER && plugin.random(creeperDropTNTPercent)
-                    && creeperDropTntMaxY > entity.getLocation().getBlockY())
+            final Player player = entity.getKiller();
+            EhmCreeperDropTntEvent dropTntEvent = new EhmCreeperDropTntEvent(player, (Creeper) entity, entity.getLocation());
+            plugin.getServer().getPluginManager().callEvent(dropTntEvent);
+            if (!dropTntEvent.isCancelled())
             {
-                final Player player = entity.getKiller();
-                EhmCreeperDropTntEvent dropTntEvent = new EhmCreeperDropTntEvent(player, (Creeper) entity, entity.getLocation());
-                plugin.getServer().getPluginManager().callEvent(dropTntEvent);
-                if (!dropTntEvent.isCancelled())
-                {
-                    world.spawnEntity(entity.getLocation(), EntityType.PRIMED_TNT);
-                    if (creeperSound)
-                        world.playEffect(entity.getLocation(), Effect.GHAST_SHRIEK, 1, 35);
-                }
+                world.spawnEntity(entity.getLocation(), EntityType.PRIMED_TNT);
+                if (creeperSound)
+                    world.playEffect(entity.getLocation(), Effect.GHAST_SHRIEK, 1, 35);
             }
         }
     }
 
 
     /**
-     * When an Entity takes damage
+     * When a Creeper takes damage
      * <p/>
      * Charged creepers explode on hit , burning creepers will cause a big explosion
      */
-    @EventHandler(ignoreCancelled = true, priority = EventPriority.LOWEST)
-    public void onEntityDamage(EntityDamageEvent event)
+    private void onCreeperDamage(EntityDamageEvent event, CombatContext context, boolean chargedExplodeOnHit, boolean flamingCreepersExplode, boolean customCharged)
     {
-        Entity entity = event.getEntity();
-        EntityType entityType = entity.getType();
-        World world = entity.getWorld();
-
-        // is this an entity damaged by entity event?
-        EntityDamageByEntityEvent damageByEntityEvent = null;
-        if (event instanceof EntityDamageByEntityEvent)
-        {
-            damageByEntityEvent = (EntityDamageByEntityEvent) event;
-        }
-
-        final boolean chargedExplodeOnHit = CFG.getBoolean(RootNode.CHARGED_CREEPERS_EXPLODE_ON_HIT, world.getName());
-        final boolean flamingCreepersExplode = CFG.getBoolean(RootNode.FLAMING_CREEPERS_EXPLODE, world.getName());
-        final boolean customCharged = CFG.getBoolean(RootNode.EXPLOSIONS_CHARGED_CREEPERS_ENABLE, world.getName());
-
+        Creeper creeper = (Creeper) context.getVictim();
 
         // FEATURE: charged creepers explode on hit
-        if (chargedExplodeOnHit)
+        if (chargedExplodeOnHit && !creeper.isDead() && creeper.isPowered())
         {
-            if ((entityType == EntityType.CREEPER) && !entity.isDead())
-            {
-                Creeper creeper = (Creeper) entity;
-                if (creeper.isPowered())
-                {
-                    Player damager = null;
-                    //Always explode when damaged by a player
-                    if (damageByEntityEvent != null)
-                    {
-                        if (damageByEntityEvent.getDamager() instanceof Player)
-                        {   //Normal Damage from a player
-                            damager = (Player) damageByEntityEvent.getDamager();
-                            if (damager != null && playerModule.playerBypasses(damager, Feature.MONSTER_BUMBUMBENS))
-                                return;
-                        } else if (damageByEntityEvent.getDamager() instanceof Projectile)
-                        {   //Damaged by an arrow shot by a player
-                            Projectile bullet = (Projectile) damageByEntityEvent.getDamager();
-                            if (bullet.getShooter() instanceof Player)//otherwise skeli/dispenser etc.
-                                damager = (Player) bullet.getShooter();
-                            if (damager != null && playerModule.playerBypasses(damager, Feature.MONSTER_BUMBUMBENS))
-                                return;
-                        }
-                    }
-                    if (creeper.getTarget() == null && damager == null)
-                    {   //If not targetting a player this is an explosion we don't need. Trying to prevent unecessary world damage
-                        return;
-                    }
-                    EntityHelper.markLootLess(plugin, (LivingEntity) entity);
-                    entity.remove();
-                    if (customCharged)
-                        new CreateExplosionTask(plugin, entity.getLocation(), ExplosionType.CREEPER_CHARGED, entity).run(); // equal to a TNT blast
-                    return;
-                }
+            //Always explode when damaged by a player, either directly or by an arrow shot by a player
+            Player damager = context.getPlayerAttacker();
+            if (damager != null && playerModule.playerBypasses(damager, Feature.MONSTER_BUMBUMBENS))
+                return;
+            if (creeper.getTarget() == null && damager == null)
+            {   //If not targetting a player this is an explosion we don't need. Trying to prevent unecessary world damage
+                return;
             }
+            EntityHelper.markLootLess(plugin, creeper);
+            creeper.remove();
+            if (customCharged)
+                plugin.getModuleForClass(ExplosionGovernor.class).detonate(creeper.getLocation(), ExplosionType.CREEPER_CHARGED, creeper); // equal to a TNT blast
+            return;
         }
 
 
@@ -199,21 +219,15 @@ public class BumBumBens extends ListenerModule
         //Will only trigger if creeper died from fire not from a sword with fireaspect or bow
         if (flamingCreepersExplode)
         {
-            if (entityType.equals(EntityType.CREEPER))
+            if ((context.getCause() == EntityDamageEvent.DamageCause.FIRE
+                    || context.getCause() == EntityDamageEvent.DamageCause.FIRE_TICK
+                    || context.getCause() == EntityDamageEvent.DamageCause.LAVA)
+                    && !creeper.hasPotionEffect(PotionEffectType.FIRE_RESISTANCE))
             {
-                Creeper creeper = (Creeper) entity;
-
-                if ((event.getCause().equals(EntityDamageEvent.DamageCause.FIRE)
-                        || event.getCause().equals(EntityDamageEvent.DamageCause.FIRE_TICK)
-                        || event.getCause().equals(EntityDamageEvent.DamageCause.LAVA))
-                        && !creeper.hasPotionEffect(PotionEffectType.FIRE_RESISTANCE))
+                if (!EntityHelper.hasFlagIgnore(creeper))
                 {
-                    if (!EntityHelper.hasFlagIgnore(entity))
-                    {
-                        EntityHelper.flagIgnore(plugin, entity);
-                        CoolCreeperExplosion bigBoom = new CoolCreeperExplosion(creeper, plugin);
-                        bigBoom.run();
-                    }
+                    EntityHelper.flagIgnore(plugin, creeper);
+                    plugin.getModuleForClass(CreeperLaunchAnimator.class).launch(creeper);
                 }
             }
         }
@@ -243,9 +257,9 @@ public class BumBumBens extends ListenerModule
             event.setCancelled(true);
             EntityHelper.flagIgnore(plugin, entity);//Ignore this creeper in further calls to this method
             if (((Creeper) entity).isPowered())
-                new CreateExplosionTask(plugin, entity.getLocation(), ExplosionType.CREEPER_CHARGED, entity).run();
+                plugin.getModuleForClass(ExplosionGovernor.class).detonate(entity.getLocation(), ExplosionType.CREEPER_CHARGED, entity);
             else //normal creeper
-                new CreateExplosionTask(plugin, entity.getLocation(), ExplosionType.CREEPER, entity).run();
+                plugin.getModuleForClass(ExplosionGovernor.class).detonate(entity.getLocation(), ExplosionType.CREEPER, entity);
         }
     }
 }
@@ -7,14 +7,15 @@ import com.extrahardmode.ExtraHardMode;
 import com.extrahardmode.config.RootConfig;
 import com.extrahardmode.config.RootNode;
 import com.extrahardmode.module.EntityHelper;
+import com.extrahardmode.module.SpawnPipeline;
 import com.extrahardmode.service.ListenerModule;
+import com.extrahardmode.service.SpawnRule;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.World;
 import org.bukkit.block.Biome;
 import org.bukkit.block.BlockFace;
 import org.bukkit.entity.*;
-import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.entity.CreatureSpawnEvent;
 
@@ -37,6 +38,39 @@ public class CaveSpider extends ListenerModule
     {
         super.starting();
         CFG = plugin.getModuleForClass(RootConfig.class);
+        plugin.getModuleForClass(SpawnPipeline.class).register(this, "onEntitySpawn", EventPriority.LOW, true, new SpawnRule.Factory()
+        {
+            @Override
+            public SpawnRule forWorld(String world)
+            {
+                final int cavespiderSpawnPercent = CFG.getInt(RootNode.BONUS_CAVESPIDER_SPAWN_PERCENT, world);
+                if (cavespiderSpawnPercent <= 0)
+                    return null;
+                return new SpawnRule()
+                {
+                    @Override
+                    public void onSpawn(CreatureSpawnEvent event)
+                    {
+                        onEntitySpawn(event, cavespiderSpawnPercent);
+                    }
+                };
+            }
+        }, EntityType.SPIDER);
+    }
+
+
+    @Override
+    public void closing()
+    {
+        super.closing();
+        plugin.getModuleForClass(SpawnPipeline.class).unregister(this);
+    }
+
+
+    @Override
+    protected RootNode[] getGatingNodes()
+    {
+        return new RootNode[]{RootNode.BONUS_CAVESPIDER_SPAWN_PERCENT};
     }
 
 
@@ -45,20 +79,16 @@ public class CaveSpider extends ListenerModule
      *
      * @param event which occurred
      */
-    @EventHandler(ignoreCancelled = true, priority = EventPriority.LOW)
-    public void onEntitySpawn(CreatureSpawnEvent event)
+    private void onEntitySpawn(CreatureSpawnEvent event, int cavespiderSpawnPercent)
     {
         LivingEntity entity = event.getEntity();
         if (EntityHelper.isMarkedAsOurs(entity))
             return;
         Location location = event.getLocation();
         World world = location.getWorld();
-        EntityType entityType = entity.getType();
-
-        final int cavespiderSpawnPercent = CFG.getInt(RootNode.BONUS_CAVESPIDER_SPAWN_PERCENT, world.getName());
 
         // FEATURE: CAVE SPIDERs spawns naturally in swamps.
-        if (entityType == EntityType.SPIDER && world.getEnvironment() == World.Environment.NORMAL
+        if (world.getEnvironment() == World.Environment.NORMAL
         		&& entity.getLocation().getBlock().getRelative(BlockFace.DOWN).getType() == Material.GRASS
                 && entity.getLocation().getBlock().getBiome() == Biome.SWAMP
                 && event.getSpawnReason() == CreatureSpawnEvent.SpawnReason.NATURAL)
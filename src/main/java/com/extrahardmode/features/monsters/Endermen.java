@@ -65,6 +65,13 @@ public class Endermen extends ListenerModule
     }
 
 
+    @Override
+    protected RootNode[] getGatingNodes()
+    {
+        return new RootNode[]{RootNode.IMPROVED_ENDERMAN_TELEPORTATION};
+    }
+
+
     /**
      * when an entity (not a player) teleports...
      *
@@ -25,17 +25,20 @@ package com.extrahardmode.features.monsters;
 import com.extrahardmode.ExtraHardMode;
 import com.extrahardmode.config.RootConfig;
 import com.extrahardmode.config.RootNode;
+import com.extrahardmode.module.CombatContext;
+import com.extrahardmode.module.CombatPipeline;
 import com.extrahardmode.module.PlayerModule;
+import com.extrahardmode.service.DamageRule;
+import com.extrahardmode.service.DeathRule;
 import com.extrahardmode.service.Feature;
 import com.extrahardmode.service.ListenerModule;
-import org.bukkit.World;
 import org.bukkit.entity.*;
-import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
-import org.bukkit.event.entity.EntityDamageByEntityEvent;
+import org.bukkit.event.entity.EntityDamageEvent;
 import org.bukkit.event.entity.EntityDeathEvent;
 import org.bukkit.inventory.ItemStack;
 
+import java.util.EnumSet;
 import java.util.List;
 
 /**
@@ -62,75 +65,96 @@ public class Ghasts extends ListenerModule
         super.starting();
         CFG = plugin.getModuleForClass(RootConfig.class);
         playerModule = plugin.getModuleForClass(PlayerModule.class);
+        plugin.getModuleForClass(CombatPipeline.class).registerDeath(this, "onGhastDeath", new DeathRule.Factory()
+        {
+            @Override
+            public DeathRule forWorld(String world)
+            {
+                final int ghastExpMupliplier = CFG.getInt(RootNode.GHASTS_EXP_MULTIPLIER, world);
+                final int ghastDropsMultiplier = CFG.getInt(RootNode.GHASTS_DROPS_MULTIPLIER, world);
+                if (CFG.getInt(RootNode.GHASTS_DEFLECT_ARROWS, world) == 100)
+                    return null;
+                return new DeathRule()
+                {
+                    @Override
+                    public void onDeath(EntityDeathEvent event, CombatContext context)
+                    {
+                        onGhastDeath(event, ghastExpMupliplier, ghastDropsMultiplier);
+                    }
+                };
+            }
+        }, EntityType.GHAST);
+        plugin.getModuleForClass(CombatPipeline.class).registerDamage(this, "onGhastDamage", EventPriority.LOWEST, true, new DamageRule.Factory()
+        {
+            @Override
+            public DamageRule forWorld(String world)
+            {
+                final int arrowDamagePercent = CFG.getInt(RootNode.GHASTS_DEFLECT_ARROWS, world);
+                if (arrowDamagePercent >= 100)
+                    return null;
+                return new DamageRule()
+                {
+                    @Override
+                    public void onDamage(EntityDamageEvent event, CombatContext context)
+                    {
+                        onGhastDamage(event, context, arrowDamagePercent);
+                    }
+                };
+            }
+        }, EnumSet.of(EntityDamageEvent.DamageCause.PROJECTILE), EntityType.GHAST);
+    }
+
+
+    @Override
+    public void closing()
+    {
+        super.closing();
+        plugin.getModuleForClass(CombatPipeline.class).unregister(this);
+    }
+
+
+    @Override
+    protected RootNode[] getGatingNodes()
+    {
+        return new RootNode[]{RootNode.GHASTS_DEFLECT_ARROWS};
     }
 
 
     /**
-     * When an Entity dies
+     * When a Ghast dies
      * <p/>
      * Increase loot for Ghasts drastically
      */
-    @EventHandler
-    public void onEntityDeath(EntityDeathEvent event)
+    private void onGhastDeath(EntityDeathEvent event, int ghastExpMupliplier, int ghastDropsMultiplier)
     {
-        LivingEntity entity = event.getEntity();
-        World world = entity.getWorld();
-
-        final boolean ghastDeflectArrows = CFG.getInt(RootNode.GHASTS_DEFLECT_ARROWS, world.getName()) != 100;
-        final int ghastExpMupliplier = CFG.getInt(RootNode.GHASTS_EXP_MULTIPLIER, world.getName());
-        final int ghastDropsMultiplier = CFG.getInt(RootNode.GHASTS_DROPS_MULTIPLIER, world.getName());
-
         // FEATURE: ghasts deflect arrows and drop extra loot and exp
-        if (ghastDeflectArrows)
+        event.setDroppedExp(event.getDroppedExp() * ghastExpMupliplier);
+        List<ItemStack> itemDrops = event.getDrops();
+        for (ItemStack itemDrop : itemDrops)
         {
-            if (entity instanceof Ghast)
-            {
-                event.setDroppedExp(event.getDroppedExp() * ghastExpMupliplier);
-                List<ItemStack> itemDrops = event.getDrops();
-                for (ItemStack itemDrop : itemDrops)
-                {
-                    itemDrop.setAmount(itemDrop.getAmount() * ghastDropsMultiplier);
-                }
-            }
+            itemDrop.setAmount(itemDrop.getAmount() * ghastDropsMultiplier);
         }
     }
 
 
     /**
-     * When an Entity takes damage
+     * When a Ghast is hit by a projectile
      * <p/>
      * Ghasts don't take damage from arrows
      */
-    @EventHandler(ignoreCancelled = true, priority = EventPriority.LOWEST)
-    public void onEntityDamage(EntityDamageByEntityEvent event)
+    private void onGhastDamage(EntityDamageEvent event, CombatContext context, int arrowDamagePercent)
     {
-        Entity entity = event.getEntity();
-        World world = entity.getWorld();
-
-        final int arrowDamagePercent = CFG.getInt(RootNode.GHASTS_DEFLECT_ARROWS, world.getName());
-
         // FEATURE: ghasts deflect arrows and drop extra loot
-        if (arrowDamagePercent < 100)
+        // only arrows
+        if (context.getDamager() instanceof Arrow)
         {
-            // only ghasts, and only if damaged by another entity (as opposed to
-            // environmental damage)
-            if (entity instanceof Ghast)
+            // who shot it?
+            Player player = context.getPlayerAttacker();
+            if (player != null)
             {
-                Entity damageSource = event.getDamager();
-
-                // only arrows
-                if (damageSource instanceof Arrow)
-                {
-                    // who shot it?
-                    Arrow arrow = (Arrow) damageSource;
-                    if (arrow.getShooter() != null && arrow.getShooter() instanceof Player)
-                    {
-                        // check permissions when it's shot by a player
-                        Player player = (Player) arrow.getShooter();
-                        if (!playerModule.playerBypasses(player, Feature.MONSTER_GHASTS))
-                            event.setDamage(event.getDamage() * arrowDamagePercent / 100);
-                    }
-                }
+                // check permissions when it's shot by a player
+                if (!playerModule.playerBypasses(player, Feature.MONSTER_GHASTS))
+                    event.setDamage(event.getDamage() * arrowDamagePercent / 100);
             }
         }
     }
@@ -27,15 +27,22 @@ import com.extrahardmode.config.RootConfig;
 import com.extrahardmode.config.RootNode;
 import com.extrahardmode.config.messages.MessageNode;
 import com.extrahardmode.events.fakeevents.FakeEntityExplodeEvent;
-import com.extrahardmode.module.DataStoreModule;
+import com.extrahardmode.module.BlockContext;
+import com.extrahardmode.module.BlockPipeline;
+import com.extrahardmode.module.CombatContext;
+import com.extrahardmode.module.CombatPipeline;
+import com.extrahardmode.module.DragonFightController;
 import com.extrahardmode.module.EntityHelper;
 import com.extrahardmode.module.MsgModule;
-import com.extrahardmode.module.PlayerModule;
+import com.extrahardmode.module.SpawnPipeline;
+import com.extrahardmode.service.BlockBreakRule;
+import com.extrahardmode.service.BlockPlaceRule;
+import com.extrahardmode.service.DamageRule;
+import com.extrahardmode.service.DeathRule;
 import com.extrahardmode.service.Feature;
 import com.extrahardmode.service.FindAndReplace;
 import com.extrahardmode.service.ListenerModule;
-import com.extrahardmode.task.DragonAttackPatternTask;
-import com.extrahardmode.task.DragonAttackTask;
+import com.extrahardmode.service.SpawnRule;
 import org.bukkit.Chunk;
 import org.bukkit.Location;
 import org.bukkit.Material;
@@ -52,8 +59,6 @@ import org.bukkit.event.player.PlayerChangedWorldEvent;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.util.Vector;
 
-import java.util.List;
-
 /**
  * Glydia is the Enderdragon changes to her include:
  * <p/>
@@ -64,12 +69,10 @@ public class Glydia extends ListenerModule
 {
     private RootConfig CFG = null;
 
-    private DataStoreModule data;
+    private DragonFightController fights;
 
     private MsgModule messenger;
 
-    private PlayerModule playerModule;
-
 
     public Glydia(ExtraHardMode plugin)
     {
@@ -82,9 +85,137 @@ public class Glydia extends ListenerModule
     {
         super.starting();
         CFG = plugin.getModuleForClass(RootConfig.class);
-        data = plugin.getModuleForClass(DataStoreModule.class);
+        fights = plugin.getModuleForClass(DragonFightController.class);
         messenger = plugin.getModuleForClass(MsgModule.class);
-        playerModule = plugin.getModuleForClass(PlayerModule.class);
+        plugin.getModuleForClass(SpawnPipeline.class).register(this, "onEnderDragonSpawn", EventPriority.NORMAL, true, new SpawnRule.Factory()
+        {
+            @Override
+            public SpawnRule forWorld(String world)
+            {
+                final int enderDragonHealth = CFG.getInt(RootNode.ENDER_DRAGON_HEALTH, world);
+                if (enderDragonHealth <= 0)
+                    return null;
+                return new SpawnRule()
+                {
+                    @Override
+                    public void onSpawn(CreatureSpawnEvent event)
+                    {
+                        onEnderDragonSpawn(event, enderDragonHealth);
+                    }
+                };
+            }
+        }, EntityType.ENDER_DRAGON);
+        plugin.getModuleForClass(CombatPipeline.class).registerDeath(this, "onDragonDeath", new DeathRule.Factory()
+        {
+            @Override
+            public DeathRule forWorld(String world)
+            {
+                final boolean glydiaDropsEggs = CFG.getBoolean(RootNode.ENDER_DRAGON_DROPS_VILLAGER_EGGS, world);
+                final boolean enderDragonDropsEggs = CFG.getBoolean(RootNode.ENDER_DRAGON_DROPS_EGG, world);
+                final boolean announcements = CFG.getBoolean(RootNode.ENDER_DRAGON_COMBAT_ANNOUNCEMENTS, world);
+                return new DeathRule()
+                {
+                    @Override
+                    public void onDeath(EntityDeathEvent event, CombatContext context)
+                    {
+                        onDragonDeath(event, glydiaDropsEggs, enderDragonDropsEggs, announcements);
+                    }
+                };
+            }
+        }, EntityType.ENDER_DRAGON);
+        plugin.getModuleForClass(CombatPipeline.class).registerDeath(this, "onPlayerDeath", new DeathRule.Factory()
+        {
+            @Override
+            public DeathRule forWorld(String world)
+            {
+                final boolean dragonAnnouncements = CFG.getBoolean(RootNode.ENDER_DRAGON_COMBAT_ANNOUNCEMENTS, world);
+                return new DeathRule()
+                {
+                    @Override
+                    public void onDeath(EntityDeathEvent event, CombatContext context)
+                    {
+                        onPlayerDeath((Player) context.getVictim(), dragonAnnouncements);
+                    }
+                };
+            }
+        }, EntityType.PLAYER);
+        plugin.getModuleForClass(CombatPipeline.class).registerDamage(this, "onDragonDamage", EventPriority.LOWEST, true, new DamageRule.Factory()
+        {
+            @Override
+            public DamageRule forWorld(String world)
+            {
+                final boolean dragonAnnouncements = CFG.getBoolean(RootNode.ENDER_DRAGON_COMBAT_ANNOUNCEMENTS, world);
+                if (!CFG.getBoolean(RootNode.ENDER_DRAGON_ADDITIONAL_ATTACKS, world))
+                    return null;
+                return new DamageRule()
+                {
+                    @Override
+                    public void onDamage(EntityDamageEvent event, CombatContext context)
+                    {
+                        onDragonDamage(context, dragonAnnouncements);
+                    }
+                };
+            }
+        }, CombatPipeline.ALL_CAUSES, EntityType.ENDER_DRAGON);
+        plugin.getModuleForClass(BlockPipeline.class).registerBreak(this, "onBlockBreak", EventPriority.MONITOR, true, new BlockBreakRule.Factory()
+        {
+            @Override
+            public BlockBreakRule forWorld(String world)
+            {
+                if (!CFG.getBoolean(RootNode.ENDER_DRAGON_NO_BUILDING, world))
+                    return null;
+                return new BlockBreakRule()
+                {
+                    @Override
+                    public void onBreak(BlockBreakEvent event, BlockContext context)
+                    {
+                        onBlockBreak(event, context);
+                    }
+                };
+            }
+        });
+        plugin.getModuleForClass(BlockPipeline.class).registerPlace(this, "onBlockPlace", EventPriority.LOWEST, true, new BlockPlaceRule.Factory()
+        {
+            @Override
+            public BlockPlaceRule forWorld(String world)
+            {
+                if (!CFG.getBoolean(RootNode.ENDER_DRAGON_NO_BUILDING, world))
+                    return null;
+                return new BlockPlaceRule()
+                {
+                    @Override
+                    public void onPlace(BlockPlaceEvent event, BlockContext context)
+                    {
+                        onBlockPlace(event, context);
+                    }
+                };
+            }
+        });
+    }
+
+
+    @Override
+    public void closing()
+    {
+        super.closing();
+        plugin.getModuleForClass(SpawnPipeline.class).unregister(this);
+        plugin.getModuleForClass(CombatPipeline.class).unregister(this);
+        plugin.getModuleForClass(BlockPipeline.class).unregister(this);
+    }
+
+
+    @Override
+    protected RootNode[] getGatingNodes()
+    {
+        return new RootNode[]{
+                RootNode.RESPAWN_ENDER_DRAGON,
+                RootNode.ENDER_DRAGON_DROPS_EGG,
+                RootNode.ENDER_DRAGON_DROPS_VILLAGER_EGGS,
+                RootNode.ENDER_DRAGON_ADDITIONAL_ATTACKS,
+                RootNode.ENDER_DRAGON_COMBAT_ANNOUNCEMENTS,
+                RootNode.ENDER_DRAGON_NO_BUILDING,
+                RootNode.ENDER_DRAGON_HEALTH
+        };
     }
 
 
@@ -93,33 +224,31 @@ public class Glydia extends ListenerModule
      * <p/>
      * Limited building in the end
      */
-    @EventHandler(ignoreCancelled = true, priority = EventPriority.MONITOR)
-    public void onBlockBreak(BlockBreakEvent breakEvent)
+    private void onBlockBreak(BlockBreakEvent breakEvent, BlockContext context)
     {
-        Block block = breakEvent.getBlock();
-        World world = block.getWorld();
-        Player player = breakEvent.getPlayer();
-
-        final boolean endNoBuilding = CFG.getBoolean(RootNode.ENDER_DRAGON_NO_BUILDING, world.getName());
-        final boolean playerBypass = playerModule.playerBypasses(player, Feature.MONSTER_GLYDIA);
+        Block block = context.getBlock();
+        Player player = context.getPlayer();
+        //Nothing to limit if another plugin called the event without a player
+        if (player == null)
+            return;
 
         // FEATURE: very limited building in the end, players are allowed to break only end stone, and only to create a stair up to ground level
-        if (endNoBuilding && world.getEnvironment() == World.Environment.THE_END && !playerBypass)
+        if (context.getEnvironment() == World.Environment.THE_END && !context.bypasses(Feature.MONSTER_GLYDIA))
         {
-            if (block.getType() != Material.END_STONE)
+            if (context.getMaterial() != Material.END_STONE)
             {
                 breakEvent.setCancelled(true);
                 messenger.send(player, MessageNode.LIMITED_END_BUILDING);
             } else
             {
-                int absoluteDistanceFromBlock = Math.abs(block.getX() - player.getLocation().getBlockX());
-                int zdistance = Math.abs(block.getZ() - player.getLocation().getBlockZ());
+                int absoluteDistanceFromBlock = Math.abs(block.getX() - context.getPlayerBlockX());
+                int zdistance = Math.abs(block.getZ() - context.getPlayerBlockZ());
                 if (zdistance > absoluteDistanceFromBlock)
                 {
                     absoluteDistanceFromBlock = zdistance;
                 }
 
-                if (block.getY() < player.getLocation().getBlockY() + absoluteDistanceFromBlock)
+                if (block.getY() < context.getPlayerBlockY() + absoluteDistanceFromBlock)
                 {
                     breakEvent.setCancelled(true);
                     //TODO EhmLimitedBuildingEvent End
@@ -135,81 +264,64 @@ public class Glydia extends ListenerModule
      * <p/>
      * Limited building in the end
      */
-    @EventHandler(ignoreCancelled = true, priority = EventPriority.LOWEST)
-    public void onBlockPlace(BlockPlaceEvent placeEvent)
+    private void onBlockPlace(BlockPlaceEvent placeEvent, BlockContext context)
     {
-        Player player = placeEvent.getPlayer();
-        Block block = placeEvent.getBlock();
-        World world = block.getWorld();
-
-        final boolean enderDragonNoBuilding = CFG.getBoolean(RootNode.ENDER_DRAGON_NO_BUILDING, world.getName());
-        final boolean playerBypass = playerModule.playerBypasses(player, Feature.MONSTER_GLYDIA);
-
         // FEATURE: very limited building in the end players are allowed to break only end stone, and only to create a stair up to ground level
-        if (enderDragonNoBuilding && world.getEnvironment() == World.Environment.THE_END && !playerBypass)
+        if (context.getPlayer() != null && context.getEnvironment() == World.Environment.THE_END && !context.bypasses(Feature.MONSTER_GLYDIA))
         {
             placeEvent.setCancelled(true);
             //TODO EhmLimitedBuildingEvent End
-            messenger.send(player, MessageNode.LIMITED_END_BUILDING);
-            return;
+            messenger.send(context.getPlayer(), MessageNode.LIMITED_END_BUILDING);
         }
     }
 
 
     /**
-     * When an Entity dies (Glydia)
+     * When Glydia dies
      * <p/>
      * drop villager eggs , drop a dragon egg , announce the killers
      */
-    @EventHandler
-    public void onEntityDeath(EntityDeathEvent event)
+    private void onDragonDeath(EntityDeathEvent event, boolean glydiaDropsEggs, boolean enderDragonDropsEggs, boolean announcements)
     {
         LivingEntity entity = event.getEntity();
         World world = entity.getWorld();
 
-        final boolean glydiaDropsEggs = CFG.getBoolean(RootNode.ENDER_DRAGON_DROPS_VILLAGER_EGGS, world.getName());
-        final boolean enderDragonDropsEggs = CFG.getBoolean(RootNode.ENDER_DRAGON_DROPS_EGG, world.getName());
-        final boolean announcements = CFG.getBoolean(RootNode.ENDER_DRAGON_COMBAT_ANNOUNCEMENTS, world.getName());
-
         // FEATURE: ender dragon drops prizes on death
-        if (entity instanceof EnderDragon)
+        if (glydiaDropsEggs)
         {
-            if (glydiaDropsEggs)
-            {
-                ItemStack itemStack = new ItemStack(Material.VILLAGER_SPAWN_EGG, 2, (short) 120);
-                world.dropItemNaturally(entity.getLocation().add(10, 0, 0), itemStack);
-            }
+            ItemStack itemStack = new ItemStack(Material.VILLAGER_SPAWN_EGG, 2, (short) 120);
+            world.dropItemNaturally(entity.getLocation().add(10, 0, 0), itemStack);
+        }
 
-            if (enderDragonDropsEggs)
-            {
-                world.dropItemNaturally(entity.getLocation().add(10, 0, 0), new ItemStack(Material.DRAGON_EGG));
-            }
+        if (enderDragonDropsEggs)
+        {
+            world.dropItemNaturally(entity.getLocation().add(10, 0, 0), new ItemStack(Material.DRAGON_EGG));
+        }
 
-            if (announcements)
+        if (announcements)
+        {
+            StringBuilder builder = new StringBuilder();
+            for (String player : fights.getCombatantNames(world))
             {
-                StringBuilder builder = new StringBuilder();
-                for (String player : data.getPlayers())
-                {
-                    builder.append(player).append(", ");
-                }
-
-                messenger.broadcast(MessageNode.END_DRAGON_KILLED, new FindAndReplace(builder.toString(), MessageNode.Variables.PLAYERS.getVarNames()));
+                builder.append(player).append(", ");
             }
 
-            if (glydiaDropsEggs)
+            messenger.broadcast(MessageNode.END_DRAGON_KILLED, new FindAndReplace(builder.toString(), MessageNode.Variables.PLAYERS.getVarNames()));
+        }
+
+        if (glydiaDropsEggs)
+        {
+            for (String player : fights.getCombatantNames(world))
             {
-                for (String player : data.getPlayers())
+                if (plugin.getServer().getPlayer(player) != null)
                 {
-                    if (plugin.getServer().getPlayer(player) != null)
-                    {
-                        Player player1 = plugin.getServer().getPlayer(player);
-                        messenger.send(player1, MessageNode.DRAGON_FOUNTAIN_TIP);
-                    }
+                    Player player1 = plugin.getServer().getPlayer(player);
+                    messenger.send(player1, MessageNode.DRAGON_FOUNTAIN_TIP);
                 }
             }
-
-            data.getPlayers().clear();
         }
+
+        fights.endFight(world);
     }
 
 
@@ -218,19 +330,12 @@ public class Glydia extends ListenerModule
      * <p/>
      * announce his death
      */
-    @EventHandler
-    public void onPlayerDeath(PlayerDeathEvent event)
+    private void onPlayerDeath(Player player, boolean dragonAnnouncements)
     {
-        Player player = event.getEntity();
-
-        final boolean dragonAnnouncements = CFG.getBoolean(RootNode.ENDER_DRAGON_COMBAT_ANNOUNCEMENTS, event.getEntity().getWorld().getName());
-
         // announce the combat result
-        List<String> playersFightingDragon = data.getPlayers();
-        if (dragonAnnouncements && playersFightingDragon.contains(player.getName()))
+        if (fights.defeated(player, player.getWorld()) && dragonAnnouncements)
         {
             messenger.broadcast(MessageNode.END_DRAGON_PLAYER_KILLED, new FindAndReplace(player.getName(), MessageNode.Variables.PLAYER.getVarNames()));
-            data.getPlayers().remove(player.getName());
         }
     }
 
@@ -243,9 +348,8 @@ public class Glydia extends ListenerModule
     @EventHandler
     public void onPlayerTpOut(PlayerChangedWorldEvent event)
     {
-        String playerName = event.getPlayer().getName();
-        if (event.getFrom().getEnvironment() == World.Environment.THE_END && data.getPlayers().contains(playerName))
-            data.getPlayers().remove(playerName);
+        if (event.getFrom().getEnvironment() == World.Environment.THE_END)
+            fights.defeated(event.getPlayer(), event.getFrom());
     }
 
 
@@ -254,68 +358,26 @@ public class Glydia extends ListenerModule
      * <p/>
      * initiate the additional attacks
      */
-    @EventHandler(ignoreCancelled = true, priority = EventPriority.LOWEST)
-    public void onEntityDamage(EntityDamageEvent event)
+    private void onDragonDamage(CombatContext context, boolean dragonAnnouncements)
     {
-        Entity entity = event.getEntity();
-        World world = entity.getWorld();
-
-        // is this an entity damaged by entity event?
-        EntityDamageByEntityEvent damageByEntityEvent = null;
-        if (event instanceof EntityDamageByEntityEvent)
-        {
-            damageByEntityEvent = (EntityDamageByEntityEvent) event;
-        }
-
-        final boolean dragonAdditionalAttacks = CFG.getBoolean(RootNode.ENDER_DRAGON_ADDITIONAL_ATTACKS, world.getName());
-        final boolean dragonAnnouncements = CFG.getBoolean(RootNode.ENDER_DRAGON_COMBAT_ANNOUNCEMENTS, world.getName());
-
         // FEATURE: the dragon has new attacks
-        if (dragonAdditionalAttacks && damageByEntityEvent != null && entity.getType() == EntityType.ENDER_DRAGON)
+        Player damager = context.getPlayerAttacker();
+        if (damager != null)
         {
-            Player damager = null;
-            if (damageByEntityEvent.getDamager() instanceof Player)
-            {
-                damager = (Player) damageByEntityEvent.getDamager();
-            } else if (damageByEntityEvent.getDamager() instanceof Projectile)
+            // the controller fires the fireballs, a hit only adds to the pending attacks
+            if (fights.engage((EnderDragon) context.getVictim(), damager) && dragonAnnouncements)
             {
-                Projectile projectile = (Projectile) damageByEntityEvent.getDamager();
-                if (projectile.getShooter() != null && projectile.getShooter() instanceof Player)
-                {
-                    damager = (Player) projectile.getShooter();
-                }
+                messenger.broadcast(MessageNode.END_DRAGON_PLAYER_CHALLENGING, new FindAndReplace(damager.getName(), MessageNode.Variables.PLAYER.getVarNames()));
             }
 
-            if (damager != null)
+            Chunk chunk = damager.getLocation().getChunk();
+            Entity[] entities = chunk.getEntities();
+            for (Entity entity1 : entities)
             {
-                if (!data.getPlayers().contains(damager.getName()))
+                if (entity1.getType() == EntityType.ENDERMAN)
                 {
-                    data.getPlayers().add(damager.getName());
-
-                    DragonAttackPatternTask task = new DragonAttackPatternTask(plugin, (LivingEntity) entity, damager, data.getPlayers());
-                    plugin.getServer().getScheduler().scheduleSyncDelayedTask(plugin, task, 1L);
-
-                    if (dragonAnnouncements)
-                    {
-                        messenger.broadcast(MessageNode.END_DRAGON_PLAYER_CHALLENGING, new FindAndReplace(damager.getName(), MessageNode.Variables.PLAYER.getVarNames()));
-                    }
-                }
-
-                for (int i = 0; i < 5; i++)
-                {
-                    DragonAttackTask task = new DragonAttackTask(plugin, entity, damager);
-                    plugin.getServer().getScheduler().scheduleSyncDelayedTask(plugin, task, 20L * (plugin.getRandom().nextInt(15)));
-                }
-
-                Chunk chunk = damager.getLocation().getChunk();
-                Entity[] entities = chunk.getEntities();
-                for (Entity entity1 : entities)
-                {
-                    if (entity1.getType() == EntityType.ENDERMAN)
-                    {
-                        Enderman enderman = (Enderman) entity1;
-                        enderman.setTarget(damager);
-                    }
+                    Enderman enderman = (Enderman) entity1;
+                    enderman.setTarget(damager);
                 }
             }
         }
@@ -381,17 +443,9 @@ public class Glydia extends ListenerModule
      * set new max health
      * 
      */
-    @EventHandler(priority = EventPriority.NORMAL, ignoreCancelled = true)
-    public void onEnderDragonSpawn(final CreatureSpawnEvent event) {
-        if (event.getEntityType() == EntityType.ENDER_DRAGON) {
-        	Location location = event.getLocation();
-        	World world = location.getWorld();
-        	final int enderDragonHealth = CFG.getInt(RootNode.ENDER_DRAGON_HEALTH, world.getName());
-        	if (enderDragonHealth <= 0)
-        	    return;
-            event.getEntity().setMaxHealth(enderDragonHealth);
-            event.getEntity().setHealth(event.getEntity().getMaxHealth());
-        }
+    private void onEnderDragonSpawn(final CreatureSpawnEvent event, final int enderDragonHealth) {
+        event.getEntity().setMaxHealth(enderDragonHealth);
+        event.getEntity().setHealth(event.getEntity().getMaxHealth());
     }
 
     /**
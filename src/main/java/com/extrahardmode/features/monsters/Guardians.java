@@ -7,12 +7,13 @@ import com.extrahardmode.ExtraHardMode;
 import com.extrahardmode.config.RootConfig;
 import com.extrahardmode.config.RootNode;
 import com.extrahardmode.module.EntityHelper;
+import com.extrahardmode.module.SpawnPipeline;
 import com.extrahardmode.service.ListenerModule;
+import com.extrahardmode.service.SpawnRule;
 import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.block.Biome;
 import org.bukkit.entity.*;
-import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.entity.CreatureSpawnEvent;
 
@@ -35,6 +36,39 @@ public class Guardians extends ListenerModule
     {
         super.starting();
         CFG = plugin.getModuleForClass(RootConfig.class);
+        plugin.getModuleForClass(SpawnPipeline.class).register(this, "onEntitySpawn", EventPriority.LOW, true, new SpawnRule.Factory()
+        {
+            @Override
+            public SpawnRule forWorld(String world)
+            {
+                final int guardiansSpawnPercent = CFG.getInt(RootNode.BONUS_GUARDIANS_SPAWN_PERCENT, world);
+                if (guardiansSpawnPercent <= 0)
+                    return null;
+                return new SpawnRule()
+                {
+                    @Override
+                    public void onSpawn(CreatureSpawnEvent event)
+                    {
+                        onEntitySpawn(event, guardiansSpawnPercent);
+                    }
+                };
+            }
+        }, EntityType.SQUID);
+    }
+
+
+    @Override
+    public void closing()
+    {
+        super.closing();
+        plugin.getModuleForClass(SpawnPipeline.class).unregister(this);
+    }
+
+
+    @Override
+    protected RootNode[] getGatingNodes()
+    {
+        return new RootNode[]{RootNode.BONUS_GUARDIANS_SPAWN_PERCENT};
     }
 
     /**
@@ -42,25 +76,18 @@ public class Guardians extends ListenerModule
      *
      * @param event which occurred
      */
-    @EventHandler(ignoreCancelled = true, priority = EventPriority.LOW)
-    public void onEntitySpawn(CreatureSpawnEvent event)
+    private void onEntitySpawn(CreatureSpawnEvent event, int guardiansSpawnPercent)
     {
         LivingEntity entity = event.getEntity();
         if (EntityHelper.isMarkedAsOurs(entity))
             return;
         Location location = event.getLocation();
         World world = location.getWorld();
-        EntityType entityType = entity.getType();
-
-        final int guardiansSpawnPercent = CFG.getInt(RootNode.BONUS_GUARDIANS_SPAWN_PERCENT, world.getName());
-
-        if (guardiansSpawnPercent == 0)
-            return;
+        final Biome biome = entity.getLocation().getBlock().getBiome();
 
         // FEATURE: Guardians spawns naturally 
-        if (entityType == EntityType.SQUID && world.getEnvironment() == World.Environment.NORMAL
-                && entity.getLocation().getBlock().getBiome() == Biome.DEEP_OCEAN 
-                || entity.getLocation().getBlock().getBiome() == Biome.OCEAN
+        if (world.getEnvironment() == World.Environment.NORMAL
+                && (biome == Biome.DEEP_OCEAN || biome == Biome.OCEAN)
                 && event.getSpawnReason() == CreatureSpawnEvent.SpawnReason.NATURAL)
         {
             if (plugin.random(guardiansSpawnPercent))
@@ -25,6 +25,10 @@ package com.extrahardmode.features.monsters;
 import com.extrahardmode.ExtraHardMode;
 import com.extrahardmode.config.RootConfig;
 import com.extrahardmode.config.RootNode;
+import com.extrahardmode.module.CombatContext;
+import com.extrahardmode.module.CombatPipeline;
+import com.extrahardmode.module.SpawnPipeline;
+import com.extrahardmode.service.DamageRule;
 import com.extrahardmode.service.ListenerModule;
 import org.bukkit.entity.Horse;
 import org.bukkit.entity.LivingEntity;
@@ -68,6 +72,42 @@ public class Horses extends ListenerModule
     {
         super.starting();
         CFG = plugin.getModuleForClass(RootConfig.class);
+        plugin.getModuleForClass(CombatPipeline.class).registerDamage(this, "onHorseDamage", EventPriority.NORMAL, false, new DamageRule.Factory()
+        {
+            @Override
+            public DamageRule forWorld(String world)
+            {
+                if (!CFG.getBoolean(RootNode.ENHANCED_ENVIRONMENTAL_DAMAGE, world))
+                    return null;
+                return new DamageRule()
+                {
+                    @Override
+                    public void onDamage(EntityDamageEvent event, CombatContext context)
+                    {
+                        onHorseDamage(event, context);
+                    }
+                };
+            }
+        }, EnumSet.of(EntityDamageEvent.DamageCause.BLOCK_EXPLOSION, EntityDamageEvent.DamageCause.ENTITY_EXPLOSION, EntityDamageEvent.DamageCause.FALL,
+                EntityDamageEvent.DamageCause.SUFFOCATION, EntityDamageEvent.DamageCause.LAVA, EntityDamageEvent.DamageCause.FIRE_TICK), SpawnPipeline.typesOf(Horse.class));
+    }
+
+
+    @Override
+    public void closing()
+    {
+        super.closing();
+        plugin.getModuleForClass(CombatPipeline.class).unregister(this);
+    }
+
+
+    @Override
+    protected RootNode[] getGatingNodes()
+    {
+        return new RootNode[]{
+                RootNode.HORSE_CHEST_BLOCK_BELOW,
+                RootNode.ENHANCED_ENVIRONMENTAL_DAMAGE
+        };
     }
 
 
@@ -95,38 +135,30 @@ public class Horses extends ListenerModule
 
 
     /** Greatly increase damage to horses */
-    @EventHandler
-    public void onHorseDamage(EntityDamageEvent event)
+    private void onHorseDamage(EntityDamageEvent event, CombatContext context)
     {
-        String world = event.getEntity().getWorld().getName();
-        final boolean enhancedEnvironmentaldamage = CFG.getBoolean(RootNode.ENHANCED_ENVIRONMENTAL_DAMAGE, world);
+        final LivingEntity horse = (LivingEntity) context.getVictim();
 
-        if (event.getEntity() instanceof Horse && enhancedEnvironmentaldamage)
+        switch (context.getCause())
         {
-            final LivingEntity horse = (LivingEntity) event.getEntity();
-            final EntityDamageEvent.DamageCause cause = event.getCause();
-
-            switch (cause)
-            {
-                case BLOCK_EXPLOSION:
-                case ENTITY_EXPLOSION:
-                    if (event.getDamage() > 2.0)
-                        horse.addPotionEffect(new PotionEffect(PotionEffectType.CONFUSION, 20 * 15, 3));
-                    break;
-                case FALL:
-                    horse.addPotionEffect(new PotionEffect(PotionEffectType.SLOW, (int) (20 * event.getDamage()), 4));
-                    event.setDamage(event.getDamage() * 2);
-                    break;
-                case SUFFOCATION:
-                    event.setDamage(event.getDamage() * 5);
-                    break;
-                case LAVA:
-                    event.setDamage(event.getDamage() * 2);
-                    break;
-                case FIRE_TICK:
-                    horse.addPotionEffect(new PotionEffect(PotionEffectType.BLINDNESS, 20, 1));
-                    break;
-            }
+            case BLOCK_EXPLOSION:
+            case ENTITY_EXPLOSION:
+                if (event.getDamage() > 2.0)
+                    horse.addPotionEffect(new PotionEffect(PotionEffectType.CONFUSION, 20 * 15, 3));
+                break;
+            case FALL:
+                horse.addPotionEffect(new PotionEffect(PotionEffectType.SLOW, (int) (20 * event.getDamage()), 4));
+                event.setDamage(event.getDamage() * 2);
+                break;
+            case SUFFOCATION:
+                event.setDamage(event.getDamage() * 5);
+                break;
+            case LAVA:
+                event.setDamage(event.getDamage() * 2);
+                break;
+            case FIRE_TICK:
+                horse.addPotionEffect(new PotionEffect(PotionEffectType.BLINDNESS, 20, 1));
+                break;
         }
     }
 
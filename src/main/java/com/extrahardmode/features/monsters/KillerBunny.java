@@ -7,11 +7,12 @@ import com.extrahardmode.ExtraHardMode;
 import com.extrahardmode.config.RootConfig;
 import com.extrahardmode.config.RootNode;
 import com.extrahardmode.module.EntityHelper;
+import com.extrahardmode.module.SpawnPipeline;
 import com.extrahardmode.service.ListenerModule;
+import com.extrahardmode.service.SpawnRule;
 import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.entity.*;
-import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.entity.CreatureSpawnEvent;
 
@@ -34,6 +35,39 @@ public class KillerBunny extends ListenerModule
     {
         super.starting();
         CFG = plugin.getModuleForClass(RootConfig.class);
+        plugin.getModuleForClass(SpawnPipeline.class).register(this, "onEntitySpawn", EventPriority.LOW, true, new SpawnRule.Factory()
+        {
+            @Override
+            public SpawnRule forWorld(String world)
+            {
+                final int killerBunnySpawnPercent = CFG.getInt(RootNode.BONUS_KILLERBUNNY_SPAWN_PERCENT, world);
+                if (killerBunnySpawnPercent <= 0)
+                    return null;
+                return new SpawnRule()
+                {
+                    @Override
+                    public void onSpawn(CreatureSpawnEvent event)
+                    {
+                        onEntitySpawn(event, killerBunnySpawnPercent);
+                    }
+                };
+            }
+        }, EntityType.RABBIT);
+    }
+
+
+    @Override
+    public void closing()
+    {
+        super.closing();
+        plugin.getModuleForClass(SpawnPipeline.class).unregister(this);
+    }
+
+
+    @Override
+    protected RootNode[] getGatingNodes()
+    {
+        return new RootNode[]{RootNode.BONUS_KILLERBUNNY_SPAWN_PERCENT};
     }
 
 
@@ -42,20 +76,16 @@ public class KillerBunny extends ListenerModule
      *
      * @param event which occurred
      */
-    @EventHandler(ignoreCancelled = true, priority = EventPriority.LOW)
-    public void onEntitySpawn(CreatureSpawnEvent event)
+    private void onEntitySpawn(CreatureSpawnEvent event, int killerBunnySpawnPercent)
     {
         LivingEntity entity = event.getEntity();
         if (EntityHelper.isMarkedAsOurs(entity))
             return;
         Location location = event.getLocation();
         World world = location.getWorld();
-        EntityType entityType = entity.getType();
-
-        final int killerBunnySpawnPercent = CFG.getInt(RootNode.BONUS_KILLERBUNNY_SPAWN_PERCENT, world.getName());
 
         // FEATURE: killer bunnies spawns naturally 
-        if (entityType == EntityType.RABBIT && world.getEnvironment() == World.Environment.NORMAL
+        if (world.getEnvironment() == World.Environment.NORMAL
                 && event.getSpawnReason() == CreatureSpawnEvent.SpawnReason.NATURAL)
         {
             if (plugin.random(killerBunnySpawnPercent))
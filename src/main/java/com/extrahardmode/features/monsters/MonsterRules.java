@@ -25,8 +25,13 @@ package com.extrahardmode.features.monsters;
 import com.extrahardmode.ExtraHardMode;
 import com.extrahardmode.config.RootConfig;
 import com.extrahardmode.config.RootNode;
+import com.extrahardmode.module.CombatContext;
+import com.extrahardmode.module.CombatPipeline;
 import com.extrahardmode.module.EntityHelper;
+import com.extrahardmode.module.SpawnPipeline;
+import com.extrahardmode.service.DamageRule;
 import com.extrahardmode.service.ListenerModule;
+import com.extrahardmode.service.SpawnRule;
 import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.entity.Entity;
@@ -39,6 +44,8 @@ import org.bukkit.event.entity.CreatureSpawnEvent;
 import org.bukkit.event.entity.EntityDamageEvent;
 import org.bukkit.event.entity.EntityTargetEvent;
 
+import java.util.EnumSet;
+
 /**
  * Changes to how Monsters spawn including:
  */
@@ -58,6 +65,67 @@ public class MonsterRules extends ListenerModule
     {
         super.starting();
         CFG = plugin.getModuleForClass(RootConfig.class);
+        plugin.getModuleForClass(SpawnPipeline.class).register(this, "onEntitySpawn", EventPriority.LOW, true, new SpawnRule.Factory()
+        {
+            @Override
+            public SpawnRule forWorld(String world)
+            {
+                final int maxY = CFG.getInt(RootNode.MORE_MONSTERS_MAX_Y, world);
+                final int multiplier = CFG.getInt(RootNode.MORE_MONSTERS_MULTIPLIER, world);
+                if (maxY <= 0 || multiplier <= 1)
+                    return null;
+                return new SpawnRule()
+                {
+                    @Override
+                    public void onSpawn(CreatureSpawnEvent event)
+                    {
+                        onEntitySpawn(event, maxY, multiplier);
+                    }
+                };
+            }
+        }, SpawnPipeline.typesOf(Monster.class));
+        // FEATURE: don't allow explosions to destroy items on the ground
+        // REASONS: enhanced TNT explodes 5 times
+        plugin.getModuleForClass(CombatPipeline.class).registerDamage(this, "onItemExploded", EventPriority.LOWEST, true, new DamageRule.Factory()
+        {
+            @Override
+            public DamageRule forWorld(String world)
+            {
+                return new DamageRule()
+                {
+                    @Override
+                    public void onDamage(EntityDamageEvent event, CombatContext context)
+                    {
+                        event.setCancelled(true);
+                    }
+                };
+            }
+        }, EnumSet.of(EntityDamageEvent.DamageCause.BLOCK_EXPLOSION, EntityDamageEvent.DamageCause.ENTITY_EXPLOSION), EntityType.DROPPED_ITEM);
+        // FEATURE: monsters trapped in webbing break out of the webbing when hit
+        plugin.getModuleForClass(CombatPipeline.class).registerDamage(this, "onMonsterDamaged", EventPriority.LOWEST, true, new DamageRule.Factory()
+        {
+            @Override
+            public DamageRule forWorld(String world)
+            {
+                return new DamageRule()
+                {
+                    @Override
+                    public void onDamage(EntityDamageEvent event, CombatContext context)
+                    {
+                        EntityHelper.clearWebbing(context.getVictim());
+                    }
+                };
+            }
+        }, CombatPipeline.ALL_CAUSES, SpawnPipeline.typesOf(Monster.class));
+    }
+
+
+    @Override
+    public void closing()
+    {
+        super.closing();
+        plugin.getModuleForClass(SpawnPipeline.class).unregister(this);
+        plugin.getModuleForClass(CombatPipeline.class).unregister(this);
     }
 
 
@@ -66,42 +134,28 @@ public class MonsterRules extends ListenerModule
      * <p/>
      * more Monsters in caves
      */
-    @EventHandler(ignoreCancelled = true, priority = EventPriority.LOW)
-    public void onEntitySpawn(CreatureSpawnEvent event)
+    private void onEntitySpawn(CreatureSpawnEvent event, int maxY, int multiplier)
     {
         Location location = event.getLocation();
         World world = location.getWorld();
 
-        final int maxY = CFG.getInt(RootNode.MORE_MONSTERS_MAX_Y, world.getName());
-        final int multiplier = CFG.getInt(RootNode.MORE_MONSTERS_MULTIPLIER, world.getName());
-
         LivingEntity entity = event.getEntity();
         EntityType entityType = entity.getType();
 
-        CreatureSpawnEvent.SpawnReason reason = event.getSpawnReason();
-
-        //We don't know how to handle ghosts. (Mo Creatures)
-        if (!entityType.equals(EntityType.UNKNOWN) && reason == CreatureSpawnEvent.SpawnReason.NATURAL)
+        // FEATURE: extra monster spawns underground
+        if (event.getSpawnReason() == CreatureSpawnEvent.SpawnReason.NATURAL
+                && world.getEnvironment() == World.Environment.NORMAL && location.getBlockY() < maxY
+                && entityType != EntityType.SILVERFISH) //no multiple silverfish per block
         {
-            // FEATURE: extra monster spawns underground
-            if (maxY > 0)
+            //Mc 1.6: "Social" Zombies can spawn very close when calling for help. Do not spawn more monsters if that is the case
+            if (entityType == EntityType.ZOMBIE ? !EntityHelper.arePlayersNearby(location, 16.0) : !EntityHelper.arePlayersNearby(location, 12.0))
             {
-                if (world.getEnvironment() == World.Environment.NORMAL && event.getLocation().getBlockY() < maxY && entity instanceof Monster)
+                for (int i = 1; i < multiplier; i++)
                 {
-                    if (!entityType.equals(EntityType.SILVERFISH)) //no multiple silverfish per block
+                    Entity newEntity = EntityHelper.spawnRandomMob(location);
+                    if (EntityHelper.isLootLess(entity))
                     {
-                        //Mc 1.6: "Social" Zombies can spawn very close when calling for help. Do not spawn more monsters if that is the case
-                        if (entityType == EntityType.ZOMBIE ? !EntityHelper.arePlayersNearby(event.getLocation(), 16.0) : !EntityHelper.arePlayersNearby(event.getLocation(), 12.0))
-                        {
-                            for (int i = 1; i < multiplier; i++)
-                            {
-                                Entity newEntity = EntityHelper.spawnRandomMob(event.getLocation());
-                                if (EntityHelper.isLootLess(entity))
-                                {
-                                    EntityHelper.markLootLess(plugin, (LivingEntity) newEntity);
-                                }
-                            }
-                        }
+                        EntityHelper.markLootLess(plugin, (LivingEntity) newEntity);
                     }
                 }
             }
@@ -128,32 +182,4 @@ public class MonsterRules extends ListenerModule
             EntityHelper.clearWebbing(entity);
         }
     }
-
-
-    /**
-     * when an entity is damaged handles
-     *
-     * @param event - Event that occurred.
-     */
-    @EventHandler(ignoreCancelled = true, priority = EventPriority.LOWEST)
-    public void onEntityDamage(EntityDamageEvent event)
-    {
-        Entity entity = event.getEntity();
-        EntityType entityType = entity.getType();
-
-        //TODO Remove
-
-        // FEATURE: don't allow explosions to destroy items on the ground
-        // REASONS: enhanced TNT explodes 5 times
-        if (entityType == EntityType.DROPPED_ITEM && (event.getCause() == EntityDamageEvent.DamageCause.BLOCK_EXPLOSION || event.getCause() == EntityDamageEvent.DamageCause.ENTITY_EXPLOSION))
-        {
-            event.setCancelled(true);
-        }
-
-        // FEATURE: monsters trapped in webbing break out of the webbing when hit
-        if (entity instanceof Monster)
-        {
-            EntityHelper.clearWebbing(entity);
-        }
-    }
 }
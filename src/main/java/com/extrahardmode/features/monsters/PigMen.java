@@ -25,8 +25,14 @@ package com.extrahardmode.features.monsters;
 import com.extrahardmode.ExtraHardMode;
 import com.extrahardmode.config.RootConfig;
 import com.extrahardmode.config.RootNode;
+import com.extrahardmode.module.CombatContext;
+import com.extrahardmode.module.CombatPipeline;
 import com.extrahardmode.module.EntityHelper;
+import com.extrahardmode.module.SpawnPipeline;
+import com.extrahardmode.service.DamageRule;
+import com.extrahardmode.service.DeathRule;
 import com.extrahardmode.service.ListenerModule;
+import com.extrahardmode.service.SpawnRule;
 import org.bukkit.Chunk;
 import org.bukkit.Location;
 import org.bukkit.Material;
@@ -34,19 +40,21 @@ import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
 import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
 import org.bukkit.entity.LightningStrike;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.PigZombie;
-import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.entity.CreatureSpawnEvent;
-import org.bukkit.event.entity.EntityDamageByEntityEvent;
+import org.bukkit.event.entity.EntityDamageEvent;
 import org.bukkit.event.entity.EntityDeathEvent;
 import org.bukkit.event.weather.LightningStrikeEvent;
 import org.bukkit.event.world.ChunkLoadEvent;
 import org.bukkit.inventory.ItemStack;
 
+import java.util.EnumSet;
+
 /**
  * Changes to ZombiePigmen including:
  * <p/>
@@ -68,25 +76,98 @@ public class PigMen extends ListenerModule
     {
         super.starting();
         CFG = plugin.getModuleForClass(RootConfig.class);
+        // FEATURE: always-angry pig zombies
+        plugin.getModuleForClass(SpawnPipeline.class).register(this, "onEntitySpawn", EventPriority.LOW, true, new SpawnRule.Factory()
+        {
+            @Override
+            public SpawnRule forWorld(String world)
+            {
+                if (!CFG.getBoolean(RootNode.ALWAYS_ANGRY_PIG_ZOMBIES, world))
+                    return null;
+                return new SpawnRule()
+                {
+                    @Override
+                    public void onSpawn(CreatureSpawnEvent event)
+                    {
+                        ((PigZombie) event.getEntity()).setAnger(Integer.MAX_VALUE);
+                    }
+                };
+            }
+        }, SpawnPipeline.typesOf(PigZombie.class));
+        plugin.getModuleForClass(CombatPipeline.class).registerDeath(this, "onPigZombieDeath", new DeathRule.Factory()
+        {
+            @Override
+            public DeathRule forWorld(String world)
+            {
+                final boolean pigWartFortress = CFG.getBoolean(RootNode.FORTRESS_PIGS_DROP_WART, world);
+                final int pigWartDropEveryWherePercent = CFG.getInt(RootNode.NETHER_PIGS_DROP_WART, world);
+                if (!pigWartFortress && pigWartDropEveryWherePercent <= 0)
+                    return null;
+                return new DeathRule()
+                {
+                    @Override
+                    public void onDeath(EntityDeathEvent event, CombatContext context)
+                    {
+                        onPigZombieDeath(event, pigWartFortress, pigWartDropEveryWherePercent);
+                    }
+                };
+            }
+        }, SpawnPipeline.typesOf(PigZombie.class));
+        plugin.getModuleForClass(CombatPipeline.class).registerDamage(this, "onPlayerDamaged", EventPriority.NORMAL, false, new DamageRule.Factory()
+        {
+            @Override
+            public DamageRule forWorld(String world)
+            {
+                final double damagePercentage = CFG.getInt(RootNode.PIG_ZOMBIE_DMG_PERCENT, world) / 100.0;
+                if (damagePercentage <= 0.0)
+                    return null;
+                return new DamageRule()
+                {
+                    @Override
+                    public void onDamage(EntityDamageEvent event, CombatContext context)
+                    {
+                        if (context.getDamager() instanceof PigZombie)
+                            event.setDamage(event.getDamage() * damagePercentage);
+                    }
+                };
+            }
+        }, EnumSet.of(EntityDamageEvent.DamageCause.ENTITY_ATTACK), EntityType.PLAYER);
+    }
+
+
+    @Override
+    public void closing()
+    {
+        super.closing();
+        plugin.getModuleForClass(SpawnPipeline.class).unregister(this);
+        plugin.getModuleForClass(CombatPipeline.class).unregister(this);
+    }
+
+
+    @Override
+    protected RootNode[] getGatingNodes()
+    {
+        return new RootNode[]{
+                RootNode.ALWAYS_ANGRY_PIG_ZOMBIES,
+                RootNode.FORTRESS_PIGS_DROP_WART,
+                RootNode.NETHER_PIGS_DROP_WART,
+                RootNode.PIG_ZOMBIE_DMG_PERCENT,
+                RootNode.LIGHTNING_SPAWNS_PIGMEN
+        };
     }
 
 
     /**
-     * When an Entity dies (Piggie)
+     * When a Piggie dies
      * <p/>
      * Drop netherwart in fortresses and elsewhere in the nether
      */
-    @EventHandler
-    public void onEntityDeath(EntityDeathEvent event)
+    private void onPigZombieDeath(EntityDeathEvent event, boolean pigWartFortress, int pigWartDropEveryWherePercent)
     {
         LivingEntity entity = event.getEntity();
-        World world = entity.getWorld();
-
-        final boolean pigWartFortress = CFG.getBoolean(RootNode.FORTRESS_PIGS_DROP_WART, world.getName());
-        final int pigWartDropEveryWherePercent = CFG.getInt(RootNode.NETHER_PIGS_DROP_WART, world.getName());
 
         // FEATURE: pig zombies drop nether wart when slain in nether fortresses
-        if (world.getEnvironment().equals(World.Environment.NETHER) && entity instanceof PigZombie)
+        if (entity.getWorld().getEnvironment().equals(World.Environment.NETHER))
         {
             Block underBlock = entity.getLocation().getBlock().getRelative(BlockFace.DOWN);
             if (pigWartFortress && underBlock.getType() == Material.NETHER_BRICK)
@@ -99,32 +180,6 @@ public class PigMen extends ListenerModule
     }
 
 
-    /**
-     * When an Entity spawns
-     * <p/>
-     * Makes Pigmen always angry
-     */
-    @EventHandler(ignoreCancelled = true, priority = EventPriority.LOW)
-    public void onEntitySpawn(CreatureSpawnEvent event)
-    {
-        Location location = event.getLocation();
-        World world = location.getWorld();
-        LivingEntity entity = event.getEntity();
-
-        final boolean pigsAlwaysAggro = CFG.getBoolean(RootNode.ALWAYS_ANGRY_PIG_ZOMBIES, world.getName());
-
-        // FEATURE: always-angry pig zombies
-        if (pigsAlwaysAggro)
-        {
-            if (entity instanceof PigZombie)
-            {
-                PigZombie pigZombie = (PigZombie) entity;
-                pigZombie.setAnger(Integer.MAX_VALUE);
-            }
-        }
-    }
-
-
     /**
      * when a chunk loads... Always angry pigzombies
      *
@@ -153,16 +208,6 @@ public class PigMen extends ListenerModule
     }
 
 
-    @EventHandler
-    public void onPlayerDamaged(EntityDamageByEntityEvent event)
-    {
-        double damagePercentage = CFG.getInt(RootNode.PIG_ZOMBIE_DMG_PERCENT, event.getEntity().getWorld().getName()) / 100.0;
-
-        if (damagePercentage > 0.0 && event.getEntity() instanceof Player && event.getDamager() instanceof PigZombie)
-            event.setDamage(event.getDamage() * damagePercentage);
-    }
-
-
     /**
      * When a lightning strikes
      * <p/>
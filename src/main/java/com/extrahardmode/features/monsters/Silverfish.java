@@ -25,12 +25,14 @@ package com.extrahardmode.features.monsters;
 import com.extrahardmode.ExtraHardMode;
 import com.extrahardmode.config.RootConfig;
 import com.extrahardmode.config.RootNode;
+import com.extrahardmode.module.CombatContext;
+import com.extrahardmode.module.CombatPipeline;
+import com.extrahardmode.service.DeathRule;
 import com.extrahardmode.service.ListenerModule;
 import org.bukkit.Material;
 import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.entity.EntityType;
-import org.bukkit.entity.LivingEntity;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.entity.EntityChangeBlockEvent;
@@ -58,6 +60,43 @@ public class Silverfish extends ListenerModule
     {
         super.starting();
         CFG = plugin.getModuleForClass(RootConfig.class);
+        plugin.getModuleForClass(CombatPipeline.class).registerDeath(this, "onSilverfishDeath", new DeathRule.Factory()
+        {
+            @Override
+            public DeathRule forWorld(String world)
+            {
+                if (!CFG.getBoolean(RootNode.SILVERFISH_DROP_COBBLE, world))
+                    return null;
+                return new DeathRule()
+                {
+                    @Override
+                    public void onDeath(EntityDeathEvent event, CombatContext context)
+                    {
+                        //TODO Silverfish drop random loot
+                        // FEATURE: silverfish drop cobblestone
+                        event.getDrops().add(new ItemStack(Material.COBBLESTONE));
+                    }
+                };
+            }
+        }, EntityType.SILVERFISH);
+    }
+
+
+    @Override
+    public void closing()
+    {
+        super.closing();
+        plugin.getModuleForClass(CombatPipeline.class).unregister(this);
+    }
+
+
+    @Override
+    protected RootNode[] getGatingNodes()
+    {
+        return new RootNode[]{
+                RootNode.SILVERFISH_DROP_COBBLE,
+                RootNode.SILVERFISH_CANT_ENTER_BLOCKS
+        };
     }
 
 
@@ -83,22 +122,4 @@ public class Silverfish extends ListenerModule
             }
         }
     }
-
-
-    /** When an entity dies, drop cobble for SilverFish */
-    @EventHandler
-    public void onEntityDeath(EntityDeathEvent event)
-    {
-        LivingEntity entity = event.getEntity();
-        World world = entity.getWorld();
-
-        //TODO Silverfish drop random loot
-        final boolean dropCobble = CFG.getBoolean(RootNode.SILVERFISH_DROP_COBBLE, world.getName());
-
-        // FEATURE: silverfish drop cobblestone
-        if (dropCobble && entity.getType() == EntityType.SILVERFISH)
-        {
-            event.getDrops().add(new ItemStack(Material.COBBLESTONE));
-        }
-    }
 }
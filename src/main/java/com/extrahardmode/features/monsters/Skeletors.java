@@ -26,16 +26,23 @@ import com.extrahardmode.ExtraHardMode;
 import com.extrahardmode.config.RootConfig;
 import com.extrahardmode.config.RootNode;
 import com.extrahardmode.events.EhmSkeletonDeflectEvent;
+import com.extrahardmode.module.CombatContext;
+import com.extrahardmode.module.CombatPipeline;
+import com.extrahardmode.module.EhmScheduler;
 import com.extrahardmode.module.EntityHelper;
+import com.extrahardmode.module.SpawnPipeline;
+import com.extrahardmode.service.DamageRule;
+import com.extrahardmode.service.DeathRule;
 import com.extrahardmode.service.ListenerModule;
 import com.extrahardmode.service.OurRandom;
+import com.extrahardmode.service.SpawnRule;
 import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.entity.*;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.entity.CreatureSpawnEvent;
-import org.bukkit.event.entity.EntityDamageByEntityEvent;
+import org.bukkit.event.entity.EntityDamageEvent;
 import org.bukkit.event.entity.EntityDeathEvent;
 import org.bukkit.event.entity.ProjectileLaunchEvent;
 import org.bukkit.metadata.FixedMetadataValue;
@@ -45,6 +52,7 @@ import org.bukkit.potion.PotionEffect;
 import org.bukkit.potion.PotionEffectType;
 
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.UUID;
@@ -84,79 +92,182 @@ public class Skeletors extends ListenerModule
     {
         super.starting();
         CFG = plugin.getModuleForClass(RootConfig.class);
+        //slow kills are one task per entity which is meant to die, the other tasks of Skeletors stay capped
+        plugin.getModuleForClass(EhmScheduler.class).exemptFromCap("SlowKill");
+        plugin.getModuleForClass(SpawnPipeline.class).register(this, "onEntitySpawn", EventPriority.LOW, true, new SpawnRule.Factory()
+        {
+            @Override
+            public SpawnRule forWorld(String world)
+            {
+                final int skeletonSpawnPercent = CFG.getInt(RootNode.BONUS_SKELETON_SPAWN_PERCENT, world);
+                if (skeletonSpawnPercent <= 0)
+                    return null;
+                return new SpawnRule()
+                {
+                    @Override
+                    public void onSpawn(CreatureSpawnEvent event)
+                    {
+                        onEntitySpawn(event, skeletonSpawnPercent);
+                    }
+                };
+            }
+        }, EntityType.ENDERMAN);
+        plugin.getModuleForClass(SpawnPipeline.class).register(this, "onSilverfishSpawn", EventPriority.NORMAL, true, new SpawnRule.Factory()
+        {
+            @Override
+            public SpawnRule forWorld(String world)
+            {
+                if (!CFG.getBoolean(RootNode.SILVERFISH_TEMP_POTION_EFFECT_FIX, world))
+                    return null;
+                return new SpawnRule()
+                {
+                    @Override
+                    public void onSpawn(CreatureSpawnEvent event)
+                    {
+                        event.getEntity().addPotionEffect(new PotionEffect(PotionEffectType.CONFUSION, Integer.MAX_VALUE, 1, false));
+                    }
+                };
+            }
+        }, EntityType.SILVERFISH);
+        plugin.getModuleForClass(CombatPipeline.class).registerDamage(this, "onPlayerHitByArrow", EventPriority.LOWEST, true, new DamageRule.Factory()
+        {
+            @Override
+            public DamageRule forWorld(String world)
+            {
+                final double knockBackStrength = CFG.getDouble(RootNode.SKELETONS_FIREWORK_KNOCKBACK_VEL, world);
+                final int slownessLength = CFG.getInt(RootNode.SKELETONS_SNOWBALLS_SLOW_LEN, world);
+                final int fireTicks = CFG.getInt(RootNode.SKELETONS_FIREBALL_PLAYER_FIRETICKS, world);
+                return new DamageRule()
+                {
+                    @Override
+                    public void onDamage(EntityDamageEvent event, CombatContext context)
+                    {
+                        onPlayerHitByArrow(context, knockBackStrength, slownessLength, fireTicks);
+                    }
+                };
+            }
+        }, EnumSet.of(EntityDamageEvent.DamageCause.PROJECTILE), EntityType.PLAYER);
+        plugin.getModuleForClass(CombatPipeline.class).registerDamage(this, "onSkeliDamagedByArrow", EventPriority.NORMAL, true, new DamageRule.Factory()
+        {
+            @Override
+            public DamageRule forWorld(String world)
+            {
+                final int deflectPercent = CFG.getInt(RootNode.SKELETONS_DEFLECT_ARROWS, world);
+                if (deflectPercent <= 0)
+                    return null;
+                return new DamageRule()
+                {
+                    @Override
+                    public void onDamage(EntityDamageEvent event, CombatContext context)
+                    {
+                        onSkeliDamagedByArrow(event, context, deflectPercent);
+                    }
+                };
+            }
+        }, EnumSet.of(EntityDamageEvent.DamageCause.PROJECTILE), SpawnPipeline.typesOf(Skeleton.class));
+        plugin.getModuleForClass(CombatPipeline.class).registerDeath(this, "onSkeletonDeath", new DeathRule.Factory()
+        {
+            @Override
+            public DeathRule forWorld(String world)
+            {
+                if (!CFG.getBoolean(RootNode.SKELETONS_RELEASE_SILVERFISH_KILL, world))
+                    return null;
+                return new DeathRule()
+                {
+                    @Override
+                    public void onDeath(EntityDeathEvent event, CombatContext context)
+                    {
+                        onSkeletonDeath(event);
+                    }
+                };
+            }
+        }, SpawnPipeline.typesOf(Skeleton.class));
+        plugin.getModuleForClass(CombatPipeline.class).registerDeath(this, "onMinionDeath", new DeathRule.Factory()
+        {
+            @Override
+            public DeathRule forWorld(String world)
+            {
+                if (!CFG.getBoolean(RootNode.SKELETONS_RELEASE_SILVERFISH_KILL, world))
+                    return null;
+                return new DeathRule()
+                {
+                    @Override
+                    public void onDeath(EntityDeathEvent event, CombatContext context)
+                    {
+                        onMinionDeath(event);
+                    }
+                };
+            }
+        }, EntityType.SILVERFISH);
+    }
+
+
+    @Override
+    public void closing()
+    {
+        super.closing();
+        plugin.getModuleForClass(SpawnPipeline.class).unregister(this);
+        plugin.getModuleForClass(CombatPipeline.class).unregister(this);
     }
 
 
     /**
-     * When an entity takes damage
+     * When a Player is hit by an arrow
      * <p/>
-     * skeletons are immune to arrows
+     * apply the effects of the special arrows of skeletons
      */
-    @EventHandler(ignoreCancelled = true, priority = EventPriority.LOWEST)
-    public void onPlayerHitByArrow(EntityDamageByEntityEvent event)
+    private void onPlayerHitByArrow(CombatContext context, double knockBackStrength, int slownessLength, int fireTicks)
     {
-        if (event.getEntity() instanceof LivingEntity)
+        if (!(context.getDamager() instanceof Projectile))
+            return;
+        Player player = (Player) context.getVictim();
+        Projectile bullet = (Projectile) context.getDamager();
+
+        // FEATURE: skeletons can knock back
+        // knock back target with half the arrow's velocity
+        if (bullet.hasMetadata(key_knockbackArrow))
+            player.setVelocity(bullet.getVelocity().multiply(knockBackStrength));
+        else if (bullet.hasMetadata(key_slownessArrow))
+            player.addPotionEffect(new PotionEffect(PotionEffectType.BLINDNESS, slownessLength, 3));
+        else if (bullet.hasMetadata(key_fireArrow))
         {
-            LivingEntity entity = (LivingEntity) event.getEntity();
-            World world = entity.getWorld();
-
-            //final int deflect = CFG.getInt(RootNode.SKELETONS_DEFLECT_ARROWS, world.getName());
-            final double knockBackStrength = CFG.getDouble(RootNode.SKELETONS_FIREWORK_KNOCKBACK_VEL, world.getName());
-            final int slownessLength = CFG.getInt(RootNode.SKELETONS_SNOWBALLS_SLOW_LEN, world.getName());
-            final int fireTicks = CFG.getInt(RootNode.SKELETONS_FIREBALL_PLAYER_FIRETICKS, world.getName());
-
-            if (event.getDamager() instanceof Projectile && event.getEntity() instanceof Player)
-            {
-                Projectile bullet = (Projectile) event.getDamager();
-                // FEATURE: skeletons can knock back
-                // knock back target with half the arrow's velocity
-                if (bullet.hasMetadata(key_knockbackArrow))
-                    entity.setVelocity(bullet.getVelocity().multiply(knockBackStrength));
-                else if (bullet.hasMetadata(key_slownessArrow))
-                    entity.addPotionEffect(new PotionEffect(PotionEffectType.BLINDNESS, slownessLength, 3));
-                else if (bullet.hasMetadata(key_fireArrow))
-                {
-                    //Allow for a variable amount of fireticks
-                    int ticksBefore = entity.getFireTicks() >= 100 ? entity.getFireTicks() - 100 : 0; //fireticks from the arrow are already applied
-                    entity.setFireTicks(ticksBefore + fireTicks);
-                }
-            }
+            //Allow for a variable amount of fireticks
+            int ticksBefore = player.getFireTicks() >= 100 ? player.getFireTicks() - 100 : 0; //fireticks from the arrow are already applied
+            player.setFireTicks(ticksBefore + fireTicks);
         }
     }
 
 
-    @EventHandler(ignoreCancelled = true)
-    public void onSkeliDamagedByArrow(EntityDamageByEntityEvent event)
+    /**
+     * When a Skeleton is hit by an arrow
+     * <p/>
+     * let the arrow pass through
+     */
+    private void onSkeliDamagedByArrow(EntityDamageEvent event, CombatContext context, int deflectPercent)
     {
-        Entity entity = event.getEntity();
-
-        final int deflectPercent = CFG.getInt(RootNode.SKELETONS_DEFLECT_ARROWS, entity.getWorld().getName());
+        Entity entity = context.getVictim();
+        Entity damageSource = context.getDamager();
 
         // FEATURE: arrows pass through skeletons
-        if (entity instanceof Skeleton && deflectPercent > 0)
+        // only arrows
+        if (damageSource instanceof Arrow)
         {
-            Entity damageSource = event.getDamager();
+            Arrow arrow = (Arrow) damageSource;
 
-            // only arrows
-            if (damageSource instanceof Arrow)
-            {
-                Arrow arrow = (Arrow) damageSource;
-
-                Player player = arrow.getShooter() instanceof Player ? (Player) arrow.getShooter() : null;
-                EhmSkeletonDeflectEvent skeliEvent = new EhmSkeletonDeflectEvent(player, (Skeleton) entity, deflectPercent, !plugin.random(deflectPercent));
-                plugin.getServer().getPluginManager().callEvent(skeliEvent);
+            Player player = context.getPlayerAttacker();
+            EhmSkeletonDeflectEvent skeliEvent = new EhmSkeletonDeflectEvent(player, (Skeleton) entity, deflectPercent, !plugin.random(deflectPercent));
+            plugin.getServer().getPluginManager().callEvent(skeliEvent);
 
-                // percent chance
-                if (!skeliEvent.isCancelled())
-                {
+            // percent chance
+            if (!skeliEvent.isCancelled())
+            {
 
-                    // cancel the damage
-                    event.setCancelled(true);
+                // cancel the damage
+                event.setCancelled(true);
 
-                    // teleport the arrow a single block farther along its flight path, note that .6 and 12 were the unexplained recommended values, for speed and spread, reflectively, in the bukkit wiki
-                    arrow.remove();
-                    entity.getWorld().spawnArrow(arrow.getLocation().add((arrow.getVelocity().normalize()).multiply(2)), arrow.getVelocity(), 0.6f, 12.0f);
-                }
+                // teleport the arrow a single block farther along its flight path, note that .6 and 12 were the unexplained recommended values, for speed and spread, reflectively, in the bukkit wiki
+                arrow.remove();
+                entity.getWorld().spawnArrow(arrow.getLocation().add((arrow.getVelocity().normalize()).multiply(2)), arrow.getVelocity(), 0.6f, 12.0f);
             }
         }
     }
@@ -241,59 +352,40 @@ public class Skeletors extends ListenerModule
     }
 
 
-    @EventHandler(ignoreCancelled = true)
-    public void onSilverfishSpawn(CreatureSpawnEvent event)
-    {
-        final boolean tempFix = CFG.getBoolean(RootNode.SILVERFISH_TEMP_POTION_EFFECT_FIX, event.getLocation().getWorld().getName());
-        if (event.getEntityType() == EntityType.SILVERFISH && tempFix)
-            event.getEntity().addPotionEffect(new PotionEffect(PotionEffectType.CONFUSION, Integer.MAX_VALUE, 1, false));
-    }
-
-
     /** When a skeleton dies kill all the spawned silverfish aswell */
-    @EventHandler
-    public void onSkeletonDeath(EntityDeathEvent event)
+    private void onSkeletonDeath(EntityDeathEvent event)
     {
-        final boolean removeSilverfish = CFG.getBoolean(RootNode.SKELETONS_RELEASE_SILVERFISH_KILL, event.getEntity().getWorld().getName());
-        if (removeSilverfish && event.getEntity() instanceof Skeleton)
-        {
-            //Kill all silverfish, but do it slowly as if they are burning up
-            for (LivingEntity silverfish : event.getEntity().getWorld().getLivingEntities())
-                if (isMinion(silverfish))
+        //Kill all silverfish, but do it slowly as if they are burning up
+        for (LivingEntity silverfish : event.getEntity().getWorld().getLivingEntities())
+            if (isMinion(silverfish))
+            {
+                for (UUID id : getMinionsSpawnedBySkeli(event.getEntity(), plugin))
                 {
-                    for (UUID id : getMinionsSpawnedBySkeli(event.getEntity(), plugin))
+                    if (silverfish.getUniqueId() == id)
                     {
-                        if (silverfish.getUniqueId() == id)
-                        {
-                            //silverfish.addPotionEffect(new PotionEffect(PotionEffectType.FIRE_RESISTANCE, Integer.MAX_VALUE, 1));
-                            silverfish.setFireTicks(Integer.MAX_VALUE);
-                            //new SlowKillTask(silverfish, plugin);
-                        }
+                        //silverfish.addPotionEffect(new PotionEffect(PotionEffectType.FIRE_RESISTANCE, Integer.MAX_VALUE, 1));
+                        silverfish.setFireTicks(Integer.MAX_VALUE);
+                        //new SlowKillTask(silverfish, plugin);
                     }
                 }
-        }
+            }
     }
 
 
-    @EventHandler
-    public void onMinionDeath(EntityDeathEvent event)
+    /** When a silverfish dies remove it from the minions of its skeleton */
+    private void onMinionDeath(EntityDeathEvent event)
     {
-        final boolean removeSilverfish = CFG.getBoolean(RootNode.SKELETONS_RELEASE_SILVERFISH_KILL, event.getEntity().getWorld().getName());
-
-        if (removeSilverfish)
+        //Remove the silverfish from the spawnned list of silverfish in the skeli
+        LivingEntity entity = event.getEntity();
+        if (isMinion(entity))
         {
-            //Remove the silverfish from the spawnned list of silverfish in the skeli
-            LivingEntity entity = event.getEntity();
-            if (isMinion(entity))
-            {
-                UUID parent = getParentOfMinion(entity, plugin);
+            UUID parent = getParentOfMinion(entity, plugin);
 
-                //Try to find the parent by id
-                for (LivingEntity worldEntity : entity.getWorld().getLivingEntities())
-                {
-                    if (worldEntity.getUniqueId() == parent)
-                        removeMinionFromSkeli(entity.getUniqueId(), worldEntity);
-                }
+            //Try to find the parent by id
+            for (LivingEntity worldEntity : entity.getWorld().getLivingEntities())
+            {
+                if (worldEntity.getUniqueId() == parent)
+                    removeMinionFromSkeli(entity.getUniqueId(), worldEntity);
             }
         }
     }
@@ -443,23 +535,19 @@ public class Skeletors extends ListenerModule
      *
      * @param event which occurred
      */
-    @EventHandler(ignoreCancelled = true, priority = EventPriority.LOW)
-    public void onEntitySpawn(CreatureSpawnEvent event)
+    private void onEntitySpawn(CreatureSpawnEvent event, int skeletonSpawnPercent)
     {
         LivingEntity entity = event.getEntity();
         if (EntityHelper.isMarkedAsOurs(entity))
             return;
         Location location = event.getLocation();
         World world = location.getWorld();
-        EntityType entityType = entity.getType();
-
-        final int cavespiderSpawnPercent = CFG.getInt(RootNode.BONUS_SKELETON_SPAWN_PERCENT, world.getName());
 
         // FEATURE: Skeletons spawns naturally in The End.
-        if (entityType == EntityType.ENDERMAN && world.getEnvironment() == World.Environment.THE_END
+        if (world.getEnvironment() == World.Environment.THE_END
                 && event.getSpawnReason() == CreatureSpawnEvent.SpawnReason.NATURAL)
         {
-            if (plugin.random(cavespiderSpawnPercent))
+            if (plugin.random(skeletonSpawnPercent))
             {
                 event.setCancelled(true);
                 EntityHelper.spawn(location, EntityType.SKELETON);
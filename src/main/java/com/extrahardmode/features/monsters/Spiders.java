@@ -25,8 +25,14 @@ package com.extrahardmode.features.monsters;
 import com.extrahardmode.ExtraHardMode;
 import com.extrahardmode.config.RootConfig;
 import com.extrahardmode.config.RootNode;
+import com.extrahardmode.module.CombatContext;
+import com.extrahardmode.module.CombatPipeline;
+import com.extrahardmode.module.EhmScheduler;
 import com.extrahardmode.module.EntityHelper;
+import com.extrahardmode.module.SpawnPipeline;
+import com.extrahardmode.service.DeathRule;
 import com.extrahardmode.service.ListenerModule;
+import com.extrahardmode.service.SpawnRule;
 import com.extrahardmode.task.WebCleanupTask;
 import org.bukkit.Location;
 import org.bukkit.Material;
@@ -36,7 +42,6 @@ import org.bukkit.block.BlockFace;
 import org.bukkit.entity.EntityType;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Spider;
-import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.entity.CreatureSpawnEvent;
 import org.bukkit.event.entity.EntityDeathEvent;
@@ -65,6 +70,60 @@ public class Spiders extends ListenerModule
     {
         super.starting();
         CFG = plugin.getModuleForClass(RootConfig.class);
+        plugin.getModuleForClass(SpawnPipeline.class).register(this, "onEntitySpawn", EventPriority.LOW, true, new SpawnRule.Factory()
+        {
+            @Override
+            public SpawnRule forWorld(String world)
+            {
+                final int spiderBonusSpawnPercent = CFG.getInt(RootNode.BONUS_UNDERGROUND_SPIDER_SPAWN_PERCENT, world);
+                if (spiderBonusSpawnPercent <= 0)
+                    return null;
+                return new SpawnRule()
+                {
+                    @Override
+                    public void onSpawn(CreatureSpawnEvent event)
+                    {
+                        onEntitySpawn(event, spiderBonusSpawnPercent);
+                    }
+                };
+            }
+        }, EntityType.ZOMBIE);
+        plugin.getModuleForClass(CombatPipeline.class).registerDeath(this, "onSpiderDeath", new DeathRule.Factory()
+        {
+            @Override
+            public DeathRule forWorld(String world)
+            {
+                if (!CFG.getBoolean(RootNode.SPIDERS_DROP_WEB_ON_DEATH, world))
+                    return null;
+                return new DeathRule()
+                {
+                    @Override
+                    public void onDeath(EntityDeathEvent event, CombatContext context)
+                    {
+                        onSpiderDeath(event);
+                    }
+                };
+            }
+        }, SpawnPipeline.typesOf(Spider.class));
+    }
+
+
+    @Override
+    public void closing()
+    {
+        super.closing();
+        plugin.getModuleForClass(SpawnPipeline.class).unregister(this);
+        plugin.getModuleForClass(CombatPipeline.class).unregister(this);
+    }
+
+
+    @Override
+    protected RootNode[] getGatingNodes()
+    {
+        return new RootNode[]{
+                RootNode.BONUS_UNDERGROUND_SPIDER_SPAWN_PERCENT,
+                RootNode.SPIDERS_DROP_WEB_ON_DEATH
+        };
     }
 
 
@@ -73,27 +132,22 @@ public class Spiders extends ListenerModule
      * <p/>
      * More spiders in caves
      */
-    @EventHandler(ignoreCancelled = true, priority = EventPriority.LOW)
-    public void onEntitySpawn(CreatureSpawnEvent event)
+    private void onEntitySpawn(CreatureSpawnEvent event, int spiderBonusSpawnPercent)
     {
         LivingEntity entity = event.getEntity();
         if (EntityHelper.isMarkedAsOurs(entity))
             return;
         Location location = event.getLocation();
         World world = location.getWorld();
-        EntityType entityType = entity.getType();
-
-        final int spiderBonusSpawnPercent = CFG.getInt(RootNode.BONUS_UNDERGROUND_SPIDER_SPAWN_PERCENT, world.getName());
 
         // FEATURE: more spiders underground
-        if (entityType == EntityType.ZOMBIE && world.getEnvironment() == World.Environment.NORMAL && location.getBlockY() < world.getSeaLevel() - 5
+        if (world.getEnvironment() == World.Environment.NORMAL && location.getBlockY() < world.getSeaLevel() - 5
                 && event.getSpawnReason() == CreatureSpawnEvent.SpawnReason.NATURAL) //Don't change type from respawned zombies etc.
         {
             if (plugin.random(spiderBonusSpawnPercent))
             {
                 event.setCancelled(true);
-                entityType = EntityType.SPIDER;
-                EntityHelper.spawn(location, entityType);
+                EntityHelper.spawn(location, EntityType.SPIDER);
             }
         }
     }
@@ -104,83 +158,77 @@ public class Spiders extends ListenerModule
      * <p/>
      * spiders drop web on death
      */
-    @EventHandler
-    public void onEntityDeath(EntityDeathEvent event)
+    private void onSpiderDeath(EntityDeathEvent event)
     {
         LivingEntity entity = event.getEntity();
         World world = entity.getWorld();
 
-        final boolean spidersDropWebOnDeath = CFG.getBoolean(RootNode.SPIDERS_DROP_WEB_ON_DEATH, world.getName());
-
         //TODO EhmSpiderDropWebEvent
         // FEATURE: spiders drop web on death
-        if (spidersDropWebOnDeath)
-        {
-            //Reduce amount of web dropped by spiders which die in caves from environmental damage
-            if (entity instanceof Spider && (!EntityHelper.isLootLess(entity) || plugin.getRandom().nextInt(3) == 1))
-            {
-                // random web placement
-                long serverTime = world.getFullTime();
-                int random1 = (int) (serverTime + entity.getLocation().getBlockZ()) % 9;
-                int random2 = (int) (serverTime + entity.getLocation().getBlockX()) % 9;
+        //Reduce amount of web dropped by spiders which die in caves from environmental damage
+        if (EntityHelper.isLootLess(entity) && plugin.getRandom().nextInt(3) != 1)
+            return;
 
-                Location[] locations = new Location[4];
+        // random web placement
+        long serverTime = world.getFullTime();
+        int random1 = (int) (serverTime + entity.getLocation().getBlockZ()) % 9;
+        int random2 = (int) (serverTime + entity.getLocation().getBlockX()) % 9;
 
-                locations[0] = entity.getLocation().add(random1, 0, random2);
-                locations[1] = entity.getLocation().add(-random2, 0, random1 / 2);
-                locations[2] = entity.getLocation().add(-random1 / 2, 0, -random2);
-                locations[3] = entity.getLocation().add(random1 / 2, 0, -random2 / 2);
+        Location[] locations = new Location[4];
 
-                List<Block> changedBlocks = new ArrayList<Block>();
-                for (Location location : locations)
-                {
-                    Block block = location.getBlock();
+        locations[0] = entity.getLocation().add(random1, 0, random2);
+        locations[1] = entity.getLocation().add(-random2, 0, random1 / 2);
+        locations[2] = entity.getLocation().add(-random1 / 2, 0, -random2);
+        locations[3] = entity.getLocation().add(random1 / 2, 0, -random2 / 2);
 
-                    // don't replace anything solid with web
-                    if (block.getType() != Material.AIR)
-                        continue;
+        List<Block> changedBlocks = new ArrayList<Block>();
+        for (Location location : locations)
+        {
+            Block block = location.getBlock();
 
-                    // only place web on the ground, not hanging up in the air
-                    for (int i = 0; i < 5 || block.getY() < -128 ; i++)
-                    {
-                        if (block.getRelative(BlockFace.DOWN).getType() == Material.AIR)
-                            block = block.getRelative(BlockFace.DOWN);
-                    }
+            // don't replace anything solid with web
+            if (block.getType() != Material.AIR)
+                continue;
+
+            // only place web on the ground, not hanging up in the air
+            for (int i = 0; i < 5 || block.getY() < -128 ; i++)
+            {
+                if (block.getRelative(BlockFace.DOWN).getType() == Material.AIR)
+                    block = block.getRelative(BlockFace.DOWN);
+            }
+
+            // only place web if Block is empty
+            if (block.getRelative(BlockFace.DOWN).getType() != Material.AIR)
+            {
+                // don't place next to cactus, because it will break the
+                // cactus
+                Block[] adjacentBlocks = new Block[]{block.getRelative(BlockFace.EAST), block.getRelative(BlockFace.WEST),
+                        block.getRelative(BlockFace.NORTH), block.getRelative(BlockFace.SOUTH)};
 
-                    // only place web if Block is empty
-                    if (block.getRelative(BlockFace.DOWN).getType() != Material.AIR)
+                boolean nextToCactus = false;
+                for (Block adjacentBlock : adjacentBlocks)
+                {
+                    if (adjacentBlock.getType() == Material.CACTUS)
                     {
-                        // don't place next to cactus, because it will break the
-                        // cactus
-                        Block[] adjacentBlocks = new Block[]{block.getRelative(BlockFace.EAST), block.getRelative(BlockFace.WEST),
-                                block.getRelative(BlockFace.NORTH), block.getRelative(BlockFace.SOUTH)};
-
-                        boolean nextToCactus = false;
-                        for (Block adjacentBlock : adjacentBlocks)
-                        {
-                            if (adjacentBlock.getType() == Material.CACTUS)
-                            {
-                                nextToCactus = true;
-                                break;
-                            }
-                        }
-
-                        if (!nextToCactus)
-                        {
-                            block.setType(Material.COBWEB);
-                            changedBlocks.add(block);
-                        }
+                        nextToCactus = true;
+                        break;
                     }
                 }
 
-                // any webs placed above sea level will be automatically cleaned up
-                // after a short time
-                if (entity.getLocation().getBlockY() >= entity.getLocation().getWorld().getSeaLevel() - 5)
+                if (!nextToCactus)
                 {
-                    WebCleanupTask task = new WebCleanupTask(changedBlocks);
-                    plugin.getServer().getScheduler().scheduleSyncDelayedTask(plugin, task, 20L * 30);
+                    block.setType(Material.COBWEB);
+                    changedBlocks.add(block);
                 }
             }
         }
+
+        // any webs placed above sea level will be automatically cleaned up
+        // after a short time
+        if (entity.getLocation().getBlockY() >= entity.getLocation().getWorld().getSeaLevel() - 5)
+        {
+            WebCleanupTask task = new WebCleanupTask(changedBlocks);
+            plugin.getModuleForClass(EhmScheduler.class).runTaskLater("Spiders", task, 20L * 30);
+        }
     }
 }
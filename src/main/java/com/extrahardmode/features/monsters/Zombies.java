@@ -22,24 +22,31 @@
 package com.extrahardmode.features.monsters;
 
 
+import java.util.EnumSet;
 import com.extrahardmode.ExtraHardMode;
 import com.extrahardmode.config.RootConfig;
 import com.extrahardmode.config.RootNode;
 import com.extrahardmode.module.BlockModule;
+import com.extrahardmode.module.CombatContext;
+import com.extrahardmode.module.CombatPipeline;
+import com.extrahardmode.module.EhmScheduler;
 import com.extrahardmode.module.EntityHelper;
 import com.extrahardmode.module.PlayerModule;
+import com.extrahardmode.module.SpawnPipeline;
 import com.extrahardmode.module.temporaryblock.TemporaryBlock;
 import com.extrahardmode.module.temporaryblock.TemporaryBlockBreakEvent;
 import com.extrahardmode.module.temporaryblock.TemporaryBlockHandler;
+import com.extrahardmode.service.DamageRule;
+import com.extrahardmode.service.DeathRule;
 import com.extrahardmode.service.Feature;
 import com.extrahardmode.service.ListenerModule;
 import com.extrahardmode.service.OurRandom;
+import com.extrahardmode.service.SpawnRule;
 import com.extrahardmode.service.config.customtypes.PotionEffectHolder;
 import com.extrahardmode.task.RespawnZombieTask;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.SkullType;
-import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
 import org.bukkit.block.data.Rotatable;
@@ -47,7 +54,6 @@ import org.bukkit.entity.*;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.entity.CreatureSpawnEvent;
-import org.bukkit.event.entity.EntityDamageByEntityEvent;
 import org.bukkit.event.entity.EntityDamageEvent;
 import org.bukkit.event.entity.EntityDeathEvent;
 import org.bukkit.metadata.FixedMetadataValue;
@@ -86,138 +92,181 @@ public class Zombies extends ListenerModule
         {
             hasReinforcements = false;
         }
+        //Flag Zombies that have been called in as reinforcements to not respawn
+        plugin.getModuleForClass(SpawnPipeline.class).register(this, "onZombieReinforcements", EventPriority.NORMAL, true, new SpawnRule.Factory()
+        {
+            @Override
+            public SpawnRule forWorld(String world)
+            {
+                if (!hasReinforcements)
+                    return null;
+                return new SpawnRule()
+                {
+                    @Override
+                    public void onSpawn(CreatureSpawnEvent event)
+                    {
+                        onZombieReinforcements(event);
+                    }
+                };
+            }
+        }, SpawnPipeline.typesOf(Zombie.class));
+        plugin.getModuleForClass(CombatPipeline.class).registerDeath(this, "onZombieDeath", new DeathRule.Factory()
+        {
+            @Override
+            public DeathRule forWorld(String world)
+            {
+                final int zombiesReanimatePercent = CFG.getInt(RootNode.ZOMBIES_REANIMATE_PERCENT, world);
+                final boolean placeSkulls = CFG.getBoolean(RootNode.ZOMBIES_REANIMATE_SKULLS, world);
+                if (zombiesReanimatePercent <= 0)
+                    return null;
+                return new DeathRule()
+                {
+                    @Override
+                    public void onDeath(EntityDeathEvent event, CombatContext context)
+                    {
+                        onZombieDeath(event, zombiesReanimatePercent, placeSkulls);
+                    }
+                };
+            }
+        }, EntityType.ZOMBIE);
+        plugin.getModuleForClass(CombatPipeline.class).registerDamage(this, "onPlayerDamaged", EventPriority.LOWEST, true, new DamageRule.Factory()
+        {
+            @Override
+            public DamageRule forWorld(String world)
+            {
+                final PotionEffectHolder effect = CFG.getPotionEffect(RootNode.ZOMBIES_DEBILITATE_PLAYERS_EFFECT, world);
+                final boolean stackEffect = CFG.getBoolean(RootNode.ZOMBIES_DEBILITATE_PLAYERS_EFFECT_STACK, world);
+                final int maxEffectAmplifier = CFG.getInt(RootNode.ZOMBIES_DEBILITATE_PLAYERS_EFFECT_STACK_MAX, world);
+                if (!CFG.getBoolean(RootNode.ZOMBIES_DEBILITATE_PLAYERS, world) || effect == null)
+                    return null;
+                return new DamageRule()
+                {
+                    @Override
+                    public void onDamage(EntityDamageEvent event, CombatContext context)
+                    {
+                        if (context.getDamager() instanceof Zombie)
+                            onPlayerDamaged((Player) context.getVictim(), effect, stackEffect, maxEffectAmplifier);
+                    }
+                };
+            }
+        }, EnumSet.of(EntityDamageEvent.DamageCause.ENTITY_ATTACK), EntityType.PLAYER);
     }
 
 
-    /**
-     * When a zombie dies
-     * <p/>
-     * sometimes reanimate the zombie
-     */
-    @EventHandler
-    public void onEntityDeath(EntityDeathEvent event)
+    @Override
+    public void closing()
     {
-        LivingEntity entity = event.getEntity();
-        World world = entity.getWorld();
-
-        int zombiesReanimatePercent = CFG.getInt(RootNode.ZOMBIES_REANIMATE_PERCENT, world.getName());
-        boolean placeSkulls = CFG.getBoolean(RootNode.ZOMBIES_REANIMATE_SKULLS, world.getName());
+        super.closing();
+        plugin.getModuleForClass(SpawnPipeline.class).unregister(this);
+        plugin.getModuleForClass(CombatPipeline.class).unregister(this);
+    }
 
-        // FEATURE: zombies may reanimate if not on fire when they die
-        if (zombiesReanimatePercent > 0 && !EntityHelper.hasFlagIgnore(entity))
-        {
-            if (entity.getType() == EntityType.ZOMBIE)
-            {
-                Zombie zombie = (Zombie) entity;
 
-                Player player = null;
-                if (zombie.getTarget() instanceof Player)
-                    player = (Player) zombie.getTarget();
+    @Override
+    protected RootNode[] getGatingNodes()
+    {
+        return new RootNode[]{
+                RootNode.ZOMBIES_REANIMATE_PERCENT,
+                RootNode.ZOMBIES_DEBILITATE_PLAYERS
+        };
+    }
 
-                //Zombies which have respawned already are less likely to respawn
-                int respawnCount = entity.getMetadata("extrahardmode.zombie.respawncount").size() > 0 ? entity.getMetadata("extrahardmode.zombie.respawncount").get(0).asInt() : 0;
-                respawnCount++;
-                zombiesReanimatePercent = (int) ((1.0D / respawnCount) * zombiesReanimatePercent);
 
-                if (!zombie.isVillager() && entity.getFireTicks() < 1 && OurRandom.percentChance(zombiesReanimatePercent))
-                {
-                    //Save the incremented respawncount
-                    entity.setMetadata("extrahardmode.zombie.respawncount", new FixedMetadataValue(plugin, respawnCount));
-                    TemporaryBlock tempBlock = null;
-                    //Water washes skulls away which then drop to the ground, cancelling the BlockFromToEvent didn't prevent the skull from dropping
-                    Material type = entity.getLocation().getBlock().getType();
-                    if (placeSkulls && type != Material.WATER)
-                    {
-                        Block block = entity.getLocation().getBlock();
-                        //Don't replace blocks that aren't air, but aren't solid either
-                        if (block.getType() != Material.AIR)
-                        {
-                            Location location = block.getLocation();
-                            location.setY(location.getY()+1);
-                            block = location.getBlock();
-                            if (block.getType() != Material.AIR)
-                                return;
-                        }
-                        block.setType(Material.ZOMBIE_HEAD);
-                        //Random rotation
-                        BlockFace[] faces = BlockModule.getHorizontalAdjacentFaces();
-                        Rotatable skull = (Rotatable)block.getBlockData();
-                        skull.setRotation(faces[OurRandom.nextInt(faces.length)]);
-                        block.setBlockData(skull);
-                        tempBlock = temporaryBlockHandler.addTemporaryBlock(block.getLocation(), "respawn_skull");
-                    }
-                    RespawnZombieTask task = new RespawnZombieTask(plugin, entity.getLocation(), player, tempBlock);
-                    int respawnSeconds = plugin.getRandom().nextInt(6) + 3; // 3-8 seconds
-                    plugin.getServer().getScheduler().scheduleSyncDelayedTask(plugin, task, 20L * respawnSeconds); // /20L ~ 1 second
-                }
-            }
+    /** Flag Zombies that have been called in as reinforcements to not respawn */
+    private void onZombieReinforcements(CreatureSpawnEvent event)
+    {
+        if (event.getSpawnReason() == CreatureSpawnEvent.SpawnReason.REINFORCEMENTS)
+        {
+            EntityHelper.flagIgnore(plugin, event.getEntity());
         }
     }
 
 
     /**
-     * When an Entity is damaged
+     * When a zombie dies
      * <p/>
-     * When a player is damaged by a zombie make him slow
+     * sometimes reanimate the zombie
      */
-    @EventHandler(ignoreCancelled = true, priority = EventPriority.LOWEST)
-    public void onEntityDamage(EntityDamageEvent event)
+    private void onZombieDeath(EntityDeathEvent event, int zombiesReanimatePercent, boolean placeSkulls)
     {
-        Entity entity = event.getEntity();
-        World world = entity.getWorld();
-        final PotionEffectHolder effect = CFG.getPotionEffect(RootNode.ZOMBIES_DEBILITATE_PLAYERS_EFFECT, world.getName());
-        final boolean stackEffect = CFG.getBoolean(RootNode.ZOMBIES_DEBILITATE_PLAYERS_EFFECT_STACK, world.getName());
-        final int maxEffectAmplifier = CFG.getInt(RootNode.ZOMBIES_DEBILITATE_PLAYERS_EFFECT_STACK_MAX, world.getName());
+        LivingEntity entity = event.getEntity();
 
-        if (entity instanceof Player)
-        {
-            Player player = (Player) entity;
+        // FEATURE: zombies may reanimate if not on fire when they die
+        if (EntityHelper.hasFlagIgnore(entity))
+            return;
 
-            final boolean zombiesSlowPlayers = CFG.getBoolean(RootNode.ZOMBIES_DEBILITATE_PLAYERS, world.getName());
-            final boolean playerBypasses = playerModule.playerBypasses(player, Feature.MONSTER_ZOMBIES);
+        Zombie zombie = (Zombie) entity;
 
-            // is this an entity damaged by entity event?
-            EntityDamageByEntityEvent damageByEntityEvent = null;
-            if (event instanceof EntityDamageByEntityEvent)
-            {
-                damageByEntityEvent = (EntityDamageByEntityEvent) event;
-            }
+        Player player = null;
+        if (zombie.getTarget() instanceof Player)
+            player = (Player) zombie.getTarget();
+
+        //Zombies which have respawned already are less likely to respawn
+        int respawnCount = entity.getMetadata("extrahardmode.zombie.respawncount").size() > 0 ? entity.getMetadata("extrahardmode.zombie.respawncount").get(0).asInt() : 0;
+        respawnCount++;
+        zombiesReanimatePercent = (int) ((1.0D / respawnCount) * zombiesReanimatePercent);
 
-            // FEATURE: zombies can apply a debilitating effect
-            if (zombiesSlowPlayers && !playerBypasses)
+        if (!zombie.isVillager() && entity.getFireTicks() < 1 && OurRandom.percentChance(zombiesReanimatePercent))
+        {
+            //Save the incremented respawncount
+            entity.setMetadata("extrahardmode.zombie.respawncount", new FixedMetadataValue(plugin, respawnCount));
+            TemporaryBlock tempBlock = null;
+            //Water washes skulls away which then drop to the ground, cancelling the BlockFromToEvent didn't prevent the skull from dropping
+            Material type = entity.getLocation().getBlock().getType();
+            if (placeSkulls && type != Material.WATER)
             {
-                if (damageByEntityEvent != null && damageByEntityEvent.getDamager() instanceof Zombie)
+                Block block = entity.getLocation().getBlock();
+                //Don't replace blocks that aren't air, but aren't solid either
+                if (block.getType() != Material.AIR)
                 {
-                    //TODO EhmZombieSlowEvent
-                    if (stackEffect && effect != null && player.hasPotionEffect(effect.getBukkitEffectType()))
-                    {
-                        int amplifier = 1;
-                        for (PotionEffect potion : player.getActivePotionEffects())
-                            if (potion.getType().equals(effect.getBukkitEffectType()))
-                            {
-                                amplifier = potion.getAmplifier();
-                                break;
-                            }
-                        if (amplifier + 1 < maxEffectAmplifier)
-                            amplifier++;
-                        player.removePotionEffect(effect.getBukkitEffectType());
-                        player.addPotionEffect(new PotionEffect(effect.getBukkitEffectType(), effect.getDuration(), amplifier));
-                    } else if (effect != null)
-                        effect.applyEffect(player, false);
+                    Location location = block.getLocation();
+                    location.setY(location.getY()+1);
+                    block = location.getBlock();
+                    if (block.getType() != Material.AIR)
+                        return;
                 }
+                block.setType(Material.ZOMBIE_HEAD);
+                //Random rotation
+                BlockFace[] faces = BlockModule.getHorizontalAdjacentFaces();
+                Rotatable skull = (Rotatable)block.getBlockData();
+                skull.setRotation(faces[OurRandom.nextInt(faces.length)]);
+                block.setBlockData(skull);
+                tempBlock = temporaryBlockHandler.addTemporaryBlock(block.getLocation(), "respawn_skull");
             }
+            RespawnZombieTask task = new RespawnZombieTask(plugin, entity.getLocation(), player, tempBlock);
+            int respawnSeconds = plugin.getRandom().nextInt(6) + 3; // 3-8 seconds
+            plugin.getModuleForClass(EhmScheduler.class).runTaskLater("Zombies", task, 20L * respawnSeconds); // /20L ~ 1 second
         }
     }
 
 
-    /** Flag Zombies that have been called in as reinforcements to not respawn */
-    @EventHandler(ignoreCancelled = true)
-    public void onZombieReinforcements(CreatureSpawnEvent event)
+    /**
+     * When a Player is hit by a zombie
+     * <p/>
+     * make him slow
+     */
+    private void onPlayerDamaged(Player player, PotionEffectHolder effect, boolean stackEffect, int maxEffectAmplifier)
     {
-        if (hasReinforcements && event.getEntity() instanceof Zombie && event.getSpawnReason() == CreatureSpawnEvent.SpawnReason.REINFORCEMENTS)
+        // FEATURE: zombies can apply a debilitating effect
+        if (playerModule.playerBypasses(player, Feature.MONSTER_ZOMBIES))
+            return;
+
+        //TODO EhmZombieSlowEvent
+        if (stackEffect && player.hasPotionEffect(effect.getBukkitEffectType()))
         {
-            EntityHelper.flagIgnore(plugin, event.getEntity());
-        }
+            int amplifier = 1;
+            for (PotionEffect potion : player.getActivePotionEffects())
+                if (potion.getType().equals(effect.getBukkitEffectType()))
+                {
+                    amplifier = potion.getAmplifier();
+                    break;
+                }
+            if (amplifier + 1 < maxEffectAmplifier)
+                amplifier++;
+            player.removePotionEffect(effect.getBukkitEffectType());
+            player.addPotionEffect(new PotionEffect(effect.getBukkitEffectType(), effect.getDuration(), amplifier));
+        } else
+            effect.applyEffect(player, false);
     }
 
 
@@ -0,0 +1,317 @@
+/*
+ * This file is part of
+ * ExtraHardMode Server Plugin for Minecraft
+ *
+ * Copyright (C) 2012 Ryan Hamshire
+ * Copyright (C) 2013 Diemex
+ *
+ * ExtraHardMode is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ExtraHardMode is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero Public License
+ * along with ExtraHardMode.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.extrahardmode.module;
+
+
+import com.extrahardmode.ExtraHardMode;
+import com.extrahardmode.service.ListenerModule;
+import net.md_5.bungee.api.ChatMessageType;
+import net.md_5.bungee.api.chat.TextComponent;
+import org.bukkit.ChatColor;
+import org.bukkit.boss.BarColor;
+import org.bukkit.boss.BarStyle;
+import org.bukkit.boss.BossBar;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Shows popups in the action bar or in a boss bar instead of the scoreboard.
+ * <p/>
+ * Every player has at most one message in each bar, a new message replaces the previous one. Every player gets one
+ * boss bar which is reused for all messages and only hidden when a message expires. One task checks for expired
+ * messages while there are messages shown and resends action bar messages before the client fades them out.
+ */
+public class BarNotifier extends ListenerModule implements Runnable
+{
+    /**
+     * Ticks between two checks for expired messages
+     */
+    private static final long PERIOD = 10L;
+
+    /**
+     * Millis after which an action bar message has to be sent again, the client fades it out after 3 seconds
+     */
+    private static final long ACTIONBAR_RESEND = 2000L;
+
+    /**
+     * Messages shown in the action bar by player
+     */
+    private final Map<UUID, Shown> actionBars = new HashMap<UUID, Shown>();
+
+    /**
+     * Messages shown in the boss bar by player
+     */
+    private final Map<UUID, Shown> bossBarMessages = new HashMap<UUID, Shown>();
+
+    /**
+     * The boss bar of every player, created on the first message
+     */
+    private final Map<UUID, BossBar> bossBars = new HashMap<UUID, BossBar>();
+
+    private int taskId = -1;
+
+
+    public BarNotifier(ExtraHardMode plugin)
+    {
+        super(plugin);
+    }
+
+
+    @Override
+    public void closing()
+    {
+        super.closing();
+        if (taskId != -1)
+        {
+            plugin.getModuleForClass(EhmScheduler.class).cancelTask(taskId);
+            taskId = -1;
+        }
+        for (BossBar bar : bossBars.values())
+            bar.removeAll();
+        bossBars.clear();
+        bossBarMessages.clear();
+        actionBars.clear();
+    }
+
+
+    /**
+     * Show a message in the action bar
+     *
+     * @param player     player to show the message to
+     * @param identifier identifier of the message, can be null
+     * @param message    text
+     * @param ticks      how long to show the message, 0 until hidden
+     */
+    public void showActionBar(Player player, String identifier, String message, int ticks)
+    {
+        final long now = System.currentTimeMillis();
+        Shown shown = actionBars.get(player.getUniqueId());
+        if (shown == null || !message.equals(shown.message) || now - shown.sent >= ACTIONBAR_RESEND)
+        {
+            sendActionBar(player, message);
+            shown = new Shown(identifier, message, now);
+            actionBars.put(player.getUniqueId(), shown);
+        }
+        shown.identifier = identifier;
+        shown.expires = expiry(now, ticks);
+        startTask();
+    }
+
+
+    /**
+     * Show a message in the boss bar of the player
+     *
+     * @param player     player to show the message to
+     * @param identifier identifier of the message, can be null
+     * @param message    text
+     * @param ticks      how long to show the message, 0 until hidden
+     * @param color      color of the bar
+     */
+    public void showBossBar(Player player, String identifier, String message, int ticks, BarColor color)
+    {
+        BossBar bar = bossBars.get(player.getUniqueId());
+        if (bar == null)
+        {
+            bar = plugin.getServer().createBossBar(message, color, BarStyle.SOLID);
+            bar.addPlayer(player);
+            bossBars.put(player.getUniqueId(), bar);
+        } else
+        {
+            //Only send what changed
+            if (!message.equals(bar.getTitle()))
+                bar.setTitle(message);
+            if (bar.getColor() != color)
+                bar.setColor(color);
+        }
+        if (!bar.isVisible())
+            bar.setVisible(true);
+
+        final long now = System.currentTimeMillis();
+        Shown shown = new Shown(identifier, message, now);
+        shown.expires = expiry(now, ticks);
+        bossBarMessages.put(player.getUniqueId(), shown);
+        startTask();
+    }
+
+
+    /**
+     * Hide the message with the given identifier in both bars
+     *
+     * @param player     player to hide the message for
+     * @param identifier identifier of the message
+     */
+    public void hide(Player player, String identifier)
+    {
+        final UUID uuid = player.getUniqueId();
+        Shown shown = actionBars.get(uuid);
+        if (shown != null && identifier.equals(shown.identifier))
+        {
+            actionBars.remove(uuid);
+            sendActionBar(player, "");
+        }
+        shown = bossBarMessages.get(uuid);
+        if (shown != null && identifier.equals(shown.identifier))
+        {
+            bossBarMessages.remove(uuid);
+            bossBars.get(uuid).setVisible(false);
+        }
+    }
+
+
+    @Override
+    public void run()
+    {
+        final long now = System.currentTimeMillis();
+        for (Iterator<Map.Entry<UUID, Shown>> iter = actionBars.entrySet().iterator(); iter.hasNext(); )
+        {
+            Map.Entry<UUID, Shown> entry = iter.next();
+            Shown shown = entry.getValue();
+            Player player = plugin.getServer().getPlayer(entry.getKey());
+            if (player == null || now >= shown.expires)
+                iter.remove(); //fades out by itself
+            else if (now - shown.sent >= ACTIONBAR_RESEND)
+            {
+                sendActionBar(player, shown.message);
+                shown.sent = now;
+            }
+        }
+        for (Iterator<Map.Entry<UUID, Shown>> iter = bossBarMessages.entrySet().iterator(); iter.hasNext(); )
+        {
+            Map.Entry<UUID, Shown> entry = iter.next();
+            if (now >= entry.getValue().expires)
+            {
+                iter.remove();
+                BossBar bar = bossBars.get(entry.getKey());
+                if (bar != null)
+                    bar.setVisible(false);
+            }
+        }
+        if (actionBars.isEmpty() && bossBarMessages.isEmpty() && taskId != -1)
+        {
+            plugin.getModuleForClass(EhmScheduler.class).cancelTask(taskId);
+            taskId = -1;
+        }
+    }
+
+
+    @EventHandler
+    public void onQuit(PlayerQuitEvent event)
+    {
+        final UUID uuid = event.getPlayer().getUniqueId();
+        actionBars.remove(uuid);
+        bossBarMessages.remove(uuid);
+        BossBar bar = bossBars.remove(uuid);
+        if (bar != null)
+            bar.removeAll();
+    }
+
+
+    /**
+     * Get the color of the bar closest to the text color
+     *
+     * @param color text color, can be null
+     *
+     * @return color for a boss bar
+     */
+    public static BarColor toBarColor(ChatColor color)
+    {
+        if (color == null)
+            return BarColor.WHITE;
+        switch (color)
+        {
+            case RED:
+            case DARK_RED:
+                return BarColor.RED;
+            case YELLOW:
+            case GOLD:
+                return BarColor.YELLOW;
+            case GREEN:
+            case DARK_GREEN:
+                return BarColor.GREEN;
+            case BLUE:
+            case DARK_BLUE:
+            case AQUA:
+            case DARK_AQUA:
+                return BarColor.BLUE;
+            case LIGHT_PURPLE:
+                return BarColor.PINK;
+            case DARK_PURPLE:
+                return BarColor.PURPLE;
+            default:
+                return BarColor.WHITE;
+        }
+    }
+
+
+    private void startTask()
+    {
+        if (taskId == -1)
+            taskId = plugin.getModuleForClass(EhmScheduler.class).runTaskTimer("BarNotifier", this, PERIOD, PERIOD);
+    }
+
+
+    private static long expiry(long now, int ticks)
+    {
+        return ticks > 0 ? now + ticks * 50L : Long.MAX_VALUE;
+    }
+
+
+    private static void sendActionBar(Player player, String message)
+    {
+        player.spigot().sendMessage(ChatMessageType.ACTION_BAR, TextComponent.fromLegacyText(message));
+    }
+
+
+    /**
+     * A message currently shown in a bar
+     */
+    private static class Shown
+    {
+        private String identifier;
+
+        private final String message;
+
+        /**
+         * When the message has been sent the last time
+         */
+        private long sent;
+
+        /**
+         * When to remove the message
+         */
+        private long expires;
+
+
+        private Shown(String identifier, String message, long sent)
+        {
+            this.identifier = identifier;
+            this.message = message;
+            this.sent = sent;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * This file is part of
+ * ExtraHardMode Server Plugin for Minecraft
+ *
+ * Copyright (C) 2012 Ryan Hamshire
+ * Copyright (C) 2013 Diemex
+ *
+ * ExtraHardMode is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ExtraHardMode is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero Public License
+ * along with ExtraHardMode.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.extrahardmode.module;
+
+
+import com.extrahardmode.service.Feature;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+
+/**
+ * What the {@link BlockPipeline} found out about a block being broken or placed, computed once and shared by all rules
+ * which are called for the event.
+ */
+public class BlockContext
+{
+    /**
+     * Traits of the Material, see {@link #hasTrait(int)}
+     */
+    public static final int LOG = 1, TORCH = 1 << 1, PLANT = 1 << 2;
+
+    private final Block block;
+
+    private final Material material;
+
+    private final int traits;
+
+    private final World world;
+
+    private final String worldName;
+
+    private final World.Environment environment;
+
+    private final Player player;
+
+    /**
+     * Features the player bypasses by ordinal
+     */
+    private final long bypassed;
+
+    private final double playerY;
+
+    private final int playerBlockX, playerBlockY, playerBlockZ;
+
+
+    BlockContext(Block block, Material material, int traits, Player player, long bypassed)
+    {
+        this.block = block;
+        this.material = material;
+        this.traits = traits;
+        this.world = block.getWorld();
+        this.worldName = world.getName();
+        this.environment = world.getEnvironment();
+        this.player = player;
+        this.bypassed = bypassed;
+        //Plugins can call the events without a player
+        final Location location = player != null ? player.getLocation() : block.getLocation();
+        this.playerY = location.getY();
+        this.playerBlockX = location.getBlockX();
+        this.playerBlockY = location.getBlockY();
+        this.playerBlockZ = location.getBlockZ();
+    }
+
+
+    /**
+     * @return block which has been broken or placed
+     */
+    public Block getBlock()
+    {
+        return block;
+    }
+
+
+    /**
+     * @return type of the block when the event was dispatched
+     */
+    public Material getMaterial()
+    {
+        return material;
+    }
+
+
+    /**
+     * Does the Material of the block have a trait
+     *
+     * @param trait one of {@link #LOG}, {@link #TORCH} or {@link #PLANT}
+     */
+    public boolean hasTrait(int trait)
+    {
+        return (traits & trait) != 0;
+    }
+
+
+    public World getWorld()
+    {
+        return world;
+    }
+
+
+    public String getWorldName()
+    {
+        return worldName;
+    }
+
+
+    public World.Environment getEnvironment()
+    {
+        return environment;
+    }
+
+
+    /**
+     * @return player who broke or placed the block, can be null if another plugin called the event
+     */
+    public Player getPlayer()
+    {
+        return player;
+    }
+
+
+    /**
+     * Does the player bypass the feature, same as {@link PlayerModule#playerBypasses(Player, Feature)}
+     */
+    public boolean bypasses(Feature feature)
+    {
+        return (bypassed & (1L << feature.ordinal())) != 0;
+    }
+
+
+    /**
+     * @return exact height of the player's feet, height of the block if there is no player
+     */
+    public double getPlayerY()
+    {
+        return playerY;
+    }
+
+
+    /**
+     * @return block coordinates of the player, the coordinates of the block if there is no player
+     */
+    public int getPlayerBlockX()
+    {
+        return playerBlockX;
+    }
+
+
+    public int getPlayerBlockY()
+    {
+        return playerBlockY;
+    }
+
+
+    public int getPlayerBlockZ()
+    {
+        return playerBlockZ;
+    }
+}
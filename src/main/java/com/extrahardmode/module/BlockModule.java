@@ -85,12 +85,8 @@ public class BlockModule extends EHMModule
      */
     public void physicsCheck(Block block, int recursionCount, boolean forceCheck, int wait)
     {
-        int id = plugin.getServer().getScheduler().scheduleSyncDelayedTask(plugin, new BlockPhysicsCheckTask(plugin, block, recursionCount, forceCheck), wait);
-        // check if it was scheduled. If not, notify in console.
-        if (id == -1)
-        {
-            plugin.getLogger().severe("Failed schedule BlockPhysicsCheck task!");
-        }
+        // dropped if a runaway cascade already has too many checks pending, the scheduler warns about that
+        plugin.getModuleForClass(EhmScheduler.class).runTaskLater("Physics", new BlockPhysicsCheckTask(plugin, block, recursionCount, forceCheck), wait);
     }
 
 
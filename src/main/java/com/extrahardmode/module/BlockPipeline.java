@@ -0,0 +1,478 @@
+/*
+ * This file is part of
+ * ExtraHardMode Server Plugin for Minecraft
+ *
+ * Copyright (C) 2012 Ryan Hamshire
+ * Copyright (C) 2013 Diemex
+ *
+ * ExtraHardMode is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ExtraHardMode is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero Public License
+ * along with ExtraHardMode.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.extrahardmode.module;
+
+
+import com.extrahardmode.ExtraHardMode;
+import com.extrahardmode.module.timings.HandlerTimings;
+import com.extrahardmode.LooseTags;
+import com.extrahardmode.service.BlockBreakRule;
+import com.extrahardmode.service.BlockPlaceRule;
+import com.extrahardmode.service.IModule;
+import com.extrahardmode.service.ListenerModule;
+import org.bukkit.Material;
+import org.bukkit.Tag;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The only BlockBreakEvent and BlockPlaceEvent listener, dispatches them to the {@link BlockBreakRule}s and {@link
+ * BlockPlaceRule}s of the features.
+ * <p/>
+ * The rules are compiled once per world and sorted by EventPriority, rules of features which are disabled in a world
+ * are left out. The {@link BlockContext} with the Material, its traits, the world and what the player bypasses is
+ * computed once per event and shared by all rules of all priorities.
+ * <p/>
+ * Rules run in the order they have been registered within their priority. Once a rule cancels the event the rules
+ * which ignore cancelled events are skipped, like Bukkit would do for a listener. The time spent in each rule is
+ * recorded per world in the {@link TimingsModule} as "Module.rule".
+ */
+public class BlockPipeline extends ListenerModule
+{
+    /**
+     * Marks a Material whose traits have been looked up
+     */
+    private static final int COMPUTED = 1 << 31;
+
+    /**
+     * All registered rules in the order they have been registered
+     */
+    private final List<Registration> registrations = new ArrayList<Registration>();
+
+    /**
+     * Compiled rules by world, compiled on the first event in a world
+     */
+    private final Map<String, Table> tables = new HashMap<String, Table>();
+
+    /**
+     * Traits by ordinal of the Material, looked up on first use
+     */
+    private final int[] traits = new int[Material.values().length];
+
+    /**
+     * The event which has been dispatched last and its context, so the listeners of the other priorities don't have
+     * to compute it again
+     */
+    private Event lastEvent;
+
+    private BlockContext lastContext;
+
+    private PlayerModule playerModule;
+
+    private BlockModule blockModule;
+
+
+    public BlockPipeline(ExtraHardMode plugin)
+    {
+        super(plugin);
+    }
+
+
+    @Override
+    public void starting()
+    {
+        super.starting();
+        playerModule = plugin.getModuleForClass(PlayerModule.class);
+        blockModule = plugin.getModuleForClass(BlockModule.class);
+        //The config might have been reloaded
+        tables.clear();
+    }
+
+
+    @Override
+    public void closing()
+    {
+        super.closing();
+        tables.clear();
+        lastEvent = null;
+        lastContext = null;
+    }
+
+
+    /**
+     * Register a rule for broken blocks
+     *
+     * @param owner           module owning the rule, has to unregister its rules when closing
+     * @param name            name of the rule in the timings
+     * @param priority        priority of the listener the rule replaces
+     * @param ignoreCancelled don't call the rule if the event has been cancelled
+     * @param factory         creates the rule for each world
+     */
+    public void registerBreak(IModule owner, String name, EventPriority priority, boolean ignoreCancelled, BlockBreakRule.Factory factory)
+    {
+        registrations.add(new Registration(owner, timingsFor(owner, name), priority, ignoreCancelled, factory, null));
+        tables.clear();
+    }
+
+
+    /**
+     * Register a rule for placed blocks
+     *
+     * @param owner           module owning the rule, has to unregister its rules when closing
+     * @param name            name of the rule in the timings
+     * @param priority        priority of the listener the rule replaces
+     * @param ignoreCancelled don't call the rule if the event has been cancelled
+     * @param factory         creates the rule for each world
+     */
+    public void registerPlace(IModule owner, String name, EventPriority priority, boolean ignoreCancelled, BlockPlaceRule.Factory factory)
+    {
+        registrations.add(new Registration(owner, timingsFor(owner, name), priority, ignoreCancelled, null, factory));
+        tables.clear();
+    }
+
+
+    private HandlerTimings timingsFor(IModule owner, String name)
+    {
+        TimingsModule timings = plugin.getModuleForClass(TimingsModule.class);
+        return timings != null ? timings.getTimings(owner.getClass().getSimpleName() + '.' + name) : null;
+    }
+
+
+    /**
+     * Remove all rules of a module
+     *
+     * @param owner module which registered the rules
+     */
+    public void unregister(IModule owner)
+    {
+        for (Iterator<Registration> iter = registrations.iterator(); iter.hasNext(); )
+            if (iter.next().owner == owner)
+                iter.remove();
+        tables.clear();
+    }
+
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onBreakLowest(BlockBreakEvent event)
+    {
+        dispatch(event, EventPriority.LOWEST);
+    }
+
+
+    @EventHandler(priority = EventPriority.LOW)
+    public void onBreakLow(BlockBreakEvent event)
+    {
+        dispatch(event, EventPriority.LOW);
+    }
+
+
+    @EventHandler(priority = EventPriority.NORMAL)
+    public void onBreakNormal(BlockBreakEvent event)
+    {
+        dispatch(event, EventPriority.NORMAL);
+    }
+
+
+    @EventHandler(priority = EventPriority.HIGH)
+    public void onBreakHigh(BlockBreakEvent event)
+    {
+        dispatch(event, EventPriority.HIGH);
+    }
+
+
+    @EventHandler(priority = EventPriority.HIGHEST)
+    public void onBreakHighest(BlockBreakEvent event)
+    {
+        dispatch(event, EventPriority.HIGHEST);
+    }
+
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onBreakMonitor(BlockBreakEvent event)
+    {
+        dispatch(event, EventPriority.MONITOR);
+    }
+
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onPlaceLowest(BlockPlaceEvent event)
+    {
+        dispatch(event, EventPriority.LOWEST);
+    }
+
+
+    @EventHandler(priority = EventPriority.LOW)
+    public void onPlaceLow(BlockPlaceEvent event)
+    {
+        dispatch(event, EventPriority.LOW);
+    }
+
+
+    @EventHandler(priority = EventPriority.NORMAL)
+    public void onPlaceNormal(BlockPlaceEvent event)
+    {
+        dispatch(event, EventPriority.NORMAL);
+    }
+
+
+    @EventHandler(priority = EventPriority.HIGH)
+    public void onPlaceHigh(BlockPlaceEvent event)
+    {
+        dispatch(event, EventPriority.HIGH);
+    }
+
+
+    @EventHandler(priority = EventPriority.HIGHEST)
+    public void onPlaceHighest(BlockPlaceEvent event)
+    {
+        dispatch(event, EventPriority.HIGHEST);
+    }
+
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlaceMonitor(BlockPlaceEvent event)
+    {
+        dispatch(event, EventPriority.MONITOR);
+    }
+
+
+    private void dispatch(BlockBreakEvent event, EventPriority priority)
+    {
+        final String world = event.getBlock().getWorld().getName();
+        final Entry[] entries = getTable(world).breakRules[priority.ordinal()];
+        if (entries == null)
+            return;
+        final BlockContext context = getContext(event, event.getBlock(), event.getPlayer());
+        for (Entry entry : entries)
+        {
+            if (skip(entry, event))
+                continue;
+            final long start = System.nanoTime();
+            entry.breakRule.onBreak(event, context);
+            entry.registration.record(world, System.nanoTime() - start);
+        }
+    }
+
+
+    private void dispatch(BlockPlaceEvent event, EventPriority priority)
+    {
+        final String world = event.getBlock().getWorld().getName();
+        final Entry[] entries = getTable(world).placeRules[priority.ordinal()];
+        if (entries == null)
+            return;
+        final BlockContext context = getContext(event, event.getBlock(), event.getPlayer());
+        for (Entry entry : entries)
+        {
+            if (skip(entry, event))
+                continue;
+            final long start = System.nanoTime();
+            entry.placeRule.onPlace(event, context);
+            entry.registration.record(world, System.nanoTime() - start);
+        }
+    }
+
+
+    private static boolean skip(Entry entry, Cancellable event)
+    {
+        return entry.registration.ignoreCancelled && event.isCancelled();
+    }
+
+
+    private BlockContext getContext(Event event, Block block, Player player)
+    {
+        if (event != lastEvent)
+        {
+            final Material material = block.getType();
+            lastEvent = event;
+            lastContext = new BlockContext(block, material, getTraits(material), player, playerModule.getBypassedFeatures(player));
+        }
+        return lastContext;
+    }
+
+
+    /**
+     * Look up the traits of a Material, once per Material
+     */
+    private int getTraits(Material material)
+    {
+        int materialTraits = traits[material.ordinal()];
+        if ((materialTraits & COMPUTED) == 0)
+        {
+            materialTraits = COMPUTED;
+            if (Tag.LOGS.isTagged(material))
+                materialTraits |= BlockContext.LOG;
+            if (LooseTags.TORCH.isTagged(material))
+                materialTraits |= BlockContext.TORCH;
+            if (blockModule.isPlant(material))
+                materialTraits |= BlockContext.PLANT;
+            traits[material.ordinal()] = materialTraits;
+        }
+        return materialTraits;
+    }
+
+
+    private Table getTable(String world)
+    {
+        Table table = tables.get(world);
+        if (table == null)
+        {
+            table = compile(world);
+            tables.put(world, table);
+        }
+        return table;
+    }
+
+
+    /**
+     * Create the rules of all features for the world and sort them by priority
+     */
+    private Table compile(String world)
+    {
+        final int priorities = EventPriority.values().length;
+        List<List<Entry>> breakRules = new ArrayList<List<Entry>>(priorities);
+        List<List<Entry>> placeRules = new ArrayList<List<Entry>>(priorities);
+        for (int i = 0; i < priorities; i++)
+        {
+            breakRules.add(new ArrayList<Entry>());
+            placeRules.add(new ArrayList<Entry>());
+        }
+        for (Registration registration : registrations)
+        {
+            if (registration.breakFactory != null)
+            {
+                BlockBreakRule rule = registration.breakFactory.forWorld(world);
+                if (rule != null) //null if disabled in this world
+                    breakRules.get(registration.priority.ordinal()).add(new Entry(registration, rule, null));
+            } else
+            {
+                BlockPlaceRule rule = registration.placeFactory.forWorld(world);
+                if (rule != null)
+                    placeRules.get(registration.priority.ordinal()).add(new Entry(registration, null, rule));
+            }
+        }
+        return new Table(toArrays(breakRules), toArrays(placeRules));
+    }
+
+
+    /**
+     * @return rules by priority ordinal, null for priorities without rules
+     */
+    private static Entry[][] toArrays(List<List<Entry>> byPriority)
+    {
+        Entry[][] arrays = new Entry[byPriority.size()][];
+        for (int i = 0; i < arrays.length; i++)
+            if (!byPriority.get(i).isEmpty())
+                arrays[i] = byPriority.get(i).toArray(new Entry[byPriority.get(i).size()]);
+        return arrays;
+    }
+
+
+    /**
+     * @return amount of rules which have been registered
+     */
+    public int getRuleCount()
+    {
+        return registrations.size();
+    }
+
+
+    /**
+     * A rule as it has been registered by a feature, also records its timings
+     */
+    private static class Registration
+    {
+        private final IModule owner;
+
+        /**
+         * Where the time spent in the rule is recorded, null without timings
+         */
+        private final HandlerTimings timings;
+
+        private final EventPriority priority;
+
+        private final boolean ignoreCancelled;
+
+        private final BlockBreakRule.Factory breakFactory;
+
+        private final BlockPlaceRule.Factory placeFactory;
+
+
+        private Registration(IModule owner, HandlerTimings timings, EventPriority priority, boolean ignoreCancelled,
+                             BlockBreakRule.Factory breakFactory, BlockPlaceRule.Factory placeFactory)
+        {
+            this.owner = owner;
+            this.timings = timings;
+            this.priority = priority;
+            this.ignoreCancelled = ignoreCancelled;
+            this.breakFactory = breakFactory;
+            this.placeFactory = placeFactory;
+        }
+
+
+        private void record(String world, long nanos)
+        {
+            if (timings != null)
+                timings.record(world, nanos);
+        }
+    }
+
+
+    /**
+     * A rule compiled for a world, either a break or a place rule
+     */
+    private static class Entry
+    {
+        private final Registration registration;
+
+        private final BlockBreakRule breakRule;
+
+        private final BlockPlaceRule placeRule;
+
+
+        private Entry(Registration registration, BlockBreakRule breakRule, BlockPlaceRule placeRule)
+        {
+            this.registration = registration;
+            this.breakRule = breakRule;
+            this.placeRule = placeRule;
+        }
+    }
+
+
+    /**
+     * Rules of one world by priority ordinal
+     */
+    private static class Table
+    {
+        private final Entry[][] breakRules;
+
+        private final Entry[][] placeRules;
+
+
+        private Table(Entry[][] breakRules, Entry[][] placeRules)
+        {
+            this.breakRules = breakRules;
+            this.placeRules = placeRules;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * This file is part of
+ * ExtraHardMode Server Plugin for Minecraft
+ *
+ * Copyright (C) 2012 Ryan Hamshire
+ * Copyright (C) 2013 Diemex
+ *
+ * ExtraHardMode is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ExtraHardMode is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero Public License
+ * along with ExtraHardMode.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.extrahardmode.module;
+
+
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.Player;
+import org.bukkit.entity.Projectile;
+import org.bukkit.event.entity.EntityDamageByEntityEvent;
+import org.bukkit.event.entity.EntityDamageEvent;
+import org.bukkit.event.entity.EntityDamageEvent.DamageCause;
+
+/**
+ * What the {@link CombatPipeline} found out about a damage or death event, computed once and shared by all rules
+ * which are called for the event.
+ */
+public class CombatContext
+{
+    private final String world;
+
+    private final Entity victim;
+
+    private final EntityType victimType;
+
+    private final DamageCause cause;
+
+    private final Entity damager;
+
+    private final Entity attacker;
+
+
+    private CombatContext(Entity victim, EntityDamageEvent damage)
+    {
+        this.world = victim.getWorld().getName();
+        this.victim = victim;
+        this.victimType = victim.getType();
+        this.cause = damage != null ? damage.getCause() : null;
+        this.damager = damage instanceof EntityDamageByEntityEvent ? ((EntityDamageByEntityEvent) damage).getDamager() : null;
+        //The shooter is the one who attacked, not the arrow
+        if (damager instanceof Projectile && ((Projectile) damager).getShooter() instanceof Entity)
+            this.attacker = (Entity) ((Projectile) damager).getShooter();
+        else
+            this.attacker = damager;
+    }
+
+
+    /**
+     * Context of an entity taking damage
+     */
+    static CombatContext ofDamage(EntityDamageEvent event)
+    {
+        return new CombatContext(event.getEntity(), event);
+    }
+
+
+    /**
+     * Context of an entity dying, cause and attacker are those of the last damage it took
+     */
+    static CombatContext ofDeath(Entity victim)
+    {
+        return new CombatContext(victim, victim.getLastDamageCause());
+    }
+
+
+    /**
+     * @return name of the world the victim is in
+     */
+    public String getWorld()
+    {
+        return world;
+    }
+
+
+    /**
+     * @return entity which took the damage or died
+     */
+    public Entity getVictim()
+    {
+        return victim;
+    }
+
+
+    public EntityType getVictimType()
+    {
+        return victimType;
+    }
+
+
+    /**
+     * @return cause of the damage, null if a dead entity didn't take any damage before
+     */
+    public DamageCause getCause()
+    {
+        return cause;
+    }
+
+
+    /**
+     * @return entity which directly caused the damage e.g. an arrow, null if the damage wasn't caused by an entity
+     */
+    public Entity getDamager()
+    {
+        return damager;
+    }
+
+
+    /**
+     * @return entity responsible for the damage, the shooter if the damager was a projectile, null if the damage wasn't
+     * caused by an entity
+     */
+    public Entity getAttacker()
+    {
+        return attacker;
+    }
+
+
+    /**
+     * @return the attacker if it is a player otherwise null
+     */
+    public Player getPlayerAttacker()
+    {
+        return attacker instanceof Player ? (Player) attacker : null;
+    }
+}
@@ -0,0 +1,427 @@
+/*
+ * This file is part of
+ * ExtraHardMode Server Plugin for Minecraft
+ *
+ * Copyright (C) 2012 Ryan Hamshire
+ * Copyright (C) 2013 Diemex
+ *
+ * ExtraHardMode is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ExtraHardMode is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero Public License
+ * along with ExtraHardMode.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.extrahardmode.module;
+
+
+import com.extrahardmode.ExtraHardMode;
+import com.extrahardmode.module.timings.HandlerTimings;
+import com.extrahardmode.service.DamageRule;
+import com.extrahardmode.service.DeathRule;
+import com.extrahardmode.service.IModule;
+import com.extrahardmode.service.ListenerModule;
+import org.apache.commons.lang.Validate;
+import org.bukkit.entity.EntityType;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.entity.EntityDamageEvent;
+import org.bukkit.event.entity.EntityDamageEvent.DamageCause;
+import org.bukkit.event.entity.EntityDeathEvent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The only EntityDamageEvent and EntityDeathEvent listener, dispatches them to the {@link DamageRule}s and {@link
+ * DeathRule}s of the features.
+ * <p/>
+ * Features register their rules for the EntityTypes of the victims and, for damage, the DamageCauses they care about.
+ * The rules are compiled once per world into tables by EntityType and DamageCause, rules of features which are
+ * disabled in a world are left out. Most damage, like fire or drowning ticks, doesn't have any rule and ends after the
+ * lookup. Otherwise the {@link CombatContext} is computed once and shared by all rules of the event.
+ * <p/>
+ * Damage rules run at LOWEST, NORMAL or HIGHEST priority like the listeners they replaced, death rules at NORMAL. Rules
+ * run in the order they have been registered. The time spent in each rule is recorded per world in the {@link
+ * TimingsModule} as "Module.rule".
+ */
+public class CombatPipeline extends ListenerModule
+{
+    /**
+     * Register a damage rule for all DamageCauses
+     */
+    public static final Set<DamageCause> ALL_CAUSES = Collections.unmodifiableSet(EnumSet.allOf(DamageCause.class));
+
+    /**
+     * All registered rules in the order they have been registered
+     */
+    private final List<Registration> registrations = new ArrayList<Registration>();
+
+    /**
+     * Compiled rules by world, compiled on the first event in a world
+     */
+    private final Map<String, Table> tables = new HashMap<String, Table>();
+
+    /**
+     * The damage event which has been dispatched last and its context, so the listeners of the other priorities don't
+     * have to compute it again
+     */
+    private EntityDamageEvent lastEvent;
+
+    private CombatContext lastContext;
+
+
+    public CombatPipeline(ExtraHardMode plugin)
+    {
+        super(plugin);
+    }
+
+
+    @Override
+    public void starting()
+    {
+        super.starting();
+        //The config might have been reloaded
+        tables.clear();
+    }
+
+
+    @Override
+    public void closing()
+    {
+        super.closing();
+        tables.clear();
+        lastEvent = null;
+        lastContext = null;
+    }
+
+
+    /**
+     * Register a damage rule
+     *
+     * @param owner           module owning the rule, has to unregister its rules when closing
+     * @param name            name of the rule in the timings
+     * @param priority        LOWEST, NORMAL or HIGHEST
+     * @param ignoreCancelled don't call the rule if the damage has been cancelled
+     * @param factory         creates the rule for each world
+     * @param causes          DamageCauses the rule is called for
+     * @param types           EntityTypes of the victims the rule is called for
+     */
+    public void registerDamage(IModule owner, String name, EventPriority priority, boolean ignoreCancelled, DamageRule.Factory factory, Set<DamageCause> causes, EntityType... types)
+    {
+        Validate.isTrue(priority == EventPriority.LOWEST || priority == EventPriority.NORMAL || priority == EventPriority.HIGHEST,
+                "Damage rules can only run at LOWEST, NORMAL or HIGHEST priority");
+        Validate.notEmpty(causes, "Damage rules need at least one DamageCause");
+        registrations.add(new Registration(owner, timingsFor(owner, name), priority, ignoreCancelled, factory, null, EnumSet.copyOf(causes), types));
+        tables.clear();
+    }
+
+
+    /**
+     * Register a death rule
+     *
+     * @param owner   module owning the rule, has to unregister its rules when closing
+     * @param name    name of the rule in the timings
+     * @param factory creates the rule for each world
+     * @param types   EntityTypes of the dead entities the rule is called for
+     */
+    public void registerDeath(IModule owner, String name, DeathRule.Factory factory, EntityType... types)
+    {
+        registrations.add(new Registration(owner, timingsFor(owner, name), EventPriority.NORMAL, false, null, factory, null, types));
+        tables.clear();
+    }
+
+
+    private HandlerTimings timingsFor(IModule owner, String name)
+    {
+        TimingsModule timings = plugin.getModuleForClass(TimingsModule.class);
+        return timings != null ? timings.getTimings(owner.getClass().getSimpleName() + '.' + name) : null;
+    }
+
+
+    /**
+     * Remove all rules of a module
+     *
+     * @param owner module which registered the rules
+     */
+    public void unregister(IModule owner)
+    {
+        for (Iterator<Registration> iter = registrations.iterator(); iter.hasNext(); )
+            if (iter.next().owner == owner)
+                iter.remove();
+        tables.clear();
+    }
+
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onDamageLowest(EntityDamageEvent event)
+    {
+        final String world = event.getEntity().getWorld().getName();
+        dispatch(event, world, getTable(world).lowest);
+    }
+
+
+    @EventHandler(priority = EventPriority.NORMAL)
+    public void onDamageNormal(EntityDamageEvent event)
+    {
+        final String world = event.getEntity().getWorld().getName();
+        dispatch(event, world, getTable(world).normal);
+    }
+
+
+    @EventHandler(priority = EventPriority.HIGHEST)
+    public void onDamageHighest(EntityDamageEvent event)
+    {
+        final String world = event.getEntity().getWorld().getName();
+        dispatch(event, world, getTable(world).highest);
+    }
+
+
+    @EventHandler(priority = EventPriority.NORMAL)
+    public void onDeath(EntityDeathEvent event)
+    {
+        final String world = event.getEntity().getWorld().getName();
+        final Entry[] entries = getTable(world).death.get(event.getEntityType());
+        if (entries == null)
+            return;
+        final CombatContext context = CombatContext.ofDeath(event.getEntity());
+        for (Entry entry : entries)
+        {
+            final long start = System.nanoTime();
+            entry.deathRule.onDeath(event, context);
+            entry.registration.record(world, System.nanoTime() - start);
+        }
+    }
+
+
+    private void dispatch(EntityDamageEvent event, String world, Map<EntityType, Entry[][]> byType)
+    {
+        final Entry[][] byCause = byType.get(event.getEntityType());
+        if (byCause == null)
+            return;
+        final Entry[] entries = byCause[event.getCause().ordinal()];
+        if (entries == null)
+            return;
+        if (event != lastEvent)
+        {
+            lastEvent = event;
+            lastContext = CombatContext.ofDamage(event);
+        }
+        final CombatContext context = lastContext;
+        for (Entry entry : entries)
+        {
+            if (entry.registration.ignoreCancelled && event.isCancelled())
+                continue;
+            final long start = System.nanoTime();
+            entry.damageRule.onDamage(event, context);
+            entry.registration.record(world, System.nanoTime() - start);
+        }
+    }
+
+
+    private Table getTable(String world)
+    {
+        Table table = tables.get(world);
+        if (table == null)
+        {
+            table = compile(world);
+            tables.put(world, table);
+        }
+        return table;
+    }
+
+
+    /**
+     * Create the rules of all features for the world and sort them by EntityType and DamageCause
+     */
+    private Table compile(String world)
+    {
+        Map<EntityType, List<Entry>> lowest = new EnumMap<EntityType, List<Entry>>(EntityType.class);
+        Map<EntityType, List<Entry>> normal = new EnumMap<EntityType, List<Entry>>(EntityType.class);
+        Map<EntityType, List<Entry>> highest = new EnumMap<EntityType, List<Entry>>(EntityType.class);
+        Map<EntityType, List<Entry>> death = new EnumMap<EntityType, List<Entry>>(EntityType.class);
+        for (Registration registration : registrations)
+        {
+            Entry entry;
+            Map<EntityType, List<Entry>> byType;
+            if (registration.deathFactory != null)
+            {
+                DeathRule rule = registration.deathFactory.forWorld(world);
+                if (rule == null) //disabled in this world
+                    continue;
+                entry = new Entry(registration, null, rule);
+                byType = death;
+            } else
+            {
+                DamageRule rule = registration.damageFactory.forWorld(world);
+                if (rule == null)
+                    continue;
+                entry = new Entry(registration, rule, null);
+                byType = registration.priority == EventPriority.LOWEST ? lowest : registration.priority == EventPriority.NORMAL ? normal : highest;
+            }
+            for (EntityType type : registration.types)
+            {
+                List<Entry> entries = byType.get(type);
+                if (entries == null)
+                {
+                    entries = new ArrayList<Entry>();
+                    byType.put(type, entries);
+                }
+                entries.add(entry);
+            }
+        }
+        return new Table(byCause(lowest), byCause(normal), byCause(highest), toArrays(death));
+    }
+
+
+    /**
+     * Split the damage rules of each EntityType by the DamageCauses they have been registered for
+     */
+    private static Map<EntityType, Entry[][]> byCause(Map<EntityType, List<Entry>> byType)
+    {
+        final DamageCause[] causes = DamageCause.values();
+        Map<EntityType, Entry[][]> arrays = new EnumMap<EntityType, Entry[][]>(EntityType.class);
+        for (Map.Entry<EntityType, List<Entry>> entries : byType.entrySet())
+        {
+            Entry[][] byCause = new Entry[causes.length][];
+            for (DamageCause cause : causes)
+            {
+                List<Entry> matching = new ArrayList<Entry>();
+                for (Entry entry : entries.getValue())
+                    if (entry.registration.causes.contains(cause))
+                        matching.add(entry);
+                if (!matching.isEmpty())
+                    byCause[cause.ordinal()] = matching.toArray(new Entry[matching.size()]);
+            }
+            arrays.put(entries.getKey(), byCause);
+        }
+        return arrays;
+    }
+
+
+    private static Map<EntityType, Entry[]> toArrays(Map<EntityType, List<Entry>> byType)
+    {
+        Map<EntityType, Entry[]> arrays = new EnumMap<EntityType, Entry[]>(EntityType.class);
+        for (Map.Entry<EntityType, List<Entry>> entries : byType.entrySet())
+            arrays.put(entries.getKey(), entries.getValue().toArray(new Entry[entries.getValue().size()]));
+        return arrays;
+    }
+
+
+    /**
+     * @return amount of rules which have been registered
+     */
+    public int getRuleCount()
+    {
+        return registrations.size();
+    }
+
+
+    /**
+     * A rule as it has been registered by a feature, also records its timings
+     */
+    private static class Registration
+    {
+        private final IModule owner;
+
+        /**
+         * Where the time spent in the rule is recorded, null without timings
+         */
+        private final HandlerTimings timings;
+
+        private final EventPriority priority;
+
+        private final boolean ignoreCancelled;
+
+        private final DamageRule.Factory damageFactory;
+
+        private final DeathRule.Factory deathFactory;
+
+        /**
+         * DamageCauses of a damage rule
+         */
+        private final Set<DamageCause> causes;
+
+        private final EntityType[] types;
+
+
+        private Registration(IModule owner, HandlerTimings timings, EventPriority priority, boolean ignoreCancelled,
+                             DamageRule.Factory damageFactory, DeathRule.Factory deathFactory, Set<DamageCause> causes, EntityType[] types)
+        {
+            this.owner = owner;
+            this.timings = timings;
+            this.priority = priority;
+            this.ignoreCancelled = ignoreCancelled;
+            this.damageFactory = damageFactory;
+            this.deathFactory = deathFactory;
+            this.causes = causes;
+            this.types = types;
+        }
+
+
+        private void record(String world, long nanos)
+        {
+            if (timings != null)
+                timings.record(world, nanos);
+        }
+    }
+
+
+    /**
+     * A rule compiled for a world, either a damage or a death rule
+     */
+    private static class Entry
+    {
+        private final Registration registration;
+
+        private final DamageRule damageRule;
+
+        private final DeathRule deathRule;
+
+
+        private Entry(Registration registration, DamageRule damageRule, DeathRule deathRule)
+        {
+            this.registration = registration;
+            this.damageRule = damageRule;
+            this.deathRule = deathRule;
+        }
+    }
+
+
+    /**
+     * Rules of one world by priority, EntityType and DamageCause
+     */
+    private static class Table
+    {
+        private final Map<EntityType, Entry[][]> lowest;
+
+        private final Map<EntityType, Entry[][]> normal;
+
+        private final Map<EntityType, Entry[][]> highest;
+
+        private final Map<EntityType, Entry[]> death;
+
+
+        private Table(Map<EntityType, Entry[][]> lowest, Map<EntityType, Entry[][]> normal, Map<EntityType, Entry[][]> highest, Map<EntityType, Entry[]> death)
+        {
+            this.lowest = lowest;
+            this.normal = normal;
+            this.highest = highest;
+            this.death = death;
+        }
+    }
+}
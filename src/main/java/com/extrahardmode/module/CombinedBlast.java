@@ -0,0 +1,318 @@
+/*
+ * This file is part of
+ * ExtraHardMode Server Plugin for Minecraft
+ *
+ * Copyright (C) 2012 Ryan Hamshire
+ * Copyright (C) 2013 Diemex
+ *
+ * ExtraHardMode is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ExtraHardMode is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero Public License
+ * along with ExtraHardMode.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.extrahardmode.module;
+
+
+import com.extrahardmode.config.ExplosionProfileTable;
+import com.extrahardmode.config.ExplosionType;
+import org.bukkit.Bukkit;
+import org.bukkit.EntityEffect;
+import org.bukkit.GameMode;
+import org.bukkit.Location;
+import org.bukkit.Particle;
+import org.bukkit.Sound;
+import org.bukkit.World;
+import org.bukkit.attribute.Attribute;
+import org.bukkit.attribute.AttributeInstance;
+import org.bukkit.block.Block;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.HumanEntity;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.event.entity.EntityDamageByBlockEvent;
+import org.bukkit.event.entity.EntityDamageByEntityEvent;
+import org.bukkit.event.entity.EntityDamageEvent;
+import org.bukkit.util.Vector;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Computes multiple overlapping explosions as one blast.
+ * <p/>
+ * Instead of letting every explosion do its own ray casting, fire its own event and damage every entity in range, the
+ * blocks of all blast spheres are collected in one pass (every block is only looked up once) and added to one
+ * blocklist. Entities are damaged once by the explosion that hits them the hardest.
+ */
+public class CombinedBlast
+{
+    /**
+     * Rays per edge of the cube from which rays are cast, same as vanilla
+     */
+    private static final int RAYS_PER_EDGE = 16;
+
+    /**
+     * Normalized directions of all rays, they are the same for every explosion
+     */
+    private static final Vector[] RAYS;
+
+
+    static
+    {
+        List<Vector> rays = new ArrayList<Vector>();
+        for (int x = 0; x < RAYS_PER_EDGE; x++)
+            for (int y = 0; y < RAYS_PER_EDGE; y++)
+                for (int z = 0; z < RAYS_PER_EDGE; z++)
+                    //only the outer shell of the cube
+                    if (x == 0 || x == RAYS_PER_EDGE - 1 || y == 0 || y == RAYS_PER_EDGE - 1 || z == 0 || z == RAYS_PER_EDGE - 1)
+                    {
+                        Vector ray = new Vector(
+                                x / (RAYS_PER_EDGE - 1.0) * 2.0 - 1.0,
+                                y / (RAYS_PER_EDGE - 1.0) * 2.0 - 1.0,
+                                z / (RAYS_PER_EDGE - 1.0) * 2.0 - 1.0);
+                        rays.add(ray.normalize());
+                    }
+        RAYS = rays.toArray(new Vector[rays.size()]);
+    }
+
+
+    private final World world;
+
+    private final Location[] centers;
+
+    private final float[] powers;
+
+    private final boolean worldDamage;
+
+    /**
+     * Blocks looked up so far by their packed coordinates, null if the block absorbs nothing (air)
+     */
+    private final Map<Long, Block> blockCache = new HashMap<Long, Block>();
+
+
+    /**
+     * Constructor
+     *
+     * @param centers     centers of the explosions, all in the same world
+     * @param type        determines the power of each explosion
+     * @param profiles    compiled explosion settings of the world
+     * @param worldDamage if the blast destroys blocks, decided by the explosion it originates from
+     */
+    public CombinedBlast(Location[] centers, ExplosionType type, ExplosionProfileTable profiles, boolean worldDamage)
+    {
+        this.world = centers[0].getWorld();
+        this.centers = centers;
+        this.powers = new float[centers.length];
+        for (int i = 0; i < centers.length; i++)
+            powers[i] = profiles.get(type, centers[i].getY()).getPower();
+        this.worldDamage = worldDamage;
+    }
+
+
+    /**
+     * @return if the blast destroys blocks
+     */
+    public boolean isWorldDamage()
+    {
+        return worldDamage;
+    }
+
+
+    /**
+     * Cast the rays of all explosions and add the destroyed blocks to the given list, blocks already in the list are
+     * not added again
+     *
+     * @param blockList list to add to, usually the blockList() of an EntityExplodeEvent
+     * @param random    random to vary the intensity of each ray
+     */
+    public void addBlocksTo(List<Block> blockList, Random random)
+    {
+        final Set<Block> blocks = new HashSet<Block>(blockList);
+        final int minY = world.getMinHeight();
+        final int maxY = world.getMaxHeight();
+        for (int i = 0; i < centers.length; i++)
+        {
+            final Location center = centers[i];
+            for (Vector ray : RAYS)
+            {
+                float intensity = powers[i] * (0.7F + random.nextFloat() * 0.6F);
+                double x = center.getX(), y = center.getY(), z = center.getZ();
+                while (intensity > 0.0F)
+                {
+                    final int bx = (int) Math.floor(x), by = (int) Math.floor(y), bz = (int) Math.floor(z);
+                    if (by < minY || by >= maxY)
+                        break;
+                    final Block block = getBlock(bx, by, bz);
+                    if (block != null)
+                    {
+                        intensity -= (block.getType().getBlastResistance() + 0.3F) * 0.3F;
+                        if (intensity > 0.0F && blocks.add(block))
+                            blockList.add(block);
+                    }
+                    x += ray.getX() * 0.3;
+                    y += ray.getY() * 0.3;
+                    z += ray.getZ() * 0.3;
+                    intensity -= 0.22500001F;
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Get a block from the cache, air is cached as null
+     */
+    private Block getBlock(int x, int y, int z)
+    {
+        final long key = ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+        if (blockCache.containsKey(key))
+            return blockCache.get(key);
+        Block block = world.getBlockAt(x, y, z);
+        if (block.getType().isAir())
+            block = null;
+        blockCache.put(key, block);
+        return block;
+    }
+
+
+    /**
+     * Damage and knock back every living entity in range once, by the explosion which hits it the hardest. Also plays
+     * the explosion effects.
+     *
+     * @param source entity which caused the explosion, won't be damaged
+     */
+    public void damageEntities(Entity source)
+    {
+        float maxPower = 0.0F;
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, minZ = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE, maxZ = -Double.MAX_VALUE;
+        for (int i = 0; i < centers.length; i++)
+        {
+            Location center = centers[i];
+            maxPower = Math.max(maxPower, powers[i]);
+            minX = Math.min(minX, center.getX());
+            minY = Math.min(minY, center.getY());
+            minZ = Math.min(minZ, center.getZ());
+            maxX = Math.max(maxX, center.getX());
+            maxY = Math.max(maxY, center.getY());
+            maxZ = Math.max(maxZ, center.getZ());
+            world.spawnParticle(Particle.EXPLOSION_LARGE, center, 1);
+            world.playSound(center, Sound.ENTITY_GENERIC_EXPLODE, 4.0F, 0.7F + (float) Math.random() * 0.2F);
+        }
+        if (maxPower <= 0.0F)
+            return;
+
+        //One lookup for all explosions
+        final double range = maxPower * 2.0;
+        final Location middle = new Location(world, (minX + maxX) / 2, (minY + maxY) / 2, (minZ + maxZ) / 2);
+        final Collection<Entity> nearby = world.getNearbyEntities(middle,
+                (maxX - minX) / 2 + range, (maxY - minY) / 2 + range, (maxZ - minZ) / 2 + range);
+
+        for (Entity entity : nearby)
+        {
+            if (entity == source || !(entity instanceof LivingEntity) || entity.isDead())
+                continue;
+            LivingEntity living = (LivingEntity) entity;
+
+            //Find the explosion which hits this entity the hardest
+            double bestImpact = 0.0;
+            int best = -1;
+            for (int i = 0; i < centers.length; i++)
+            {
+                final double diameter = powers[i] * 2.0;
+                final double distance = living.getLocation().distance(centers[i]) / diameter;
+                if (distance <= 1.0 && 1.0 - distance > bestImpact)
+                {
+                    bestImpact = 1.0 - distance;
+                    best = i;
+                }
+            }
+            if (best == -1)
+                continue;
+
+            final double impact = bestImpact * getExposure(centers[best], living);
+            if (impact <= 0.0)
+                continue;
+            final double damage = (int) ((impact * impact + impact) / 2.0 * 7.0 * (powers[best] * 2.0) + 1.0);
+            if (!damageByExplosion(living, source, damage))
+                continue;
+
+            Vector knockback = living.getLocation().toVector().subtract(centers[best].toVector());
+            if (knockback.lengthSquared() > 0)
+                living.setVelocity(living.getVelocity().add(knockback.normalize().multiply(impact)));
+        }
+    }
+
+
+    /**
+     * Damage the entity as an explosion would. LivingEntity#damage(double, Entity) would fire an ENTITY_ATTACK event,
+     * so the event is fired with the explosion cause and the damage applied to the health directly, reduced by armor
+     * like vanilla does it.
+     *
+     * @return false if the damage has been cancelled
+     */
+    private boolean damageByExplosion(LivingEntity living, Entity source, double damage)
+    {
+        if (living.isInvulnerable() || living instanceof HumanEntity
+                && (((HumanEntity) living).getGameMode() == GameMode.CREATIVE || ((HumanEntity) living).getGameMode() == GameMode.SPECTATOR))
+            return false;
+        final EntityDamageEvent event = source != null
+                ? new EntityDamageByEntityEvent(source, living, EntityDamageEvent.DamageCause.ENTITY_EXPLOSION, damage)
+                : new EntityDamageByBlockEvent(null, living, EntityDamageEvent.DamageCause.BLOCK_EXPLOSION, damage);
+        Bukkit.getPluginManager().callEvent(event);
+        if (event.isCancelled())
+            return false;
+
+        //Same reduction as vanilla armor, toughness makes armor more effective against big hits
+        final AttributeInstance armorAttr = living.getAttribute(Attribute.GENERIC_ARMOR);
+        final AttributeInstance toughnessAttr = living.getAttribute(Attribute.GENERIC_ARMOR_TOUGHNESS);
+        final double armor = armorAttr != null ? armorAttr.getValue() : 0.0;
+        final double toughness = toughnessAttr != null ? toughnessAttr.getValue() : 0.0;
+        final double finalDamage = event.getDamage();
+        final double effectiveArmor = Math.min(20.0, Math.max(armor / 5.0, armor - finalDamage / (2.0 + toughness / 4.0)));
+        final double reduced = finalDamage * (1.0 - effectiveArmor / 25.0);
+
+        living.setLastDamageCause(event);
+        living.playEffect(EntityEffect.HURT);
+        living.setHealth(Math.max(0.0, living.getHealth() - reduced));
+        return true;
+    }
+
+
+    /**
+     * How much of the entity is exposed to the explosion, checks if feet and eyes can be seen from the center
+     *
+     * @return 0, 0.5 or 1
+     */
+    private double getExposure(Location center, LivingEntity entity)
+    {
+        double exposure = 0.0;
+        if (isVisible(center, entity.getLocation()))
+            exposure += 0.5;
+        if (isVisible(center, entity.getEyeLocation()))
+            exposure += 0.5;
+        return exposure;
+    }
+
+
+    private boolean isVisible(Location from, Location to)
+    {
+        Vector direction = to.toVector().subtract(from.toVector());
+        final double distance = direction.length();
+        return distance == 0 || world.rayTraceBlocks(from, direction.normalize(), distance) == null;
+    }
+}
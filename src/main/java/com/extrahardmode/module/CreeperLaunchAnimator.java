@@ -0,0 +1,257 @@
+/*
+ * This file is part of
+ * ExtraHardMode Server Plugin for Minecraft
+ *
+ * Copyright (C) 2012 Ryan Hamshire
+ * Copyright (C) 2013 Diemex
+ *
+ * ExtraHardMode is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ExtraHardMode is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero Public License
+ * along with ExtraHardMode.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.extrahardmode.module;
+
+
+import com.extrahardmode.ExtraHardMode;
+import com.extrahardmode.config.ExplosionType;
+import com.extrahardmode.config.RootConfig;
+import com.extrahardmode.config.RootNode;
+import com.extrahardmode.service.EHMModule;
+import org.bukkit.FireworkEffect;
+import org.bukkit.Location;
+import org.bukkit.entity.Creeper;
+import org.bukkit.entity.Entity;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Launches burning creepers into the air with fireworks and lets them explode midair.
+ * <p/>
+ * All launches are animated by one repeating task, which only runs while there are creepers in the air. Each launch
+ * only stores the uuid of the creeper and is dropped as soon as the creeper is no longer valid (died, chunk unloaded).
+ * <pre>
+ * tick 5, 10, 15...   fireworks (one per configured firework)
+ * + 3                 launch: creeper stops targeting
+ * + 1, 2, 4, 7        creeper rises
+ * + 8                 creeper explodes
+ * </pre>
+ */
+public class CreeperLaunchAnimator extends EHMModule implements Runnable
+{
+    /**
+     * Max creepers in the air at the same time, further creepers explode without the show
+     */
+    private static final int MAX_ANIMATIONS = 32;
+
+    private static final int TICKS_BETWEEN_FIREWORKS = 5;
+
+    private static final int TICKS_BEFORE_CATAPULT = 3;
+
+    private static final int TICKS_BEFORE_SUICIDE = 8;
+
+    /**
+     * Ticks after the catapult at which the creeper gets pushed upwards
+     */
+    private static final int[] RISE_TICKS = {1, 2, 4, 7};
+
+    private RootConfig CFG;
+
+    private UtilityModule utils;
+
+    /**
+     * Active launches, only the first {@link #size} entries are used
+     */
+    private UUID[] creepers = new UUID[8];
+
+    private Location[] origins = new Location[8];
+
+    /**
+     * Ticks since the launch started
+     */
+    private int[] ticks = new int[8];
+
+    /**
+     * Tick at which the creeper gets catapulted, depends on the amount of fireworks
+     */
+    private int[] catapultTicks = new int[8];
+
+    private double[] ascendSpeeds = new double[8];
+
+    private int size = 0;
+
+    private int taskId = -1;
+
+
+    /**
+     * Constructor.
+     *
+     * @param plugin - Plugin instance.
+     */
+    public CreeperLaunchAnimator(ExtraHardMode plugin)
+    {
+        super(plugin);
+    }
+
+
+    @Override
+    public void starting()
+    {
+        CFG = plugin.getModuleForClass(RootConfig.class);
+        utils = plugin.getModuleForClass(UtilityModule.class);
+    }
+
+
+    @Override
+    public void closing()
+    {
+        if (taskId != -1)
+        {
+            plugin.getModuleForClass(EhmScheduler.class).cancelTask(taskId);
+            taskId = -1;
+        }
+        Arrays.fill(creepers, 0, size, null);
+        Arrays.fill(origins, 0, size, null);
+        size = 0;
+    }
+
+
+    /**
+     * Launch a creeper into the air
+     *
+     * @param creeper creeper to launch
+     */
+    public void launch(Creeper creeper)
+    {
+        final String world = creeper.getWorld().getName();
+        if (size >= MAX_ANIMATIONS)
+        {
+            explode(creeper);
+            return;
+        }
+        if (size == creepers.length)
+            grow();
+
+        final int fireworks = CFG.getInt(RootNode.FLAMING_CREEPERS_FIREWORK, world);
+        creepers[size] = creeper.getUniqueId();
+        origins[size] = creeper.getLocation();
+        ticks[size] = 0;
+        catapultTicks[size] = fireworks * TICKS_BETWEEN_FIREWORKS + TICKS_BEFORE_CATAPULT;
+        ascendSpeeds[size] = CFG.getDouble(RootNode.FLAMING_CREEPERS_ROCKET, world);
+        size++;
+
+        if (taskId == -1)
+            taskId = plugin.getModuleForClass(EhmScheduler.class).runTaskTimer("BumBumBens", this, 1L, 1L);
+    }
+
+
+    /**
+     * Advance all launches by one tick
+     */
+    @Override
+    public void run()
+    {
+        for (int i = 0; i < size; )
+        {
+            final Entity entity = plugin.getServer().getEntity(creepers[i]);
+            if (!(entity instanceof Creeper) || !entity.isValid() || advance(i, (Creeper) entity))
+                remove(i); //the last state has been moved to i
+            else
+                i++;
+        }
+        if (size == 0 && taskId != -1)
+        {
+            plugin.getModuleForClass(EhmScheduler.class).cancelTask(taskId);
+            taskId = -1;
+        }
+    }
+
+
+    /**
+     * Advance one launch
+     *
+     * @return true if the launch is done
+     */
+    private boolean advance(int i, Creeper creeper)
+    {
+        final int tick = ++ticks[i];
+        final int catapult = catapultTicks[i];
+        if (tick < catapult)
+        {
+            //Everyone loves fireworks
+            if (tick % TICKS_BETWEEN_FIREWORKS == 0)
+                utils.fireWorkRandomColors(FireworkEffect.Type.CREEPER, origins[i]);
+        } else if (tick == catapult)
+        {
+            //Catapult into air and explode midair
+            creeper.setTarget(null);
+        } else if (tick < catapult + TICKS_BEFORE_SUICIDE)
+        {
+            //slowly float upwards
+            if (Arrays.binarySearch(RISE_TICKS, tick - catapult) >= 0)
+                creeper.setVelocity(creeper.getVelocity().setY(ascendSpeeds[i]));
+        } else
+        {
+            explode(creeper);
+            return true;
+        }
+        return false;
+    }
+
+
+    /**
+     * Creeper explodes in midair
+     */
+    private void explode(Creeper creeper)
+    {
+        if (!creeper.isDead() && CFG.getBoolean(RootNode.EXPLOSIONS_CREEPERS_ENABLE, creeper.getWorld().getName()))
+            plugin.getModuleForClass(ExplosionGovernor.class).detonate(creeper.getLocation(), ExplosionType.CREEPER, creeper);
+        creeper.remove();
+    }
+
+
+    /**
+     * Remove a launch by moving the last one into its place
+     */
+    private void remove(int i)
+    {
+        final int last = --size;
+        creepers[i] = creepers[last];
+        origins[i] = origins[last];
+        ticks[i] = ticks[last];
+        catapultTicks[i] = catapultTicks[last];
+        ascendSpeeds[i] = ascendSpeeds[last];
+        creepers[last] = null;
+        origins[last] = null;
+    }
+
+
+    private void grow()
+    {
+        final int capacity = Math.min(creepers.length * 2, MAX_ANIMATIONS);
+        creepers = Arrays.copyOf(creepers, capacity);
+        origins = Arrays.copyOf(origins, capacity);
+        ticks = Arrays.copyOf(ticks, capacity);
+        catapultTicks = Arrays.copyOf(catapultTicks, capacity);
+        ascendSpeeds = Arrays.copyOf(ascendSpeeds, capacity);
+    }
+
+
+    /**
+     * @return creepers which are currently being launched
+     */
+    public int getActiveCount()
+    {
+        return size;
+    }
+}
@@ -29,7 +29,6 @@ import org.bukkit.Location;
 import org.bukkit.entity.Player;
 
 import java.util.AbstractMap.SimpleEntry;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -45,9 +44,6 @@ public class DataStoreModule extends EHMModule
     /** List of previous locations. */
     private final List<SimpleEntry<Player, Location>> previousLocations = new CopyOnWriteArrayList<SimpleEntry<Player, Location>>();
 
-    /** List of Players fighting the dragon */
-    private final List<String> playersFightingDragon = new ArrayList<String>();
-
     /** Config */
     private RootConfig CFG;
 
@@ -88,7 +84,6 @@ public class DataStoreModule extends EHMModule
     {
         playerNameToPlayerDataMap.clear();
         previousLocations.clear();
-        playersFightingDragon.clear();
     }
 
 
@@ -126,15 +121,4 @@ public class DataStoreModule extends EHMModule
         return previousLocations;
     }
 
-
-    /**
-     * Gets all Players fighting the Dragon
-     *
-     * @return List containing all Playernames
-     */
-    public List<String> getPlayers()
-    {
-        return playersFightingDragon;
-    }
-
 }
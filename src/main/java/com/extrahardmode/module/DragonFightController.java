@@ -0,0 +1,375 @@
+/*
+ * This file is part of
+ * ExtraHardMode Server Plugin for Minecraft
+ *
+ * Copyright (C) 2012 Ryan Hamshire
+ * Copyright (C) 2013 Diemex
+ *
+ * ExtraHardMode is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ExtraHardMode is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero Public License
+ * along with ExtraHardMode.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.extrahardmode.module;
+
+
+import com.extrahardmode.ExtraHardMode;
+import com.extrahardmode.config.RootConfig;
+import com.extrahardmode.config.RootNode;
+import com.extrahardmode.service.EHMModule;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.EnderDragon;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.Fireball;
+import org.bukkit.entity.Player;
+import org.bukkit.util.Vector;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Runs the additional attacks of the dragon, one fight per End world.
+ * <p/>
+ * Hitting the dragon only adds the player to the fight and queues fireballs against him, the fireballs are fired by one
+ * repeating task which ticks once per second while there is a fight going on, so the amount of tasks doesn't depend on
+ * how fast the dragon is being hit. The amount of queued fireballs per player and of fireballs per second can be capped
+ * in the config, by default neither is capped.
+ */
+public class DragonFightController extends EHMModule implements Runnable
+{
+    /**
+     * Fireballs a hit on the dragon adds to the pending attacks of the player
+     */
+    private static final int ATTACKS_PER_HIT = 5;
+
+    /**
+     * The fireballs of a hit are fired within this many seconds
+     */
+    private static final int HIT_ATTACK_SPREAD = 15;
+
+    /**
+     * Seconds after which the attack pattern adds fireballs again for every combatant
+     */
+    private static final int PATTERN_INTERVAL = 30;
+
+    /**
+     * Fireballs the attack pattern adds
+     */
+    private static final int ATTACKS_PER_PATTERN = 3;
+
+    private RootConfig CFG;
+
+    /**
+     * Fights by End world
+     */
+    private final Map<UUID, Fight> fights = new HashMap<UUID, Fight>();
+
+    /**
+     * Seconds since the task started
+     */
+    private int second = 0;
+
+    private int taskId = -1;
+
+
+    /**
+     * Constructor.
+     *
+     * @param plugin - Plugin instance.
+     */
+    public DragonFightController(ExtraHardMode plugin)
+    {
+        super(plugin);
+    }
+
+
+    @Override
+    public void starting()
+    {
+        CFG = plugin.getModuleForClass(RootConfig.class);
+    }
+
+
+    @Override
+    public void closing()
+    {
+        if (taskId != -1)
+        {
+            plugin.getModuleForClass(EhmScheduler.class).cancelTask(taskId);
+            taskId = -1;
+        }
+        fights.clear();
+    }
+
+
+    /**
+     * A player hit the dragon, join him to the fight and give the dragon some more attacks against him
+     *
+     * @param dragon the dragon that was hit
+     * @param player player who hit the dragon
+     *
+     * @return true if the player just joined the fight
+     */
+    public boolean engage(EnderDragon dragon, Player player)
+    {
+        Fight fight = fights.get(dragon.getWorld().getUID());
+        if (fight == null || !fight.dragon.equals(dragon.getUniqueId()))
+        {
+            fight = new Fight(dragon.getUniqueId());
+            fights.put(dragon.getWorld().getUID(), fight);
+        }
+
+        Combatant combatant = fight.combatants.get(player.getUniqueId());
+        final boolean joined = combatant == null;
+        if (joined)
+        {
+            //the hit already queues fireballs, the pattern kicks in after its interval
+            combatant = new Combatant(player.getName(), second + PATTERN_INTERVAL);
+            fight.combatants.put(player.getUniqueId(), combatant);
+        }
+        final int maxPending = CFG.getInt(RootNode.ENDER_DRAGON_MAX_PENDING_ATTACKS, dragon.getWorld().getName());
+        for (int i = 0; i < ATTACKS_PER_HIT; i++)
+            combatant.queue(second + plugin.getRandom().nextInt(HIT_ATTACK_SPREAD), maxPending);
+
+        if (taskId == -1)
+            taskId = plugin.getModuleForClass(EhmScheduler.class).runTaskTimer("Glydia", this, 20L, 20L);
+        return joined;
+    }
+
+
+    /**
+     * A player died or left the End, he is no longer fighting and the dragon regains some health
+     *
+     * @param player defeated player
+     * @param world  world the player was fighting in
+     *
+     * @return true if the player was fighting the dragon
+     */
+    public boolean defeated(Player player, World world)
+    {
+        final Fight fight = fights.get(world.getUID());
+        if (fight == null || fight.combatants.remove(player.getUniqueId()) == null)
+            return false;
+        final Entity dragon = plugin.getServer().getEntity(fight.dragon);
+        if (dragon instanceof EnderDragon && dragon.isValid())
+            heal((EnderDragon) dragon);
+        return true;
+    }
+
+
+    /**
+     * Is this player fighting the dragon in the given world
+     */
+    public boolean isFighting(Player player, World world)
+    {
+        final Fight fight = fights.get(world.getUID());
+        return fight != null && fight.combatants.containsKey(player.getUniqueId());
+    }
+
+
+    /**
+     * Get the names of all players fighting the dragon in the given world, in the order they joined
+     */
+    public List<String> getCombatantNames(World world)
+    {
+        final List<String> names = new ArrayList<String>();
+        final Fight fight = fights.get(world.getUID());
+        if (fight != null)
+            for (Combatant combatant : fight.combatants.values())
+                names.add(combatant.name);
+        return names;
+    }
+
+
+    /**
+     * The dragon died, the fight is over
+     */
+    public void endFight(World world)
+    {
+        fights.remove(world.getUID());
+    }
+
+
+    /**
+     * @return amount of worlds where the dragon is being fought
+     */
+    public int getFightCount()
+    {
+        return fights.size();
+    }
+
+
+    @Override
+    public void run()
+    {
+        second++;
+        for (Iterator<Fight> iter = fights.values().iterator(); iter.hasNext(); )
+        {
+            final Fight fight = iter.next();
+            final Entity entity = plugin.getServer().getEntity(fight.dragon);
+            if (!(entity instanceof EnderDragon) || !entity.isValid() || fight.combatants.isEmpty())
+            {
+                iter.remove();
+                continue;
+            }
+            tick(fight, (EnderDragon) entity);
+        }
+        if (fights.isEmpty() && taskId != -1)
+        {
+            plugin.getModuleForClass(EhmScheduler.class).cancelTask(taskId);
+            taskId = -1;
+        }
+    }
+
+
+    /**
+     * One second of a fight
+     */
+    private void tick(Fight fight, EnderDragon dragon)
+    {
+        final String world = dragon.getWorld().getName();
+        final int maxPending = CFG.getInt(RootNode.ENDER_DRAGON_MAX_PENDING_ATTACKS, world);
+        final int maxPerSecond = CFG.getInt(RootNode.ENDER_DRAGON_MAX_ATTACKS_PER_SECOND, world);
+        int budget = maxPerSecond > 0 ? maxPerSecond : Integer.MAX_VALUE;
+        for (Iterator<Map.Entry<UUID, Combatant>> iter = fight.combatants.entrySet().iterator(); iter.hasNext(); )
+        {
+            final Map.Entry<UUID, Combatant> entry = iter.next();
+            final Combatant combatant = entry.getValue();
+            final Player player = plugin.getServer().getPlayer(entry.getKey());
+
+            // if the player has been defeated
+            if (player == null || player.isDead() || player.getWorld() != dragon.getWorld())
+            {
+                iter.remove();
+                heal(dragon);
+                continue;
+            }
+
+            if (second >= combatant.nextPattern)
+            {
+                for (int i = 0; i < ATTACKS_PER_PATTERN; i++)
+                    combatant.queue(second + i, maxPending);
+                combatant.nextPattern = second + PATTERN_INTERVAL;
+            }
+
+            //attacks over the budget stay due and are fired in one of the next seconds
+            for (Iterator<Integer> attacks = combatant.attacks.iterator(); budget > 0 && attacks.hasNext(); )
+            {
+                if (attacks.next() <= second)
+                {
+                    fireball(dragon, player);
+                    budget--;
+                    attacks.remove();
+                }
+            }
+        }
+    }
+
+
+    /**
+     * The dragon shoots a fireball at the player or the ground below itself
+     */
+    private void fireball(EnderDragon dragon, Player player)
+    {
+        final World world = dragon.getWorld();
+        final Location dragonLocation = dragon.getLocation();
+
+        Location targetLocation;
+        if (plugin.random(20))
+            targetLocation = world.getHighestBlockAt(dragonLocation).getLocation();
+        else
+            targetLocation = player.getLocation();
+
+        targetLocation.add(plugin.getRandom().nextInt(10) - 5, plugin.getRandom().nextInt(3) - 1, plugin.getRandom().nextInt(10) - 5);
+
+        Vector vector = targetLocation.toVector().subtract(dragonLocation.toVector());
+
+        Fireball fireball = (Fireball) world.spawnEntity(dragonLocation, EntityType.FIREBALL);
+        fireball.setShooter(dragon);
+        fireball.setDirection(vector);
+    }
+
+
+    /**
+     * Restore some of the dragon's health
+     */
+    private static void heal(EnderDragon dragon)
+    {
+        dragon.setHealth(Math.min(dragon.getMaxHealth(), (int) (dragon.getHealth() + dragon.getMaxHealth() * 0.25)));
+    }
+
+
+    /**
+     * The dragon of one world and the players fighting it
+     */
+    private static class Fight
+    {
+        private final UUID dragon;
+
+        /**
+         * Players by uuid, in the order they joined
+         */
+        private final Map<UUID, Combatant> combatants = new LinkedHashMap<UUID, Combatant>();
+
+
+        private Fight(UUID dragon)
+        {
+            this.dragon = dragon;
+        }
+    }
+
+
+    /**
+     * A player fighting the dragon
+     */
+    private static class Combatant
+    {
+        private final String name;
+
+        /**
+         * Seconds at which the fireballs still to be fired at this player are due
+         */
+        private final List<Integer> attacks = new ArrayList<Integer>();
+
+        /**
+         * Second at which the attack pattern adds fireballs again
+         */
+        private int nextPattern;
+
+
+        private Combatant(String name, int nextPattern)
+        {
+            this.name = name;
+            this.nextPattern = nextPattern;
+        }
+
+
+        /**
+         * Queue a fireball unless the player already has the max amount of pending fireballs
+         *
+         * @param due        second at which the fireball is fired
+         * @param maxPending max pending fireballs, 0 for no limit
+         */
+        private void queue(int due, int maxPending)
+        {
+            if (maxPending <= 0 || attacks.size() < maxPending)
+                attacks.add(due);
+        }
+    }
+}
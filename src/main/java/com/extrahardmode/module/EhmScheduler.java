@@ -0,0 +1,444 @@
+/*
+ * This file is part of
+ * ExtraHardMode Server Plugin for Minecraft
+ *
+ * Copyright (C) 2012 Ryan Hamshire
+ * Copyright (C) 2013 Diemex
+ *
+ * ExtraHardMode is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ExtraHardMode is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero Public License
+ * along with ExtraHardMode.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.extrahardmode.module;
+
+
+import com.extrahardmode.ExtraHardMode;
+import com.extrahardmode.module.timings.HandlerTimings;
+import com.extrahardmode.service.EHMModule;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Schedules the tasks of all our features, so we know how many tasks are pending and who created them.
+ * <p/>
+ * Every task is tagged with the feature which scheduled it. Per feature we count the scheduled, executed, cancelled and
+ * pending tasks and the time they took, the time is also recorded in the {@link TimingsModule}. A feature can't have
+ * more than {@link #MAX_PENDING} tasks pending, further tasks are rejected, so a cascade of tasks scheduling more tasks
+ * can't flood the server. Features whose tasks have to run, like loading the data of a player, are exempted with
+ * {@link #exemptFromCap(String)}. Tasks have to be cancelled through {@link #cancelTask(int)} to be counted as cancelled.
+ */
+public class EhmScheduler extends EHMModule
+{
+    /**
+     * Max tasks a feature may have pending at the same time
+     */
+    public static final int MAX_PENDING = 1000;
+
+    /**
+     * Min time between two warnings about rejected tasks of a feature
+     */
+    private static final long REJECT_WARN_INTERVAL = 60000L;
+
+    /**
+     * Counters by feature, in the order the features scheduled their first task
+     */
+    private final Map<String, FeatureTasks> features = new LinkedHashMap<String, FeatureTasks>();
+
+    /**
+     * Pending tasks by their id
+     */
+    private final Map<Integer, Task> tasks = new HashMap<Integer, Task>();
+
+    private TimingsModule timings;
+
+
+    /**
+     * Constructor.
+     *
+     * @param plugin - Plugin instance.
+     */
+    public EhmScheduler(ExtraHardMode plugin)
+    {
+        super(plugin);
+    }
+
+
+    @Override
+    public void starting()
+    {
+        timings = plugin.getModuleForClass(TimingsModule.class);
+    }
+
+
+    /**
+     * The modules cancel their own tasks, tasks which are still pending after a reload will run as usual
+     */
+    @Override
+    public void closing()
+    {
+    }
+
+
+    /**
+     * Never reject tasks of the given feature, for tasks which are expected to run and can't cascade
+     *
+     * @param feature feature to exempt
+     */
+    public synchronized void exemptFromCap(String feature)
+    {
+        getStats(feature).capped = false;
+    }
+
+
+    /**
+     * Run a task on the next tick
+     *
+     * @param feature feature the task belongs to
+     * @param task    task to run
+     *
+     * @return id of the task, -1 if the feature has too many pending tasks
+     */
+    public int runTask(String feature, Runnable task)
+    {
+        return schedule(feature, task, 0L, -1L, false);
+    }
+
+
+    /**
+     * Run a task after the given amount of ticks
+     *
+     * @return id of the task, -1 if the feature has too many pending tasks
+     */
+    public int runTaskLater(String feature, Runnable task, long delay)
+    {
+        return schedule(feature, task, delay, -1L, false);
+    }
+
+
+    /**
+     * Run a task repeatedly until it is cancelled, it counts as one pending task
+     *
+     * @return id of the task, -1 if the feature has too many pending tasks
+     */
+    public int runTaskTimer(String feature, Runnable task, long delay, long period)
+    {
+        return schedule(feature, task, delay, period, false);
+    }
+
+
+    /**
+     * Run a task off the main thread, its time isn't recorded in the timings
+     *
+     * @return id of the task, -1 if the feature has too many pending tasks
+     */
+    public int runTaskAsynchronously(String feature, Runnable task)
+    {
+        return schedule(feature, task, 0L, -1L, true);
+    }
+
+
+    /**
+     * Cancel a task scheduled through this scheduler
+     *
+     * @param taskId id of the task
+     */
+    public void cancelTask(int taskId)
+    {
+        synchronized (this)
+        {
+            final Task task = tasks.remove(taskId);
+            if (task != null)
+            {
+                task.stats.cancelled++;
+                task.stats.pending--;
+            }
+        }
+        plugin.getServer().getScheduler().cancelTask(taskId);
+    }
+
+
+    private int schedule(String feature, Runnable runnable, long delay, long period, boolean async)
+    {
+        final FeatureTasks stats;
+        synchronized (this)
+        {
+            stats = getStats(feature);
+            if (stats.capped && stats.pending >= MAX_PENDING)
+            {
+                stats.rejected++;
+                final long now = System.currentTimeMillis();
+                if (now - stats.lastWarning >= REJECT_WARN_INTERVAL)
+                {
+                    plugin.getLogger().warning(feature + " has " + MAX_PENDING + " tasks pending, further tasks are dropped ("
+                            + stats.rejected + " dropped so far)");
+                    stats.lastWarning = now;
+                }
+                return -1;
+            }
+            stats.scheduled++;
+            stats.pending++;
+        }
+
+        final Task task = new Task(stats, runnable, period > 0);
+        final BukkitScheduler scheduler = plugin.getServer().getScheduler();
+        final BukkitTask bukkitTask;
+        try
+        {
+            if (async)
+                bukkitTask = scheduler.runTaskAsynchronously(plugin, task);
+            else if (period > 0)
+                bukkitTask = scheduler.runTaskTimer(plugin, task, delay, period);
+            else
+                bukkitTask = scheduler.runTaskLater(plugin, task, delay);
+        } catch (RuntimeException e)
+        {
+            //e.g. the plugin is being disabled
+            synchronized (this)
+            {
+                stats.scheduled--;
+                stats.pending--;
+            }
+            throw e;
+        }
+
+        synchronized (this)
+        {
+            task.id = bukkitTask.getTaskId();
+            //an async task might already be done
+            if (!task.done)
+                tasks.put(task.id, task);
+        }
+        if (runnable instanceof RepeatingTask)
+        {
+            ((RepeatingTask) runnable).scheduler = this;
+            ((RepeatingTask) runnable).taskId = task.id;
+        }
+        return task.id;
+    }
+
+
+    private FeatureTasks getStats(String feature)
+    {
+        FeatureTasks stats = features.get(feature);
+        if (stats == null)
+        {
+            stats = new FeatureTasks(feature, timings != null ? timings.getTimings(feature + " tasks") : null);
+            features.put(feature, stats);
+        }
+        return stats;
+    }
+
+
+    /**
+     * @return the counters of all features which scheduled a task
+     */
+    public synchronized List<FeatureTasks> getFeatures()
+    {
+        return new ArrayList<FeatureTasks>(features.values());
+    }
+
+
+    /**
+     * @return tasks of all features which haven't run or been cancelled yet
+     */
+    public synchronized int getPendingCount()
+    {
+        int pending = 0;
+        for (FeatureTasks stats : features.values())
+            pending += stats.pending;
+        return pending;
+    }
+
+
+    /**
+     * Wraps a task to count it when it runs
+     */
+    private class Task implements Runnable
+    {
+        private final FeatureTasks stats;
+
+        private final Runnable runnable;
+
+        private final boolean repeating;
+
+        private int id = -1;
+
+        private boolean done = false;
+
+
+        private Task(FeatureTasks stats, Runnable runnable, boolean repeating)
+        {
+            this.stats = stats;
+            this.runnable = runnable;
+            this.repeating = repeating;
+        }
+
+
+        @Override
+        public void run()
+        {
+            final long start = System.nanoTime();
+            try
+            {
+                runnable.run();
+            } finally
+            {
+                final long nanos = System.nanoTime() - start;
+                synchronized (EhmScheduler.this)
+                {
+                    stats.executed++;
+                    stats.nanos += nanos;
+                    if (nanos > stats.maxNanos)
+                        stats.maxNanos = nanos;
+                    if (!repeating)
+                    {
+                        done = true;
+                        stats.pending--;
+                        if (id != -1)
+                            tasks.remove(id);
+                    }
+                }
+                if (stats.timings != null && plugin.getServer().isPrimaryThread())
+                    stats.timings.record(null, nanos);
+            }
+        }
+    }
+
+
+    /**
+     * A repeating task which can cancel itself
+     */
+    public abstract static class RepeatingTask implements Runnable
+    {
+        private EhmScheduler scheduler;
+
+        private int taskId = -1;
+
+
+        /**
+         * Stop running this task
+         */
+        public void cancel()
+        {
+            if (scheduler != null && taskId != -1)
+            {
+                scheduler.cancelTask(taskId);
+                taskId = -1;
+            }
+        }
+    }
+
+
+    /**
+     * The tasks of one feature
+     */
+    public static class FeatureTasks
+    {
+        private final String feature;
+
+        private final HandlerTimings timings;
+
+        private long scheduled, executed, cancelled, rejected, nanos, maxNanos;
+
+        private int pending;
+
+        private boolean capped = true;
+
+        /**
+         * When we last warned about rejected tasks
+         */
+        private long lastWarning;
+
+
+        private FeatureTasks(String feature, HandlerTimings timings)
+        {
+            this.feature = feature;
+            this.timings = timings;
+        }
+
+
+        public String getFeature()
+        {
+            return feature;
+        }
+
+
+        public long getScheduled()
+        {
+            return scheduled;
+        }
+
+
+        /**
+         * @return how often tasks ran, repeating tasks count once per run
+         */
+        public long getExecuted()
+        {
+            return executed;
+        }
+
+
+        public long getCancelled()
+        {
+            return cancelled;
+        }
+
+
+        /**
+         * @return tasks which haven't been scheduled because too many were pending
+         */
+        public long getRejected()
+        {
+            return rejected;
+        }
+
+
+        public int getPending()
+        {
+            return pending;
+        }
+
+
+        /**
+         * @return if tasks are rejected when {@link #MAX_PENDING} tasks are pending
+         */
+        public boolean isCapped()
+        {
+            return capped;
+        }
+
+
+        /**
+         * @return time spent in the tasks in total
+         */
+        public long getNanos()
+        {
+            return nanos;
+        }
+
+
+        /**
+         * @return longest time a single run took
+         */
+        public long getMaxNanos()
+        {
+            return maxNanos;
+        }
+    }
+}
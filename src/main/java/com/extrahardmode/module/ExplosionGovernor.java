@@ -0,0 +1,332 @@
+/*
+ * This file is part of
+ * ExtraHardMode Server Plugin for Minecraft
+ *
+ * Copyright (C) 2012 Ryan Hamshire
+ * Copyright (C) 2013 Diemex
+ *
+ * ExtraHardMode is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ExtraHardMode is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero Public License
+ * along with ExtraHardMode.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.extrahardmode.module;
+
+
+import com.extrahardmode.ExtraHardMode;
+import com.extrahardmode.config.ExplosionProfile;
+import com.extrahardmode.config.ExplosionType;
+import com.extrahardmode.config.RootConfig;
+import com.extrahardmode.config.RootNode;
+import com.extrahardmode.service.EHMModule;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Queues the explosions created by ehm which can cascade, like multiple tnt explosions, and detonates them once per
+ * tick. Explosions which replace a single explosion or entity one to one detonate right away with {@link
+ * #detonate(Location, ExplosionType, Entity)}, so they stay in sync with the entity they replace.
+ * <pre>
+ *     1. explosions which overlap in the same tick are merged into one bigger explosion
+ *     2. only a limited amount of explosions detonate per chunk and tick
+ *     3. explosions exceeding that budget carry over to the next tick
+ * </pre>
+ * Without this a tnt cannon with 64 tnt and multiple explosions enabled would create over 300 explosions in a few
+ * ticks.
+ */
+public class ExplosionGovernor extends EHMModule implements Runnable
+{
+    private RootConfig CFG;
+
+    /**
+     * Explosions which will be processed in the next tick
+     */
+    private List<PendingExplosion> queue = new ArrayList<PendingExplosion>();
+
+    /**
+     * Id of the repeating task, only runs while there are queued explosions
+     */
+    private int taskId = -1;
+
+    private long queuedCount = 0;
+
+    private long mergedCount = 0;
+
+    private long deferredCount = 0;
+
+    private long detonatedCount = 0;
+
+
+    /**
+     * Constructor.
+     *
+     * @param plugin - Plugin instance.
+     */
+    public ExplosionGovernor(ExtraHardMode plugin)
+    {
+        super(plugin);
+    }
+
+
+    @Override
+    public void starting()
+    {
+        CFG = plugin.getModuleForClass(RootConfig.class);
+    }
+
+
+    @Override
+    public void closing()
+    {
+        //Don't swallow explosions on reload
+        while (!queue.isEmpty())
+            run();
+        cancelTask();
+    }
+
+
+    /**
+     * Queue an explosion to be detonated in the next tick
+     *
+     * @param loc   where the explosion occurs
+     * @param type  determines the size, fire and world damage
+     * @param cause entity which caused the explosion, can be null for visual explosions
+     */
+    public void queue(Location loc, ExplosionType type, Entity cause)
+    {
+        final World world = loc.getWorld();
+        final ExplosionProfile profile = CFG.getExplosionProfiles(world.getName()).get(type, loc.getY());
+
+        //entity should be ignored so our code doesn't think that it's a regular creeper etc.
+        EntityHelper.flagIgnore(plugin, cause);
+
+        if (!CFG.getBoolean(RootNode.EXPLOSIONS_GOVERNOR_ENABLE, world.getName()))
+        {
+            world.createExplosion(loc.getX(), loc.getY(), loc.getZ(), profile.getPower(), profile.isFire(), profile.allowBlockDmg());
+            return;
+        }
+
+        queue.add(new PendingExplosion(world, loc.getX(), loc.getY(), loc.getZ(), profile.getPower(), profile.isFire(), profile.allowBlockDmg()));
+        queuedCount++;
+        if (taskId == -1)
+            taskId = plugin.getModuleForClass(EhmScheduler.class).runTaskTimer("Explosions", this, 1L, 1L);
+    }
+
+
+    /**
+     * Detonate an explosion right away, for explosions which replace a vanilla explosion one to one and can't cascade.
+     * Queueing them would delay them by a tick.
+     *
+     * @param loc   where the explosion occurs
+     * @param type  determines the size, fire and world damage
+     * @param cause entity which caused the explosion, can be null for visual explosions
+     */
+    public void detonate(Location loc, ExplosionType type, Entity cause)
+    {
+        final World world = loc.getWorld();
+        final ExplosionProfile profile = CFG.getExplosionProfiles(world.getName()).get(type, loc.getY());
+        EntityHelper.flagIgnore(plugin, cause);
+        world.createExplosion(loc.getX(), loc.getY(), loc.getZ(), profile.getPower(), profile.isFire(), profile.allowBlockDmg());
+        detonatedCount++;
+    }
+
+
+    /**
+     * Merge, rate limit and detonate the queued explosions
+     */
+    @Override
+    public void run()
+    {
+        if (queue.isEmpty())
+        {
+            cancelTask();
+            return;
+        }
+
+        final List<PendingExplosion> batch = queue;
+        queue = new ArrayList<PendingExplosion>();
+
+        //Merge explosions that overlap, n is small per tick so comparing all of them is fine
+        List<PendingExplosion> merged = new ArrayList<PendingExplosion>(batch.size());
+        outer:
+        for (PendingExplosion explosion : batch)
+        {
+            for (PendingExplosion other : merged)
+            {
+                if (other.overlaps(explosion))
+                {
+                    other.absorb(explosion, CFG.getInt(RootNode.EXPLOSIONS_GOVERNOR_MAX_POWER, explosion.world.getName()));
+                    mergedCount++;
+                    continue outer;
+                }
+            }
+            merged.add(explosion);
+        }
+
+        //Detonate with a budget per chunk, the rest carries over to the next tick
+        Map<World, Map<Long, Integer>> usedBudget = new HashMap<World, Map<Long, Integer>>();
+        for (PendingExplosion explosion : merged)
+        {
+            Map<Long, Integer> chunks = usedBudget.get(explosion.world);
+            if (chunks == null)
+            {
+                chunks = new HashMap<Long, Integer>();
+                usedBudget.put(explosion.world, chunks);
+            }
+            final long chunkKey = explosion.chunkKey();
+            final Integer used = chunks.get(chunkKey);
+            final int budget = CFG.getInt(RootNode.EXPLOSIONS_GOVERNOR_CHUNK_BUDGET, explosion.world.getName());
+            if (used != null && used >= budget)
+            {
+                queue.add(explosion);
+                deferredCount++;
+                continue;
+            }
+            chunks.put(chunkKey, used != null ? used + 1 : 1);
+            explosion.detonate();
+            detonatedCount++;
+        }
+    }
+
+
+    private void cancelTask()
+    {
+        if (taskId != -1)
+        {
+            plugin.getModuleForClass(EhmScheduler.class).cancelTask(taskId);
+            taskId = -1;
+        }
+    }
+
+
+    /**
+     * @return explosions queued since the plugin was started
+     */
+    public long getQueuedCount()
+    {
+        return queuedCount;
+    }
+
+
+    /**
+     * @return explosions that were merged into another explosion
+     */
+    public long getMergedCount()
+    {
+        return mergedCount;
+    }
+
+
+    /**
+     * @return how often an explosion was delayed to the next tick, because the chunk exceeded its budget
+     */
+    public long getDeferredCount()
+    {
+        return deferredCount;
+    }
+
+
+    /**
+     * @return explosions which actually detonated
+     */
+    public long getDetonatedCount()
+    {
+        return detonatedCount;
+    }
+
+
+    /**
+     * @return explosions waiting to be detonated
+     */
+    public int getPendingCount()
+    {
+        return queue.size();
+    }
+
+
+    /**
+     * An explosion waiting to be detonated
+     */
+    private static class PendingExplosion
+    {
+        private final World world;
+        private double x, y, z;
+        private float power;
+        private final boolean fire;
+        private final boolean damageWorld;
+
+
+        private PendingExplosion(World world, double x, double y, double z, float power, boolean fire, boolean damageWorld)
+        {
+            this.world = world;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.power = power;
+            this.fire = fire;
+            this.damageWorld = damageWorld;
+        }
+
+
+        /**
+         * Do the blast radii overlap, the radius of an explosion is roughly its power. Only explosions with the same
+         * properties can be merged.
+         */
+        private boolean overlaps(PendingExplosion other)
+        {
+            if (world != other.world || fire != other.fire || damageWorld != other.damageWorld)
+                return false;
+            final double dx = x - other.x, dy = y - other.y, dz = z - other.z;
+            final double radii = (power + other.power) / 2.0;
+            return dx * dx + dy * dy + dz * dz <= radii * radii;
+        }
+
+
+        /**
+         * Merge another explosion into this one. The volume of both blasts is added up, the center moves towards the
+         * bigger explosion.
+         *
+         * @param maxPower the merged explosion won't be more powerful than this or the more powerful of both
+         */
+        private void absorb(PendingExplosion other, int maxPower)
+        {
+            final double volume = (double) power * power * power;
+            final double otherVolume = (double) other.power * other.power * other.power;
+            final double total = volume + otherVolume;
+            if (total > 0)
+            {
+                x = (x * volume + other.x * otherVolume) / total;
+                y = (y * volume + other.y * otherVolume) / total;
+                z = (z * volume + other.z * otherVolume) / total;
+            }
+            power = Math.min((float) Math.cbrt(total), Math.max(maxPower, Math.max(power, other.power)));
+        }
+
+
+        private long chunkKey()
+        {
+            return ((long) ((int) Math.floor(x) >> 4) << 32) | (((int) Math.floor(z) >> 4) & 0xFFFFFFFFL);
+        }
+
+
+        private void detonate()
+        {
+            world.createExplosion(x, y, z, power, fire, damageWorld);
+        }
+    }
+}
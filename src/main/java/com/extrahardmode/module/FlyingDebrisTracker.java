@@ -0,0 +1,173 @@
+/*
+ * This file is part of
+ * ExtraHardMode Server Plugin for Minecraft
+ *
+ * Copyright (C) 2012 Ryan Hamshire
+ * Copyright (C) 2013 Diemex
+ *
+ * ExtraHardMode is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ExtraHardMode is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero Public License
+ * along with ExtraHardMode.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.extrahardmode.module;
+
+
+import org.bukkit.block.Block;
+import org.bukkit.entity.Entity;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Keeps track of the blocks that were sent flying by an explosion and where they came from.
+ * <p/>
+ * Replaces metadata on the FallingBlocks: the origin is stored as packed coordinates by entity id, so checking if a
+ * landing block is one of ours is one map lookup. Blocks which never land (e.g. they drop as an item) expire.
+ */
+public class FlyingDebrisTracker
+{
+    /**
+     * How long a block may fly until we forget about it
+     */
+    private static final long EXPIRE_AFTER_MS = 30 * 1000L;
+
+    /**
+     * Entity id -> where the block was before the explosion
+     */
+    private final Map<Integer, Origin> debris = new HashMap<Integer, Origin>();
+
+    /**
+     * Next time expired entries will be purged
+     */
+    private long nextPurge = 0L;
+
+
+    /**
+     * Remember where a flying block came from
+     *
+     * @param entity the spawned FallingBlock
+     * @param origin the block it replaced
+     */
+    public void track(Entity entity, Block origin)
+    {
+        final long now = System.currentTimeMillis();
+        if (now >= nextPurge)
+        {
+            purgeExpired(now);
+            nextPurge = now + EXPIRE_AFTER_MS;
+        }
+        debris.put(entity.getEntityId(), new Origin(origin.getWorld().getUID(), pack(origin.getX(), origin.getY(), origin.getZ()), now + EXPIRE_AFTER_MS));
+    }
+
+
+    /**
+     * Stop tracking an entity
+     *
+     * @param entityId id of the entity
+     *
+     * @return the origin if the entity was tracked and not expired, otherwise null
+     */
+    public Origin remove(int entityId)
+    {
+        if (debris.isEmpty())
+            return null;
+        final Origin origin = debris.remove(entityId);
+        return origin != null && origin.expires >= System.currentTimeMillis() ? origin : null;
+    }
+
+
+    /**
+     * @return number of currently tracked blocks
+     */
+    public int size()
+    {
+        return debris.size();
+    }
+
+
+    public void clear()
+    {
+        debris.clear();
+    }
+
+
+    private void purgeExpired(long now)
+    {
+        Iterator<Origin> iter = debris.values().iterator();
+        while (iter.hasNext())
+            if (iter.next().expires < now)
+                iter.remove();
+    }
+
+
+    /**
+     * Pack block coordinates into a long: 26 bits x, 26 bits z, 12 bits y
+     */
+    static long pack(int x, int y, int z)
+    {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+    }
+
+
+    /**
+     * Where a flying block came from
+     */
+    public static class Origin
+    {
+        private final UUID world;
+        private final long packed;
+        private final long expires;
+
+
+        private Origin(UUID world, long packed, long expires)
+        {
+            this.world = world;
+            this.packed = packed;
+            this.expires = expires;
+        }
+
+
+        public int getX()
+        {
+            return (int) (packed >> 38);
+        }
+
+
+        public int getY()
+        {
+            return (int) (packed << 52 >> 52);
+        }
+
+
+        public int getZ()
+        {
+            return (int) (packed << 26 >> 38);
+        }
+
+
+        /**
+         * Squared distance of a block to the origin
+         *
+         * @return the distance or Double.MAX_VALUE if the block is in another world
+         */
+        public double distanceSquared(Block block)
+        {
+            if (!world.equals(block.getWorld().getUID()))
+                return Double.MAX_VALUE;
+            final double dx = block.getX() - getX(), dy = block.getY() - getY(), dz = block.getZ() - getZ();
+            return dx * dx + dy * dy + dz * dz;
+        }
+    }
+}
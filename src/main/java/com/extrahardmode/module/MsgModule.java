@@ -25,30 +25,61 @@ package com.extrahardmode.module;
 import com.extrahardmode.ExtraHardMode;
 import com.extrahardmode.config.messages.MessageConfig;
 import com.extrahardmode.config.messages.MessageNode;
+import com.extrahardmode.config.messages.MessageTemplate;
 import com.extrahardmode.config.messages.MsgCategory;
-import com.extrahardmode.service.EHMModule;
 import com.extrahardmode.service.FindAndReplace;
+import com.extrahardmode.service.ListenerModule;
 import com.extrahardmode.service.PermissionNode;
-import com.google.common.collect.HashBasedTable;
-import com.google.common.collect.Table;
 import de.diemex.scoreboardnotifier.NotificationManager;
+import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.Validate;
 import org.bukkit.ChatColor;
 import org.bukkit.Sound;
 import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 
-import java.util.Calendar;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 /** @author Max */
-public class MsgModule extends EHMModule
+public class MsgModule extends ListenerModule
 {
     private MessageConfig messages;
     private MsgPersistModule persistModule;
+    private PlayerModule playerModule;
 
     private NotificationManager manager;
 
-    private final Table<String, MessageNode, Long> timeouts = HashBasedTable.create();
+    /**
+     * Shows popups in the action bar or a boss bar, if configured instead of the scoreboard
+     */
+    private BarNotifier bars;
+
+    /**
+     * Where the popups of each category are shown
+     */
+    private final Map<MsgCategory, PopupStyle> styles = new EnumMap<MsgCategory, PopupStyle>(MsgCategory.class);
+
+    /**
+     * Millis before the same notification is sent again
+     */
+    private static final long NOTIFICATION_TIMEOUT = 30000L;
+
+    /**
+     * Millis before the same tutorial message is sent again
+     */
+    private static final long TUTORIAL_TIMEOUT = 120000L;
+
+    /**
+     * Message state of all online players
+     */
+    private final Map<UUID, MsgSession> sessions = new HashMap<UUID, MsgSession>();
 
 
     /** Constructor */
@@ -61,9 +92,32 @@ public class MsgModule extends EHMModule
     @Override
     public void starting()
     {
+        super.starting();
         messages = plugin.getModuleForClass(MessageConfig.class);
         persistModule = plugin.getModuleForClass(MsgPersistModule.class);
-        manager = new NotificationManager(plugin);
+        manager = new NotificationManager(plugin, plugin.getModuleForClass(EhmScheduler.class));
+        bars = plugin.getModuleForClass(BarNotifier.class);
+        styles.clear();
+        for (MsgCategory category : MsgCategory.values())
+        {
+            MessageNode styleNode;
+            switch (category.getSubcategory() != null ? category.getSubcategory() : category)
+            {
+                case TUTORIAL:
+                    styleNode = MessageNode.SB_MSG_TUTORIAL_STYLE;
+                    break;
+                case BROADCAST:
+                    styleNode = MessageNode.SB_MSG_BROADCAST_STYLE;
+                    break;
+                case ONE_TIME:
+                case NOTIFICATION:
+                    styleNode = MessageNode.SB_MSG_NOTIFICATION_STYLE;
+                    break;
+                default:
+                    continue;
+            }
+            styles.put(category, PopupStyle.match(messages.getString(styleNode)));
+        }
         /*try
         {
             SBPopupAPI api = (SBPopupAPI) plugin.getServer().getPluginManager().getPlugin("SBPopupAPI");
@@ -79,13 +133,44 @@ public class MsgModule extends EHMModule
     @Override
     public void closing()
     {
-        timeouts.clear();
+        super.closing();
+        sessions.clear();
+    }
+
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onPlayerJoin(PlayerJoinEvent event)
+    {
+        sessions.put(event.getPlayer().getUniqueId(), new MsgSession());
+    }
+
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event)
+    {
+        sessions.remove(event.getPlayer().getUniqueId());
+    }
+
+
+    /**
+     * Get the session of the player, players online before a reload get theirs on the first message
+     */
+    private MsgSession getSession(Player player)
+    {
+        MsgSession session = sessions.get(player.getUniqueId());
+        if (session == null)
+        {
+            session = new MsgSession();
+            sessions.put(player.getUniqueId(), session);
+        }
+        return session;
     }
 
 
     private void send(Player player, MessageNode node, String message)
     {
-        switch (messages.getCat(node))
+        final MsgCategory category = messages.getCat(node);
+        switch (category != null ? category : MsgCategory.DISABLED)
         {
             case NOTIFICATION:
                 if (player == null)
@@ -94,39 +179,31 @@ public class MsgModule extends EHMModule
                 } else
                 {
                     // FEATURE: don't spam messages
-                    PlayerData playerData = plugin.getModuleForClass(DataStoreModule.class).getPlayerData(player.getName());
-                    long now = Calendar.getInstance().getTimeInMillis();
-
-                    if (!node.equals(playerData.lastMessageSent) || now - playerData.lastMessageTimestamp > 30000)
+                    if (getSession(player).trySendNotification(node, MsgSession.now(), NOTIFICATION_TIMEOUT))
                     {
                         if (popupsAreEnabled(MsgCategory.NOTIFICATION))
                             sendPopup(player, MsgCategory.NOTIFICATION, message);
                         else
                             player.sendMessage(message);
-                        playerData.lastMessageSent = node;
-                        playerData.lastMessageTimestamp = now;
                     }
 
                 }
                 break;
+            case ONE_TIME:
             case TUTORIAL:
                 Validate.notNull(player);
-                if (persistModule.getCountFor(node, player.getName()) < messages.getMsgCount(node))
+                if (!persistModule.isExhausted(node, player))
                 {
-                    long now = Calendar.getInstance().getTimeInMillis();
-
-                    if (!timeouts.contains(player.getName(), node) || now - timeouts.get(player.getName(), node) > 120000) //only if contains
+                    if (getSession(player).trySend(node, MsgSession.now(), TUTORIAL_TIMEOUT))
                     {
-                        timeouts.put(player.getName(), node, now);
-                        String msgText = messages.getString(node);
                         if (manager != null && popupsAreEnabled(MsgCategory.TUTORIAL))
-                            sendPopup(player, MsgCategory.TUTORIAL, msgText);
+                            sendPopup(player, MsgCategory.TUTORIAL, message);
                         else
-                            player.sendMessage(ChatColor.DARK_RED + plugin.getTag() + ChatColor.WHITE + " " + msgText);
-                        persistModule.increment(node, player.getName());
+                            player.sendMessage(ChatColor.DARK_RED + plugin.getTag() + ChatColor.WHITE + " " + message);
+                        persistModule.increment(node, player);
                     }
                 } else
-                    timeouts.remove(player, message);
+                    getSession(player).clear(node);
                 break;
             case BROADCAST:
                 plugin.getServer().broadcastMessage(message);
@@ -134,11 +211,84 @@ public class MsgModule extends EHMModule
             case DISABLED:
                 break;
             default:
-                throw new UnsupportedOperationException(messages.getCat(node) + " not implemented");
+                throw new UnsupportedOperationException(category + " not implemented");
         }
     }
 
 
+    /**
+     * Will this message not be displayed to the player anymore. Doesn't access the config or storage, so it can be
+     * checked before doing any work to send the message
+     *
+     * @param player player to check
+     * @param node   message
+     *
+     * @return true if the message is disabled or a tutorial/one time message the player has seen often enough
+     */
+    public boolean isExhausted(Player player, MessageNode node)
+    {
+        final MsgCategory category = messages.getCat(node);
+        if (category == null)
+            return true;
+        switch (category)
+        {
+            case DISABLED:
+                return true;
+            case ONE_TIME:
+            case TUTORIAL:
+                return persistModule.isExhausted(node, player);
+            default:
+                return false;
+        }
+    }
+
+
+    /**
+     * Will none of the messages covered by the flag be displayed to the player anymore. Only reads a flag of the player,
+     * so it can be checked first in listeners which fire often
+     *
+     * @param player player to check
+     *
+     * @return true if the player has exhausted every message which {@link #isCoveredByAllExhausted(MessageNode)}
+     */
+    public boolean isAllExhausted(Player player)
+    {
+        return persistModule.isAllExhausted(player);
+    }
+
+
+    /**
+     * Is the message exhausted when {@link #isAllExhausted(Player)} is, only true for disabled messages and messages
+     * whose counts are stored. Can change on reload.
+     *
+     * @param node message
+     *
+     * @return true if it is covered by the flag
+     */
+    public boolean isCoveredByAllExhausted(MessageNode node)
+    {
+        return messages.getCat(node) == MsgCategory.DISABLED || persistModule.isTracked(node);
+    }
+
+
+    /**
+     * Are all of these messages exhausted for the player
+     *
+     * @param player player to check
+     * @param nodes  messages
+     *
+     * @return true if none of the messages will be displayed
+     * @see #isExhausted(Player, MessageNode)
+     */
+    public boolean isExhausted(Player player, MessageNode... nodes)
+    {
+        for (MessageNode node : nodes)
+            if (!isExhausted(player, node))
+                return false;
+        return true;
+    }
+
+
     /**
      * Broacast a message to the whole server
      *
@@ -159,10 +309,11 @@ public class MsgModule extends EHMModule
      */
     public void send(Player player, MessageNode node)
     {
+        final MessageTemplate template = messages.getTemplate(node);
         //Don't send a message if node is empty/null
-        if (messages.getString(node).isEmpty() || messages.getString(node) == null)
+        if (template.isEmpty())
             return;
-        send(player, node, messages.getString(node));
+        send(player, node, template.render());
     }
 
 
@@ -174,12 +325,8 @@ public class MsgModule extends EHMModule
      */
     public void send(Player player, MessageNode message, FindAndReplace... fars)
     {
-        String msgText = messages.getString(message);
-        for (FindAndReplace far : fars)
-        {   /* Replace the placeholder with the actual value */
-            msgText = far.replace(msgText);
-        }
-        send(player, message, msgText);
+        /* Replace the placeholders with the actual values */
+        send(player, message, messages.getTemplate(message).render(fars));
     }
 
 
@@ -194,9 +341,11 @@ public class MsgModule extends EHMModule
      */
     public void send(Player player, MessageNode node, PermissionNode perm, Sound sound, float soundPitch)
     {
-        if (!player.hasPermission(perm.getNode()))
+        if (playerModule == null)
+            playerModule = plugin.getModuleForClass(PlayerModule.class); //registered after this module
+        if (!playerModule.hasPermission(player, perm))
         {
-            send(player, node, messages.getString(node));
+            send(player, node, messages.getTemplate(node).render());
             if (sound != null)
                 player.playSound(player.getLocation(), sound, 1, soundPitch);
         }
@@ -261,7 +410,8 @@ public class MsgModule extends EHMModule
                     textColor = null;
             }
 
-            manager.showPopup(player.getName(), category.getUniqueIdentifier(), length, titleColor, textColor, titleText, message);
+            if (!showInBar(player, category, length, textColor, message))
+                manager.showPopup(player.getName(), category.getUniqueIdentifier(), length, titleColor, textColor, titleText, message);
         }
     }
 
@@ -324,11 +474,31 @@ public class MsgModule extends EHMModule
                     titleColor = null;
                     textColor = null;
             }
-            manager.showPopup(player.getName(), category.getUniqueIdentifier(), length, titleColor, textColor, titleText, message);
+            if (!showInBar(player, category, length, textColor, StringUtils.join(message, ' ')))
+                manager.showPopup(player.getName(), category.getUniqueIdentifier(), length, titleColor, textColor, titleText, message);
         }
     }
 
 
+    /**
+     * Show the popup in the action bar or boss bar if the category is configured to use one
+     *
+     * @return false if the popup should be shown in the scoreboard
+     */
+    private boolean showInBar(Player player, MsgCategory category, int length, ChatColor textColor, String message)
+    {
+        final PopupStyle style = styles.get(category);
+        if (style == null || style == PopupStyle.SCOREBOARD || bars == null)
+            return false;
+        final String text = textColor != null ? textColor + message : message;
+        if (style == PopupStyle.ACTIONBAR)
+            bars.showActionBar(player, category.getUniqueIdentifier(), text, length);
+        else
+            bars.showBossBar(player, category.getUniqueIdentifier(), text, length, BarNotifier.toBarColor(textColor));
+        return true;
+    }
+
+
     /**
      * Get the NotificationManager for direct sending of popups
      *
@@ -350,6 +520,8 @@ public class MsgModule extends EHMModule
     {
         if (manager != null && player != null)
             manager.removePopup(player.getName(), identifier);
+        if (bars != null && player != null)
+            bars.hide(player, identifier);
     }
 
 
@@ -374,4 +546,28 @@ public class MsgModule extends EHMModule
             }
         return false;
     }
+
+
+    /**
+     * Where a popup is displayed
+     */
+    private enum PopupStyle
+    {
+        SCOREBOARD,
+        ACTIONBAR,
+        BOSSBAR;
+
+
+        /**
+         * Get the style for a config value, defaults to the scoreboard
+         */
+        private static PopupStyle match(String value)
+        {
+            final String style = ChatColor.stripColor(value).replaceAll("[\\s_-]", "");
+            for (PopupStyle popupStyle : values())
+                if (popupStyle.name().equalsIgnoreCase(style))
+                    return popupStyle;
+            return SCOREBOARD;
+        }
+    }
 }
@@ -23,370 +23,579 @@ package com.extrahardmode.module;
 
 
 import com.extrahardmode.ExtraHardMode;
+import com.extrahardmode.config.RootConfig;
+import com.extrahardmode.config.RootNode;
 import com.extrahardmode.config.messages.MessageConfig;
 import com.extrahardmode.config.messages.MessageNode;
 import com.extrahardmode.config.messages.MsgCategory;
-import com.extrahardmode.service.EHMModule;
-import com.google.common.collect.HashBasedTable;
-import com.google.common.collect.Table;
+import com.extrahardmode.module.msgcount.MappedMsgCountStore;
+import com.extrahardmode.module.msgcount.MemoryMsgCountStore;
+import com.extrahardmode.module.msgcount.MsgCountStore;
+import com.extrahardmode.module.msgcount.SQLiteMsgCountStore;
+import com.extrahardmode.service.ListenerModule;
+import com.extrahardmode.service.config.MultiWorldConfig;
 import org.apache.commons.lang.Validate;
-
-import java.sql.*;
-import java.util.HashMap;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
 import java.util.Map;
-
-/** @author Diemex */
-public class MsgPersistModule extends EHMModule
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persists how often tutorial and one time messages have been shown to a player.
+ * <p/>
+ * The main thread never touches the store: the counts of a player are loaded on the login thread before he joins and
+ * kept in memory until he quits, changes are put into a bounded queue which is flushed by a writer thread in batches.
+ * The counts of a player who quit are released by the writer thread once his changes have been written.
+ * <p/>
+ * The counts are stored by a {@link MsgCountStore} which is selected in the main config.
+ *
+ * @author Diemex
+ */
+public class MsgPersistModule extends ListenerModule
 {
-    private final String dbFile;
+    /**
+     * Max pending writes, further writes are dropped
+     */
+    private static final int QUEUE_CAPACITY = 1024;
 
-    private final String msgTable = "messages";
+    /**
+     * Max writes per transaction
+     */
+    private static final int BATCH_SIZE = 256;
+
+    /**
+     * Max millis to wait for the writer to flush when closing or to open the store when loading
+     */
+    private static final long TIMEOUT = 5000;
 
-    private final String playerTable = "players";
+    /**
+     * Folder holding the files of the stores
+     */
+    private final File folder;
 
     private MessageConfig messages;
 
-    /** Buffer player ids (playerName, playerId) */
-    private Map<String, Integer> playerIdBuffer;
+    /**
+     * Nodes which have a count
+     */
+    private final List<MessageNode> trackedNodes = new ArrayList<MessageNode>();
+
+    /**
+     * Counts of the online players
+     */
+    private final Map<UUID, Counts> counts = new ConcurrentHashMap<UUID, Counts>();
+
+    /**
+     * Writes which haven't been flushed yet
+     */
+    private final BlockingQueue<Write> writes = new ArrayBlockingQueue<Write>(QUEUE_CAPACITY);
+
+    /**
+     * Marks the end of the queue
+     */
+    private static final Write STOP = new Write(null, null, null, 0);
+
+    private Thread writer;
 
-    /** Cache data from the db (playerid, message, value) */
-    private Table<Integer, MessageNode, Integer> cache;
+    /**
+     * Counted down once the writer has opened the store
+     */
+    private CountDownLatch opened;
+
+    /**
+     * Guards the store, used by the writer and the threads loading players
+     */
+    private final Object storeLock = new Object();
+
+    /**
+     * Null if the store couldn't be opened, counts are only kept in memory then
+     */
+    private MsgCountStore store;
 
 
     /**
      * Constructor.
      *
      * @param plugin - Plugin instance.
+     * @param folder - Folder for the files of the store.
      */
-    public MsgPersistModule(ExtraHardMode plugin, String dbFile)
+    public MsgPersistModule(ExtraHardMode plugin, File folder)
     {
         super(plugin);
-        this.dbFile = dbFile;
+        this.folder = folder;
     }
 
 
     @Override
     public void starting()
     {
+        super.starting();
         messages = plugin.getModuleForClass(MessageConfig.class);
-        playerIdBuffer = new HashMap<String, Integer>();
-        cache = HashBasedTable.create();
-        testJDBC();
-        initializeTables();
+        //loading the counts of a player has to happen
+        plugin.getModuleForClass(EhmScheduler.class).exemptFromCap("MsgPersistModule");
+        for (MessageNode node : MessageNode.getMessageNodes())
+        {
+            MsgCategory cat = messages.getCat(node);
+            if (node.getColumnName() != null && (cat == MsgCategory.TUTORIAL || cat == MsgCategory.ONE_TIME))
+                trackedNodes.add(node);
+        }
+
+        final MsgCountStore newStore = createStore(getStorageType());
+        opened = new CountDownLatch(1);
+        writer = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                runWriter(newStore);
+            }
+        }, "ExtraHardMode message writer");
+        writer.setDaemon(true);
+        writer.start();
+
+        //Players who are already online after a reload
+        for (final Player player : plugin.getServer().getOnlinePlayers())
+            plugin.getModuleForClass(EhmScheduler.class).runTaskAsynchronously("MsgPersistModule", new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    preload(player.getUniqueId(), player.getName());
+                }
+            });
     }
 
 
     @Override
     public void closing()
     {
-        playerIdBuffer = null;
+        super.closing();
+        if (writer != null)
+        {
+            //The queue stays full if the writer died, don't block the main thread forever
+            boolean stopped = false;
+            try
+            {
+                stopped = writes.offer(STOP, TIMEOUT, TimeUnit.MILLISECONDS);
+                if (stopped)
+                    writer.join(TIMEOUT);
+            } catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+            if (!stopped || writer.isAlive())
+                plugin.getLogger().warning("Message counts couldn't be saved in time, " + writes.size() + " writes are lost");
+            writer = null;
+        }
+        writes.clear();
+        counts.clear();
+        trackedNodes.clear();
     }
 
 
-    /** Make sure JDBC is enabled/loaded */
-    protected void testJDBC()
+    /**
+     * The storage is plugin wide, read it from the config for all worlds or from the first world the main config applies
+     * to
+     */
+    private String getStorageType()
     {
-        try
-        {
-            Class.forName("org.sqlite.JDBC");
-        } catch (ClassNotFoundException e)
-        {
-            plugin.getLogger().severe("JDBC Driver not found : " + e);
-            closing();
-        }
+        RootConfig CFG = plugin.getModuleForClass(RootConfig.class);
+        String[] worlds = CFG.getEnabledWorlds();
+        String world = CFG.isEnabledForAll() || worlds.length == 0 ? MultiWorldConfig.ALL_WORLDS : worlds[0];
+        return CFG.getString(RootNode.MSG_COUNT_STORAGE, world);
     }
 
 
     /**
-     * Get the id of the Player. Buffers id in a Map. Creates new id if Player not in the db yet.
-     *
-     * @param playerName name of the Player
+     * Create the configured store, sqlite falls back to the file store if the driver is missing
      *
-     * @return id of Player
+     * @param type sqlite, file or memory
      */
-    private int getPlayerId(String playerName)
+    private MsgCountStore createStore(String type)
     {
-        if (playerIdBuffer.containsKey(playerName))
-            return playerIdBuffer.get(playerName);
-        int id = 0;
-
-        Connection conn = null;
-        Statement aStatement = null;
-        ResultSet resultSet = null;
-        try
+        if ("memory".equalsIgnoreCase(type))
+            return new MemoryMsgCountStore();
+        if (!"file".equalsIgnoreCase(type))
         {
-            conn = retrieveConnection();
-            aStatement = conn.createStatement();
-            String playerIdQuery = String.format(
-                    "SELECT id FROM %s WHERE %s = %s", playerTable, "name", '"' + playerName + '"');
-
-            resultSet = aStatement.executeQuery(playerIdQuery);
-            if (resultSet.next())
-                id = resultSet.getInt("id");
-
-            if (id == 0) //Create a new Player
-            {
-                String newPlayerQuery = String.format( //new id
-                        "INSERT INTO %s (%s) VALUES (%s)", playerTable, "name", '"' + playerName + '"');
-                aStatement.executeUpdate(newPlayerQuery);
-
-                //Get the id of the just inserted row, I tried getGeneratedKeys() but that wasn't supported by jdbc
-                resultSet = aStatement.executeQuery(playerIdQuery);
-                if (resultSet.next())
-                    id = resultSet.getInt("id");
-
-                String newPlayerDataQuery = String.format( //empty row in messages
-                        "INSERT INTO %s (%s) VALUES (%s)", msgTable, "id", id);
-                aStatement.executeUpdate(newPlayerDataQuery);
-                aStatement.close();
-            }
-
-            playerIdBuffer.put(playerName, id);
-        } catch (SQLException e)
-        {
-            e.printStackTrace();
-        } finally
-        {
-            try
-            {
-                if (aStatement != null && !aStatement.isClosed()) aStatement.close();
-                if (resultSet != null && !resultSet.isClosed()) resultSet.close();
-                if (conn != null) conn.close();
-            } catch (SQLException e)
-            {
-                e.printStackTrace();
-            }
+            if (!type.isEmpty() && !"sqlite".equalsIgnoreCase(type))
+                plugin.getLogger().warning("Unknown message count storage \"" + type + "\", using sqlite");
+            if (SQLiteMsgCountStore.isDriverPresent())
+                return new SQLiteMsgCountStore(plugin, folder + File.separator + "messages_count.db");
+            plugin.getLogger().warning("SQLite driver not found, storing message counts in a file instead");
         }
+        return new MappedMsgCountStore(new File(folder, "messages_count.dat"));
+    }
+
 
-        return id;
+    /**
+     * Load the counts before the player joins, runs on the login thread
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPreLogin(AsyncPlayerPreLoginEvent event)
+    {
+        if (event.getLoginResult() == AsyncPlayerPreLoginEvent.Result.ALLOWED)
+            preload(event.getUniqueId(), event.getName());
     }
 
 
     /**
-     * Get a connection to our database
-     *
-     * @return a connection
+     * Release the counts once everything has been written
      */
-    private Connection retrieveConnection() throws SQLException
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event)
     {
-        return DriverManager.getConnection("jdbc:sqlite:" + dbFile);
+        final UUID uuid = event.getPlayer().getUniqueId();
+        final Counts playerCounts = counts.get(uuid);
+        if (playerCounts == null)
+            return;
+        if (writer == null || !writes.offer(new Write(playerCounts, uuid, null, 0)))
+            counts.remove(uuid, playerCounts);
     }
 
 
-    /** Creates tables if they do not exist. */
-    private void initializeTables()
+    /**
+     * Load the counts of a player into memory
+     *
+     * @param uuid       id of the player
+     * @param playerName name under which counts might be saved in old formats
+     */
+    private void preload(UUID uuid, String playerName)
     {
-        Connection conn = null;
-        Statement statement = null;
-        try
+        final Counts previous = counts.get(uuid);
+        if (previous != null) //Rejoined before the counts were released, a new holder keeps them from being released
         {
-            conn = retrieveConnection();
-            statement = conn.createStatement();
-            statement.setQueryTimeout(30);
-
-            //One table holding the playername id relation
-            String playerQuery = String.format(
-                    "CREATE TABLE IF NOT EXISTS %s (id INTEGER PRIMARY KEY AUTOINCREMENT, %s STRING)", playerTable, "name");
-            statement.executeUpdate(playerQuery);
-
-            //One column for every message
-            StringBuilder columns = new StringBuilder();
-            for (MessageNode node : MessageNode.getMessageNodes())
-            {
-                MsgCategory cat = messages.getCat(node);
-                if (node.getColumnName() != null && (cat == MsgCategory.TUTORIAL || cat == MsgCategory.ONE_TIME))
-                {
-                    columns.append(',');
-                    columns.append(node.getColumnName());
-                }
-            }
-
-            String msgQuery = String.format(
-                    "CREATE TABLE IF NOT EXISTS %s (id INTEGER PRIMARY KEY UNIQUE %s)", msgTable, columns);
-            statement.executeUpdate(msgQuery);
+            counts.put(uuid, withExhausted(uuid, previous.values));
+            return;
+        }
 
-            //Check if all columns are present
-            DatabaseMetaData dmd = conn.getMetaData();
-            //Add missing columns
-            for (MessageNode node : MessageNode.getMessageNodes())
+        int[] values = new int[MessageNode.values().length];
+        try
+        {
+            if (!opened.await(TIMEOUT, TimeUnit.MILLISECONDS))
+                return;
+            synchronized (storeLock)
             {
-                MsgCategory cat = messages.getCat(node);
-                if (cat == MsgCategory.TUTORIAL || cat == MsgCategory.ONE_TIME)
-                {
-                    ResultSet set = dmd.getColumns(null, null, msgTable, node.getColumnName());
-                    if (!set.next())
-                    {
-                        String updateQuery = String.format(
-                                "ALTER TABLE %s ADD COLUMN %s", msgTable, node.getColumnName());
-                        statement.executeUpdate(updateQuery);
-                    }
-                }
+                if (store != null)
+                    store.load(uuid, playerName, values);
             }
-        } catch (SQLException e)
+        } catch (InterruptedException e)
         {
-            e.printStackTrace();
-        } finally
+            Thread.currentThread().interrupt();
+            return;
+        } catch (IOException e)
         {
-            try
-            {
-                if (statement != null && !statement.isClosed()) statement.close();
-                if (conn != null) conn.close();
-            } catch (SQLException e)
-            {
-                e.printStackTrace();
-            }
+            plugin.getLogger().severe("Couldn't load the message counts of " + playerName + " : " + e);
+            return;
         }
+        counts.putIfAbsent(uuid, withExhausted(uuid, values));
+    }
+
+
+    /**
+     * Holder for the counts with the exhausted messages computed from the current config, counts loaded before a reload
+     * go through here again as the limits might have changed
+     */
+    private Counts withExhausted(UUID uuid, int[] values)
+    {
+        final Counts playerCounts = new Counts(uuid, values, new BitSet());
+        for (MessageNode node : trackedNodes)
+            updateExhausted(playerCounts, node);
+        playerCounts.allExhausted = !trackedNodes.isEmpty() && playerCounts.exhausted.cardinality() == trackedNodes.size();
+        return playerCounts;
     }
 
 
     /**
      * Increment the count of a certain message by one
      *
-     * @param node       to increment
-     * @param playerName only for this player
+     * @param node   to increment
+     * @param player only for this player
      */
-    public void increment(MessageNode node, String playerName)
+    public void increment(MessageNode node, Player player)
     {
-        int playerId = getPlayerId(playerName);
-        int value = getCountFor(node, playerId);
-
-        set(node, playerId, ++value);
+        final Counts playerCounts = counts.get(player.getUniqueId());
+        if (playerCounts != null)
+            set(playerCounts, node, playerCounts.values[node.ordinal()] + 1);
     }
 
 
     /**
      * Set the count of a certain message to a certain value
      *
-     * @param node     node to set the count for
-     * @param playerId player for whom we are tracking the count
-     * @param value    value to set
+     * @param playerCounts counts of the player
+     * @param node         node to set the count for
+     * @param value        value to set
      */
-    private void set(MessageNode node, int playerId, int value)
+    private void set(Counts playerCounts, MessageNode node, int value)
     {
         Validate.isTrue(value >= 0, "Count has to be positive");
-        incrementCache(playerId, node, value);
-        Connection conn = null;
-        Statement statement = null;
-        try
-        {
-            conn = retrieveConnection();
-            statement = conn.createStatement();
-
-            //Set the count to the provided value
-            String setQuery = String.format(
-                    "UPDATE %s SET %s = %s WHERE id = %s", msgTable, node.getColumnName(), value, playerId);
-            statement.execute(setQuery);
-        } catch (SQLException e)
-        {
-            e.printStackTrace();
-        } finally
-        {
-            try
-            {
-                if (statement != null && !statement.isClosed()) statement.close();
-                if (conn != null) conn.close();
-            } catch (SQLException e)
-            {
-                e.printStackTrace();
-            }
-        }
+        playerCounts.values[node.ordinal()] = value;
+        updateExhausted(playerCounts, node);
+        queue(new Write(null, playerCounts.uuid, node, value));
+    }
+
+
+    /**
+     * A message is exhausted once it has been displayed as often as its category allows
+     */
+    private void updateExhausted(Counts playerCounts, MessageNode node)
+    {
+        final int limit = messages.getMsgCount(node);
+        playerCounts.exhausted.set(node.ordinal(), limit >= 0 && playerCounts.values[node.ordinal()] >= limit);
+        playerCounts.allExhausted = playerCounts.exhausted.cardinality() == trackedNodes.size();
+    }
+
+
+    private void queue(Write write)
+    {
+        if (writer != null && !writes.offer(write))
+            plugin.getLogger().warning("Message count queue is full, counts of " + write.uuid + " will not be saved");
     }
 
 
     /**
-     * Get the count of a message
+     * Get the count of a message, only reads from memory
      *
-     * @param node       which message
-     * @param playerName player which has seen this message
+     * @param node   which message
+     * @param player player which has seen this message
      *
-     * @return count >= 0
+     * @return count >= 0, Integer.MAX_VALUE if the counts of the player couldn't be loaded
      */
-    public int getCountFor(MessageNode node, String playerName)
+    public int getCountFor(MessageNode node, Player player)
     {
-        return getCountFor(node, getPlayerId(playerName));
+        final Counts playerCounts = counts.get(player.getUniqueId());
+        return playerCounts != null ? playerCounts.values[node.ordinal()] : Integer.MAX_VALUE;
     }
 
 
     /**
-     * Get how often a message has been displayed
+     * Has the player seen this message as often as it will be displayed, only reads from memory
      *
-     * @param node     to get the count for
-     * @param playerId id of the player to get the count for
+     * @param node   which message
+     * @param player player which has seen this message
      *
-     * @return how often this message has been displayed
+     * @return true if the message won't be displayed again, also if the counts of the player couldn't be loaded
      */
-    private int getCountFor(MessageNode node, int playerId)
+    public boolean isExhausted(MessageNode node, Player player)
     {
-        //Check cache first
-        if (cache.contains(playerId, node))
-            return cache.get(playerId, node);
+        final Counts playerCounts = counts.get(player.getUniqueId());
+        return playerCounts == null || playerCounts.exhausted.get(node.ordinal());
+    }
 
-        Connection conn = null;
-        Statement statement = null;
-        ResultSet result = null;
-        int value = 0;
 
-        try
+    /**
+     * Has the player seen every tracked message as often as it will be displayed, only reads a flag
+     *
+     * @param player player to check
+     *
+     * @return true if no tracked message will be displayed again, also if the counts of the player couldn't be loaded
+     */
+    public boolean isAllExhausted(Player player)
+    {
+        final Counts playerCounts = counts.get(player.getUniqueId());
+        return playerCounts == null || playerCounts.allExhausted;
+    }
+
+
+    /**
+     * @param node message
+     *
+     * @return if the counts of this message are stored
+     */
+    public boolean isTracked(MessageNode node)
+    {
+        return trackedNodes.contains(node);
+    }
+
+
+    /**
+     * Resets all counts for a given player
+     *
+     * @param player player to reset the stats for
+     */
+    public void resetAll(Player player)
+    {
+        final Counts playerCounts = counts.get(player.getUniqueId());
+        if (playerCounts != null)
         {
-            conn = retrieveConnection();
-            statement = conn.createStatement();
+            Arrays.fill(playerCounts.values, 0);
+            playerCounts.exhausted.clear();
+            playerCounts.allExhausted = false;
+            //node == null resets all counts of the player
+            queue(new Write(null, playerCounts.uuid, null, 0));
+        }
+    }
 
-            String select = String.format("SELECT * FROM %s WHERE %s = %s", msgTable, "id", playerId);
 
-            result = statement.executeQuery(select);
-            if (result.next())
-                value = result.getInt(node.getColumnName());
-            else //create the missing row
+    /**
+     * Open the store and flush writes until closed
+     */
+    private void runWriter(MsgCountStore newStore)
+    {
+        synchronized (storeLock)
+        {
+            try
             {
-                String newPlayerDataQuery = String.format( //empty row in messages
-                        "INSERT INTO %s (%s) VALUES (%s)", msgTable, "id", playerId);
-                conn.createStatement().executeUpdate(newPlayerDataQuery);
+                newStore.open(trackedNodes);
+                store = newStore;
+            } catch (IOException e)
+            {
+                plugin.getLogger().severe("Couldn't open the message count storage, counts will not be saved : " + e);
+            } finally
+            {
+                opened.countDown();
             }
-        } catch (SQLException e)
-        {
-            e.printStackTrace();
-        } finally
+        }
+
+        List<Write> batch = new ArrayList<Write>(BATCH_SIZE);
+        boolean busy = true; //store has background work
+        boolean running = true;
+        while (running)
         {
             try
             {
-                if (result != null && !result.isClosed()) result.close();
-                if (statement != null && !statement.isClosed()) statement.close();
-                if (conn != null) conn.close();
-            } catch (SQLException e)
+                Write first = writes.poll(busy ? 50 : 1000, TimeUnit.MILLISECONDS);
+                if (first == null)
+                {
+                    synchronized (storeLock)
+                    {
+                        busy = store != null && store.idle();
+                    }
+                    continue;
+                }
+                batch.add(first);
+                writes.drainTo(batch, BATCH_SIZE - 1);
+            } catch (InterruptedException e)
             {
-                e.printStackTrace();
+                running = false;
             }
+            if (batch.remove(STOP))
+                running = false;
+            if (!batch.isEmpty())
+                flush(batch);
+            batch.clear();
         }
+        //Writes which arrived after STOP
+        writes.drainTo(batch);
+        batch.remove(STOP);
+        if (!batch.isEmpty())
+            flush(batch);
 
-        //Save to cache
-        cache.put(playerId, node, value);
-
-        return value;
+        synchronized (storeLock)
+        {
+            if (store != null)
+                store.close();
+            store = null;
+        }
     }
 
 
     /**
-     * Resets all counts for a given player
-     *
-     * @param playerName player to reset the stats for
+     * Write a batch of counts in one transaction, then release the players who quit
      */
-    public void resetAll(String playerName)
+    private void flush(List<Write> batch)
+    {
+        synchronized (storeLock)
+        {
+            if (store != null)
+                write(batch);
+        }
+        for (Write write : batch)
+            if (write.release != null)
+                counts.remove(write.uuid, write.release);
+    }
+
+
+    private void write(List<Write> batch)
     {
-        int playerId = getPlayerId(playerName);
-        for (MessageNode node : MessageNode.values())
+        try
         {
-            if (node.getColumnName() != null)
+            for (Write write : batch)
             {
-                set(node, playerId, 0);
+                if (write.release != null)
+                    continue;
+                if (write.node == null)
+                    store.reset(write.uuid);
+                else
+                    store.set(write.uuid, write.node, write.value);
             }
+            store.commit();
+        } catch (IOException e)
+        {
+            plugin.getLogger().severe("Couldn't save " + batch.size() + " message counts : " + e);
+            store.rollback();
         }
     }
 
-    private void incrementCache(int id, MessageNode node, int count)
+
+    /**
+     * Counts of one player, indexed by the ordinal of the MessageNode
+     */
+    private static class Counts
     {
-        if (!cache.contains(id, node))
-            return;
-        count += cache.get(id, node);
-        cache.put(id, node, count);
+        private final UUID uuid;
+
+        private final int[] values;
+
+        /**
+         * Messages which the player has seen as often as they will be displayed, by ordinal
+         */
+        private final BitSet exhausted;
+
+        /**
+         * Every tracked message is exhausted
+         */
+        private boolean allExhausted;
+
+
+        private Counts(UUID uuid, int[] values, BitSet exhausted)
+        {
+            this.uuid = uuid;
+            this.values = values;
+            this.exhausted = exhausted;
+        }
+    }
+
+
+    /**
+     * A count which has to be saved, a reset of all counts of a player (no node) or a player whose counts can be
+     * released
+     */
+    private static class Write
+    {
+        /**
+         * Counts to release once everything before has been written
+         */
+        private final Counts release;
+
+        private final UUID uuid;
+
+        private final MessageNode node;
+
+        private final int value;
+
+
+        private Write(Counts release, UUID uuid, MessageNode node, int value)
+        {
+            this.release = release;
+            this.uuid = uuid;
+            this.node = node;
+            this.value = value;
+        }
     }
 }
@@ -0,0 +1,110 @@
+/*
+ * This file is part of
+ * ExtraHardMode Server Plugin for Minecraft
+ *
+ * Copyright (C) 2012 Ryan Hamshire
+ * Copyright (C) 2013 Diemex
+ *
+ * ExtraHardMode is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ExtraHardMode is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero Public License
+ * along with ExtraHardMode.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.extrahardmode.module;
+
+
+import com.extrahardmode.config.messages.MessageNode;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Message state of one online player, created when he joins and dropped when he quits.
+ * <p/>
+ * Times are read from a monotonic clock, so changing the system time doesn't reset or block messages.
+ */
+class MsgSession
+{
+    /** Marks a message which hasn't been sent in this session */
+    private static final long NEVER = Long.MIN_VALUE;
+
+    /** When each message was sent the last time, by ordinal of the MessageNode */
+    private final long[] lastSent = new long[MessageNode.values().length];
+
+    /** Last notification sent, a different notification may be sent right away */
+    private MessageNode lastNotification = null;
+
+    /** When the last notification was sent */
+    private long lastNotificationTime = NEVER;
+
+
+    MsgSession()
+    {
+        Arrays.fill(lastSent, NEVER);
+    }
+
+
+    /**
+     * Current time in millis, only useful to measure elapsed time
+     */
+    static long now()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+
+    /**
+     * Mark the message as sent if it hasn't been sent within the timeout
+     *
+     * @param node    message
+     * @param now     current time
+     * @param timeout millis before the message may be sent again
+     *
+     * @return true if the message should be sent
+     */
+    boolean trySend(MessageNode node, long now, long timeout)
+    {
+        final long last = lastSent[node.ordinal()];
+        if (last != NEVER && now - last <= timeout)
+            return false;
+        lastSent[node.ordinal()] = now;
+        return true;
+    }
+
+
+    /**
+     * Mark the notification as sent if it's not the same notification as the last one or that has been a while ago
+     *
+     * @param node    notification
+     * @param now     current time
+     * @param timeout millis before the same notification may be sent again
+     *
+     * @return true if the notification should be sent
+     */
+    boolean trySendNotification(MessageNode node, long now, long timeout)
+    {
+        if (node == lastNotification && lastNotificationTime != NEVER && now - lastNotificationTime <= timeout)
+            return false;
+        lastNotification = node;
+        lastNotificationTime = now;
+        return true;
+    }
+
+
+    /**
+     * Forget when the message has been sent
+     */
+    void clear(MessageNode node)
+    {
+        lastSent[node.ordinal()] = NEVER;
+    }
+}
@@ -25,23 +25,49 @@ package com.extrahardmode.module;
 import com.extrahardmode.ExtraHardMode;
 import com.extrahardmode.config.RootConfig;
 import com.extrahardmode.config.RootNode;
-import com.extrahardmode.service.EHMModule;
 import com.extrahardmode.service.Feature;
+import com.extrahardmode.service.ListenerModule;
+import com.extrahardmode.service.PermissionNode;
 import org.bukkit.GameMode;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerCommandPreprocessEvent;
+import org.bukkit.event.player.PlayerGameModeChangeEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.server.RemoteServerCommandEvent;
+import org.bukkit.event.server.ServerCommandEvent;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.PlayerInventory;
 
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
 /**
  * Player centric actions
  *
  * @author Max
  */
-public class PlayerModule extends EHMModule
+public class PlayerModule extends ListenerModule
 {
+    /**
+     * Ticks after which all cached permissions are checked again, permissions can change without an event
+     */
+    private static final long RECHECK_TICKS = 20L * 30;
+
     private RootConfig CFG;
 
+    /**
+     * Cached bypass flags of all online players, computed on the first check
+     */
+    private final Map<UUID, Flags> flags = new HashMap<UUID, Flags>();
+
+    private int recheckTaskId = -1;
+
 
     /** Constructor */
     public PlayerModule(ExtraHardMode plugin)
@@ -53,30 +79,190 @@ public class PlayerModule extends EHMModule
     @Override
     public void starting()
     {
+        super.starting();
         CFG = plugin.getModuleForClass(RootConfig.class);
+        recheckTaskId = plugin.getModuleForClass(EhmScheduler.class).runTaskTimer("PlayerModule", new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                flags.clear();
+            }
+        }, RECHECK_TICKS, RECHECK_TICKS);
     }
 
 
+    /**
+     * Does the player bypass the given feature, because of his permissions, being op or in creative
+     * <p/>
+     * The result is cached until the player changes gamemode or world, the config is reloaded or permissions are
+     * rechecked periodically.
+     */
     public boolean playerBypasses(Player player, Feature feature)
     {
         //Validate.notNull(player, "We can't check if a Player bypasses if there is no Player!");
         if (player == null)
             return false;
+        return (getFlags(player).features & (1L << feature.ordinal())) != 0;
+    }
+
+
+    /**
+     * Get all Features the player bypasses at once, see {@link #playerBypasses(Player, Feature)}
+     *
+     * @return bit mask with a bit set for the ordinal of every bypassed Feature, 0 if there is no player
+     */
+    public long getBypassedFeatures(Player player)
+    {
+        return player != null ? getFlags(player).features : 0;
+    }
+
+
+    /**
+     * Does the player have the permission, bypass and silent permissions are cached like in {@link
+     * #playerBypasses(Player, Feature)}
+     */
+    public boolean hasPermission(Player player, PermissionNode node)
+    {
+        if (!isCached(node))
+            return player.hasPermission(node.getNode());
+        return (getFlags(player).permissions & (1L << node.ordinal())) != 0;
+    }
+
+
+    private Flags getFlags(Player player)
+    {
+        Flags playerFlags = flags.get(player.getUniqueId());
+        if (playerFlags == null)
+        {
+            playerFlags = computeFlags(player);
+            flags.put(player.getUniqueId(), playerFlags);
+        }
+        return playerFlags;
+    }
+
+
+    private Flags computeFlags(Player player)
+    {
+        return computeFlags(player, player.getGameMode());
+    }
+
+
+    private Flags computeFlags(Player player, GameMode gameMode)
+    {
+        final String world = player.getWorld().getName();
+        final boolean bypassPermsEnabled = CFG.getBoolean(RootNode.BYPASS_PERMISSION, world);
+        final boolean opsBypass = CFG.getBoolean(RootNode.BYPASS_OPS, world);
+        final boolean creativeBypasses = CFG.getBoolean(RootNode.BYPASS_CREATIVE, world);
+
+        long permissions = 0;
+        for (PermissionNode node : PermissionNode.values())
+            if (isCached(node) && player.hasPermission(node.getNode()))
+                permissions |= 1L << node.ordinal();
+
+        final boolean bypassesAll = (opsBypass && player.isOp()) || (creativeBypasses && gameMode == GameMode.CREATIVE);
+        long features = 0;
+        for (Feature feature : Feature.values())
+            if (bypassesAll || (bypassPermsEnabled && (permissions & (1L << feature.getBypassNode().ordinal())) != 0))
+                features |= 1L << feature.ordinal();
+        return new Flags(features, permissions);
+    }
+
+
+    /**
+     * Bypass and silent permissions are checked on nearly every event and are cached
+     */
+    private static boolean isCached(PermissionNode node)
+    {
+        return node != PermissionNode.ADMIN;
+    }
+
+
+    /**
+     * Forget the flags of the player, they get computed on the next check
+     */
+    public void invalidate(Player player)
+    {
+        flags.remove(player.getUniqueId());
+    }
+
+
+    /**
+     * The player still has the old gamemode while the event is called, so the flags are computed for the new one
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onGameModeChange(PlayerGameModeChangeEvent event)
+    {
+        flags.put(event.getPlayer().getUniqueId(), computeFlags(event.getPlayer(), event.getNewGameMode()));
+    }
+
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onWorldChange(PlayerChangedWorldEvent event)
+    {
+        invalidate(event.getPlayer());
+    }
+
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event)
+    {
+        invalidate(event.getPlayer());
+    }
+
+
+    /**
+     * Being op isn't checked by permission plugins, so op and deop invalidate all flags
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerCommand(PlayerCommandPreprocessEvent event)
+    {
+        if (isOpCommand(event.getMessage().substring(1)))
+            invalidateAllAfterCommand();
+    }
+
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onServerCommand(ServerCommandEvent event)
+    {
+        if (isOpCommand(event.getCommand()))
+            invalidateAllAfterCommand();
+    }
 
-        final boolean bypassPermsEnabled = CFG.getBoolean(RootNode.BYPASS_PERMISSION, player.getWorld().getName());
-        final boolean opsBypass = CFG.getBoolean(RootNode.BYPASS_OPS, player.getWorld().getName());
-        final boolean creativeBypasses = CFG.getBoolean(RootNode.BYPASS_CREATIVE, player.getWorld().getName());
 
-        boolean bypasses = false;
+    /**
+     * Commands over rcon have their own event
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onRemoteCommand(RemoteServerCommandEvent event)
+    {
+        if (isOpCommand(event.getCommand()))
+            invalidateAllAfterCommand();
+    }
+
+
+    /**
+     * The command runs after its event, so the flags are cleared once it has run
+     */
+    private void invalidateAllAfterCommand()
+    {
+        plugin.getModuleForClass(EhmScheduler.class).runTask("PlayerModule", new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                flags.clear();
+            }
+        });
+    }
 
-        if (bypassPermsEnabled)
-            bypasses = player.hasPermission(feature.getBypassNode().getNode());
-        if (!bypasses && opsBypass)
-            bypasses = player.isOp();
-        if (!bypasses && creativeBypasses)
-            bypasses = player.getGameMode().equals(GameMode.CREATIVE);
 
-        return bypasses;
+    private static boolean isOpCommand(String command)
+    {
+        String label = command.trim().toLowerCase();
+        if (label.startsWith("minecraft:"))
+            label = label.substring("minecraft:".length());
+        return label.startsWith("op ") || label.startsWith("deop ");
     }
 
 
@@ -151,6 +337,54 @@ public class PlayerModule extends EHMModule
     }
 
 
+    /**
+     * Armor points per piece of armor, precomputed so a lookup doesn't have to switch over the slot and Material
+     */
+    private static final Map<Material, Float> ARMOR_POINTS = new EnumMap<Material, Float>(Material.class);
+
+
+    static
+    {
+        //HEAD
+        ARMOR_POINTS.put(Material.LEATHER_HELMET, 0.04F);
+        ARMOR_POINTS.put(Material.GOLDEN_HELMET, 0.08F);
+        ARMOR_POINTS.put(Material.CHAINMAIL_HELMET, 0.08F);
+        ARMOR_POINTS.put(Material.IRON_HELMET, 0.08F);
+        ARMOR_POINTS.put(Material.DIAMOND_HELMET, 0.12F);
+        //CHEST
+        ARMOR_POINTS.put(Material.LEATHER_CHESTPLATE, 0.12F);
+        ARMOR_POINTS.put(Material.GOLDEN_CHESTPLATE, 0.2F);
+        ARMOR_POINTS.put(Material.CHAINMAIL_CHESTPLATE, 0.2F);
+        ARMOR_POINTS.put(Material.IRON_CHESTPLATE, 0.24F);
+        ARMOR_POINTS.put(Material.DIAMOND_CHESTPLATE, 0.32F);
+        //LEGGINGS
+        ARMOR_POINTS.put(Material.LEATHER_LEGGINGS, 0.08F);
+        ARMOR_POINTS.put(Material.GOLDEN_LEGGINGS, 0.12F);
+        ARMOR_POINTS.put(Material.CHAINMAIL_LEGGINGS, 0.16F);
+        ARMOR_POINTS.put(Material.IRON_LEGGINGS, 0.2F);
+        ARMOR_POINTS.put(Material.DIAMOND_LEGGINGS, 0.24F);
+        //BOOTS
+        ARMOR_POINTS.put(Material.LEATHER_BOOTS, 0.04F);
+        ARMOR_POINTS.put(Material.GOLDEN_BOOTS, 0.04F);
+        ARMOR_POINTS.put(Material.CHAINMAIL_BOOTS, 0.04F);
+        ARMOR_POINTS.put(Material.IRON_BOOTS, 0.08F);
+        ARMOR_POINTS.put(Material.DIAMOND_BOOTS, 0.12F);
+    }
+
+
+    /**
+     * Is the given Material a piece of armor which counts towards the armor slowdown
+     *
+     * @param material to check
+     *
+     * @return true if it has armor points
+     */
+    public static boolean isArmor(Material material)
+    {
+        return material != null && ARMOR_POINTS.containsKey(material);
+    }
+
+
     /**
      * Get the percentage of how much less damage a player will take.
      *
@@ -161,92 +395,13 @@ public class PlayerModule extends EHMModule
     public static float getArmorPoints(final Player player)
     {
         float points = 0.0F;
-        int i = 0;
         for (ItemStack armor : player.getInventory().getArmorContents())
         {
             if (armor == null) //itemstacks now return null in 1.9 instead of air (CB change)
-            {
-                i++;
                 continue;
-            }
-            switch (i)
-            {
-                //HEAD
-                case 3:
-                    switch (armor.getType())
-                    {
-                        case LEATHER_HELMET:
-                            points += 0.04;
-                            break;
-                        case GOLDEN_HELMET:
-                        case CHAINMAIL_HELMET:
-                        case IRON_HELMET:
-                            points += 0.08;
-                            break;
-                        case DIAMOND_HELMET:
-                            points += 0.12;
-                            break;
-                    }
-                    break;
-                //CHEST
-                case 2:
-                    switch (armor.getType())
-                    {
-                        case LEATHER_CHESTPLATE:
-                            points += 0.12;
-                            break;
-                        case GOLDEN_CHESTPLATE:
-                        case CHAINMAIL_CHESTPLATE:
-                            points += 0.2;
-                            break;
-                        case IRON_CHESTPLATE:
-                            points += 0.24;
-                            break;
-                        case DIAMOND_CHESTPLATE:
-                            points += 0.32;
-                            break;
-                    }
-                    break;
-                //LEGGINGS
-                case 1:
-                    switch (armor.getType())
-                    {
-                        case LEATHER_LEGGINGS:
-                            points += 0.08;
-                            break;
-                        case GOLDEN_LEGGINGS:
-                            points += 0.12;
-                            break;
-                        case CHAINMAIL_LEGGINGS:
-                            points += 0.16;
-                            break;
-                        case IRON_LEGGINGS:
-                            points += 0.2;
-                            break;
-                        case DIAMOND_LEGGINGS:
-                            points += 0.24;
-                            break;
-                    }
-                    break;
-                //BOOTS
-                case 0:
-                    switch (armor.getType())
-                    {
-                        case LEATHER_BOOTS:
-                        case GOLDEN_BOOTS:
-                        case CHAINMAIL_BOOTS:
-                            points += 0.04;
-                            break;
-                        case IRON_BOOTS:
-                            points += 0.08;
-                            break;
-                        case DIAMOND_BOOTS:
-                            points += 0.12;
-                            break;
-                    }
-                    break;
-            }
-            i++;
+            Float armorPoints = ARMOR_POINTS.get(armor.getType());
+            if (armorPoints != null)
+                points += armorPoints;
         }
         return points;
     }
@@ -255,5 +410,30 @@ public class PlayerModule extends EHMModule
     @Override
     public void closing()
     {
+        super.closing();
+        if (recheckTaskId != -1)
+        {
+            plugin.getModuleForClass(EhmScheduler.class).cancelTask(recheckTaskId);
+            recheckTaskId = -1;
+        }
+        flags.clear();
+    }
+
+
+    /**
+     * What a player bypasses, by ordinal of the Feature and the PermissionNode
+     */
+    private static class Flags
+    {
+        private final long features;
+
+        private final long permissions;
+
+
+        private Flags(long features, long permissions)
+        {
+            this.features = features;
+            this.permissions = permissions;
+        }
     }
 }
@@ -0,0 +1,302 @@
+/*
+ * This file is part of
+ * ExtraHardMode Server Plugin for Minecraft
+ *
+ * Copyright (C) 2012 Ryan Hamshire
+ * Copyright (C) 2013 Diemex
+ *
+ * ExtraHardMode is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ExtraHardMode is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero Public License
+ * along with ExtraHardMode.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.extrahardmode.module;
+
+
+import com.extrahardmode.ExtraHardMode;
+import com.extrahardmode.module.timings.HandlerTimings;
+import com.extrahardmode.service.IModule;
+import com.extrahardmode.service.ListenerModule;
+import com.extrahardmode.service.SpawnRule;
+import org.apache.commons.lang.Validate;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.entity.CreatureSpawnEvent;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The only CreatureSpawnEvent listener, dispatches spawns to the {@link SpawnRule}s of the features.
+ * <p/>
+ * Features register their rules for the EntityTypes they care about. The rules are compiled once per world into a
+ * table by EntityType, rules of features which are disabled in a world are left out. A spawn only looks up the table
+ * of its world and calls the rules for its type.
+ * <p/>
+ * Rules run at LOW or NORMAL priority like the listeners they replaced, in the order they have been registered. The time
+ * spent in each rule is recorded per world in the {@link TimingsModule} as "Module.rule".
+ */
+public class SpawnPipeline extends ListenerModule
+{
+    /**
+     * All registered rules in the order they have been registered
+     */
+    private final List<Registration> registrations = new ArrayList<Registration>();
+
+    /**
+     * Compiled rules by world, compiled on the first spawn in a world
+     */
+    private final Map<String, Table> tables = new HashMap<String, Table>();
+
+
+    public SpawnPipeline(ExtraHardMode plugin)
+    {
+        super(plugin);
+    }
+
+
+    @Override
+    public void starting()
+    {
+        super.starting();
+        //The config might have been reloaded
+        tables.clear();
+    }
+
+
+    @Override
+    public void closing()
+    {
+        super.closing();
+        tables.clear();
+    }
+
+
+    /**
+     * Register a rule
+     *
+     * @param owner           module owning the rule, has to unregister its rules when closing
+     * @param name            name of the rule in the timings
+     * @param priority        LOW or NORMAL
+     * @param ignoreCancelled don't call the rule if the spawn has been cancelled
+     * @param factory         creates the rule for each world
+     * @param types           EntityTypes the rule is called for
+     */
+    public void register(IModule owner, String name, EventPriority priority, boolean ignoreCancelled, SpawnRule.Factory factory, EntityType... types)
+    {
+        Validate.isTrue(priority == EventPriority.LOW || priority == EventPriority.NORMAL, "Spawn rules can only run at LOW or NORMAL priority");
+        TimingsModule timings = plugin.getModuleForClass(TimingsModule.class);
+        registrations.add(new Registration(owner, timings != null ? timings.getTimings(owner.getClass().getSimpleName() + '.' + name) : null,
+                priority, ignoreCancelled, factory, types));
+        tables.clear();
+    }
+
+
+    /**
+     * Remove all rules of a module
+     *
+     * @param owner module which registered the rules
+     */
+    public void unregister(IModule owner)
+    {
+        for (Iterator<Registration> iter = registrations.iterator(); iter.hasNext(); )
+            if (iter.next().owner == owner)
+                iter.remove();
+        tables.clear();
+    }
+
+
+    /**
+     * Get all EntityTypes whose entities are of the given class
+     *
+     * @param clazz e.g. Monster.class
+     *
+     * @return matching types
+     */
+    public static EntityType[] typesOf(Class<? extends Entity> clazz)
+    {
+        List<EntityType> types = new ArrayList<EntityType>();
+        for (EntityType type : EntityType.values())
+            if (type.getEntityClass() != null && clazz.isAssignableFrom(type.getEntityClass()))
+                types.add(type);
+        return types.toArray(new EntityType[types.size()]);
+    }
+
+
+    @EventHandler(priority = EventPriority.LOW)
+    public void onSpawnLow(CreatureSpawnEvent event)
+    {
+        final String world = event.getLocation().getWorld().getName();
+        dispatch(event, world, getTable(world).low.get(event.getEntityType()));
+    }
+
+
+    @EventHandler(priority = EventPriority.NORMAL)
+    public void onSpawnNormal(CreatureSpawnEvent event)
+    {
+        final String world = event.getLocation().getWorld().getName();
+        dispatch(event, world, getTable(world).normal.get(event.getEntityType()));
+    }
+
+
+    private static void dispatch(CreatureSpawnEvent event, String world, Entry[] entries)
+    {
+        if (entries == null)
+            return;
+        for (Entry entry : entries)
+        {
+            if (entry.ignoreCancelled && event.isCancelled())
+                continue;
+            final long start = System.nanoTime();
+            entry.rule.onSpawn(event);
+            if (entry.timings != null)
+                entry.timings.record(world, System.nanoTime() - start);
+        }
+    }
+
+
+    private Table getTable(String world)
+    {
+        Table table = tables.get(world);
+        if (table == null)
+        {
+            table = compile(world);
+            tables.put(world, table);
+        }
+        return table;
+    }
+
+
+    /**
+     * Create the rules of all features for the world and sort them by EntityType
+     */
+    private Table compile(String world)
+    {
+        Map<EntityType, List<Entry>> low = new EnumMap<EntityType, List<Entry>>(EntityType.class);
+        Map<EntityType, List<Entry>> normal = new EnumMap<EntityType, List<Entry>>(EntityType.class);
+        for (Registration registration : registrations)
+        {
+            SpawnRule rule = registration.factory.forWorld(world);
+            if (rule == null) //disabled in this world
+                continue;
+            Entry entry = new Entry(rule, registration.ignoreCancelled, registration.timings);
+            Map<EntityType, List<Entry>> byType = registration.priority == EventPriority.LOW ? low : normal;
+            for (EntityType type : registration.types)
+            {
+                List<Entry> entries = byType.get(type);
+                if (entries == null)
+                {
+                    entries = new ArrayList<Entry>();
+                    byType.put(type, entries);
+                }
+                entries.add(entry);
+            }
+        }
+        return new Table(toArrays(low), toArrays(normal));
+    }
+
+
+    private static Map<EntityType, Entry[]> toArrays(Map<EntityType, List<Entry>> byType)
+    {
+        Map<EntityType, Entry[]> arrays = new EnumMap<EntityType, Entry[]>(EntityType.class);
+        for (Map.Entry<EntityType, List<Entry>> entries : byType.entrySet())
+            arrays.put(entries.getKey(), entries.getValue().toArray(new Entry[entries.getValue().size()]));
+        return arrays;
+    }
+
+
+    /**
+     * @return amount of rules which have been registered
+     */
+    public int getRuleCount()
+    {
+        return registrations.size();
+    }
+
+
+    /**
+     * A rule as it has been registered by a feature
+     */
+    private static class Registration
+    {
+        private final IModule owner;
+
+        /**
+         * Where the time spent in the rule is recorded, null without timings
+         */
+        private final HandlerTimings timings;
+
+        private final EventPriority priority;
+
+        private final boolean ignoreCancelled;
+
+        private final SpawnRule.Factory factory;
+
+        private final EntityType[] types;
+
+
+        private Registration(IModule owner, HandlerTimings timings, EventPriority priority, boolean ignoreCancelled, SpawnRule.Factory factory, EntityType[] types)
+        {
+            this.owner = owner;
+            this.timings = timings;
+            this.priority = priority;
+            this.ignoreCancelled = ignoreCancelled;
+            this.factory = factory;
+            this.types = types;
+        }
+    }
+
+
+    /**
+     * A rule compiled for a world
+     */
+    private static class Entry
+    {
+        private final SpawnRule rule;
+
+        private final boolean ignoreCancelled;
+
+        private final HandlerTimings timings;
+
+
+        private Entry(SpawnRule rule, boolean ignoreCancelled, HandlerTimings timings)
+        {
+            this.rule = rule;
+            this.ignoreCancelled = ignoreCancelled;
+            this.timings = timings;
+        }
+    }
+
+
+    /**
+     * Rules of one world by EntityType and priority
+     */
+    private static class Table
+    {
+        private final Map<EntityType, Entry[]> low;
+
+        private final Map<EntityType, Entry[]> normal;
+
+
+        private Table(Map<EntityType, Entry[]> low, Map<EntityType, Entry[]> normal)
+        {
+            this.low = low;
+            this.normal = normal;
+        }
+    }
+}
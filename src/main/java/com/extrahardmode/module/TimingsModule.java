@@ -0,0 +1,410 @@
+/*
+ * This file is part of
+ * ExtraHardMode Server Plugin for Minecraft
+ *
+ * Copyright (C) 2012 Ryan Hamshire
+ * Copyright (C) 2013 Diemex
+ *
+ * ExtraHardMode is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ExtraHardMode is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero Public License
+ * along with ExtraHardMode.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.extrahardmode.module;
+
+
+import com.extrahardmode.ExtraHardMode;
+import com.extrahardmode.module.timings.HandlerTimings;
+import com.extrahardmode.module.timings.LatencyHistogram;
+import com.extrahardmode.service.EHMModule;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventException;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockEvent;
+import org.bukkit.event.entity.EntityEvent;
+import org.bukkit.event.hanging.HangingEvent;
+import org.bukkit.event.inventory.InventoryEvent;
+import org.bukkit.event.player.PlayerEvent;
+import org.bukkit.event.vehicle.VehicleEvent;
+import org.bukkit.event.weather.WeatherEvent;
+import org.bukkit.event.world.WorldEvent;
+import org.bukkit.plugin.EventExecutor;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Records how long our event handlers and tasks take, per handler and world.
+ * <p/>
+ * {@link com.extrahardmode.service.ListenerModule}s register their handlers through {@link #registerEvents(Listener)}
+ * which wraps every handler in an executor that measures it. Tasks are measured by the {@link EhmScheduler}. Only calls
+ * on the main thread are recorded, async events and tasks run without being measured.
+ */
+public class TimingsModule extends EHMModule
+{
+    /**
+     * Timings by the name of the handler, in the order they have been registered
+     */
+    private final Map<String, HandlerTimings> timings = new LinkedHashMap<String, HandlerTimings>();
+
+    /**
+     * Folder the timings are dumped to
+     */
+    private final File folder;
+
+    /**
+     * When the timings have been reset the last time
+     */
+    private long since = System.currentTimeMillis();
+
+
+    /**
+     * Constructor.
+     *
+     * @param plugin - Plugin instance.
+     * @param folder - Folder to dump the timings to.
+     */
+    public TimingsModule(ExtraHardMode plugin, File folder)
+    {
+        super(plugin);
+        this.folder = folder;
+    }
+
+
+    @Override
+    public void starting()
+    {
+    }
+
+
+    @Override
+    public void closing()
+    {
+    }
+
+
+    /**
+     * Get the timings of a handler or task, they are kept when it is registered again after a reload
+     *
+     * @param name name of the module and the handler
+     */
+    public HandlerTimings getTimings(String name)
+    {
+        HandlerTimings handler = timings.get(name);
+        if (handler == null)
+        {
+            handler = new HandlerTimings(name);
+            timings.put(name, handler);
+        }
+        return handler;
+    }
+
+
+    /**
+     * Register all handlers of the listener with bukkit, every handler is measured
+     * <p/>
+     * Handlers are found like bukkit does it, they can be unregistered with {@link org.bukkit.event.HandlerList#unregisterAll(Listener)}.
+     *
+     * @param listener listener to register
+     */
+    public void registerEvents(Listener listener)
+    {
+        Set<Method> methods = new HashSet<Method>();
+        methods.addAll(Arrays.asList(listener.getClass().getMethods()));
+        methods.addAll(Arrays.asList(listener.getClass().getDeclaredMethods()));
+        for (Method method : methods)
+        {
+            final EventHandler handler = method.getAnnotation(EventHandler.class);
+            if (handler == null || method.isBridge() || method.isSynthetic())
+                continue;
+            final Class<?>[] params = method.getParameterTypes();
+            if (params.length != 1 || !Event.class.isAssignableFrom(params[0]))
+            {
+                plugin.getLogger().severe(listener.getClass().getName() + "." + method.getName() + " is not a valid event handler");
+                continue;
+            }
+            final Class<? extends Event> eventClass = params[0].asSubclass(Event.class);
+            method.setAccessible(true);
+            final HandlerTimings handlerTimings = getTimings(listener.getClass().getSimpleName() + "." + method.getName());
+            plugin.getServer().getPluginManager().registerEvent(eventClass, listener, handler.priority(),
+                    new TimedExecutor(method, eventClass, handlerTimings), plugin, handler.ignoreCancelled());
+        }
+    }
+
+
+    /**
+     * Get the timings of all handlers and tasks in all worlds
+     *
+     * @return one row for every handler and world it has been called in, the handlers which took longest in total
+     * first
+     */
+    public List<Row> getRows()
+    {
+        List<Row> rows = new ArrayList<Row>();
+        for (HandlerTimings handler : timings.values())
+            for (String world : handler.getWorlds())
+            {
+                LatencyHistogram histogram = handler.getHistogram(world);
+                if (histogram.getCount() > 0)
+                    rows.add(new Row(handler.getName(), world, histogram));
+            }
+        Collections.sort(rows, new Comparator<Row>()
+        {
+            @Override
+            public int compare(Row o1, Row o2)
+            {
+                return Long.compare(o2.getTotal(), o1.getTotal());
+            }
+        });
+        return rows;
+    }
+
+
+    /**
+     * Start recording from scratch
+     */
+    public void reset()
+    {
+        for (HandlerTimings handler : timings.values())
+            handler.reset();
+        since = System.currentTimeMillis();
+    }
+
+
+    /**
+     * @return when the timings have been reset the last time
+     */
+    public long getSince()
+    {
+        return since;
+    }
+
+
+    /**
+     * Write all timings to a new file in the persistence folder
+     *
+     * @return the file the timings have been written to
+     */
+    public File dump() throws IOException
+    {
+        final SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss");
+        final File file = new File(folder, "timings_" + format.format(new Date()) + ".txt");
+        BufferedWriter writer = new BufferedWriter(new FileWriter(file));
+        try
+        {
+            writer.write("# ExtraHardMode timings since " + new Date(since) + ", times in microseconds");
+            writer.newLine();
+            writer.write("handler,world,count,total,p50,p99,max");
+            writer.newLine();
+            for (Row row : getRows())
+            {
+                writer.write(row.getName() + ',' + row.getWorld() + ',' + row.getCount() + ',' + micros(row.getTotal()) + ','
+                        + micros(row.getP50()) + ',' + micros(row.getP99()) + ',' + micros(row.getMax()));
+                writer.newLine();
+            }
+        } finally
+        {
+            writer.close();
+        }
+        return file;
+    }
+
+
+    private static long micros(long nanos)
+    {
+        return nanos / 1000L;
+    }
+
+
+    /**
+     * Get the name of the world an event happened in
+     *
+     * @return name or null if the event isn't about something in a world
+     */
+    private static String worldOf(Event event)
+    {
+        World world = null;
+        if (event instanceof WorldEvent)
+            world = ((WorldEvent) event).getWorld();
+        else if (event instanceof WeatherEvent)
+            world = ((WeatherEvent) event).getWorld();
+        else if (event instanceof BlockEvent)
+            world = ((BlockEvent) event).getBlock().getWorld();
+        else if (event instanceof PlayerEvent)
+            world = ((PlayerEvent) event).getPlayer().getWorld();
+        else if (event instanceof EntityEvent)
+            world = worldOf(((EntityEvent) event).getEntity());
+        else if (event instanceof HangingEvent)
+            world = worldOf(((HangingEvent) event).getEntity());
+        else if (event instanceof VehicleEvent)
+            world = worldOf(((VehicleEvent) event).getVehicle());
+        else if (event instanceof InventoryEvent)
+            world = worldOf(((InventoryEvent) event).getView().getPlayer());
+        return world != null ? world.getName() : null;
+    }
+
+
+    private static World worldOf(Entity entity)
+    {
+        return entity != null ? entity.getWorld() : null;
+    }
+
+
+    /**
+     * Calls a handler and records how long it took
+     */
+    private class TimedExecutor implements EventExecutor
+    {
+        private final Method method;
+
+        private final Class<? extends Event> eventClass;
+
+        private final HandlerTimings handlerTimings;
+
+
+        private TimedExecutor(Method method, Class<? extends Event> eventClass, HandlerTimings handlerTimings)
+        {
+            this.method = method;
+            this.eventClass = eventClass;
+            this.handlerTimings = handlerTimings;
+        }
+
+
+        @Override
+        public void execute(Listener listener, Event event) throws EventException
+        {
+            //Handlers for a super class of the event are also called for subclasses
+            if (!eventClass.isInstance(event))
+                return;
+            if (event.isAsynchronous())
+            {
+                invoke(listener, event);
+                return;
+            }
+            final long start = System.nanoTime();
+            try
+            {
+                invoke(listener, event);
+            } finally
+            {
+                final long nanos = System.nanoTime() - start;
+                handlerTimings.record(worldOf(event), nanos);
+            }
+        }
+
+
+        private void invoke(Listener listener, Event event) throws EventException
+        {
+            try
+            {
+                method.invoke(listener, event);
+            } catch (InvocationTargetException e)
+            {
+                throw new EventException(e.getCause());
+            } catch (Throwable t)
+            {
+                throw new EventException(t);
+            }
+        }
+    }
+
+
+    /**
+     * The timings of a handler in one world
+     */
+    public static class Row
+    {
+        private final String name;
+
+        private final String world;
+
+        private final long count, total, p50, p99, max;
+
+
+        private Row(String name, String world, LatencyHistogram histogram)
+        {
+            this.name = name;
+            this.world = world;
+            this.count = histogram.getCount();
+            this.total = histogram.getTotal();
+            this.p50 = histogram.getPercentile(50);
+            this.p99 = histogram.getPercentile(99);
+            this.max = histogram.getMax();
+        }
+
+
+        /**
+         * @return name of the module and the handler
+         */
+        public String getName()
+        {
+            return name;
+        }
+
+
+        public String getWorld()
+        {
+            return world;
+        }
+
+
+        public long getCount()
+        {
+            return count;
+        }
+
+
+        /**
+         * @return time spent in the handler in total
+         */
+        public long getTotal()
+        {
+            return total;
+        }
+
+
+        public long getP50()
+        {
+            return p50;
+        }
+
+
+        public long getP99()
+        {
+            return p99;
+        }
+
+
+        public long getMax()
+        {
+            return max;
+        }
+    }
+}
@@ -0,0 +1,315 @@
+/*
+ * This file is part of
+ * ExtraHardMode Server Plugin for Minecraft
+ *
+ * Copyright (C) 2012 Ryan Hamshire
+ * Copyright (C) 2013 Diemex
+ *
+ * ExtraHardMode is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ExtraHardMode is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero Public License
+ * along with ExtraHardMode.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.extrahardmode.module.msgcount;
+
+
+import com.extrahardmode.config.messages.MessageNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Stores the counts in a memory mapped file, doesn't need any driver.
+ * <p/>
+ * The file starts with a header holding the names of the nodes in the order of their slots, followed by one fixed size
+ * record per player: the uuid and one count per slot. Records are never removed, the index from uuid to record is
+ * rebuilt by scanning the file when it is opened. Writes go straight into the mapped file and are written back by the
+ * operating system, they are forced to disk when the store is closed.
+ * <pre>
+ * header   magic, version, slots in use, records, MAX_SLOTS node names
+ * record   uuid (16 bytes), MAX_SLOTS counts (4 bytes each)
+ * </pre>
+ */
+public class MappedMsgCountStore implements MsgCountStore
+{
+    private static final int MAGIC = 0x45484D43; //EHMC
+
+    private static final int VERSION = 1;
+
+    /**
+     * Max nodes which can have a count
+     */
+    static final int MAX_SLOTS = 96;
+
+    /**
+     * Max length of a node name in bytes
+     */
+    private static final int NAME_LENGTH = 63;
+
+    private static final int HEADER_SIZE = 8192;
+
+    private static final int RECORD_SIZE = 16 + 4 * MAX_SLOTS;
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final File file;
+
+    private RandomAccessFile raf;
+
+    private MappedByteBuffer buffer;
+
+    /**
+     * Records the mapped region can hold
+     */
+    private int capacity;
+
+    private int records;
+
+    /**
+     * Slot of every node by ordinal, -1 if the node isn't tracked
+     */
+    private final int[] slots = new int[MessageNode.values().length];
+
+    /**
+     * Record of every player
+     */
+    private final Map<UUID, Integer> index = new HashMap<UUID, Integer>();
+
+
+    /**
+     * Constructor
+     *
+     * @param file file to store the counts in, created if it doesn't exist
+     */
+    public MappedMsgCountStore(File file)
+    {
+        this.file = file;
+    }
+
+
+    @Override
+    public void open(List<MessageNode> nodes) throws IOException
+    {
+        final boolean created = !file.exists() || file.length() == 0;
+        raf = new RandomAccessFile(file, "rw");
+        try
+        {
+            records = 0;
+            if (!created)
+            {
+                map(0);
+                if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION)
+                    throw new IOException(file + " is not a message count file of version " + VERSION);
+                records = buffer.getInt(12);
+            }
+            capacity = Math.max(INITIAL_CAPACITY, Integer.highestOneBit(Math.max(records, 1)) * 2);
+            map(capacity);
+            if (created)
+            {
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, VERSION);
+                buffer.putInt(8, 0);
+                buffer.putInt(12, 0);
+            }
+
+            //Assign slots, new nodes are appended
+            Map<String, Integer> slotsByName = new HashMap<String, Integer>();
+            int used = buffer.getInt(8);
+            for (int slot = 0; slot < used; slot++)
+                slotsByName.put(readName(slot), slot);
+            Arrays.fill(slots, -1);
+            for (MessageNode node : nodes)
+            {
+                Integer slot = slotsByName.get(node.getColumnName());
+                if (slot == null)
+                {
+                    if (used == MAX_SLOTS)
+                        throw new IOException("Only " + MAX_SLOTS + " messages can have a count");
+                    slot = used++;
+                    writeName(slot, node.getColumnName());
+                    buffer.putInt(8, used);
+                }
+                slots[node.ordinal()] = slot;
+            }
+
+            //Rebuild the index
+            index.clear();
+            for (int record = 0; record < records; record++)
+            {
+                final int offset = offset(record);
+                index.put(new UUID(buffer.getLong(offset), buffer.getLong(offset + 8)), record);
+            }
+        } catch (IOException e)
+        {
+            close();
+            throw e;
+        }
+    }
+
+
+    @Override
+    public void load(UUID player, String playerName, int[] values)
+    {
+        final Integer record = index.get(player);
+        if (record == null)
+            return;
+        final int offset = offset(record) + 16;
+        for (int ordinal = 0; ordinal < slots.length; ordinal++)
+            if (slots[ordinal] >= 0)
+                values[ordinal] = buffer.getInt(offset + 4 * slots[ordinal]);
+    }
+
+
+    @Override
+    public void set(UUID player, MessageNode node, int value) throws IOException
+    {
+        final int slot = slots[node.ordinal()];
+        if (slot < 0)
+            return;
+        Integer record = index.get(player);
+        if (record == null)
+            record = append(player);
+        buffer.putInt(offset(record) + 16 + 4 * slot, value);
+    }
+
+
+    @Override
+    public void reset(UUID player)
+    {
+        final Integer record = index.get(player);
+        if (record == null)
+            return;
+        final int offset = offset(record) + 16;
+        for (int slot = 0; slot < MAX_SLOTS; slot++)
+            buffer.putInt(offset + 4 * slot, 0);
+    }
+
+
+    @Override
+    public void commit()
+    {
+        //Written back by the os
+    }
+
+
+    @Override
+    public void rollback()
+    {
+        //Not supported, writes go straight into the file
+    }
+
+
+    @Override
+    public boolean idle()
+    {
+        return false;
+    }
+
+
+    @Override
+    public void close()
+    {
+        if (buffer != null)
+            buffer.force();
+        buffer = null;
+        index.clear();
+        try
+        {
+            if (raf != null)
+                raf.close();
+        } catch (IOException e)
+        {
+            e.printStackTrace();
+        }
+        raf = null;
+    }
+
+
+    /**
+     * @return amount of players in the file
+     */
+    public int getRecordCount()
+    {
+        return records;
+    }
+
+
+    private int append(UUID player) throws IOException
+    {
+        if (records == capacity)
+        {
+            capacity *= 2;
+            map(capacity);
+        }
+        final int record = records++;
+        final int offset = offset(record);
+        buffer.putLong(offset, player.getMostSignificantBits());
+        buffer.putLong(offset + 8, player.getLeastSignificantBits());
+        for (int slot = 0; slot < MAX_SLOTS; slot++)
+            buffer.putInt(offset + 16 + 4 * slot, 0);
+        //count the record once it is complete
+        buffer.putInt(12, records);
+        index.put(player, record);
+        return record;
+    }
+
+
+    /**
+     * Map the header and the given amount of records, grows the file if needed
+     */
+    private void map(int recordCapacity) throws IOException
+    {
+        final long size = (long) HEADER_SIZE + (long) recordCapacity * RECORD_SIZE;
+        if (size > Integer.MAX_VALUE)
+            throw new IOException("Message count file is full");
+        buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+
+    private static int offset(int record)
+    {
+        return HEADER_SIZE + record * RECORD_SIZE;
+    }
+
+
+    private String readName(int slot)
+    {
+        final int offset = 16 + slot * (NAME_LENGTH + 1);
+        final byte[] name = new byte[buffer.get(offset) & 0xFF];
+        for (int i = 0; i < name.length; i++)
+            name[i] = buffer.get(offset + 1 + i);
+        return new String(name, UTF8);
+    }
+
+
+    private void writeName(int slot, String name) throws IOException
+    {
+        final byte[] bytes = name.getBytes(UTF8);
+        if (bytes.length > NAME_LENGTH)
+            throw new IOException(name + " is longer than " + NAME_LENGTH + " bytes");
+        final int offset = 16 + slot * (NAME_LENGTH + 1);
+        buffer.put(offset, (byte) bytes.length);
+        for (int i = 0; i < bytes.length; i++)
+            buffer.put(offset + 1 + i, bytes[i]);
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * This file is part of
+ * ExtraHardMode Server Plugin for Minecraft
+ *
+ * Copyright (C) 2012 Ryan Hamshire
+ * Copyright (C) 2013 Diemex
+ *
+ * ExtraHardMode is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ExtraHardMode is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero Public License
+ * along with ExtraHardMode.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.extrahardmode.module.msgcount;
+
+
+import com.extrahardmode.config.messages.MessageNode;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Keeps the counts in memory only, they are lost on a restart or reload. For servers which don't want to store anything.
+ */
+public class MemoryMsgCountStore implements MsgCountStore
+{
+    private final Map<UUID, int[]> counts = new HashMap<UUID, int[]>();
+
+
+    @Override
+    public void open(List<MessageNode> nodes)
+    {
+    }
+
+
+    @Override
+    public void load(UUID player, String playerName, int[] values)
+    {
+        int[] stored = counts.get(player);
+        if (stored != null)
+            System.arraycopy(stored, 0, values, 0, Math.min(stored.length, values.length));
+    }
+
+
+    @Override
+    public void set(UUID player, MessageNode node, int value)
+    {
+        int[] stored = counts.get(player);
+        if (stored == null)
+        {
+            stored = new int[MessageNode.values().length];
+            counts.put(player, stored);
+        }
+        stored[node.ordinal()] = value;
+    }
+
+
+    @Override
+    public void reset(UUID player)
+    {
+        int[] stored = counts.get(player);
+        if (stored != null)
+            Arrays.fill(stored, 0);
+    }
+
+
+    @Override
+    public void commit()
+    {
+    }
+
+
+    @Override
+    public void rollback()
+    {
+    }
+
+
+    @Override
+    public boolean idle()
+    {
+        return false;
+    }
+
+
+    @Override
+    public void close()
+    {
+        counts.clear();
+    }
+}
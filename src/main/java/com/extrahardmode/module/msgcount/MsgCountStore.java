@@ -0,0 +1,93 @@
+/*
+ * This file is part of
+ * ExtraHardMode Server Plugin for Minecraft
+ *
+ * Copyright (C) 2012 Ryan Hamshire
+ * Copyright (C) 2013 Diemex
+ *
+ * ExtraHardMode is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ExtraHardMode is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero Public License
+ * along with ExtraHardMode.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.extrahardmode.module.msgcount;
+
+
+import com.extrahardmode.config.messages.MessageNode;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Storage backend for the message counts of {@link com.extrahardmode.module.MsgPersistModule}.
+ * <p/>
+ * The module never calls a store from the main thread and never from two threads at the same time, implementations
+ * don't need to be thread safe. Writes are grouped into batches which end with {@link #commit()}.
+ */
+public interface MsgCountStore
+{
+    /**
+     * Open the store
+     *
+     * @param nodes nodes which have a count, counts of other nodes are never read or written
+     */
+    void open(List<MessageNode> nodes) throws IOException;
+
+
+    /**
+     * Load the counts of a player
+     *
+     * @param player     uuid of the player
+     * @param playerName name of the player, for stores which have to migrate name based data
+     * @param values     counts indexed by the ordinal of the node, untouched if the store has no count
+     */
+    void load(UUID player, String playerName, int[] values) throws IOException;
+
+
+    /**
+     * Set the count of a message
+     */
+    void set(UUID player, MessageNode node, int value) throws IOException;
+
+
+    /**
+     * Reset all counts of a player
+     */
+    void reset(UUID player) throws IOException;
+
+
+    /**
+     * Persist all writes since the last commit
+     */
+    void commit() throws IOException;
+
+
+    /**
+     * Discard the writes since the last commit, if the store supports it
+     */
+    void rollback();
+
+
+    /**
+     * Do some background work like migrating old data, called while there are no writes
+     *
+     * @return if there is more work to do
+     */
+    boolean idle();
+
+
+    /**
+     * Close the store, pending writes have been committed before
+     */
+    void close();
+}
@@ -0,0 +1,488 @@
+/*
+ * This file is part of
+ * ExtraHardMode Server Plugin for Minecraft
+ *
+ * Copyright (C) 2012 Ryan Hamshire
+ * Copyright (C) 2013 Diemex
+ *
+ * ExtraHardMode is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ExtraHardMode is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero Public License
+ * along with ExtraHardMode.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.extrahardmode.module.msgcount;
+
+
+import com.extrahardmode.ExtraHardMode;
+import com.extrahardmode.config.messages.MessageNode;
+import org.bukkit.OfflinePlayer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Stores the counts in a SQLite database, one row per player uuid and message.
+ * <p/>
+ * The old layout (one row per player name, one column per message) is migrated in batches while the store is idle,
+ * players who log in before their row has been migrated are migrated right away. Rows whose name doesn't match a known
+ * player are kept until that player logs in.
+ */
+public class SQLiteMsgCountStore implements MsgCountStore
+{
+    /**
+     * Legacy rows migrated per transaction
+     */
+    private static final int MIGRATION_BATCH_SIZE = 100;
+
+    private final ExtraHardMode plugin;
+
+    private final String dbFile;
+
+    private final String countTable = "message_counts";
+
+    private final String nodeTable = "message_nodes";
+
+    /**
+     * Tables of the old layout
+     */
+    private final String legacyMsgTable = "messages", legacyPlayerTable = "players";
+
+    private List<MessageNode> trackedNodes;
+
+    private Connection conn;
+
+    private PreparedStatement setCount, deleteCounts, selectCounts;
+
+    /**
+     * Id of every node in the db by ordinal, null if the node isn't tracked
+     */
+    private Integer[] nodeIds;
+
+    /**
+     * Nodes by their id in the db
+     */
+    private final Map<Integer, MessageNode> nodesById = new HashMap<Integer, MessageNode>();
+
+    /**
+     * There are still rows in the old layout
+     */
+    private boolean migrating;
+
+    /**
+     * The background migration hasn't gone over all old rows yet
+     */
+    private boolean scanning;
+
+    /**
+     * Highest id of an old row the background migration has gone over
+     */
+    private int lastLegacyId;
+
+    /**
+     * Lower case player names to uuids for the migration, collected on the first batch
+     */
+    private Map<String, UUID> legacyNames;
+
+    private PreparedStatement selectLegacyBatch, selectLegacyPlayer, deleteLegacyMsg, deleteLegacyPlayer, insertEmpty, keepMax;
+
+
+    /**
+     * Constructor
+     *
+     * @param plugin owning plugin
+     * @param dbFile path of the database
+     */
+    public SQLiteMsgCountStore(ExtraHardMode plugin, String dbFile)
+    {
+        this.plugin = plugin;
+        this.dbFile = dbFile;
+    }
+
+
+    /**
+     * Make sure JDBC is enabled/loaded
+     *
+     * @return if the driver is present
+     */
+    public static boolean isDriverPresent()
+    {
+        try
+        {
+            Class.forName("org.sqlite.JDBC");
+            return true;
+        } catch (ClassNotFoundException e)
+        {
+            return false;
+        }
+    }
+
+
+    @Override
+    public void open(List<MessageNode> nodes) throws IOException
+    {
+        trackedNodes = nodes;
+        try
+        {
+            conn = DriverManager.getConnection("jdbc:sqlite:" + dbFile);
+            Statement statement = conn.createStatement();
+            statement.execute("PRAGMA journal_mode=WAL");
+            statement.execute("PRAGMA synchronous=NORMAL");
+            statement.close();
+            initializeTables();
+            setCount = conn.prepareStatement(String.format("INSERT OR REPLACE INTO %s (player_uuid, node_id, count) VALUES (?, ?, ?)", countTable));
+            deleteCounts = conn.prepareStatement(String.format("DELETE FROM %s WHERE player_uuid = ?", countTable));
+            selectCounts = conn.prepareStatement(String.format("SELECT node_id, count FROM %s WHERE player_uuid = ?", countTable));
+            if (migrating)
+                prepareMigration();
+            conn.setAutoCommit(false);
+        } catch (SQLException e)
+        {
+            close();
+            throw new IOException(e);
+        }
+    }
+
+
+    @Override
+    public void load(UUID player, String playerName, int[] values) throws IOException
+    {
+        try
+        {
+            final byte[] key = toBytes(player);
+            if (migrating)
+                migrateRows(selectLegacyPlayer(playerName), key);
+            selectCounts.setBytes(1, key);
+            ResultSet result = selectCounts.executeQuery();
+            while (result.next())
+            {
+                MessageNode node = nodesById.get(result.getInt(1));
+                if (node != null)
+                    values[node.ordinal()] = result.getInt(2);
+            }
+            result.close();
+            conn.commit(); //also ends the read transaction
+        } catch (SQLException e)
+        {
+            rollback();
+            throw new IOException(e);
+        }
+    }
+
+
+    @Override
+    public void set(UUID player, MessageNode node, int value) throws IOException
+    {
+        if (nodeIds[node.ordinal()] == null)
+            return;
+        try
+        {
+            setCount.setBytes(1, toBytes(player));
+            setCount.setInt(2, nodeIds[node.ordinal()]);
+            setCount.setInt(3, value);
+            setCount.addBatch();
+        } catch (SQLException e)
+        {
+            throw new IOException(e);
+        }
+    }
+
+
+    @Override
+    public void reset(UUID player) throws IOException
+    {
+        try
+        {
+            //has to be executed in order
+            setCount.executeBatch();
+            deleteCounts.setBytes(1, toBytes(player));
+            deleteCounts.executeUpdate();
+        } catch (SQLException e)
+        {
+            throw new IOException(e);
+        }
+    }
+
+
+    @Override
+    public void commit() throws IOException
+    {
+        try
+        {
+            setCount.executeBatch();
+            conn.commit();
+        } catch (SQLException e)
+        {
+            throw new IOException(e);
+        }
+    }
+
+
+    @Override
+    public void rollback()
+    {
+        try
+        {
+            setCount.clearBatch();
+            conn.rollback();
+        } catch (SQLException ignored)
+        {
+        }
+    }
+
+
+    @Override
+    public boolean idle()
+    {
+        if (scanning)
+        {
+            //reads the player data of the server, so not on the main thread and only once there is time
+            if (legacyNames == null)
+                legacyNames = collectNames();
+            migrateBatch();
+        }
+        return scanning;
+    }
+
+
+    @Override
+    public void close()
+    {
+        try
+        {
+            if (conn != null)
+                conn.close(); //closes all statements aswell
+        } catch (SQLException e)
+        {
+            e.printStackTrace();
+        }
+        conn = null;
+        nodesById.clear();
+        migrating = false;
+        scanning = false;
+        lastLegacyId = 0;
+        legacyNames = null;
+    }
+
+
+    /**
+     * Creates tables if they do not exist and assigns ids to new nodes.
+     */
+    private void initializeTables() throws SQLException
+    {
+        Statement statement = conn.createStatement();
+        try
+        {
+            statement.setQueryTimeout(30);
+
+            //Stable ids for the nodes, ordinals change when nodes are added
+            statement.executeUpdate(String.format(
+                    "CREATE TABLE IF NOT EXISTS %s (node_id INTEGER PRIMARY KEY, name TEXT NOT NULL UNIQUE)", nodeTable));
+            statement.executeUpdate(String.format(
+                    "CREATE TABLE IF NOT EXISTS %s (player_uuid BLOB NOT NULL, node_id SMALLINT NOT NULL, count INT NOT NULL, " +
+                            "PRIMARY KEY (player_uuid, node_id)) WITHOUT ROWID", countTable));
+
+            Map<String, Integer> idsByName = new HashMap<String, Integer>();
+            ResultSet result = statement.executeQuery(String.format("SELECT node_id, name FROM %s", nodeTable));
+            while (result.next())
+                idsByName.put(result.getString(2), result.getInt(1));
+            result.close();
+
+            PreparedStatement insertNode = conn.prepareStatement(String.format("INSERT INTO %s (name) VALUES (?)", nodeTable));
+            nodeIds = new Integer[MessageNode.values().length];
+            for (MessageNode node : trackedNodes)
+            {
+                Integer id = idsByName.get(node.getColumnName());
+                if (id == null)
+                {
+                    insertNode.setString(1, node.getColumnName());
+                    insertNode.executeUpdate();
+                    ResultSet key = statement.executeQuery("SELECT last_insert_rowid()");
+                    key.next();
+                    id = key.getInt(1);
+                    key.close();
+                }
+                nodeIds[node.ordinal()] = id;
+                nodesById.put(id, node);
+            }
+            insertNode.close();
+
+            result = statement.executeQuery(String.format(
+                    "SELECT count(*) FROM sqlite_master WHERE type = 'table' AND name IN ('%s', '%s')", legacyMsgTable, legacyPlayerTable));
+            migrating = result.next() && result.getInt(1) == 2;
+            result.close();
+        } finally
+        {
+            statement.close();
+        }
+    }
+
+
+    /**
+     * Prepare the statements for the migration
+     */
+    private void prepareMigration() throws SQLException
+    {
+        plugin.getLogger().info("Migrating message counts to the new format in the background");
+        final String legacyRows = String.format("SELECT %1$s.id, %1$s.name, %2$s.* FROM %1$s JOIN %2$s ON %1$s.id = %2$s.id", legacyPlayerTable, legacyMsgTable);
+        selectLegacyBatch = conn.prepareStatement(legacyRows + String.format(" WHERE %1$s.id > ? ORDER BY %1$s.id LIMIT %2$d", legacyPlayerTable, MIGRATION_BATCH_SIZE));
+        selectLegacyPlayer = conn.prepareStatement(legacyRows + String.format(" WHERE lower(%s.name) = lower(?)", legacyPlayerTable));
+        deleteLegacyMsg = conn.prepareStatement(String.format("DELETE FROM %s WHERE id = ?", legacyMsgTable));
+        deleteLegacyPlayer = conn.prepareStatement(String.format("DELETE FROM %s WHERE id = ?", legacyPlayerTable));
+        insertEmpty = conn.prepareStatement(String.format("INSERT OR IGNORE INTO %s (player_uuid, node_id, count) VALUES (?, ?, 0)", countTable));
+        keepMax = conn.prepareStatement(String.format("UPDATE %s SET count = max(count, ?) WHERE player_uuid = ? AND node_id = ?", countTable));
+        scanning = true;
+        lastLegacyId = 0;
+    }
+
+
+    /**
+     * @return uuids of all players who played on the server by their lower case names
+     */
+    private Map<String, UUID> collectNames()
+    {
+        Map<String, UUID> names = new HashMap<String, UUID>();
+        for (OfflinePlayer player : plugin.getServer().getOfflinePlayers())
+            if (player.getName() != null)
+                names.put(player.getName().toLowerCase(), player.getUniqueId());
+        return names;
+    }
+
+
+    private ResultSet selectLegacyBatch() throws SQLException
+    {
+        selectLegacyBatch.setInt(1, lastLegacyId);
+        return selectLegacyBatch.executeQuery();
+    }
+
+
+    private ResultSet selectLegacyPlayer(String playerName) throws SQLException
+    {
+        selectLegacyPlayer.setString(1, playerName);
+        return selectLegacyPlayer.executeQuery();
+    }
+
+
+    /**
+     * Migrate the next batch of old rows, rows of players whose uuid is unknown are skipped and stay in the old tables.
+     * Drops the old tables once all rows have been migrated.
+     */
+    private void migrateBatch()
+    {
+        try
+        {
+            int previousId = lastLegacyId;
+            migrateRows(selectLegacyBatch(), null);
+            if (lastLegacyId == previousId)
+            {
+                scanning = false;
+                Statement statement = conn.createStatement();
+                ResultSet result = statement.executeQuery("SELECT count(*) FROM " + legacyPlayerTable);
+                int remaining = result.next() ? result.getInt(1) : 0;
+                result.close();
+                if (remaining == 0)
+                {
+                    statement.executeUpdate("DROP TABLE " + legacyMsgTable);
+                    statement.executeUpdate("DROP TABLE " + legacyPlayerTable);
+                    migrating = false;
+                    plugin.getLogger().info("Finished migrating message counts");
+                } else
+                    plugin.getLogger().info("Finished migrating message counts, " + remaining + " unknown players will be migrated when they log in");
+                statement.close();
+            }
+            conn.commit();
+        } catch (SQLException e)
+        {
+            plugin.getLogger().severe("Couldn't migrate message counts : " + e);
+            migrating = false;
+            scanning = false;
+            rollback();
+        }
+    }
+
+
+    /**
+     * Copy old rows into the new table, keeping the higher count if there already is one, and delete them. Rows whose
+     * name can't be resolved are left alone.
+     *
+     * @param rows old rows including the player id and name, ordered by id
+     * @param uuid uuid of the player, null to look it up by the name
+     *
+     * @return amount of rows migrated
+     */
+    private int migrateRows(ResultSet rows, byte[] uuid) throws SQLException
+    {
+        //Columns of nodes which are still tracked
+        ResultSetMetaData meta = rows.getMetaData();
+        Map<Integer, Integer> columnToNodeId = new HashMap<Integer, Integer>();
+        for (int i = 3; i <= meta.getColumnCount(); i++)
+            for (MessageNode node : trackedNodes)
+                if (node.getColumnName().equalsIgnoreCase(meta.getColumnName(i)))
+                    columnToNodeId.put(i, nodeIds[node.ordinal()]);
+
+        List<Integer> ids = new ArrayList<Integer>();
+        try
+        {
+            while (rows.next())
+            {
+                int id = rows.getInt(1);
+                if (uuid == null)
+                    lastLegacyId = Math.max(lastLegacyId, id);
+                byte[] key = uuid;
+                if (key == null)
+                {
+                    String name = rows.getString(2);
+                    UUID resolved = name != null ? legacyNames.get(name.toLowerCase()) : null;
+                    if (resolved == null)
+                        continue;
+                    key = toBytes(resolved);
+                }
+                for (Map.Entry<Integer, Integer> column : columnToNodeId.entrySet())
+                {
+                    int count = rows.getInt(column.getKey());
+                    if (count <= 0)
+                        continue;
+                    insertEmpty.setBytes(1, key);
+                    insertEmpty.setInt(2, column.getValue());
+                    insertEmpty.executeUpdate();
+                    keepMax.setInt(1, count);
+                    keepMax.setBytes(2, key);
+                    keepMax.setInt(3, column.getValue());
+                    keepMax.executeUpdate();
+                }
+                ids.add(id);
+            }
+        } finally
+        {
+            rows.close();
+        }
+        for (int id : ids)
+        {
+            deleteLegacyMsg.setInt(1, id);
+            deleteLegacyMsg.executeUpdate();
+            deleteLegacyPlayer.setInt(1, id);
+            deleteLegacyPlayer.executeUpdate();
+        }
+        return ids.size();
+    }
+
+
+    private static byte[] toBytes(UUID uuid)
+    {
+        return ByteBuffer.allocate(16).putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits()).array();
+    }
+}
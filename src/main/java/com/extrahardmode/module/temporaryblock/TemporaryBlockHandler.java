@@ -2,6 +2,9 @@ package com.extrahardmode.module.temporaryblock;
 
 
 import com.extrahardmode.ExtraHardMode;
+import com.extrahardmode.module.BlockContext;
+import com.extrahardmode.module.BlockPipeline;
+import com.extrahardmode.service.BlockBreakRule;
 import com.extrahardmode.service.ListenerModule;
 import org.bukkit.Location;
 import org.bukkit.Material;
@@ -35,14 +38,37 @@ public class TemporaryBlockHandler extends ListenerModule
      * onTempBlockBreakEvent
      * onZombieRespawnTask -> check if broken
      */
-    @EventHandler(priority = EventPriority.LOWEST)
-    public void onBlockBreak(BlockBreakEvent event)
+    @Override
+    public void starting()
     {
-        if (fireTemporaryBlockBreakEvent(event.getBlock()))
+        super.starting();
+        plugin.getModuleForClass(BlockPipeline.class).registerBreak(this, "onBlockBreak", EventPriority.LOWEST, false, new BlockBreakRule.Factory()
         {
-            event.setCancelled(true);
-            event.getBlock().setType(Material.AIR, false);
-        }
+            @Override
+            public BlockBreakRule forWorld(String world)
+            {
+                return new BlockBreakRule()
+                {
+                    @Override
+                    public void onBreak(BlockBreakEvent event, BlockContext context)
+                    {
+                        if (fireTemporaryBlockBreakEvent(context.getBlock()))
+                        {
+                            event.setCancelled(true);
+                            context.getBlock().setType(Material.AIR, false);
+                        }
+                    }
+                };
+            }
+        });
+    }
+
+
+    @Override
+    public void closing()
+    {
+        super.closing();
+        plugin.getModuleForClass(BlockPipeline.class).unregister(this);
     }
 
     //Also account for water
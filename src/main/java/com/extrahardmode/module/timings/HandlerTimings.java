@@ -0,0 +1,117 @@
+/*
+ * This file is part of
+ * ExtraHardMode Server Plugin for Minecraft
+ *
+ * Copyright (C) 2012 Ryan Hamshire
+ * Copyright (C) 2013 Diemex
+ *
+ * ExtraHardMode is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ExtraHardMode is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero Public License
+ * along with ExtraHardMode.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.extrahardmode.module.timings;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The latencies of one handler or task, one histogram per world.
+ * <p/>
+ * There are only a handful of worlds, so they are looked up in an array. Histograms are only allocated the first time
+ * the handler runs in a world.
+ */
+public class HandlerTimings
+{
+    /**
+     * World name used for events and tasks which don't happen in a world
+     */
+    public static final String NO_WORLD = "-";
+
+    private final String name;
+
+    private String[] worlds = new String[0];
+
+    private LatencyHistogram[] histograms = new LatencyHistogram[0];
+
+
+    public HandlerTimings(String name)
+    {
+        this.name = name;
+    }
+
+
+    /**
+     * @return name of the module and the handler
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+
+    /**
+     * Record a call of the handler
+     *
+     * @param world name of the world, null if it didn't happen in a world
+     * @param nanos time the handler took
+     */
+    public void record(String world, long nanos)
+    {
+        getHistogram(world != null ? world : NO_WORLD, true).record(nanos);
+    }
+
+
+    /**
+     * @return names of the worlds the handler has been called in
+     */
+    public List<String> getWorlds()
+    {
+        return new ArrayList<String>(Arrays.asList(worlds));
+    }
+
+
+    /**
+     * @return histogram of the world, null if the handler hasn't been called there
+     */
+    public LatencyHistogram getHistogram(String world)
+    {
+        return getHistogram(world, false);
+    }
+
+
+    /**
+     * Reset the histograms of all worlds
+     */
+    public void reset()
+    {
+        for (LatencyHistogram histogram : histograms)
+            histogram.reset();
+    }
+
+
+    private LatencyHistogram getHistogram(String world, boolean create)
+    {
+        for (int i = 0; i < worlds.length; i++)
+            if (worlds[i].equals(world))
+                return histograms[i];
+        if (!create)
+            return null;
+        worlds = Arrays.copyOf(worlds, worlds.length + 1);
+        histograms = Arrays.copyOf(histograms, histograms.length + 1);
+        worlds[worlds.length - 1] = world;
+        histograms[histograms.length - 1] = new LatencyHistogram();
+        return histograms[histograms.length - 1];
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * This file is part of
+ * ExtraHardMode Server Plugin for Minecraft
+ *
+ * Copyright (C) 2012 Ryan Hamshire
+ * Copyright (C) 2013 Diemex
+ *
+ * ExtraHardMode is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ExtraHardMode is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero Public License
+ * along with ExtraHardMode.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.extrahardmode.module.timings;
+
+
+/**
+ * Counts how long something took in buckets which grow with the duration, so percentiles can be read without keeping
+ * every sample.
+ * <p/>
+ * Durations below 16ns get a bucket each, above that every power of two is split into 8 buckets, so a percentile is
+ * off by at most 12.5%. Recording doesn't allocate and the histogram has a fixed size, it is not thread safe.
+ */
+public class LatencyHistogram
+{
+    /**
+     * Bits of the duration used to pick the bucket within a power of two
+     */
+    private static final int SUB_BITS = 3;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    /**
+     * Durations below this have their own bucket
+     */
+    private static final int LINEAR = SUB_BUCKETS << 1;
+
+    /**
+     * Enough buckets for all positive longs
+     */
+    private static final int BUCKETS = LINEAR + (63 - (SUB_BITS + 1)) * SUB_BUCKETS;
+
+    private final long[] buckets = new long[BUCKETS];
+
+    private long count, total, max;
+
+
+    /**
+     * Add a duration
+     *
+     * @param nanos time it took
+     */
+    public void record(long nanos)
+    {
+        if (nanos < 0)
+            nanos = 0;
+        buckets[indexOf(nanos)]++;
+        count++;
+        total += nanos;
+        if (nanos > max)
+            max = nanos;
+    }
+
+
+    /**
+     * Forget all recorded durations
+     */
+    public void reset()
+    {
+        for (int i = 0; i < buckets.length; i++)
+            buckets[i] = 0;
+        count = 0;
+        total = 0;
+        max = 0;
+    }
+
+
+    public long getCount()
+    {
+        return count;
+    }
+
+
+    /**
+     * @return all recorded durations summed up
+     */
+    public long getTotal()
+    {
+        return total;
+    }
+
+
+    /**
+     * @return longest recorded duration
+     */
+    public long getMax()
+    {
+        return max;
+    }
+
+
+    /**
+     * Get the duration the given percentage of the recorded durations didn't exceed
+     *
+     * @param percentile between 0 and 100
+     *
+     * @return upper bound of the bucket the percentile falls into, but never more than the max, 0 if nothing has been
+     * recorded
+     */
+    public long getPercentile(double percentile)
+    {
+        if (count == 0)
+            return 0;
+        final long rank = Math.max(1, (long) Math.ceil(count * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++)
+        {
+            seen += buckets[i];
+            if (seen >= rank)
+                return Math.min(max, upperBoundOf(i));
+        }
+        return max;
+    }
+
+
+    static int indexOf(long nanos)
+    {
+        if (nanos < LINEAR)
+            return (int) nanos;
+        final int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        final int sub = (int) (nanos >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR + (exponent - (SUB_BITS + 1)) * SUB_BUCKETS + sub;
+    }
+
+
+    /**
+     * @return the largest duration which falls into the bucket
+     */
+    static long upperBoundOf(int index)
+    {
+        if (index < LINEAR)
+            return index;
+        final int exponent = (index - LINEAR) / SUB_BUCKETS + SUB_BITS + 1;
+        final long sub = (index - LINEAR) % SUB_BUCKETS;
+        final long lower = (1L << exponent) + (sub << (exponent - SUB_BITS));
+        final long width = 1L << (exponent - SUB_BITS);
+        return lower + width - 1;
+    }
+}
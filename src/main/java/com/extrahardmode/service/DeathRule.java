@@ -0,0 +1,55 @@
+/*
+ * This file is part of
+ * ExtraHardMode Server Plugin for Minecraft
+ *
+ * Copyright (C) 2012 Ryan Hamshire
+ * Copyright (C) 2013 Diemex
+ *
+ * ExtraHardMode is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ExtraHardMode is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero Public License
+ * along with ExtraHardMode.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.extrahardmode.service;
+
+
+import com.extrahardmode.module.CombatContext;
+import org.bukkit.event.entity.EntityDeathEvent;
+
+/**
+ * Handles the death of certain EntityTypes, dispatched by the {@link com.extrahardmode.module.CombatPipeline}
+ */
+public interface DeathRule
+{
+    /**
+     * An entity died, only called for the EntityTypes the rule has been registered for
+     *
+     * @param event   event that occurred, a PlayerDeathEvent if a player died
+     * @param context victim of the event and the cause and attacker of the last damage it took
+     */
+    public void onDeath(EntityDeathEvent event, CombatContext context);
+
+
+    /**
+     * Creates the rule for a world. Settings should be read here once, so the rule doesn't need to look them up on
+     * every death.
+     */
+    public interface Factory
+    {
+        /**
+         * @param world name of the world
+         *
+         * @return the rule for this world or null if the feature is disabled in the world
+         */
+        public DeathRule forWorld(String world);
+    }
+}
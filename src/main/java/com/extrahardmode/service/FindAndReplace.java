@@ -71,6 +71,22 @@ public class FindAndReplace
     }
 
 
+    /**
+     * Is this the variable we are looking for
+     *
+     * @param variable a variable as written in the message
+     *
+     * @return true if it should be replaced
+     */
+    public boolean replaces(String variable)
+    {
+        for (String search : searchFor)
+            if (search.equals(variable))
+                return true;
+        return false;
+    }
+
+
     /**
      * Run the ReplaceOperation on the given String
      *
@@ -23,16 +23,31 @@ package com.extrahardmode.service;
 
 
 import com.extrahardmode.ExtraHardMode;
+import com.extrahardmode.config.RootConfig;
+import com.extrahardmode.config.RootNode;
+import com.extrahardmode.module.TimingsModule;
 import org.bukkit.event.HandlerList;
 import org.bukkit.event.Listener;
 
 /**
+ * A module listening to events.
+ * <p/>
+ * Modules can name the config nodes which turn their features on, the listener is then only registered while at least
+ * one of those nodes is enabled in some world. Modules without gating nodes are always registered.
+ *
  * @author Diemex
  */
 public class ListenerModule implements IModule, Listener
 {
+    private static final RootNode[] NO_GATING_NODES = new RootNode[0];
+
     protected final ExtraHardMode plugin;
 
+    /**
+     * Are our handlers registered with bukkit at the moment
+     */
+    private boolean registered = false;
+
 
     public ListenerModule(ExtraHardMode plugin)
     {
@@ -43,7 +58,7 @@ public class ListenerModule implements IModule, Listener
     @Override
     public void starting()
     {
-        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+        updateRegistration();
     }
 
 
@@ -51,5 +66,67 @@ public class ListenerModule implements IModule, Listener
     public void closing()
     {
         HandlerList.unregisterAll(this);
+        registered = false;
+    }
+
+
+    /**
+     * The nodes which turn the features of this module on. If none of them is enabled in any world there is no need for
+     * bukkit to call our handlers.
+     *
+     * @return gating nodes, empty if the module should always listen
+     */
+    protected RootNode[] getGatingNodes()
+    {
+        return NO_GATING_NODES;
+    }
+
+
+    /**
+     * Is at least one of the gating nodes enabled in some world
+     */
+    public boolean isEnabledInAnyWorld()
+    {
+        final RootNode[] nodes = getGatingNodes();
+        if (nodes.length == 0)
+            return true;
+        final RootConfig CFG = plugin.getModuleForClass(RootConfig.class);
+        for (RootNode node : nodes)
+            if (CFG.isEnabledInAnyWorld(node))
+                return true;
+        return false;
+    }
+
+
+    /**
+     * Register or unregister our handlers depending on if the features of this module are enabled anywhere
+     *
+     * @return true if the handlers are registered now
+     */
+    public boolean updateRegistration()
+    {
+        final boolean enabled = isEnabledInAnyWorld();
+        if (enabled && !registered)
+        {
+            //Measure our handlers if the timings are available
+            final TimingsModule timings = plugin.getModuleForClass(TimingsModule.class);
+            if (timings != null)
+                timings.registerEvents(this);
+            else
+                plugin.getServer().getPluginManager().registerEvents(this, plugin);
+        }
+        else if (!enabled && registered)
+            HandlerList.unregisterAll(this);
+        registered = enabled;
+        return registered;
+    }
+
+
+    /**
+     * @return are the handlers of this module registered with bukkit
+     */
+    public boolean isRegistered()
+    {
+        return registered;
     }
 }
@@ -210,6 +210,31 @@ public abstract class MultiWorldConfig extends EHMModule
     }
 
 
+    /**
+     * Is the given node set to anything other than its disabling value in at least one world
+     *
+     * @param node - ConfigNode to check
+     *
+     * @return true if the feature of the node is turned on somewhere
+     */
+    public boolean isEnabledInAnyWorld(final ConfigNode node)
+    {
+        final Object disabled = node.getValueToDisable();
+        for (Object value : OPTIONS.column(node).values())
+        {
+            if (value == null)
+                continue;
+            if (value instanceof Number && disabled instanceof Number)
+            {
+                if (((Number) value).doubleValue() != ((Number) disabled).doubleValue())
+                    return true;
+            } else if (!value.equals(disabled))
+                return true;
+        }
+        return false;
+    }
+
+
     public String getAllWorldString()
     {
         return ALL_WORLDS;
@@ -4,7 +4,7 @@ package com.extrahardmode.task;
 import com.extrahardmode.ExtraHardMode;
 import com.extrahardmode.config.RootConfig;
 import com.extrahardmode.config.RootNode;
-import com.extrahardmode.module.MsgModule;
+import com.extrahardmode.module.EhmScheduler;
 import com.extrahardmode.module.PlayerModule;
 import org.bukkit.entity.Player;
 
@@ -13,48 +13,53 @@ import java.util.Set;
 import java.util.UUID;
 
 /**
- *
+ * Recalculates the walkspeed of a Player after his armor changed.
+ * <p/>
+ * Runs one tick after the event which changed the armor, because the inventory hasn't been updated yet when the event
+ * is called.
  */
 public class ArmorWeightTask implements Runnable
 {
-    private final ExtraHardMode mPlugin;
     private final RootConfig CFG;
-    private final MsgModule mMessenger;
     private final Player player;
+
+    /**
+     * Players which already have a pending update, multiple clicks in the same tick only cause one update
+     */
     private static Set<UUID> mPlayerList = new HashSet<UUID>();
 
 
     public ArmorWeightTask(ExtraHardMode plugin, Player player)
     {
-        mPlugin = plugin;
         CFG = plugin.getModuleForClass(RootConfig.class);
-        mMessenger = plugin.getModuleForClass(MsgModule.class);
         this.player = player;
     }
 
-    float previousSpeed = 0f;
+
+    /**
+     * Schedule an update of the walkspeed for the next tick, if there isn't one pending already
+     *
+     * @param plugin owning plugin
+     * @param player whose armor changed
+     */
+    public static void schedule(ExtraHardMode plugin, Player player)
+    {
+        if (mPlayerList.add(player.getUniqueId()))
+            plugin.getModuleForClass(EhmScheduler.class).runTask("Players", new ArmorWeightTask(plugin, player));
+    }
 
 
     @Override
     public void run()
     {
-            if (!CFG.getBoolean(RootNode.ARMOR_SLOWDOWN_ENABLE, player.getWorld().getName()))
-                return;
-            final float basespeed = (float) CFG.getDouble(RootNode.ARMOR_SLOWDOWN_BASESPEED, player.getWorld().getName());
-            final int slowdownPercent = CFG.getInt(RootNode.ARMOR_SLOWDOWN_PERCENT, player.getWorld().getName());
-            final float armorPoints = PlayerModule.getArmorPoints(player);
-            if (armorPoints != 0)
-            {
-                float value = basespeed * (1 - armorPoints / 0.8F * (slowdownPercent / 100F));
-                if (value != previousSpeed)
-                {
-                    player.setWalkSpeed(value);
-                    previousSpeed = value;
-                }
-            } else if (basespeed != previousSpeed)
-            {
-                player.setWalkSpeed(basespeed);
-                previousSpeed = basespeed;
-            }
+        mPlayerList.remove(player.getUniqueId());
+        if (!player.isOnline() || !CFG.getBoolean(RootNode.ARMOR_SLOWDOWN_ENABLE, player.getWorld().getName()))
+            return;
+        final float basespeed = (float) CFG.getDouble(RootNode.ARMOR_SLOWDOWN_BASESPEED, player.getWorld().getName());
+        final int slowdownPercent = CFG.getInt(RootNode.ARMOR_SLOWDOWN_PERCENT, player.getWorld().getName());
+        final float armorPoints = PlayerModule.getArmorPoints(player);
+        final float value = armorPoints != 0 ? basespeed * (1 - armorPoints / 0.8F * (slowdownPercent / 100F)) : basespeed;
+        if (player.getWalkSpeed() != value)
+            player.setWalkSpeed(value);
     }
 }
@@ -24,9 +24,7 @@ package com.extrahardmode.task;
 
 import com.extrahardmode.ExtraHardMode;
 import com.extrahardmode.config.ExplosionType;
-import com.extrahardmode.config.RootConfig;
-import com.extrahardmode.config.RootNode;
-import com.extrahardmode.module.EntityHelper;
+import com.extrahardmode.module.ExplosionGovernor;
 import org.bukkit.Location;
 import org.bukkit.entity.Entity;
 
@@ -55,9 +53,9 @@ public class CreateExplosionTask implements Runnable
     private final ExplosionType type;
 
     /**
-     * Config
+     * Merges and rate limits our explosions
      */
-    private final RootConfig CFG;
+    private final ExplosionGovernor governor;
 
     /**
      * Instance of a the Entity which caused the Explosion
@@ -77,7 +75,7 @@ public class CreateExplosionTask implements Runnable
         this.type = type;
         this.plugin = plugin;
         this.explosionCause = entity;
-        CFG = plugin.getModuleForClass(RootConfig.class);
+        governor = plugin.getModuleForClass(ExplosionGovernor.class);
     }
 
 
@@ -89,87 +87,11 @@ public class CreateExplosionTask implements Runnable
 
 
     /**
-     * Creates a Explosion, can be different above/below a certain y-level
+     * Creates a Explosion, can be different above/below a certain y-level. The explosion is handed to the {@link
+     * ExplosionGovernor} which detonates it in the next tick.
      */
     void createExplosion(Location loc, ExplosionType type)
     {
-        int power = type.getPowerA();
-        boolean setFire = type.isFireA();
-        boolean damageWorld = type.allowBlockDmgA();
-        String worldName = loc.getWorld().getName();
-
-        final int border = CFG.getInt(RootNode.EXPLOSIONS_Y, loc.getWorld().getName());
-
-        if (loc.getY() <= border)
-        {
-            switch (type)
-            {
-                case CREEPER:
-                    power = CFG.getInt(RootNode.EXPLOSIONS_CREEPERS_BELOW_POWER, worldName);
-                    setFire = CFG.getBoolean(RootNode.EXPLOSIONS_CREEPERS_BELOW_FIRE, worldName);
-                    damageWorld = CFG.getBoolean(RootNode.EXPLOSIONS_CREEPERS_BELOW_WORLD_GRIEF, worldName);
-                    break;
-                case CREEPER_CHARGED:
-                    power = CFG.getInt(RootNode.EXPLOSIONS_CHARGED_CREEPERS_BELOW_POWER, worldName);
-                    setFire = CFG.getBoolean(RootNode.EXPLOSIONS_CHARGED_CREEPERS_BELOW_FIRE, worldName);
-                    damageWorld = CFG.getBoolean(RootNode.EXPLOSIONS_CHARGED_CREEPERS_BELOW_WORLD_GRIEF, worldName);
-                    break;
-                case TNT:
-                    power = CFG.getInt(RootNode.EXPLOSIONS_TNT_BELOW_POWER, worldName);
-                    setFire = CFG.getBoolean(RootNode.EXPLOSIONS_TNT_BELOW_FIRE, worldName);
-                    damageWorld = CFG.getBoolean(RootNode.EXPLOSIONS_TNT_BELOW_WORLD_GRIEF, worldName);
-                    break;
-                case OVERWORLD_BLAZE:
-                    power = CFG.getInt(RootNode.EXPLOSIONS_BLAZE_BELOW_POWER, worldName);
-                    setFire = CFG.getBoolean(RootNode.EXPLOSIONS_BLAZE_BELOW_FIRE, worldName);
-                    damageWorld = CFG.getBoolean(RootNode.EXPLOSIONS_BLAZE_BELOW_WORLD_GRIEF, worldName);
-                    break;
-                case GHAST_FIREBALL:
-                    power = CFG.getInt(RootNode.EXPLOSIONS_GHAST_BELOW_POWER, worldName);
-                    setFire = CFG.getBoolean(RootNode.EXPLOSIONS_GHAST_BELOW_FIRE, worldName);
-                    damageWorld = CFG.getBoolean(RootNode.EXPLOSIONS_GHAST_BELOW_WORLD_GRIEF, worldName);
-                    break;
-                default:
-                    power = type.getPowerB();
-                    setFire = type.isFireB();
-                    damageWorld = type.allowBlockDmgB();
-            }
-        } else if (loc.getY() > border)
-        {
-            switch (type)
-            {
-                case CREEPER:
-                    power = CFG.getInt(RootNode.EXPLOSIONS_CREEPERS_ABOVE_POWER, worldName);
-                    setFire = CFG.getBoolean(RootNode.EXPLOSIONS_CREEPERS_ABOVE_FIRE, worldName);
-                    damageWorld = CFG.getBoolean(RootNode.EXPLOSIONS_CREEPERS_ABOVE_WORLD_GRIEF, worldName);
-                    break;
-                case CREEPER_CHARGED:
-                    power = CFG.getInt(RootNode.EXPLOSIONS_CHARGED_CREEPERS_ABOVE_POWER, worldName);
-                    setFire = CFG.getBoolean(RootNode.EXPLOSIONS_CHARGED_CREEPERS_ABOVE_FIRE, worldName);
-                    damageWorld = CFG.getBoolean(RootNode.EXPLOSIONS_CHARGED_CREEPERS_ABOVE_WORLD_GRIEF, worldName);
-                    break;
-                case TNT:
-                    power = CFG.getInt(RootNode.EXPLOSIONS_TNT_ABOVE_POWER, worldName);
-                    setFire = CFG.getBoolean(RootNode.EXPLOSIONS_TNT_ABOVE_FIRE, worldName);
-                    damageWorld = CFG.getBoolean(RootNode.EXPLOSIONS_TNT_ABOVE_WORLD_GRIEF, worldName);
-                    break;
-                case OVERWORLD_BLAZE:
-                    power = CFG.getInt(RootNode.EXPLOSIONS_BLAZE_ABOVE_POWER, worldName);
-                    setFire = CFG.getBoolean(RootNode.EXPLOSIONS_BLAZE_ABOVE_FIRE, worldName);
-                    damageWorld = CFG.getBoolean(RootNode.EXPLOSIONS_BLAZE_ABOVE_WORLD_GRIEF, worldName);
-                    break;
-                case GHAST_FIREBALL:
-                    power = CFG.getInt(RootNode.EXPLOSIONS_GHAST_ABOVE_POWER, worldName);
-                    setFire = CFG.getBoolean(RootNode.EXPLOSIONS_GHAST_ABOVE_FIRE, worldName);
-                    damageWorld = CFG.getBoolean(RootNode.EXPLOSIONS_GHAST_ABOVE_WORLD_GRIEF, worldName);
-                    break;
-                default:
-                    power = type.getPowerA();
-                    setFire = type.isFireA();
-                    damageWorld = type.allowBlockDmgA();
-            }
-        }
-
         //if (validateLocationSafe(loc, type))
         //{
         //if (CompatHandler.isExplosionProtected(loc))
@@ -183,9 +105,7 @@ public class CreateExplosionTask implements Runnable
         */
 
 
-        //entity should be ignored so our code doesn't think that it's a regular creeper etc.
-        EntityHelper.flagIgnore(plugin, explosionCause);
-        loc.getWorld().createExplosion(loc.getX(), loc.getY(), loc.getZ(), power, setFire, damageWorld);
+        governor.queue(loc, type, explosionCause);
         //}
     }
 
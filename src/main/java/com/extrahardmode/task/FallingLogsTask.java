@@ -24,6 +24,7 @@ package com.extrahardmode.task;
 
 import com.extrahardmode.ExtraHardMode;
 import com.extrahardmode.module.BlockModule;
+import com.extrahardmode.module.EhmScheduler;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -153,7 +154,7 @@ public class FallingLogsTask implements Runnable
                 for (int i = 0; i < looseLogs.size(); i++)
                 {
                     final Block looseLog = looseLogs.get(i);
-                    plugin.getServer().getScheduler().runTaskLater(plugin, new Runnable()
+                    plugin.getModuleForClass(EhmScheduler.class).runTaskLater("RealisticChopping", new Runnable()
                     {
                         @Override
                         public void run()
@@ -3,27 +3,28 @@ package com.extrahardmode.task;
 
 /** @author Diemex */
 
+import com.extrahardmode.ExtraHardMode;
+import com.extrahardmode.module.EhmScheduler;
 import com.extrahardmode.module.EntityHelper;
 import org.bukkit.entity.LivingEntity;
-import org.bukkit.plugin.Plugin;
-import org.bukkit.scheduler.BukkitRunnable;
 
 /**
  * Damage a LivingEntity until it's dead, stop the task once the Entity is dead
  *
  * @author Diemex
  */
-public class SlowKillTask extends BukkitRunnable
+public class SlowKillTask extends EhmScheduler.RepeatingTask
 {
     private final LivingEntity entity;
-    private final Plugin plugin;
+    private final ExtraHardMode plugin;
 
 
-    public SlowKillTask(LivingEntity entity, Plugin plugin)
+    public SlowKillTask(LivingEntity entity, ExtraHardMode plugin)
     {
         this.entity = entity;
         this.plugin = plugin;
-        runTaskTimer(plugin, 0L, 30L);
+        //exempt from the cap by the owning feature, one task per entity which is meant to die
+        plugin.getModuleForClass(EhmScheduler.class).runTaskTimer("SlowKill", this, 0L, 30L);
     }
 
 
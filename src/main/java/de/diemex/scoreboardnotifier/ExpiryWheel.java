@@ -0,0 +1,181 @@
+package de.diemex.scoreboardnotifier;
+
+
+import com.extrahardmode.module.EhmScheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hashed timing wheel which removes popups once their time is up
+ * <p/>
+ * One task ticks the wheel once per server tick while there are popups waiting to expire. Every popup is put into the
+ * slot of the tick it expires in, popups which expire more than one turn of the wheel later count down the turns.
+ * Scheduling and cancelling are O(1) and every tick only visits one slot.
+ *
+ * @author Diemex
+ */
+class ExpiryWheel implements Runnable
+{
+    /**
+     * Amount of slots, has to be a power of two. Popups are usually shown for 30-90 seconds
+     */
+    private static final int SLOTS = 2048;
+
+    private static final int MASK = SLOTS - 1;
+
+    private final EhmScheduler scheduler;
+
+    /**
+     * First expiry of every slot, the expiries of a slot are a doubly linked list
+     */
+    private final Expiry[] slots = new Expiry[SLOTS];
+
+    /**
+     * Ticks since the wheel has been created
+     */
+    private long tick = 0;
+
+    /**
+     * Amount of pending expiries
+     */
+    private int size = 0;
+
+    private int taskId = -1;
+
+
+    ExpiryWheel(EhmScheduler scheduler)
+    {
+        this.scheduler = scheduler;
+    }
+
+
+    /**
+     * Remove a message after the given amount of ticks
+     *
+     * @param handler handler displaying the message
+     * @param id      id of the message
+     * @param ticks   after how many ticks, at least 1
+     *
+     * @return the expiry, which can be cancelled
+     */
+    Expiry schedule(PlayerNotificationHandler handler, int id, int ticks)
+    {
+        ticks = Math.max(ticks, 1);
+        Expiry expiry = new Expiry(this, handler, id, (int) ((tick + ticks) & MASK), (ticks - 1) / SLOTS);
+        link(expiry);
+        size++;
+        if (taskId == -1)
+            taskId = scheduler.runTaskTimer("NotificationManager", this, 1L, 1L);
+        return expiry;
+    }
+
+
+    @Override
+    public void run()
+    {
+        tick++;
+        List<Expiry> expired = null;
+        for (Expiry expiry = slots[(int) (tick & MASK)]; expiry != null; )
+        {
+            Expiry next = expiry.next;
+            if (expiry.rounds-- == 0)
+            {
+                expiry.cancel();
+                if (expired == null)
+                    expired = new ArrayList<Expiry>();
+                expired.add(expiry);
+            }
+            expiry = next;
+        }
+        //Removing a message can cancel other expiries, so only once we are done with the slot
+        if (expired != null)
+            for (Expiry expiry : expired)
+                expiry.handler.removeMessage(expiry.id);
+        if (size == 0 && taskId != -1)
+        {
+            scheduler.cancelTask(taskId);
+            taskId = -1;
+        }
+    }
+
+
+    /**
+     * @return amount of messages waiting to be removed
+     */
+    int size()
+    {
+        return size;
+    }
+
+
+    private void link(Expiry expiry)
+    {
+        Expiry head = slots[expiry.slot];
+        expiry.next = head;
+        if (head != null)
+            head.prev = expiry;
+        slots[expiry.slot] = expiry;
+    }
+
+
+    private void unlink(Expiry expiry)
+    {
+        if (expiry.prev != null)
+            expiry.prev.next = expiry.next;
+        else
+            slots[expiry.slot] = expiry.next;
+        if (expiry.next != null)
+            expiry.next.prev = expiry.prev;
+        expiry.prev = null;
+        expiry.next = null;
+        size--;
+    }
+
+
+    /**
+     * A message which will be removed
+     */
+    static class Expiry
+    {
+        private final ExpiryWheel wheel;
+
+        private final PlayerNotificationHandler handler;
+
+        private final int id;
+
+        private final int slot;
+
+        /**
+         * Turns of the wheel left before expiring
+         */
+        private int rounds;
+
+        private Expiry prev, next;
+
+        private boolean cancelled = false;
+
+
+        private Expiry(ExpiryWheel wheel, PlayerNotificationHandler handler, int id, int slot, int rounds)
+        {
+            this.wheel = wheel;
+            this.handler = handler;
+            this.id = id;
+            this.slot = slot;
+            this.rounds = rounds;
+        }
+
+
+        /**
+         * Don't remove the message, does nothing if already expired or cancelled
+         */
+        void cancel()
+        {
+            if (!cancelled)
+            {
+                cancelled = true;
+                wheel.unlink(this);
+            }
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package de.diemex.scoreboardnotifier;
 
 
+import com.extrahardmode.module.EhmScheduler;
 import de.diemex.scoreboardnotifier.message.MsgLineHolder;
 import de.diemex.scoreboardnotifier.message.MsgSettings;
 import de.diemex.scoreboardnotifier.message.StringUtil;
@@ -29,16 +30,23 @@ public class NotificationManager implements Listener
      */
     Map<String, PlayerNotificationHandler> managerScoreboards;
 
+    /**
+     * Removes timed messages of all players
+     */
+    private final ExpiryWheel expiryWheel;
+
 
     /**
      * Constructor
      *
-     * @param plugin plugin is used to register events and gives access to bukkit
+     * @param plugin    plugin is used to register events and gives access to bukkit
+     * @param scheduler runs the task removing expired popups
      */
-    public NotificationManager(Plugin plugin)
+    public NotificationManager(Plugin plugin, EhmScheduler scheduler)
     {
         this.plugin = plugin;
         managerScoreboards = new HashMap<String, PlayerNotificationHandler>();
+        expiryWheel = new ExpiryWheel(scheduler);
     }
 
 
@@ -51,7 +59,7 @@ public class NotificationManager implements Listener
         final int id = store.displayMessage(popup);
 
         if (type.getLength() > 0)
-            removeNotificationLater(id, store, type.getLength());
+            store.removeMessageLater(id, type.getLength());
 
         return true;
     }
@@ -156,7 +164,7 @@ public class NotificationManager implements Listener
             final int id = store.displayMessage(popup);
 
             if (!type.hasUniqueIdentifier())
-                removeNotificationLater(id, store, type.getLength());
+                store.removeMessageLater(id, type.getLength());
         }
         return true;
     }
@@ -220,7 +228,7 @@ public class NotificationManager implements Listener
             notificationHandler = managerScoreboards.get(player);
         else
         {
-            notificationHandler = new PlayerNotificationHandler(scoreboardTitle, plugin, player);
+            notificationHandler = new PlayerNotificationHandler(scoreboardTitle, plugin, player, expiryWheel);
             managerScoreboards.put(player, notificationHandler);
         }
 
@@ -228,27 +236,6 @@ public class NotificationManager implements Listener
     }
 
 
-    /**
-     * Schedule a task to remove a Popup after a given time
-     *
-     * @param id     id of the message to remove
-     * @param store  message object
-     * @param length after how many ticks shall we remove the message
-     */
-    private void removeNotificationLater(final int id, final PlayerNotificationHandler store, final int length)
-    {
-        //Remove a message after a given time
-        plugin.getServer().getScheduler().runTaskLater(plugin, new Runnable()
-        {
-            @Override
-            public void run()
-            {
-                store.removeMessage(id);
-            }
-        }, length);
-    }
-
-
     /**
      * Remove a players scoreboard on logout
      *
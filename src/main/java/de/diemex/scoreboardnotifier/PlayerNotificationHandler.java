@@ -7,12 +7,10 @@ import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.scoreboard.DisplaySlot;
 import org.bukkit.scoreboard.Objective;
-import org.bukkit.scoreboard.Score;
 import org.bukkit.scoreboard.Scoreboard;
 
 import java.util.HashMap;
 import java.util.Iterator;
-import java.util.List;
 import java.util.Map;
 
 /**
@@ -67,12 +65,33 @@ public class PlayerNotificationHandler
      */
     private Map<String, Integer> idMap = new HashMap<String, Integer>();
 
+    /**
+     * Entries and their scores as they are currently shown in the scoreboard
+     */
+    private final Map<String, Integer> rendered = new HashMap<String, Integer>();
+
+    /**
+     * Title currently shown
+     */
+    private String renderedTitle;
+
+    /**
+     * Wheel which removes timed messages
+     */
+    private final ExpiryWheel wheel;
 
-    public PlayerNotificationHandler(String scoreboardTitle, Plugin plugin, String playerName)
+    /**
+     * Pending removals of the timed messages by id
+     */
+    private final Map<Integer, ExpiryWheel.Expiry> expiries = new HashMap<Integer, ExpiryWheel.Expiry>();
+
+
+    public PlayerNotificationHandler(String scoreboardTitle, Plugin plugin, String playerName, ExpiryWheel wheel)
     {
         this.scoreboardTitle = scoreboardTitle;
         this.plugin = plugin;
         this.playerName = playerName;
+        this.wheel = wheel;
         msgBoard = Bukkit.getScoreboardManager().getNewScoreboard();
         Player player = Bukkit.getPlayer(playerName);
         if (player != null)
@@ -87,16 +106,23 @@ public class PlayerNotificationHandler
      */
     public int displayMessage(NotificationHolder popup)
     {
-        Player player = Bukkit.getPlayer(playerName);
-        if (player != null && player.isOnline())
+        //Init if no scoreboard active
+        if (objective == null)
         {
-            //Init if no scoreboard active
-            if (objective == null)
-            {
-                objective = msgBoard.registerNewObjective(popup.getTitle(), "dummy");
-                objective.setDisplaySlot(DisplaySlot.SIDEBAR);
-            }
+            objective = msgBoard.registerNewObjective(popup.getTitle(), "dummy");
+            objective.setDisplaySlot(DisplaySlot.SIDEBAR);
+        }
+        Player player = Bukkit.getPlayer(playerName);
+        if (player != null && player.isOnline() && player.getScoreboard() != msgBoard)
             player.setScoreboard(msgBoard);
+
+        //Same message with the same identifier is already shown, e.g. a popup that is updated regularly
+        if (popup.getType().hasUniqueIdentifier() && idMap.containsKey(popup.getType().getUniqueIdentifier()))
+        {
+            int shownId = idMap.get(popup.getType().getUniqueIdentifier());
+            NotificationHolder shown = notifications.get(shownId);
+            if (shown != null && shown.msgText.equals(popup.msgText) && StringUtils.equals(shown.getTitle(), popup.getTitle()))
+                return shownId;
         }
 
         //Remove messages with the same text
@@ -107,6 +133,7 @@ public class PlayerNotificationHandler
             if (message.getValue().equals(popup))
             {
                 iter.remove();
+                cancelExpiry(message.getKey());
                 popup.modifyCount(message.getValue().getMessageCount());
                 popup.redraw();
             }
@@ -120,7 +147,10 @@ public class PlayerNotificationHandler
         {
             String id = popup.getType().getUniqueIdentifier();
             if (idMap.containsKey(id))
+            {
                 notifications.remove(idMap.get(id));
+                cancelExpiry(idMap.get(id));
+            }
             idMap.put(id, index);
         }
 
@@ -143,6 +173,27 @@ public class PlayerNotificationHandler
     }
 
 
+    /**
+     * Remove a message after the given time, replaces a previous removal of the message
+     *
+     * @param id    id of the message
+     * @param ticks after how many ticks
+     */
+    public void removeMessageLater(int id, int ticks)
+    {
+        cancelExpiry(id);
+        expiries.put(id, wheel.schedule(this, id, ticks));
+    }
+
+
+    private void cancelExpiry(int id)
+    {
+        ExpiryWheel.Expiry expiry = expiries.remove(id);
+        if (expiry != null)
+            expiry.cancel();
+    }
+
+
     /**
      * Remove the message with the unique identifier
      *
@@ -155,9 +206,6 @@ public class PlayerNotificationHandler
             int index = idMap.get(id);
             idMap.remove(id);
             removeMessage(index);
-            updateIndexes();
-            if (!messagesScheduled())
-                restoreScoreboard();
         }
     }
 
@@ -169,12 +217,11 @@ public class PlayerNotificationHandler
      */
     public void removeMessage(int id)
     {
+        cancelExpiry(id);
         //is this notification still valid?
         if (notifications.containsKey(id))
         {
             msgCount--;
-            for (String line : notifications.get(id).getMsg())
-                msgBoard.resetScores(line);
             notifications.remove(id);
             //Update all the line numbers
             updateIndexes();
@@ -184,43 +231,75 @@ public class PlayerNotificationHandler
     }
 
 
+    /**
+     * Calculate the lines of all messages and send the ones that changed
+     */
     private void updateIndexes()
     {
         int lastLine = lineCount() + notifications.size() - 1; //separators, no separator on the last line
         int separator = 0; //pos of =
+        int remaining = notifications.size();
 
-        //Clear scoreboard
-        for (String player : msgBoard.getEntries())
-            msgBoard.resetScores(player);
-
-        //Update the scores and put separators in between the lines
-        boolean updateTitle = true;
+        //Put separators in between the messages, newest message on top
+        Map<String, Integer> lines = new HashMap<String, Integer>();
+        String title = null;
         for (int i = getHighestIndex(); i > 0; i--)
         {
-            if (notifications.containsKey(i))
-            {
-                NotificationHolder popup = notifications.get(i);
-
-                //Use the title and color of the newest message
-                if (updateTitle && objective.getScoreboard().getEntries().size() > 0)
-                {
-                    objective.setDisplayName(notifications.get(i).getTitle());
-                    updateTitle = false;
-                }
-
-                List<String> msg = popup.getMsg();
-                for (String msgLine : msg)
-                {
-                    Score score = objective.getScore(msgLine);
-                    score.setScore(lastLine--);
-                }
+            NotificationHolder popup = notifications.get(i);
+            if (popup == null)
+                continue;
+
+            //Use the title and color of the newest message
+            if (title == null)
+                title = popup.getTitle();
 
+            for (String msgLine : popup.getMsg())
+                lines.put(msgLine, lastLine--);
+
+            if (--remaining > 0) //not last message
+            {
                 StringBuilder sb = new StringBuilder(StringUtils.repeat("-", 16));
                 sb.setCharAt(separator < 16 ? separator++ : 0, '='); //Maximum of 16 messages at a time...
-                if (i != 1) //not last line
-                    objective.getScore(sb.toString()).setScore(lastLine--);
+                lines.put(sb.toString(), lastLine--);
             }
         }
+        render(title, lines);
+    }
+
+
+    /**
+     * Only send the entries which have been added, removed or have changed their score
+     *
+     * @param title title of the scoreboard, null to keep the current one
+     * @param lines entries and their score
+     */
+    private void render(String title, Map<String, Integer> lines)
+    {
+        Iterator<Map.Entry<String, Integer>> iter = rendered.entrySet().iterator();
+        while (iter.hasNext())
+        {
+            String entry = iter.next().getKey();
+            if (!lines.containsKey(entry))
+            {
+                msgBoard.resetScores(entry);
+                iter.remove();
+            }
+        }
+
+        for (Map.Entry<String, Integer> line : lines.entrySet())
+        {
+            if (!line.getValue().equals(rendered.get(line.getKey())))
+            {
+                objective.getScore(line.getKey()).setScore(line.getValue());
+                rendered.put(line.getKey(), line.getValue());
+            }
+        }
+
+        if (title != null && !title.equals(renderedTitle))
+        {
+            objective.setDisplayName(title);
+            renderedTitle = title;
+        }
     }
 
 
@@ -0,0 +1,88 @@
+/*
+ * This file is part of
+ * ExtraHardMode Server Plugin for Minecraft
+ *
+ * Copyright (C) 2012 Ryan Hamshire
+ * Copyright (C) 2013 Diemex
+ *
+ * ExtraHardMode is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ExtraHardMode is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero Public License
+ * along with ExtraHardMode.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.extrahardmode.config;
+
+
+import com.extrahardmode.config.messages.MessageNode;
+import com.extrahardmode.config.messages.MessageTemplate;
+import com.extrahardmode.service.FindAndReplace;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test filling in the variables of a compiled message
+ */
+public class TestMessageTemplate
+{
+    private final FindAndReplace player = new FindAndReplace("Notch", MessageNode.Variables.PLAYER.getVarNames());
+
+    private final FindAndReplace players = new FindAndReplace("Notch, Dinnerbone", MessageNode.Variables.PLAYERS.getVarNames());
+
+
+    @Test
+    public void noVariables()
+    {
+        MessageTemplate template = MessageTemplate.compile("The dragon has been defeated!");
+        assertEquals("The dragon has been defeated!", template.render(player));
+        assertFalse(template.isEmpty());
+    }
+
+
+    @Test
+    public void empty()
+    {
+        assertSame(MessageTemplate.EMPTY, MessageTemplate.compile(""));
+        assertSame(MessageTemplate.EMPTY, MessageTemplate.compile(null));
+        assertTrue(MessageTemplate.EMPTY.isEmpty());
+        assertEquals("", MessageTemplate.EMPTY.render());
+    }
+
+
+    @Test
+    public void fillIn()
+    {
+        assertEquals("Notch is challenging the dragon!", MessageTemplate.compile("$PLAYER is challenging the dragon!").render(player));
+        assertEquals("Notch is challenging Notch", MessageTemplate.compile("PLAYER is challenging $PLAYER").render(player));
+        assertEquals("( By: Notch, Dinnerbone )", MessageTemplate.compile("( By: $PLAYERS )").render(player, players));
+    }
+
+
+    @Test
+    public void longestVariableWins()
+    {
+        //$PLAYERS must not be filled in as $PLAYER followed by an S
+        assertEquals("$PLAYERS", MessageTemplate.compile("$PLAYERS").render(player));
+    }
+
+
+    @Test
+    public void missingValueKeepsVariable()
+    {
+        MessageTemplate template = MessageTemplate.compile("You managed to lose $ITEMS");
+        assertEquals("You managed to lose $ITEMS", template.render());
+        assertEquals("You managed to lose $ITEMS", template.render(player));
+    }
+}
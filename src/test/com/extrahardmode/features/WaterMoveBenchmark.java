@@ -0,0 +1,110 @@
+/*
+ * This file is part of
+ * ExtraHardMode Server Plugin for Minecraft
+ *
+ * Copyright (C) 2012 Ryan Hamshire
+ * Copyright (C) 2013 Diemex
+ *
+ * ExtraHardMode is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ExtraHardMode is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero Public License
+ * along with ExtraHardMode.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.extrahardmode.features;
+
+
+import com.extrahardmode.ExtraHardMode;
+import com.extrahardmode.config.RootConfig;
+import com.extrahardmode.config.RootNode;
+import com.extrahardmode.mocks.MockBlock;
+import com.extrahardmode.mocks.MockExtraHardMode;
+import com.extrahardmode.mocks.MockWorld;
+import com.extrahardmode.module.MsgModule;
+import com.extrahardmode.module.PlayerModule;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.BlockFace;
+import org.bukkit.entity.Player;
+import org.bukkit.event.player.PlayerMoveEvent;
+
+import java.util.UUID;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures what a PlayerMoveEvent costs the swimming checks of {@link Water} when the player isn't in water, run
+ * manually with the test classpath:
+ * <pre>
+ * java com.extrahardmode.features.WaterMoveBenchmark [moves]
+ * </pre>
+ * Player and world are mocks, so the moves which have to look at the player include the overhead of mockito.
+ */
+public class WaterMoveBenchmark
+{
+    private static final int EVENTS = 1024;
+
+
+    public static void main(String[] args)
+    {
+        final int moves = args.length > 0 ? Integer.parseInt(args[0]) : 5000000;
+
+        ExtraHardMode plugin = new MockExtraHardMode().get();
+        RootConfig CFG = new RootConfig(plugin);
+        CFG.set("world", RootNode.NO_SWIMMING_IN_ARMOR, true);
+        CFG.set("world", RootNode.NO_SWIMMING_IN_ARMOR_BLOCK_ELEVATORS, true);
+        Water water = new Water(plugin, CFG, mock(PlayerModule.class), mock(MsgModule.class));
+
+        //Nothing but air around the player
+        MockBlock air = new MockBlock().setMaterial(Material.AIR);
+        air.setRelative(BlockFace.DOWN, air.get());
+        World world = new MockWorld("world").get();
+        when(world.getBlockAt(any(Location.class))).thenReturn(air.get());
+
+        Player player = mock(Player.class);
+        when(player.getUniqueId()).thenReturn(UUID.randomUUID());
+        when(player.getName()).thenReturn("player");
+        when(player.getWorld()).thenReturn(world);
+
+        PlayerMoveEvent[] look = new PlayerMoveEvent[EVENTS];
+        PlayerMoveEvent[] walk = new PlayerMoveEvent[EVENTS];
+        PlayerMoveEvent[] jump = new PlayerMoveEvent[EVENTS];
+        PlayerMoveEvent[] climb = new PlayerMoveEvent[EVENTS];
+        for (int i = 0; i < EVENTS; i++)
+        {
+            look[i] = new PlayerMoveEvent(player, new Location(world, 0.5, 64, 0.5, 0, 0), new Location(world, 0.5, 64, 0.5, i, 0));
+            walk[i] = new PlayerMoveEvent(player, new Location(world, i * 0.2, 64, 0.5), new Location(world, i * 0.2 + 0.2, 64, 0.5));
+            jump[i] = new PlayerMoveEvent(player, new Location(world, 0.5, 64.1, 0.5), new Location(world, 0.5, 64.3, 0.5));
+            climb[i] = new PlayerMoveEvent(player, new Location(world, 0.5, 64 + i, i + 0.5), new Location(world, 0.5, 65 + i, i + 1.5));
+        }
+
+        //warm up
+        for (PlayerMoveEvent[] events : new PlayerMoveEvent[][]{look, walk, jump, climb})
+            run(water, events, moves / 10);
+
+        System.out.println(String.format("look around: %.1f ns/move", run(water, look, moves)));
+        System.out.println(String.format("walk:        %.1f ns/move", run(water, walk, moves)));
+        System.out.println(String.format("jump:        %.1f ns/move", run(water, jump, moves)));
+        System.out.println(String.format("climb:       %.1f ns/move", run(water, climb, moves / 10)));
+    }
+
+
+    private static double run(Water water, PlayerMoveEvent[] events, int moves)
+    {
+        final long start = System.nanoTime();
+        for (int i = 0; i < moves; i++)
+            water.onPlayerMove(events[i % EVENTS]);
+        return (System.nanoTime() - start) / (double) moves;
+    }
+}
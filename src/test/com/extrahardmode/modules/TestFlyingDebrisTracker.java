@@ -0,0 +1,111 @@
+/*
+ * This file is part of
+ * ExtraHardMode Server Plugin for Minecraft
+ *
+ * Copyright (C) 2012 Ryan Hamshire
+ * Copyright (C) 2013 Diemex
+ *
+ * ExtraHardMode is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ExtraHardMode is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero Public License
+ * along with ExtraHardMode.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.extrahardmode.modules;
+
+
+import com.extrahardmode.mocks.MockBlock;
+import com.extrahardmode.mocks.MockWorld;
+import com.extrahardmode.module.FlyingDebrisTracker;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.entity.FallingBlock;
+import org.junit.Test;
+
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test the tracking of flying blocks
+ */
+public class TestFlyingDebrisTracker
+{
+    private final FlyingDebrisTracker tracker = new FlyingDebrisTracker();
+
+    private final World world;
+
+
+    public TestFlyingDebrisTracker()
+    {
+        world = new MockWorld("world").get();
+        when(world.getUID()).thenReturn(UUID.randomUUID());
+    }
+
+
+    private FallingBlock mockEntity(int id)
+    {
+        FallingBlock entity = mock(FallingBlock.class);
+        when(entity.getEntityId()).thenReturn(id);
+        return entity;
+    }
+
+
+    @Test
+    public void testUntrackedIsNull()
+    {
+        assertNull(tracker.remove(42));
+    }
+
+
+    @Test
+    public void testOriginCoordinates()
+    {
+        Block origin = new MockBlock().setWorld(world).setLocation(-1234567, -64, 7654321).get();
+        tracker.track(mockEntity(1), origin);
+
+        FlyingDebrisTracker.Origin tracked = tracker.remove(1);
+        assertNotNull(tracked);
+        assertEquals(-1234567, tracked.getX());
+        assertEquals(-64, tracked.getY());
+        assertEquals(7654321, tracked.getZ());
+        //only returned once
+        assertNull(tracker.remove(1));
+    }
+
+
+    @Test
+    public void testDistance()
+    {
+        Block origin = new MockBlock().setWorld(world).setLocation(10, 60, 10).get();
+        Block landed = new MockBlock().setWorld(world).setLocation(13, 64, 10).get();
+        tracker.track(mockEntity(2), origin);
+
+        assertEquals(25.0, tracker.remove(2).distanceSquared(landed), 0.0);
+    }
+
+
+    @Test
+    public void testOtherWorldIsFarAway()
+    {
+        World otherWorld = new MockWorld("world_nether").get();
+        when(otherWorld.getUID()).thenReturn(UUID.randomUUID());
+        Block origin = new MockBlock().setWorld(world).setLocation(0, 64, 0).get();
+        Block landed = new MockBlock().setWorld(otherWorld).setLocation(0, 64, 0).get();
+        tracker.track(mockEntity(3), origin);
+
+        assertEquals(Double.MAX_VALUE, tracker.remove(3).distanceSquared(landed), 0.0);
+    }
+}
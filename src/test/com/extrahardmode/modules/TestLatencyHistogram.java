@@ -0,0 +1,91 @@
+/*
+ * This file is part of
+ * ExtraHardMode Server Plugin for Minecraft
+ *
+ * Copyright (C) 2012 Ryan Hamshire
+ * Copyright (C) 2013 Diemex
+ *
+ * ExtraHardMode is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ExtraHardMode is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero Public License
+ * along with ExtraHardMode.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.extrahardmode.modules;
+
+
+import com.extrahardmode.module.timings.LatencyHistogram;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test the percentiles of the latency histogram
+ */
+public class TestLatencyHistogram
+{
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+
+    @Test
+    public void empty()
+    {
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(50));
+        assertEquals(0, histogram.getPercentile(99));
+    }
+
+
+    @Test
+    public void smallValuesAreExact()
+    {
+        for (int i = 1; i <= 10; i++)
+            histogram.record(i);
+        assertEquals(10, histogram.getCount());
+        assertEquals(55, histogram.getTotal());
+        assertEquals(5, histogram.getPercentile(50));
+        assertEquals(10, histogram.getPercentile(99));
+        assertEquals(10, histogram.getMax());
+    }
+
+
+    @Test
+    public void percentilesWithinBucketPrecision()
+    {
+        for (int i = 1; i <= 1000; i++)
+            histogram.record(i * 1000L);
+        long p50 = histogram.getPercentile(50);
+        long p99 = histogram.getPercentile(99);
+        assertTrue("p50 was " + p50, p50 >= 500000 && p50 <= 500000 * 1.125);
+        assertTrue("p99 was " + p99, p99 >= 990000 && p99 <= 990000 * 1.125);
+        assertEquals(1000000, histogram.getMax());
+    }
+
+
+    @Test
+    public void hugeValues()
+    {
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, histogram.getPercentile(50));
+    }
+
+
+    @Test
+    public void reset()
+    {
+        histogram.record(123);
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getPercentile(50));
+    }
+}
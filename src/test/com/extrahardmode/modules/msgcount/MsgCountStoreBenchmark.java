@@ -0,0 +1,105 @@
+/*
+ * This file is part of
+ * ExtraHardMode Server Plugin for Minecraft
+ *
+ * Copyright (C) 2012 Ryan Hamshire
+ * Copyright (C) 2013 Diemex
+ *
+ * ExtraHardMode is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ExtraHardMode is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero Public License
+ * along with ExtraHardMode.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.extrahardmode.modules.msgcount;
+
+
+import com.extrahardmode.ExtraHardMode;
+import com.extrahardmode.config.messages.MessageNode;
+import com.extrahardmode.module.msgcount.MappedMsgCountStore;
+import com.extrahardmode.module.msgcount.MemoryMsgCountStore;
+import com.extrahardmode.module.msgcount.MsgCountStore;
+import com.extrahardmode.module.msgcount.SQLiteMsgCountStore;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Measures how many counts per second the stores can write and load, run manually with the test classpath:
+ * <pre>
+ * java com.extrahardmode.modules.msgcount.MsgCountStoreBenchmark [players] [writes]
+ * </pre>
+ * Writes are committed in batches of the same size as the writer of the MsgPersistModule uses.
+ */
+public class MsgCountStoreBenchmark
+{
+    private static final int BATCH_SIZE = 256;
+
+
+    public static void main(String[] args) throws Exception
+    {
+        final int players = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        final int writes = args.length > 1 ? Integer.parseInt(args[1]) : 200000;
+
+        List<MessageNode> nodes = new ArrayList<MessageNode>();
+        for (MessageNode node : MessageNode.values())
+            if (node.getColumnName() != null)
+                nodes.add(node);
+
+        UUID[] uuids = new UUID[players];
+        for (int i = 0; i < players; i++)
+            uuids[i] = UUID.randomUUID();
+
+        File mapped = File.createTempFile("ehm_bench", ".dat");
+        mapped.deleteOnExit();
+        run("memory", new MemoryMsgCountStore(), nodes, uuids, writes);
+        run("file", new MappedMsgCountStore(mapped), nodes, uuids, writes);
+        if (SQLiteMsgCountStore.isDriverPresent())
+        {
+            File db = File.createTempFile("ehm_bench", ".db");
+            db.deleteOnExit();
+            run("sqlite", new SQLiteMsgCountStore(mock(ExtraHardMode.class), db.getPath()), nodes, uuids, writes);
+        } else
+            System.out.println("sqlite: driver not found, skipped");
+    }
+
+
+    private static void run(String name, MsgCountStore store, List<MessageNode> nodes, UUID[] uuids, int writes) throws Exception
+    {
+        Random random = new Random(42);
+        store.open(nodes);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < writes; i++)
+        {
+            store.set(uuids[random.nextInt(uuids.length)], nodes.get(random.nextInt(nodes.size())), random.nextInt(4));
+            if (i % BATCH_SIZE == BATCH_SIZE - 1)
+                store.commit();
+        }
+        store.commit();
+        final long writeNanos = System.nanoTime() - start;
+
+        int[] values = new int[MessageNode.values().length];
+        start = System.nanoTime();
+        for (UUID uuid : uuids)
+            store.load(uuid, "player", values);
+        final long loadNanos = System.nanoTime() - start;
+        store.close();
+
+        System.out.println(String.format("%s: %.0f writes/s, %.0f loads/s", name,
+                writes / (writeNanos / 1e9), uuids.length / (loadNanos / 1e9)));
+    }
+}
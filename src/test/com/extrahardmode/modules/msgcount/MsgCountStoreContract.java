@@ -0,0 +1,205 @@
+/*
+ * This file is part of
+ * ExtraHardMode Server Plugin for Minecraft
+ *
+ * Copyright (C) 2012 Ryan Hamshire
+ * Copyright (C) 2013 Diemex
+ *
+ * ExtraHardMode is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ExtraHardMode is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero Public License
+ * along with ExtraHardMode.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.extrahardmode.modules.msgcount;
+
+
+import com.extrahardmode.config.messages.MessageNode;
+import com.extrahardmode.module.msgcount.MsgCountStore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Behaviour every {@link MsgCountStore} has to provide, extended by the tests of the implementations
+ */
+public abstract class MsgCountStoreContract
+{
+    /**
+     * Nodes which have a column, the last one isn't tracked at first
+     */
+    protected final List<MessageNode> nodes = new ArrayList<MessageNode>();
+
+    protected MessageNode untracked;
+
+    protected MsgCountStore store;
+
+
+    /**
+     * @return a new store, each call has to use the same data as the previous one
+     */
+    protected abstract MsgCountStore createStore() throws Exception;
+
+
+    /**
+     * @return if counts survive closing the store
+     */
+    protected boolean isPersistent()
+    {
+        return true;
+    }
+
+
+    @Before
+    public void open() throws Exception
+    {
+        for (MessageNode node : MessageNode.values())
+            if (node.getColumnName() != null)
+                nodes.add(node);
+        untracked = nodes.remove(nodes.size() - 1);
+        store = createStore();
+        store.open(nodes);
+    }
+
+
+    @After
+    public void close()
+    {
+        store.close();
+    }
+
+
+    private int[] load(UUID player) throws Exception
+    {
+        int[] values = new int[MessageNode.values().length];
+        store.load(player, "player", values);
+        return values;
+    }
+
+
+    private void reopen(List<MessageNode> tracked) throws Exception
+    {
+        store.close();
+        store = createStore();
+        store.open(tracked);
+    }
+
+
+    @Test
+    public void testUnknownPlayerIsEmpty() throws Exception
+    {
+        int[] values = load(UUID.randomUUID());
+        for (int value : values)
+            assertEquals(0, value);
+    }
+
+
+    @Test
+    public void testSetAndLoad() throws Exception
+    {
+        UUID player = UUID.randomUUID();
+        store.set(player, nodes.get(0), 3);
+        store.set(player, nodes.get(1), 1);
+        store.set(player, nodes.get(0), 2);
+        store.commit();
+
+        int[] values = load(player);
+        assertEquals(2, values[nodes.get(0).ordinal()]);
+        assertEquals(1, values[nodes.get(1).ordinal()]);
+        assertEquals(0, values[nodes.get(2).ordinal()]);
+    }
+
+
+    @Test
+    public void testPlayersAreSeparate() throws Exception
+    {
+        UUID first = UUID.randomUUID(), second = UUID.randomUUID();
+        store.set(first, nodes.get(0), 1);
+        store.set(second, nodes.get(0), 2);
+        store.commit();
+
+        assertEquals(1, load(first)[nodes.get(0).ordinal()]);
+        assertEquals(2, load(second)[nodes.get(0).ordinal()]);
+    }
+
+
+    @Test
+    public void testReset() throws Exception
+    {
+        UUID player = UUID.randomUUID(), other = UUID.randomUUID();
+        store.set(player, nodes.get(0), 2);
+        store.set(other, nodes.get(0), 2);
+        store.reset(player);
+        store.set(player, nodes.get(1), 1);
+        store.commit();
+
+        int[] values = load(player);
+        assertEquals(0, values[nodes.get(0).ordinal()]);
+        assertEquals(1, values[nodes.get(1).ordinal()]);
+        assertEquals(2, load(other)[nodes.get(0).ordinal()]);
+    }
+
+
+    @Test
+    public void testManyPlayers() throws Exception
+    {
+        UUID[] players = new UUID[1000];
+        for (int i = 0; i < players.length; i++)
+        {
+            players[i] = UUID.randomUUID();
+            store.set(players[i], nodes.get(i % nodes.size()), i);
+        }
+        store.commit();
+
+        for (int i = 0; i < players.length; i++)
+            assertEquals(i, load(players[i])[nodes.get(i % nodes.size()).ordinal()]);
+    }
+
+
+    @Test
+    public void testSurvivesReopen() throws Exception
+    {
+        if (!isPersistent())
+            return;
+        UUID player = UUID.randomUUID();
+        store.set(player, nodes.get(0), 3);
+        store.commit();
+        reopen(nodes);
+
+        assertEquals(3, load(player)[nodes.get(0).ordinal()]);
+    }
+
+
+    @Test
+    public void testNewNodeKeepsCounts() throws Exception
+    {
+        UUID player = UUID.randomUUID();
+        store.set(player, nodes.get(0), 3);
+        store.commit();
+
+        List<MessageNode> more = new ArrayList<MessageNode>(nodes);
+        more.add(0, untracked);
+        reopen(more);
+        store.set(player, untracked, 1);
+        store.commit();
+
+        int[] values = load(player);
+        assertEquals(1, values[untracked.ordinal()]);
+        if (isPersistent())
+            assertEquals(3, values[nodes.get(0).ordinal()]);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * This file is part of
+ * ExtraHardMode Server Plugin for Minecraft
+ *
+ * Copyright (C) 2012 Ryan Hamshire
+ * Copyright (C) 2013 Diemex
+ *
+ * ExtraHardMode is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ExtraHardMode is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero Public License
+ * along with ExtraHardMode.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.extrahardmode.modules.msgcount;
+
+
+import com.extrahardmode.module.msgcount.MappedMsgCountStore;
+import com.extrahardmode.module.msgcount.MsgCountStore;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.UUID;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test the store which keeps the counts in a memory mapped file
+ */
+public class TestMappedMsgCountStore extends MsgCountStoreContract
+{
+    private File file;
+
+
+    @Override
+    protected MsgCountStore createStore() throws IOException
+    {
+        if (file == null)
+        {
+            file = File.createTempFile("ehm_counts", ".dat");
+            file.deleteOnExit();
+        }
+        return new MappedMsgCountStore(file);
+    }
+
+
+    @After
+    @Override
+    public void close()
+    {
+        store.close();
+        file.delete();
+    }
+
+
+    @Test
+    public void testIndexIsRebuilt() throws Exception
+    {
+        for (int i = 0; i < 300; i++)
+            store.set(UUID.randomUUID(), nodes.get(0), 1);
+        store.commit();
+        store.close();
+
+        store = createStore();
+        store.open(nodes);
+        assertEquals(300, ((MappedMsgCountStore) store).getRecordCount());
+    }
+
+
+    @Test(expected = IOException.class)
+    public void testRejectsForeignFile() throws Exception
+    {
+        store.close();
+        FileOutputStream out = new FileOutputStream(file);
+        out.write("not a count file".getBytes("UTF-8"));
+        out.close();
+
+        store = createStore();
+        store.open(nodes);
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * This file is part of
+ * ExtraHardMode Server Plugin for Minecraft
+ *
+ * Copyright (C) 2012 Ryan Hamshire
+ * Copyright (C) 2013 Diemex
+ *
+ * ExtraHardMode is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ExtraHardMode is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero Public License
+ * along with ExtraHardMode.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.extrahardmode.modules.msgcount;
+
+
+import com.extrahardmode.ExtraHardMode;
+import com.extrahardmode.config.messages.MessageNode;
+import com.extrahardmode.module.msgcount.MsgCountStore;
+import com.extrahardmode.module.msgcount.SQLiteMsgCountStore;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.Server;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test the SQLite store
+ */
+public class TestSQLiteMsgCountStore extends MsgCountStoreContract
+{
+    private File file;
+
+    /**
+     * Players the server knows about, used to resolve the names of the old layout
+     */
+    private OfflinePlayer[] knownPlayers = new OfflinePlayer[0];
+
+
+    @Override
+    protected MsgCountStore createStore() throws IOException
+    {
+        if (file == null)
+        {
+            file = File.createTempFile("ehm_counts", ".db");
+            file.deleteOnExit();
+        }
+        return new SQLiteMsgCountStore(mockPlugin(), file.getPath());
+    }
+
+
+    private ExtraHardMode mockPlugin()
+    {
+        ExtraHardMode plugin = mock(ExtraHardMode.class);
+        Server server = mock(Server.class);
+        when(server.getOfflinePlayers()).thenReturn(knownPlayers);
+        when(plugin.getServer()).thenReturn(server);
+        when(plugin.getLogger()).thenReturn(Logger.getLogger("TestSQLiteMsgCountStore"));
+        return plugin;
+    }
+
+
+    private static OfflinePlayer offlinePlayer(String name, UUID uuid)
+    {
+        OfflinePlayer player = mock(OfflinePlayer.class);
+        when(player.getName()).thenReturn(name);
+        when(player.getUniqueId()).thenReturn(uuid);
+        return player;
+    }
+
+
+    private int[] load(UUID player, String name) throws Exception
+    {
+        int[] values = new int[MessageNode.values().length];
+        store.load(player, name, values);
+        return values;
+    }
+
+
+    /**
+     * Rows of a name no known player has are kept and migrated once that player logs in, even if the case of the name
+     * changed
+     */
+    @Test
+    public void testMigrationKeepsUnknownNames() throws Exception
+    {
+        store.close();
+        MessageNode node = nodes.get(0);
+        Connection conn = DriverManager.getConnection("jdbc:sqlite:" + file.getPath());
+        Statement statement = conn.createStatement();
+        statement.executeUpdate("CREATE TABLE players (id INTEGER PRIMARY KEY, name TEXT)");
+        statement.executeUpdate("CREATE TABLE messages (id INTEGER PRIMARY KEY, " + node.getColumnName() + " INT)");
+        statement.executeUpdate("INSERT INTO players (id, name) VALUES (1, 'Known'), (2, 'renamed')");
+        statement.executeUpdate("INSERT INTO messages (id, " + node.getColumnName() + ") VALUES (1, 3), (2, 5)");
+        statement.close();
+        conn.close();
+
+        UUID known = UUID.randomUUID(), renamed = UUID.randomUUID();
+        knownPlayers = new OfflinePlayer[]{offlinePlayer("Known", known)};
+        store = createStore();
+        store.open(nodes);
+        while (store.idle())
+            continue;
+
+        assertEquals(3, load(known, "Known")[node.ordinal()]);
+        assertEquals(1, countLegacyRows());
+        assertEquals(5, load(renamed, "Renamed")[node.ordinal()]);
+        assertEquals(0, countLegacyRows());
+
+        //the old tables are dropped once they are empty
+        store.close();
+        store = createStore();
+        store.open(nodes);
+        assertFalse(store.idle());
+    }
+
+
+    private int countLegacyRows() throws Exception
+    {
+        Connection conn = DriverManager.getConnection("jdbc:sqlite:" + file.getPath());
+        Statement statement = conn.createStatement();
+        ResultSet result = statement.executeQuery("SELECT count(*) FROM players");
+        result.next();
+        int count = result.getInt(1);
+        statement.close();
+        conn.close();
+        return count;
+    }
+
+
+    @After
+    @Override
+    public void close()
+    {
+        if (store != null)
+            store.close();
+        if (file != null)
+            file.delete();
+    }
+}